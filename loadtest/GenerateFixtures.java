@@ -0,0 +1,86 @@
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Writes the upload payloads of the load test into the given directory (default {@code loadtest/fixtures}): card
+ * sides, booklet page, selfie and reference still as JPEG, the signature as PNG and a video-sized MP4 placeholder.
+ * Images are real, noisy pictures of production dimensions so branding and compression cost what they do in
+ * production; the simulator does not decode the video, so random bytes of a typical size are enough.
+ * <p>
+ * Run with {@code java loadtest/GenerateFixtures.java [directory]}.
+ */
+public class GenerateFixtures {
+
+    private static final Random RANDOM = new Random(42);
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args.length > 0 ? args[0] : "loadtest/fixtures");
+        Files.createDirectories(directory);
+        write(picture(1600, 1010, "CARD FRONT"), "jpg", directory.resolve("card-front.jpg"));
+        write(picture(1600, 1010, "CARD BACK"), "jpg", directory.resolve("card-back.jpg"));
+        write(picture(1240, 1754, "BOOKLET PAGE"), "jpg", directory.resolve("booklet-page.jpg"));
+        write(picture(1080, 1440, "SELFIE"), "jpg", directory.resolve("selfie.jpg"));
+        write(signature(), "png", directory.resolve("signature.png"));
+        byte[] video = new byte[4 * 1024 * 1024];
+        RANDOM.nextBytes(video);
+        Files.write(directory.resolve("video.mp4"), video);
+        System.out.println("Fixtures written to " + directory.toAbsolutePath());
+    }
+
+    private static BufferedImage picture(int width, int height, String label) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, new Color(0x2B5876), width, height, new Color(0xD8E1E7)));
+        graphics.fillRect(0, 0, width, height);
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, height / 12));
+        graphics.setColor(Color.WHITE);
+        graphics.drawString(label, width / 10, height / 2);
+        graphics.dispose();
+        // Sensor-like noise keeps the JPEG close to the size of a photographed document.
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = image.getRGB(x, y);
+                int noise = RANDOM.nextInt(33) - 16;
+                int r = clamp(((rgb >> 16) & 0xFF) + noise);
+                int g = clamp(((rgb >> 8) & 0xFF) + noise);
+                int b = clamp((rgb & 0xFF) + noise);
+                image.setRGB(x, y, (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    private static BufferedImage signature() {
+        BufferedImage image = new BufferedImage(800, 300, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(0x1A237E));
+        int previousX = 40;
+        int previousY = 150;
+        for (int x = 50; x < 760; x += 10) {
+            int y = 150 + (int) (Math.sin(x / 23.0) * 60) + RANDOM.nextInt(11) - 5;
+            graphics.drawLine(previousX, previousY, x, y);
+            previousX = x;
+            previousY = y;
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    private static void write(BufferedImage image, String format, Path target) throws IOException {
+        if (!ImageIO.write(image, format, target.toFile())) {
+            throw new IOException("No " + format + " writer available");
+        }
+    }
+}
@@ -0,0 +1,279 @@
+// Full-journey load test of kyc-services, driven by loadtest/run.sh.
+//
+// Every iteration is one applicant going through the whole workflow:
+//   start -> consent -> card status -> card upload (or tracking number + booklet pages) -> selfie -> video
+//   -> address -> signature -> customer info
+// and then polls /kyc/status until the process reports COMPLETED. A second scenario scrapes /actuator/prometheus
+// for heap and GC figures while the journeys run.
+//
+// Environment: BASE_URL, FIXTURES, VUS, RAMP, DURATION, BOOKLET_SHARE, SUMMARY and the per-step p95 budgets
+// (P95_<STEP>_MS) read below. Failing a threshold makes k6 exit with code 99, which fails the CI job.
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+import exec from 'k6/execution';
+import { Counter, Gauge, Rate, Trend } from 'k6/metrics';
+import { textSummary } from 'https://jslib.k6.io/k6-summary/0.1.0/index.js';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8002';
+const FIXTURES = __ENV.FIXTURES || './fixtures';
+const VUS = parseInt(__ENV.VUS || '20', 10);
+const RAMP = __ENV.RAMP || '1m';
+const DURATION = __ENV.DURATION || '5m';
+const BOOKLET_SHARE = parseFloat(__ENV.BOOKLET_SHARE || '0.3');
+const COMPLETION_TIMEOUT_S = parseInt(__ENV.COMPLETION_TIMEOUT_S || '30', 10);
+
+const STEPS = ['start', 'consent', 'card_status', 'card', 'tracking', 'booklet', 'selfie', 'video', 'address',
+    'signature', 'customer_info'];
+
+// Budgets in milliseconds; calibrated against the esb-simulator profile's latencies, override per run if needed.
+const P95_BUDGET_MS = {
+    start: 1500,
+    consent: 1000,
+    card_status: 1000,
+    card: 6000,
+    tracking: 1000,
+    booklet: 4000,
+    selfie: 3000,
+    video: 12000,
+    address: 2000,
+    signature: 1500,
+    customer_info: 1000,
+};
+
+const stepDuration = new Trend('kyc_step_duration', true);
+const stepFailed = new Rate('kyc_step_failed');
+const journeyDuration = new Trend('kyc_journey_duration', true);
+const journeysCompleted = new Counter('kyc_journeys_completed');
+const journeyCompleted = new Rate('kyc_journey_completed');
+const heapUsed = new Trend('jvm_heap_used_bytes');
+const heapCommitted = new Gauge('jvm_heap_committed_bytes');
+const gcPauses = new Gauge('jvm_gc_pauses');
+const gcPauseTime = new Gauge('jvm_gc_pause_seconds_total');
+const gcPauseMax = new Trend('jvm_gc_pause_max_seconds');
+const allocated = new Gauge('jvm_gc_allocated_bytes');
+
+const thresholds = {
+    kyc_step_failed: [`rate<${__ENV.MAX_ERROR_RATE || '0.01'}`],
+    kyc_journey_completed: [`rate>${__ENV.MIN_COMPLETION_RATE || '0.99'}`],
+};
+for (const step of STEPS) {
+    const budget = __ENV[`P95_${step.toUpperCase()}_MS`] || P95_BUDGET_MS[step];
+    thresholds[`kyc_step_duration{step:${step}}`] = [`p(95)<${budget}`];
+}
+
+export const options = {
+    scenarios: {
+        journeys: {
+            executor: 'ramping-vus',
+            exec: 'journey',
+            startVUs: 1,
+            stages: [
+                { duration: RAMP, target: VUS },
+                { duration: DURATION, target: VUS },
+                { duration: '30s', target: 0 },
+            ],
+            gracefulRampDown: '60s',
+        },
+        jvm: {
+            executor: 'constant-arrival-rate',
+            exec: 'scrapeJvm',
+            rate: 1,
+            timeUnit: '5s',
+            duration: addDurations(RAMP, DURATION, '30s'),
+            preAllocatedVUs: 1,
+        },
+    },
+    thresholds,
+    summaryTrendStats: ['avg', 'min', 'med', 'p(95)', 'p(99)', 'max'],
+    discardResponseBodies: false,
+};
+
+const files = {
+    cardFront: open(`${FIXTURES}/card-front.jpg`, 'b'),
+    cardBack: open(`${FIXTURES}/card-back.jpg`, 'b'),
+    booklet: open(`${FIXTURES}/booklet-page.jpg`, 'b'),
+    selfie: open(`${FIXTURES}/selfie.jpg`, 'b'),
+    signature: open(`${FIXTURES}/signature.png`, 'b'),
+    video: open(`${FIXTURES}/video.mp4`, 'b'),
+};
+
+const JSON_HEADERS = { headers: { 'Content-Type': 'application/json' } };
+
+export function journey() {
+    const nationalCode = randomNationalCode();
+    const began = Date.now();
+
+    const started = step('start', () => http.post(`${BASE_URL}/kyc/start`,
+        JSON.stringify({ nationalCode }), JSON_HEADERS));
+    if (!started) {
+        journeyCompleted.add(false);
+        return;
+    }
+    const processInstanceId = started.json('processInstanceId');
+    const bookletPath = Math.random() < BOOKLET_SHARE;
+
+    const ok = step('consent', () => http.post(`${BASE_URL}/kyc/consent`,
+            JSON.stringify({ processInstanceId, termsVersion: 'v1', accepted: true }), JSON_HEADERS))
+        && step('card_status', () => http.post(`${BASE_URL}/kyc/card/status`,
+            JSON.stringify({ processInstanceId, hasNewNationalCard: !bookletPath }), JSON_HEADERS))
+        && (bookletPath ? bookletSteps(processInstanceId) : cardStep(processInstanceId, nationalCode))
+        && step('selfie', () => http.post(`${BASE_URL}/kyc/selfie`, {
+            selfie: http.file(files.selfie, 'selfie.jpg', 'image/jpeg'),
+            processInstanceId,
+        }))
+        && step('video', () => http.post(`${BASE_URL}/kyc/video`, {
+            video: http.file(files.video, 'video.mp4', 'video/mp4'),
+            image1: http.file(files.selfie, 'selfie.jpg', 'image/jpeg'),
+            processInstanceId,
+        }))
+        && step('address', () => http.post(`${BASE_URL}/kyc/address`,
+            JSON.stringify({ processInstanceId, postalCode: randomDigits(10), address: 'Tehran, Valiasr St., No. 1' }),
+            JSON_HEADERS))
+        && step('signature', () => http.post(`${BASE_URL}/kyc/signature`, {
+            signature: http.file(files.signature, 'signature.png', 'image/png'),
+            processInstanceId,
+        }))
+        && step('customer_info', () => http.post(`${BASE_URL}/kyc/customer-info`, JSON.stringify({
+            processInstanceId,
+            firstNameEn: 'Load',
+            lastNameEn: `Test${exec.vu.idInTest}`,
+            email: `load.${nationalCode}@example.com`,
+            telephone: `0912${randomDigits(7)}`,
+        }), JSON_HEADERS));
+
+    const completed = ok && awaitCompletion(nationalCode);
+    journeyCompleted.add(completed);
+    if (completed) {
+        journeysCompleted.add(1);
+        journeyDuration.add(Date.now() - began);
+    }
+}
+
+function cardStep(processInstanceId, nationalCode) {
+    // The simulator reads the national code on the card from the front image's file name.
+    return step('card', () => http.post(`${BASE_URL}/kyc/card`, {
+        frontImage: http.file(files.cardFront, `${nationalCode}.jpg`, 'image/jpeg'),
+        backImage: http.file(files.cardBack, 'card-back.jpg', 'image/jpeg'),
+        processInstanceId,
+    }));
+}
+
+function bookletSteps(processInstanceId) {
+    return step('tracking', () => http.post(`${BASE_URL}/kyc/card/tracking`,
+            JSON.stringify({ trackingNumber: randomDigits(12), processInstanceNumber: processInstanceId }),
+            JSON_HEADERS))
+        && step('booklet', () => http.post(`${BASE_URL}/kyc/booklets`, {
+            pages: http.file(files.booklet, 'booklet-page.jpg', 'image/jpeg'),
+            processInstanceId,
+        }));
+}
+
+function step(name, call) {
+    const response = call();
+    const passed = check(response, { [`${name} is 2xx`]: (r) => r.status >= 200 && r.status < 300 }, { step: name });
+    stepDuration.add(response.timings.duration, { step: name });
+    stepFailed.add(!passed, { step: name });
+    if (!passed) {
+        console.warn(`${name} failed with ${response.status}: ${String(response.body).substring(0, 300)}`);
+        return null;
+    }
+    return response;
+}
+
+function awaitCompletion(nationalCode) {
+    const deadline = Date.now() + COMPLETION_TIMEOUT_S * 1000;
+    while (Date.now() < deadline) {
+        const response = http.post(`${BASE_URL}/kyc/status`, JSON.stringify({ nationalCode }),
+            Object.assign({ tags: { name: 'status poll' } }, JSON_HEADERS));
+        if (response.status === 200 && response.json('status') === 'COMPLETED') {
+            return true;
+        }
+        sleep(0.5);
+    }
+    console.warn(`process of ${nationalCode} did not complete within ${COMPLETION_TIMEOUT_S}s`);
+    return false;
+}
+
+let gcBaseline = null;
+
+export function scrapeJvm() {
+    const response = http.get(`${BASE_URL}/actuator/prometheus`, { tags: { name: 'prometheus' } });
+    if (response.status !== 200) {
+        return;
+    }
+    const sample = parsePrometheus(response.body);
+    if (gcBaseline === null) {
+        gcBaseline = sample;
+    }
+    heapUsed.add(sample.heapUsed);
+    heapCommitted.add(sample.heapCommitted);
+    gcPauses.add(sample.gcCount - gcBaseline.gcCount);
+    gcPauseTime.add(sample.gcSeconds - gcBaseline.gcSeconds);
+    gcPauseMax.add(sample.gcMax);
+    allocated.add(sample.allocated - gcBaseline.allocated);
+}
+
+function parsePrometheus(body) {
+    const sample = { heapUsed: 0, heapCommitted: 0, gcCount: 0, gcSeconds: 0, gcMax: 0, allocated: 0 };
+    for (const line of body.split('\n')) {
+        if (line.startsWith('#')) {
+            continue;
+        }
+        const value = parseFloat(line.substring(line.lastIndexOf(' ') + 1));
+        if (line.startsWith('jvm_memory_used_bytes{') && line.includes('area="heap"')) {
+            sample.heapUsed += value;
+        } else if (line.startsWith('jvm_memory_committed_bytes{') && line.includes('area="heap"')) {
+            sample.heapCommitted += value;
+        } else if (line.startsWith('jvm_gc_pause_seconds_count{')) {
+            sample.gcCount += value;
+        } else if (line.startsWith('jvm_gc_pause_seconds_sum{')) {
+            sample.gcSeconds += value;
+        } else if (line.startsWith('jvm_gc_pause_seconds_max{')) {
+            sample.gcMax = Math.max(sample.gcMax, value);
+        } else if (line.startsWith('jvm_gc_memory_allocated_bytes_total')) {
+            sample.allocated += value;
+        }
+    }
+    return sample;
+}
+
+export function handleSummary(data) {
+    const outputs = { stdout: textSummary(data, { indent: ' ', enableColors: true }) };
+    outputs[__ENV.SUMMARY || 'results/summary.json'] = JSON.stringify(data, null, 2);
+    return outputs;
+}
+
+// Valid Iranian national code: nine random digits followed by their mod-11 check digit.
+function randomNationalCode() {
+    for (;;) {
+        const digits = randomDigits(9);
+        if (/^(\d)\1*$/.test(digits)) {
+            continue;
+        }
+        let sum = 0;
+        for (let i = 0; i < 9; i++) {
+            sum += parseInt(digits[i], 10) * (10 - i);
+        }
+        const remainder = sum % 11;
+        return digits + (remainder < 2 ? remainder : 11 - remainder);
+    }
+}
+
+function randomDigits(length) {
+    let digits = '';
+    for (let i = 0; i < length; i++) {
+        digits += Math.floor(Math.random() * 10);
+    }
+    return digits;
+}
+
+function addDurations(...durations) {
+    const units = { ms: 0.001, s: 1, m: 60, h: 3600 };
+    let seconds = 0;
+    for (const duration of durations) {
+        for (const [, amount, unit] of duration.matchAll(/(\d+(?:\.\d+)?)(ms|s|m|h)/g)) {
+            seconds += parseFloat(amount) * units[unit];
+        }
+    }
+    return `${Math.ceil(seconds)}s`;
+}
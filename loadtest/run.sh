@@ -0,0 +1,97 @@
+#!/bin/bash
+# loadtest/run.sh - full-journey load test against local infrastructure.
+#
+# Starts PostgreSQL, MinIO and Zeebe (docker-compose.yml), builds and starts the application with the loadtest and
+# esb-simulator profiles, runs kyc-flow.js with k6 and tears everything down again. The k6 exit code is returned, so
+# a breached threshold (error rate, completion rate, per-step p95) fails the calling CI job.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RESULTS_DIR=${RESULTS_DIR:-loadtest/results}
+FIXTURES_DIR=${FIXTURES_DIR:-loadtest/fixtures}
+APP_PORT=${APP_PORT:-8002}
+JAVA_OPTS=${JAVA_OPTS:--Xms1g -Xmx1g -XX:+UseG1GC}
+SKIP_BUILD=${SKIP_BUILD:-false}
+KEEP_INFRA=${KEEP_INFRA:-false}
+STARTUP_TIMEOUT=${STARTUP_TIMEOUT:-240}
+COMPOSE="docker compose -f loadtest/docker-compose.yml -p kyc-loadtest"
+
+mkdir -p "$RESULTS_DIR"
+APP_PID=""
+
+cleanup() {
+  if [ -n "$APP_PID" ]; then
+    kill "$APP_PID" 2>/dev/null || true
+    wait "$APP_PID" 2>/dev/null || true
+  fi
+  if [ "$KEEP_INFRA" != "true" ]; then
+    $COMPOSE down -v >/dev/null 2>&1 || true
+  fi
+}
+trap cleanup EXIT
+
+echo "Starting PostgreSQL, MinIO and Zeebe"
+$COMPOSE up -d --wait
+
+if [ ! -f "$FIXTURES_DIR/video.mp4" ]; then
+  java loadtest/GenerateFixtures.java "$FIXTURES_DIR"
+fi
+
+if [ "$SKIP_BUILD" != "true" ]; then
+  ./mvnw -B -q -DskipTests package
+fi
+JAR=$(ls target/kyc-services-*.jar | grep -v plain | head -n 1)
+
+echo "Starting $JAR"
+# shellcheck disable=SC2086
+java $JAVA_OPTS \
+  -Xlog:gc*:file="$RESULTS_DIR/gc.log":time,uptime,level,tags \
+  -jar "$JAR" \
+  --server.port="$APP_PORT" \
+  --spring.profiles.active=loadtest,esb-simulator \
+  > "$RESULTS_DIR/app.log" 2>&1 &
+APP_PID=$!
+
+for ((i = 0; i < STARTUP_TIMEOUT; i += 2)); do
+  if curl -fs "http://localhost:$APP_PORT/actuator/health" | grep -q '"UP"'; then
+    break
+  fi
+  if ! kill -0 "$APP_PID" 2>/dev/null; then
+    echo "Application exited during startup, see $RESULTS_DIR/app.log" >&2
+    exit 1
+  fi
+  sleep 2
+done
+if ! curl -fs "http://localhost:$APP_PORT/actuator/health" | grep -q '"UP"'; then
+  echo "Application not healthy after ${STARTUP_TIMEOUT}s, see $RESULTS_DIR/app.log" >&2
+  exit 1
+fi
+
+echo "Running k6"
+if command -v k6 >/dev/null 2>&1; then
+  WORK_ROOT=$PWD
+  K6=(k6 run)
+else
+  WORK_ROOT=/work
+  K6=(docker run --rm --network host -u "$(id -u):$(id -g)" -v "$PWD:/work" -w /work grafana/k6:0.57.0 run)
+fi
+K6_ENV=(-e "BASE_URL=http://localhost:$APP_PORT"
+        -e "FIXTURES=$WORK_ROOT/$FIXTURES_DIR"
+        -e "SUMMARY=$WORK_ROOT/$RESULTS_DIR/summary.json")
+for name in VUS RAMP DURATION BOOKLET_SHARE COMPLETION_TIMEOUT_S MAX_ERROR_RATE MIN_COMPLETION_RATE; do
+  if [ -n "${!name:-}" ]; then
+    K6_ENV+=(-e "$name=${!name}")
+  fi
+done
+while IFS='=' read -r name value; do
+  K6_ENV+=(-e "$name=$value")
+done < <(env | grep -E '^P95_[A-Z_]+_MS=' || true)
+
+set +e
+"${K6[@]}" "${K6_ENV[@]}" loadtest/kyc-flow.js
+STATUS=$?
+set -e
+
+echo "Summary: $RESULTS_DIR/summary.json, GC log: $RESULTS_DIR/gc.log, application log: $RESULTS_DIR/app.log"
+exit $STATUS
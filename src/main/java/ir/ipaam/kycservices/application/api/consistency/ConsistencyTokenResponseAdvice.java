@@ -0,0 +1,35 @@
+package ir.ipaam.kycservices.application.api.consistency;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the {@value ConsistencyTokens#HEADER} header to responses of requests that committed at least one command.
+ */
+@RestControllerAdvice
+public class ConsistencyTokenResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest) {
+            Object token = servletRequest.getServletRequest().getAttribute(ConsistencyTokens.REQUEST_ATTRIBUTE);
+            if (token != null) {
+                response.getHeaders().set(ConsistencyTokens.HEADER, token.toString());
+            }
+        }
+        return body;
+    }
+}
@@ -0,0 +1,81 @@
+package ir.ipaam.kycservices.application.api.consistency;
+
+import ir.ipaam.kycservices.infrastructure.projection.ProjectionConsistency;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.axonframework.commandhandling.CommandBus;
+import org.axonframework.commandhandling.CommandMessage;
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.EventBus;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.MessageHandlerInterceptor;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.OptionalLong;
+
+/**
+ * Records, for the current HTTP request, the global index of the last event appended by the commands it dispatched.
+ * The value is returned to the client in the {@value #HEADER} response header by
+ * {@link ConsistencyTokenResponseAdvice}, and can be sent back on status and document queries to read the projection
+ * at least at that event. Requests whose commands appended no event get no token.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConsistencyTokens implements MessageHandlerInterceptor<CommandMessage<?>> {
+
+    public static final String HEADER = "X-Consistency-Token";
+    static final String REQUEST_ATTRIBUTE = ConsistencyTokens.class.getName() + ".token";
+    private static final String LAST_EVENT_RESOURCE = ConsistencyTokens.class.getName() + ".lastEvent";
+
+    private final CommandBus commandBus;
+    private final EventBus eventBus;
+    private final ProjectionConsistency projectionConsistency;
+
+    @PostConstruct
+    void register() {
+        commandBus.registerHandlerInterceptor(this);
+        eventBus.registerDispatchInterceptor(messages -> (index, event) -> {
+            if (event instanceof DomainEventMessage<?> domainEvent && CurrentUnitOfWork.isStarted()) {
+                CurrentUnitOfWork.get().root().resources().put(LAST_EVENT_RESOURCE, domainEvent);
+            }
+            return event;
+        });
+    }
+
+    @Override
+    public Object handle(UnitOfWork<? extends CommandMessage<?>> unitOfWork, InterceptorChain interceptorChain)
+            throws Exception {
+        // Commands are handled on the dispatching thread, so the request that sent them is still bound here.
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            unitOfWork.afterCommit(committed -> {
+                DomainEventMessage<?> lastEvent = committed.root().getResource(LAST_EVENT_RESOURCE);
+                if (lastEvent != null) {
+                    record(request, lastEvent);
+                }
+            });
+        }
+        return interceptorChain.proceed();
+    }
+
+    private void record(RequestAttributes request, DomainEventMessage<?> lastEvent) {
+        try {
+            OptionalLong index = projectionConsistency.globalIndexOf(lastEvent.getAggregateIdentifier(),
+                    lastEvent.getSequenceNumber());
+            if (index.isEmpty()) {
+                return;
+            }
+            Object previous = request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            long token = previous instanceof Long value ? Math.max(value, index.getAsLong()) : index.getAsLong();
+            request.setAttribute(REQUEST_ATTRIBUTE, token, RequestAttributes.SCOPE_REQUEST);
+        } catch (RuntimeException ex) {
+            log.warn("Unable to determine consistency token", ex);
+        }
+    }
+}
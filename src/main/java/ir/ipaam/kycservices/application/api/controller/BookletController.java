@@ -2,11 +2,14 @@ package ir.ipaam.kycservices.application.api.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import ir.ipaam.kycservices.application.api.dto.BookletUploadCompletionRequest;
+import ir.ipaam.kycservices.application.service.ResumableUploadService;
 import ir.ipaam.kycservices.application.service.impl.BookletValidationServiceImpl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
@@ -24,6 +27,7 @@ public class BookletController {
     public static final long MAX_PAGE_SIZE_BYTES = BookletValidationServiceImpl.MAX_PAGE_SIZE_BYTES;
 
     private final BookletValidationServiceImpl bookletValidationServiceImpl;
+    private final ResumableUploadService resumableUploadService;
 
 
     @Operation(
@@ -37,4 +41,15 @@ public class BookletController {
             @RequestPart("processInstanceId") String processInstanceId) {
         return bookletValidationServiceImpl.uploadBookletPages(pages, processInstanceId);
     }
+
+    @Operation(
+            summary = "Submit booklet pages uploaded in chunks",
+            description = "Completes up to four resumable BOOKLET_PAGE uploads started under /kyc/uploads, in page "
+                    + "order, and processes them like a multipart booklet upload."
+    )
+    @PostMapping(path = "/resumable", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> completeResumableBookletPages(
+            @RequestBody BookletUploadCompletionRequest request) {
+        return resumableUploadService.completeBooklet(request.processInstanceId(), request.uploadIds());
+    }
 }
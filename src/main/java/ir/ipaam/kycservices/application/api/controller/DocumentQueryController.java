@@ -2,10 +2,13 @@ package ir.ipaam.kycservices.application.api.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import ir.ipaam.kycservices.application.api.consistency.ConsistencyTokens;
 import ir.ipaam.kycservices.application.api.dto.DocumentQueryRequest;
 import ir.ipaam.kycservices.application.api.error.ResourceNotFoundException;
 import ir.ipaam.kycservices.application.api.error.ErrorMessageKeys;
 import ir.ipaam.kycservices.application.api.error.DocumentNotFoundException;
+import ir.ipaam.kycservices.application.api.error.ProjectionBehindException;
+import ir.ipaam.kycservices.infrastructure.projection.ProjectionConsistency;
 import ir.ipaam.kycservices.infrastructure.service.DocumentRetrievalService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -13,6 +16,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -23,15 +27,23 @@ import org.springframework.web.bind.annotation.RestController;
 public class DocumentQueryController {
 
     private final DocumentRetrievalService documentRetrievalService;
+    private final ProjectionConsistency projectionConsistency;
 
     @Operation(
             summary = "Download the latest document",
             description = "Streams the most recent stored document for the provided national code and document type. "
-                    + "Returns HTTP 404 when the requested artifact is not available."
+                    + "Returns HTTP 404 when the requested artifact is not available. Passing the X-Consistency-Token "
+                    + "returned by an upload waits, for a bounded time, until that upload is stored, and returns HTTP "
+                    + "503 if it is not stored by then."
     )
     @PostMapping(value = "/latest", consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public ResponseEntity<byte[]> fetchLatestDocument(@Valid @RequestBody DocumentQueryRequest request) {
+    public ResponseEntity<byte[]> fetchLatestDocument(
+            @Valid @RequestBody DocumentQueryRequest request,
+            @RequestHeader(value = ConsistencyTokens.HEADER, required = false) Long consistencyToken) {
+        if (consistencyToken != null && !projectionConsistency.awaitProcessed(consistencyToken)) {
+            throw new ProjectionBehindException(ErrorMessageKeys.PROJECTION_BEHIND);
+        }
         DocumentRetrievalService.RetrievedDocument document;
         try {
             document = documentRetrievalService.retrieveLatestDocument(request.nationalCode(), request.documentType());
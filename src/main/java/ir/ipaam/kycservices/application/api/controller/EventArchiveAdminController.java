@@ -0,0 +1,54 @@
+package ir.ipaam.kycservices.application.api.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import ir.ipaam.kycservices.infrastructure.eventstore.AuditedEvent;
+import ir.ipaam.kycservices.infrastructure.eventstore.EventArchiveService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archive and audit endpoints, only available with the {@value #PROFILE} profile because the history lists every
+ * event of a process.
+ */
+@RestController
+@RequiredArgsConstructor
+@Profile(EventArchiveAdminController.PROFILE)
+@RequestMapping("/kyc/admin/archive")
+@Tag(name = "Admin Service", description = "Operate the KYC read-model projections.")
+public class EventArchiveAdminController {
+
+    public static final String PROFILE = "event-audit";
+
+    private final EventArchiveService eventArchiveService;
+
+    @Operation(
+            summary = "Archive finished processes",
+            description = "Moves the events of processes completed or cancelled more than the configured retention "
+                    + "period ago to the archive table and returns the number of processes archived."
+    )
+    @PostMapping
+    public ResponseEntity<Map<String, Integer>> archive() {
+        return ResponseEntity.ok(Map.of("archivedProcesses", eventArchiveService.archiveFinishedProcesses()));
+    }
+
+    @Operation(
+            summary = "Get the event history of a process",
+            description = "Returns the type of every event of the process in order, with the name and size of the "
+                    + "files it uploaded, read from the archive when the process has been archived and from the live "
+                    + "event store otherwise."
+    )
+    @GetMapping("/{processInstanceId}/events")
+    public ResponseEntity<List<AuditedEvent>> history(@PathVariable String processInstanceId) {
+        return ResponseEntity.ok(eventArchiveService.readHistory(processInstanceId));
+    }
+}
@@ -0,0 +1,79 @@
+package ir.ipaam.kycservices.application.api.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import ir.ipaam.kycservices.infrastructure.profiling.FlightRecordingService;
+import ir.ipaam.kycservices.infrastructure.profiling.FlightRecordingStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+@RestController
+@RequiredArgsConstructor
+@Profile(FlightRecordingService.PROFILE)
+@RequestMapping("/kyc/admin/profiling/recording")
+@Tag(name = "Admin Service", description = "Record JDK Flight Recorder profiles of the running instance.")
+public class FlightRecordingAdminController {
+
+    private final FlightRecordingService flightRecordingService;
+
+    @Operation(
+            summary = "Start a flight recording",
+            description = "Starts a JDK Flight Recorder recording with the KYC profiling settings for the given ISO-8601 "
+                    + "duration (e.g. PT5M), capped at the configured maximum. Returns HTTP 409 when a recording is "
+                    + "already running."
+    )
+    @PostMapping
+    public ResponseEntity<FlightRecordingStatus> start(@RequestParam(required = false) Duration duration) {
+        if (!flightRecordingService.start(duration)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(flightRecordingService.status());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(flightRecordingService.status());
+    }
+
+    @Operation(
+            summary = "Stop the flight recording",
+            description = "Stops the running recording early and keeps its file for download."
+    )
+    @PostMapping("/stop")
+    public ResponseEntity<FlightRecordingStatus> stop() {
+        return ResponseEntity.ok(flightRecordingService.stop());
+    }
+
+    @Operation(
+            summary = "Get the flight recording state",
+            description = "Returns whether a recording is running, when it started, its duration and its size so far."
+    )
+    @GetMapping
+    public ResponseEntity<FlightRecordingStatus> status() {
+        return ResponseEntity.ok(flightRecordingService.status());
+    }
+
+    @Operation(
+            summary = "Download the flight recording",
+            description = "Returns the .jfr file of the last recording, or a snapshot of the data recorded so far while "
+                    + "it runs, for JDK Mission Control or the jfr tool. Returns HTTP 404 when nothing was recorded."
+    )
+    @GetMapping("/file")
+    public ResponseEntity<InputStreamResource> download() {
+        return flightRecordingService.open()
+                .map(content -> ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header(HttpHeaders.CONTENT_DISPOSITION,
+                                ContentDisposition.attachment().filename("kyc-recording.jfr").build().toString())
+                        .body(new InputStreamResource(content)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
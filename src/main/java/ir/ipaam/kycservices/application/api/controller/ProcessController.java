@@ -3,25 +3,39 @@ package ir.ipaam.kycservices.application.api.controller;
 import io.camunda.zeebe.client.ZeebeClient;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import ir.ipaam.kycservices.application.api.consistency.ConsistencyTokens;
 import ir.ipaam.kycservices.application.api.dto.*;
+import ir.ipaam.kycservices.application.api.error.ProjectionBehindException;
+import ir.ipaam.kycservices.application.service.KycStatusQueryService;
+import ir.ipaam.kycservices.application.service.KycStatusStreamService;
 import ir.ipaam.kycservices.application.service.ProcessService;
 import ir.ipaam.kycservices.application.service.dto.CancelProcessResponse;
+import ir.ipaam.kycservices.application.service.dto.VersionedKycStatus;
 import ir.ipaam.kycservices.domain.command.StartKycProcessCommand;
 import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
+import ir.ipaam.kycservices.infrastructure.projection.ProjectionConsistency;
 import ir.ipaam.kycservices.infrastructure.service.KycServiceTasks;
+import ir.ipaam.kycservices.infrastructure.tracing.KycTracing;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.axonframework.commandhandling.gateway.CommandGateway;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 
 import java.util.Map;
 
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.PROJECTION_BEHIND;
+
 @RestController
 @RequestMapping("/kyc")
 @RequiredArgsConstructor
@@ -33,6 +47,10 @@ public class ProcessController {
     private final CommandGateway commandGateway;
     private final ZeebeClient zeebeClient;
     private final ProcessService processService;
+    private final KycStatusStreamService kycStatusStreamService;
+    private final KycStatusQueryService kycStatusQueryService;
+    private final ProjectionConsistency projectionConsistency;
+    private final KycTracing kycTracing;
 
     @Operation(
             summary = "▶ Start a new KYC process",
@@ -58,7 +76,7 @@ public class ProcessController {
         long key = zeebeClient.newCreateInstanceCommand()
                 .bpmnProcessId("kyc-process")
                 .latestVersion()
-                .variables(Map.of("nationalCode", request.nationalCode()))
+                .variables(kycTracing.withTraceContext(Map.of("nationalCode", request.nationalCode())))
                 .send()
                 .join()
                 .getProcessInstanceKey();
@@ -70,12 +88,53 @@ public class ProcessController {
     @Operation(
             summary = "❚❚ Get KYC process state",
             description = "Looks up the latest workflow snapshot for the supplied national code and maps it to the "
-                    + "public KYC status response."
+                    + "public KYC status response. The response carries an ETag; sending it back in If-None-Match "
+                    + "returns HTTP 304 without loading the status while it is unchanged. Passing the "
+                    + "X-Consistency-Token returned by a command endpoint waits, for a bounded time, until that "
+                    + "change is visible, and returns HTTP 503 if it is not visible by then."
     )
     @PostMapping("/status")
-    public ResponseEntity<KycStatusResponse> getStatus(@Valid @RequestBody KycStatusRequest request) {
-        ProcessInstance instance = kycServiceTasks.checkKycStatus(request.nationalCode());
-        return ResponseEntity.ok(KycStatusResponse.success(instance));
+    public ResponseEntity<KycStatusResponse> getStatus(
+            @Valid @RequestBody KycStatusRequest request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = ConsistencyTokens.HEADER, required = false) Long consistencyToken) {
+        if (consistencyToken != null && !projectionConsistency.awaitProcessed(consistencyToken)) {
+            throw new ProjectionBehindException(PROJECTION_BEHIND);
+        }
+        String currentETag = kycStatusQueryService.currentETag(request.nationalCode());
+        if (consistencyToken == null && currentETag != null && matchesETag(ifNoneMatch, currentETag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag).build();
+        }
+        VersionedKycStatus status = kycStatusQueryService.loadStatus(request.nationalCode());
+        return ResponseEntity.ok().eTag(status.etag()).body(status.status());
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Operation(
+            summary = "❚❚ Stream KYC process state",
+            description = "Opens a server-sent event stream that sends the current status followed by every recorded "
+                    + "step, with periodic heartbeats, until the process completes or is cancelled. The national code "
+                    + "is sent in the body, like POST /kyc/status, so it never appears in URLs or access logs. Returns "
+                    + "HTTP 429 when the connection limit is reached."
+    )
+    @PostMapping(value = "/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamStatus(@Valid @RequestBody KycStatusRequest request) {
+        return kycStatusStreamService.streamStatus(request.nationalCode());
     }
 
     @Operation(
@@ -0,0 +1,45 @@
+package ir.ipaam.kycservices.application.api.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import ir.ipaam.kycservices.infrastructure.projection.ProjectionRebuildService;
+import ir.ipaam.kycservices.infrastructure.projection.ProjectionRebuildStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/kyc/admin/projections")
+@Tag(name = "Admin Service", description = "Operate the KYC read-model projections.")
+public class ProjectionAdminController {
+
+    private final ProjectionRebuildService projectionRebuildService;
+
+    @Operation(
+            summary = "Rebuild the KYC projections",
+            description = "Pauses the projection processor, replays the event store into shadow tables without "
+                    + "touching object storage, swaps them in atomically and resumes the processor. Returns HTTP 409 "
+                    + "when a rebuild is already running."
+    )
+    @PostMapping("/rebuild")
+    public ResponseEntity<ProjectionRebuildStatus> rebuild() {
+        if (!projectionRebuildService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(projectionRebuildService.status());
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(projectionRebuildService.status());
+    }
+
+    @Operation(
+            summary = "Get projection rebuild progress",
+            description = "Returns the phase, processed event count and throughput of the current or last rebuild."
+    )
+    @GetMapping("/rebuild")
+    public ResponseEntity<ProjectionRebuildStatus> rebuildStatus() {
+        return ResponseEntity.ok(projectionRebuildService.status());
+    }
+}
@@ -0,0 +1,84 @@
+package ir.ipaam.kycservices.application.api.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import ir.ipaam.kycservices.application.api.dto.CreateUploadRequest;
+import ir.ipaam.kycservices.application.service.ResumableUploadService;
+import ir.ipaam.kycservices.application.service.dto.UploadSessionResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.net.URI;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/kyc/uploads")
+@Tag(name = "Resumable Upload Service", description = "Upload videos and booklet pages in chunks that survive dropped connections.")
+public class ResumableUploadController {
+
+    public static final String CHUNK_CONTENT_TYPE = "application/offset+octet-stream";
+    public static final String UPLOAD_OFFSET_HEADER = "Upload-Offset";
+
+    private final ResumableUploadService resumableUploadService;
+
+    @Operation(
+            summary = "Start a resumable upload",
+            description = "Opens an upload of a VIDEO or BOOKLET_PAGE of the declared size. The response carries the "
+                    + "uploadId and the chunk size every chunk but the last must have."
+    )
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UploadSessionResponse> createUpload(@RequestBody CreateUploadRequest request) {
+        UploadSessionResponse response = resumableUploadService.createUpload(request);
+        return ResponseEntity.created(URI.create("/kyc/uploads/" + response.uploadId()))
+                .header(UPLOAD_OFFSET_HEADER, Long.toString(response.offset()))
+                .body(response);
+    }
+
+    @Operation(
+            summary = "Read the offset of a resumable upload",
+            description = "Returns how many bytes the upload holds, i.e. the offset the next chunk starts at."
+    )
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionResponse> getUpload(@PathVariable String uploadId) {
+        return withOffset(resumableUploadService.getUpload(uploadId));
+    }
+
+    @Operation(
+            summary = "Append a chunk",
+            description = "Appends the request body at the offset given in the Upload-Offset header, which must be "
+                    + "the current offset of the upload. A chunk that does not arrive completely is dropped."
+    )
+    @PatchMapping(path = "/{uploadId}", consumes = CHUNK_CONTENT_TYPE)
+    public ResponseEntity<UploadSessionResponse> appendChunk(@PathVariable String uploadId,
+                                                             @RequestHeader(UPLOAD_OFFSET_HEADER) long offset,
+                                                             HttpServletRequest request) throws IOException {
+        return withOffset(resumableUploadService.appendChunk(uploadId, offset, request.getInputStream()));
+    }
+
+    @Operation(summary = "Cancel a resumable upload")
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> cancelUpload(@PathVariable String uploadId) {
+        resumableUploadService.cancelUpload(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
+    private ResponseEntity<UploadSessionResponse> withOffset(UploadSessionResponse response) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET_HEADER, Long.toString(response.offset()))
+                .body(response);
+    }
+}
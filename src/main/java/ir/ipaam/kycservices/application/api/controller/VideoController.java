@@ -2,6 +2,7 @@ package ir.ipaam.kycservices.application.api.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import ir.ipaam.kycservices.application.service.ResumableUploadService;
 import ir.ipaam.kycservices.application.service.VideoService;
 import ir.ipaam.kycservices.application.service.dto.VideoUploadRequest;
 import ir.ipaam.kycservices.application.service.dto.VideoUploadResponse;
@@ -22,6 +23,7 @@ import org.springframework.web.multipart.MultipartFile;
 public class VideoController {
 
     private final VideoService videoService;
+    private final ResumableUploadService resumableUploadService;
 
     @Operation(
             summary = "Upload a verification video",
@@ -39,6 +41,19 @@ public class VideoController {
         return ResponseEntity.status(status).body(response);
     }
 
+    @Operation(
+            summary = "Submit a verification video uploaded in chunks",
+            description = "Completes a resumable VIDEO upload started under /kyc/uploads and processes it like "
+                    + "POST /kyc/video, with the still frame sent alongside."
+    )
+    @PostMapping(path = "/video/resumable", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<VideoUploadResponse> completeResumableVideo(
+            @RequestPart("uploadId") String uploadId,
+            @RequestPart("image1") MultipartFile image) {
+        VideoUploadResponse response = resumableUploadService.completeVideo(uploadId, image);
+        return ResponseEntity.status(resolveStatus(response)).body(response);
+    }
+
     private HttpStatus resolveStatus(VideoUploadResponse response) {
         if ("VIDEO_ALREADY_UPLOADED".equals(response.status())) {
             return HttpStatus.CONFLICT;
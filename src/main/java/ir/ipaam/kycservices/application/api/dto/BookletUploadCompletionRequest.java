@@ -0,0 +1,9 @@
+package ir.ipaam.kycservices.application.api.dto;
+
+import java.util.List;
+
+public record BookletUploadCompletionRequest(
+        String processInstanceId,
+        List<String> uploadIds
+) {
+}
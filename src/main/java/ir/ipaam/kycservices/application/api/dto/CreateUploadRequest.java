@@ -0,0 +1,10 @@
+package ir.ipaam.kycservices.application.api.dto;
+
+public record CreateUploadRequest(
+        String processInstanceId,
+        String documentType,
+        String filename,
+        String contentType,
+        Long size
+) {
+}
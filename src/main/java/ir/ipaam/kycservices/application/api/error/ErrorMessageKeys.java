@@ -16,6 +16,13 @@ public final class ErrorMessageKeys {
     public static final String TERMS_VERSION_REQUIRED = "error.termsVersion.required";
     public static final String CONSENT_MUST_BE_TRUE = "error.consent.accepted";
     public static final String REQUEST_BODY_INVALID = "error.request.invalidJson";
+    public static final String PROCESS_ARCHIVED = "error.process.archived";
+    public static final String STATUS_STREAM_LIMIT_EXCEEDED = "error.status.stream.limit";
+    public static final String STEP_IN_PROGRESS = "error.step.inProgress";
+    public static final String IDEMPOTENCY_KEY_INVALID = "error.idempotencyKey.invalid";
+    public static final String IDEMPOTENCY_KEY_REUSED = "error.idempotencyKey.reused";
+    public static final String IDEMPOTENT_REQUEST_IN_PROGRESS = "error.idempotencyKey.inProgress";
+    public static final String PROJECTION_BEHIND = "error.projection.behind";
 
     public static final String BPMN_FILE_REQUIRED = "error.bpmn.noFile";
     public static final String FILE_READ_FAILURE = "error.file.read";
@@ -36,6 +43,12 @@ public final class ErrorMessageKeys {
     public static final String VIDEO_REQUIRED = "error.video.required";
     public static final String VIDEO_TOO_LARGE = "error.video.size";
 
+    public static final String UPLOAD_NOT_FOUND = "error.upload.notFound";
+    public static final String UPLOAD_OFFSET_MISMATCH = "error.upload.offsetMismatch";
+    public static final String UPLOAD_CHUNK_SIZE = "error.upload.chunkSize";
+    public static final String UPLOAD_INCOMPLETE = "error.upload.incomplete";
+    public static final String UPLOAD_DOCUMENT_TYPE = "error.upload.documentType";
+
     public static final String WORKFLOW_ACCEPT_CONSENT_FAILED = "error.workflow.acceptConsent.failed";
     public static final String WORKFLOW_ENGLISH_INFO_FAILED = "error.workflow.englishInfo.failed";
     public static final String WORKFLOW_CARD_UPLOAD_FAILED = "error.workflow.cardUpload.failed";
@@ -82,4 +95,5 @@ public final class ErrorMessageKeys {
     public static final String STORAGE_DOCUMENT_TYPE_REQUIRED = "error.storage.documentType.required";
     public static final String STORAGE_DESCRIPTOR_DATA_REQUIRED = "error.storage.descriptor.dataRequired";
     public static final String STORAGE_UNAVAILABLE = "error.storage.unavailable";
+    public static final String ESB_UNAVAILABLE = "error.esb.unavailable";
 }
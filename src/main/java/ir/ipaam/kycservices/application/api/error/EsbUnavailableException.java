@@ -0,0 +1,18 @@
+package ir.ipaam.kycservices.application.api.error;
+
+/**
+ * Raised without calling the ESB when the endpoint's circuit breaker is open or its bulkhead is full.
+ */
+public class EsbUnavailableException extends IllegalStateException {
+
+    private final String endpoint;
+
+    public EsbUnavailableException(String endpoint, Throwable cause) {
+        super(ErrorMessageKeys.ESB_UNAVAILABLE, cause);
+        this.endpoint = endpoint;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
@@ -89,6 +89,43 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.NOT_FOUND, ex.getMessage(), PROCESS_NOT_FOUND);
     }
 
+    @ExceptionHandler(ProcessArchivedException.class)
+    public ResponseEntity<ErrorResponse> handleProcessArchivedException(ProcessArchivedException ex) {
+        return buildResponse(HttpStatus.GONE, ex.getMessage(), PROCESS_ARCHIVED);
+    }
+
+    @ExceptionHandler(StatusStreamLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleStatusStreamLimitExceededException(StatusStreamLimitExceededException ex) {
+        return buildResponse(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), STATUS_STREAM_LIMIT_EXCEEDED);
+    }
+
+    @ExceptionHandler(ProjectionBehindException.class)
+    public ResponseEntity<ErrorResponse> handleProjectionBehindException(ProjectionBehindException ex) {
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), PROJECTION_BEHIND);
+    }
+
+    @ExceptionHandler(StepInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleStepInProgressException(StepInProgressException ex) {
+        return buildResponse(HttpStatus.CONFLICT, ex.getMessage(), STEP_IN_PROGRESS);
+    }
+
+    @ExceptionHandler(UploadOffsetConflictException.class)
+    public ResponseEntity<ErrorResponse> handleUploadOffsetConflictException(UploadOffsetConflictException ex) {
+        return buildResponse(HttpStatus.CONFLICT, ex.getMessage(), UPLOAD_OFFSET_MISMATCH,
+                Map.of("offset", ex.getOffset()));
+    }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException ex) {
+        return buildResponse(HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage(), IDEMPOTENCY_KEY_REUSED);
+    }
+
+    @ExceptionHandler(IdempotentRequestInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotentRequestInProgressException(
+            IdempotentRequestInProgressException ex) {
+        return buildResponse(HttpStatus.CONFLICT, ex.getMessage(), IDEMPOTENT_REQUEST_IN_PROGRESS);
+    }
+
     @ExceptionHandler(FileProcessingException.class)
     public ResponseEntity<ErrorResponse> handleFileProcessingException(FileProcessingException ex) {
         return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), FILE_READ_FAILURE);
@@ -99,6 +136,12 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), STORAGE_UNAVAILABLE);
     }
 
+    @ExceptionHandler(EsbUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleEsbUnavailableException(EsbUnavailableException ex) {
+        log.warn("ESB endpoint {} short-circuited: {}", ex.getEndpoint(), ex.getCause());
+        return buildResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), ESB_UNAVAILABLE);
+    }
+
     @ExceptionHandler(CommandExecutionException.class)
     public ResponseEntity<ErrorResponse> handleCommandExecutionException(CommandExecutionException ex) {
         Throwable rootCause = resolveRootCause(ex);
@@ -108,6 +151,9 @@ public class GlobalExceptionHandler {
         if (rootCause instanceof ResourceNotFoundException resourceNotFoundException) {
             return handleResourceNotFoundException(resourceNotFoundException);
         }
+        if (rootCause instanceof ProcessArchivedException processArchivedException) {
+            return handleProcessArchivedException(processArchivedException);
+        }
         if (rootCause instanceof ConstraintViolationException constraintViolationException) {
             return handleConstraintViolationException(constraintViolationException);
         }
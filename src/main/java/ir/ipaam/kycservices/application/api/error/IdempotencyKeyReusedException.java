@@ -0,0 +1,8 @@
+package ir.ipaam.kycservices.application.api.error;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
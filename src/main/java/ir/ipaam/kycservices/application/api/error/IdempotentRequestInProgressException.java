@@ -0,0 +1,8 @@
+package ir.ipaam.kycservices.application.api.error;
+
+public class IdempotentRequestInProgressException extends RuntimeException {
+
+    public IdempotentRequestInProgressException(String message) {
+        super(message);
+    }
+}
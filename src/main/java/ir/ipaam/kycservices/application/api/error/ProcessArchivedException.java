@@ -0,0 +1,8 @@
+package ir.ipaam.kycservices.application.api.error;
+
+public class ProcessArchivedException extends RuntimeException {
+
+    public ProcessArchivedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ir.ipaam.kycservices.application.api.error;
+
+public class ProjectionBehindException extends RuntimeException {
+
+    public ProjectionBehindException(String message) {
+        super(message);
+    }
+}
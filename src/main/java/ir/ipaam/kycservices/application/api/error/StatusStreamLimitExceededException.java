@@ -0,0 +1,8 @@
+package ir.ipaam.kycservices.application.api.error;
+
+public class StatusStreamLimitExceededException extends RuntimeException {
+
+    public StatusStreamLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ir.ipaam.kycservices.application.api.error;
+
+public class StepInProgressException extends RuntimeException {
+
+    public StepInProgressException(String message) {
+        super(message);
+    }
+}
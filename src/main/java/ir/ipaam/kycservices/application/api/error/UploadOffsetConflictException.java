@@ -0,0 +1,19 @@
+package ir.ipaam.kycservices.application.api.error;
+
+/**
+ * A chunk or completion request that does not fit the state of a resumable upload. Carries the offset the upload
+ * actually reached, from which the client resumes.
+ */
+public class UploadOffsetConflictException extends RuntimeException {
+
+    private final long offset;
+
+    public UploadOffsetConflictException(String message, long offset) {
+        super(message);
+        this.offset = offset;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,90 @@
+package ir.ipaam.kycservices.application.api.idempotency;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Request whose body was read up front, so it can be hashed and still be read by the controller. A body that was only
+ * read in part is completed from the original stream.
+ */
+class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+    private final InputStream remainder;
+
+    CachedBodyRequest(HttpServletRequest request, byte[] body) {
+        this(request, body, null);
+    }
+
+    CachedBodyRequest(HttpServletRequest request, byte[] head, InputStream remainder) {
+        super(request);
+        this.body = head;
+        this.remainder = remainder;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        InputStream input = remainder == null ? new ByteArrayInputStream(body)
+                : new SequenceInputStream(new ByteArrayInputStream(body), remainder);
+        return new ServletInputStream() {
+            private boolean finished;
+
+            @Override
+            public boolean isFinished() {
+                return finished;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int read() throws IOException {
+                int read = input.read();
+                finished = read == -1;
+                return read;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = input.read(buffer, offset, length);
+                finished = read == -1;
+                return read;
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+
+    @Override
+    public int getContentLength() {
+        return remainder == null ? body.length : super.getContentLength();
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return remainder == null ? body.length : super.getContentLengthLong();
+    }
+}
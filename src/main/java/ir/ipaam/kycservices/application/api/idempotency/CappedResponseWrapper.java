@@ -0,0 +1,140 @@
+package ir.ipaam.kycservices.application.api.idempotency;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+
+/**
+ * Response that keeps its body in memory up to a limit, so it can be stored, and streams it to the client once the
+ * body outgrows the limit.
+ */
+class CappedResponseWrapper extends HttpServletResponseWrapper {
+
+    private final long limit;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private boolean overflowed;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CappedResponseWrapper(HttpServletResponse response, long limit) {
+        super(response);
+        this.limit = limit;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    append(bytes, offset, length);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    if (overflowed) {
+                        getResponse().getOutputStream().flush();
+                    }
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (writer == null) {
+            Charset charset = Charset.forName(getCharacterEncoding());
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        // Flushing would commit the response before the buffered body could be stored.
+        if (writer != null) {
+            writer.flush();
+        }
+        if (overflowed) {
+            super.flushBuffer();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (overflowed) {
+            super.resetBuffer();
+        } else {
+            buffer.reset();
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if (!overflowed) {
+            buffer.reset();
+        }
+    }
+
+    /**
+     * @return the body, or {@code null} when it outgrew the limit and was streamed to the client
+     */
+    byte[] getBody() {
+        flushWriter();
+        return overflowed ? null : buffer.toByteArray();
+    }
+
+    /**
+     * Writes the buffered body to the client.
+     */
+    void copyBodyToResponse() throws IOException {
+        flushWriter();
+        if (!overflowed && buffer.size() > 0) {
+            getResponse().getOutputStream().write(buffer.toByteArray());
+            buffer.reset();
+        }
+    }
+
+    private void append(byte[] bytes, int offset, int length) throws IOException {
+        if (!overflowed && buffer.size() + (long) length > limit) {
+            overflowed = true;
+            getResponse().getOutputStream().write(buffer.toByteArray());
+            buffer.reset();
+        }
+        if (overflowed) {
+            getResponse().getOutputStream().write(bytes, offset, length);
+        } else {
+            buffer.write(bytes, offset, length);
+        }
+    }
+
+    private void flushWriter() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package ir.ipaam.kycservices.application.api.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import ir.ipaam.kycservices.application.api.error.IdempotencyKeyReusedException;
+import ir.ipaam.kycservices.application.api.error.IdempotentRequestInProgressException;
+import ir.ipaam.kycservices.infrastructure.idempotency.IdempotencyStore;
+import ir.ipaam.kycservices.infrastructure.idempotency.IdempotencyStore.IdempotencyRecord;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.Part;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.IDEMPOTENCY_KEY_INVALID;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.IDEMPOTENCY_KEY_REUSED;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.IDEMPOTENT_REQUEST_IN_PROGRESS;
+
+/**
+ * Answers retried upload and command requests carrying an {@value #HEADER} header with the response of the first
+ * request, without running the controller again. Reads such as {@code POST /kyc/status} are never guarded, so their
+ * answers are neither replayed stale nor stored.
+ * <p>
+ * The first request for a key claims it in the {@link IdempotencyStore} together with a SHA-256 hash of its method,
+ * path, query and body (multipart uploads are hashed part by part while the container streams them from disk). Keys
+ * are scoped to the process the request addresses, taken from its {@code processInstanceId} (or {@code uploadId},
+ * {@code nationalCode}) field, and to the client address when it has none. JSON bodies over
+ * {@code kyc.idempotency.max-request-size} are passed through unguarded. The status, headers and JSON body of the
+ * response are stored once it finishes, unless the status is worth retrying (5xx, 409, 429) or the body exceeds
+ * {@code kyc.idempotency.max-response-size}, in which case it is streamed to the client and the key is released.
+ * Later requests with the same key get the stored response with {@value #REPLAYED_HEADER}, or an error when the hash
+ * differs or the first request is still running.
+ */
+@Slf4j
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int MAX_SCOPE_LENGTH = 255;
+    /**
+     * {@code POST} endpoints that upload a document or issue a command. Resumable upload chunks are left out, their
+     * offset already makes a retry safe.
+     */
+    private static final Set<String> GUARDED_PATHS = Set.of(
+            "/kyc/start", "/kyc/cancel", "/kyc/consent", "/kyc/customer-info", "/kyc/address",
+            "/kyc/card", "/kyc/card/status", "/kyc/card/tracking", "/kyc/selfie", "/kyc/signature",
+            "/kyc/video", "/kyc/video/resumable", "/kyc/booklets", "/kyc/booklets/resumable", "/kyc/uploads");
+    private static final List<String> SCOPE_FIELDS = List.of(
+            "processInstanceId", "processInstanceNumber", "uploadId", "nationalCode");
+    private static final Set<String> UNSTORED_HEADERS = Set.of(
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.DATE.toLowerCase(),
+            HttpHeaders.CONNECTION.toLowerCase(),
+            HttpHeaders.SET_COOKIE.toLowerCase());
+    private static final TypeReference<Map<String, List<String>>> HEADERS_TYPE = new TypeReference<>() {
+    };
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final HandlerExceptionResolver handlerExceptionResolver;
+    private final int maxRequestBytes;
+    private final long maxResponseBytes;
+    private final Counter replayedResponses;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore,
+                             ObjectMapper objectMapper,
+                             @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver,
+                             MeterRegistry meterRegistry,
+                             @Value("${kyc.idempotency.max-request-size:64KB}") DataSize maxRequestSize,
+                             @Value("${kyc.idempotency.max-response-size:1MB}") DataSize maxResponseSize) {
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+        this.handlerExceptionResolver = handlerExceptionResolver;
+        this.maxRequestBytes = Math.toIntExact(maxRequestSize.toBytes());
+        this.maxResponseBytes = maxResponseSize.toBytes();
+        this.replayedResponses = Counter.builder("kyc.idempotency.replayed")
+                .description("Requests answered with the stored response of an earlier request with the same key")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null
+                || !GUARDED_PATHS.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            resolve(request, response, new IllegalArgumentException(IDEMPOTENCY_KEY_INVALID));
+            return;
+        }
+
+        MessageDigest digest = sha256();
+        update(digest, request.getMethod());
+        update(digest, request.getRequestURI());
+        update(digest, request.getQueryString());
+        HttpServletRequest target = request;
+        String scope = null;
+        if (isMultipart(request)) {
+            try {
+                for (Part part : request.getParts()) {
+                    update(digest, part.getName());
+                    update(digest, part.getSubmittedFileName());
+                    try (InputStream content = part.getInputStream()) {
+                        if (scope == null && part.getSubmittedFileName() == null
+                                && SCOPE_FIELDS.contains(part.getName())) {
+                            byte[] value = content.readNBytes(MAX_SCOPE_LENGTH + 1);
+                            digest.update(value);
+                            scope = toScope(new String(value, StandardCharsets.UTF_8));
+                        }
+                        content.transferTo(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+                    }
+                }
+            } catch (IllegalStateException | ServletException ex) {
+                // Oversized or malformed multipart bodies are rejected further down the chain as usual.
+                log.debug("Unable to hash multipart request, passing it through", ex);
+                filterChain.doFilter(request, response);
+                return;
+            }
+        } else {
+            InputStream input = request.getInputStream();
+            byte[] body = input.readNBytes(maxRequestBytes + 1);
+            if (body.length > maxRequestBytes) {
+                log.debug("Request body exceeds {} bytes, passing it through without Idempotency-Key", maxRequestBytes);
+                filterChain.doFilter(new CachedBodyRequest(request, body, input), response);
+                return;
+            }
+            digest.update(body);
+            scope = scopeOf(body);
+            target = new CachedBodyRequest(request, body);
+        }
+        String requestHash = HexFormat.of().formatHex(digest.digest());
+        if (scope == null) {
+            scope = toScope("client " + request.getRemoteAddr());
+        }
+
+        String claimToken;
+        try {
+            claimToken = claimOrReplay(scope, key, requestHash, response);
+        } catch (IdempotencyKeyReusedException | IdempotentRequestInProgressException ex) {
+            resolve(request, response, ex);
+            return;
+        }
+        if (claimToken == null) {
+            return;
+        }
+
+        CappedResponseWrapper responseWrapper = new CappedResponseWrapper(response, maxResponseBytes);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(target, responseWrapper);
+            stored = store(scope, key, claimToken, responseWrapper);
+            responseWrapper.copyBodyToResponse();
+        } finally {
+            if (!stored) {
+                release(scope, key, claimToken);
+            }
+        }
+    }
+
+    private String scopeOf(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            for (String field : SCOPE_FIELDS) {
+                JsonNode value = json.path(field);
+                if (value.isTextual()) {
+                    return toScope(value.textValue());
+                }
+            }
+        } catch (IOException ex) {
+            // Malformed bodies are rejected by the controller; the client address still scopes the key.
+            log.debug("Unable to read the scope of the request body", ex);
+        }
+        return null;
+    }
+
+    private static String toScope(String value) {
+        String scope = value.trim();
+        return scope.isEmpty() || scope.length() > MAX_SCOPE_LENGTH ? null : scope;
+    }
+
+    /**
+     * @return the claim token when this request is the first for {@code key}, {@code null} when the stored response
+     * was written to {@code response}
+     */
+    private String claimOrReplay(String scope, String key, String requestHash, HttpServletResponse response)
+            throws IOException {
+        // Two attempts: the existing record may expire or be released between the claim and the lookup.
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Optional<String> claim = idempotencyStore.claim(scope, key, requestHash);
+            if (claim.isPresent()) {
+                return claim.get();
+            }
+            Optional<IdempotencyRecord> existing = idempotencyStore.find(scope, key);
+            if (existing.isEmpty()) {
+                continue;
+            }
+            IdempotencyRecord record = existing.get();
+            if (!record.requestHash().equals(requestHash)) {
+                throw new IdempotencyKeyReusedException(IDEMPOTENCY_KEY_REUSED);
+            }
+            if (!record.isCompleted()) {
+                throw new IdempotentRequestInProgressException(IDEMPOTENT_REQUEST_IN_PROGRESS);
+            }
+            replay(record, response);
+            return null;
+        }
+        throw new IdempotentRequestInProgressException(IDEMPOTENT_REQUEST_IN_PROGRESS);
+    }
+
+    private void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        response.setStatus(record.responseStatus());
+        if (record.responseHeaders() != null) {
+            Map<String, List<String>> headers = objectMapper.readValue(record.responseHeaders(), HEADERS_TYPE);
+            headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        byte[] body = record.responseBody();
+        if (body != null) {
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+        replayedResponses.increment();
+    }
+
+    private boolean store(String scope, String key, String claimToken, CappedResponseWrapper response) {
+        int status = response.getStatus();
+        byte[] body = response.getBody();
+        if (!isReplayable(status) || body == null || (body.length > 0 && !isJson(response.getContentType()))) {
+            return false;
+        }
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : response.getHeaderNames()) {
+            if (!UNSTORED_HEADERS.contains(name.toLowerCase()) && !headers.containsKey(name)) {
+                headers.put(name, List.copyOf(response.getHeaders(name)));
+            }
+        }
+        if (response.getContentType() != null) {
+            headers.put(HttpHeaders.CONTENT_TYPE, List.of(response.getContentType()));
+        }
+        try {
+            idempotencyStore.complete(scope, key, claimToken, status, objectMapper.writeValueAsString(headers), body);
+            return true;
+        } catch (JsonProcessingException | RuntimeException ex) {
+            log.warn("Unable to store the response for Idempotency-Key {}", key, ex);
+            return false;
+        }
+    }
+
+    private void release(String scope, String key, String claimToken) {
+        try {
+            idempotencyStore.release(scope, key, claimToken);
+        } catch (RuntimeException ex) {
+            log.warn("Unable to release Idempotency-Key {}, it is freed once the claim times out", key, ex);
+        }
+    }
+
+    private static boolean isReplayable(int status) {
+        return status < 500 && status != 409 && status != 429;
+    }
+
+    private void resolve(HttpServletRequest request, HttpServletResponse response, RuntimeException ex) {
+        if (handlerExceptionResolver.resolveException(request, response, null, ex) == null) {
+            throw ex;
+        }
+    }
+
+    /**
+     * Only JSON bodies are stored, so documents served by an endpoint never end up in the store.
+     */
+    private static boolean isJson(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)
+                    || "json".equals(mediaType.getSubtypeSuffix());
+        } catch (InvalidMediaTypeException ex) {
+            return false;
+        }
+    }
+
+    private static boolean isMultipart(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase().startsWith("multipart/");
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        // Length-prefixed so adjacent fields cannot be shifted into each other.
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        digest.update(Integer.toString(value == null ? -1 : bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ir.ipaam.kycservices.application.service;
+
+import ir.ipaam.kycservices.application.service.dto.VersionedKycStatus;
+
+/**
+ * Serves {@code POST /kyc/status} with an ETag so repeated polls can be answered without loading the status.
+ */
+public interface KycStatusQueryService {
+
+    /**
+     * @param nationalCode customer national code
+     * @return the ETag of the status last loaded for the national code, or {@code null} if it changed since
+     */
+    String currentETag(String nationalCode);
+
+    /**
+     * Loads the current status. Concurrent calls for the same national code share a single query.
+     *
+     * @param nationalCode customer national code
+     * @return the status together with its ETag
+     */
+    VersionedKycStatus loadStatus(String nationalCode);
+}
@@ -0,0 +1,20 @@
+package ir.ipaam.kycservices.application.service;
+
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+
+/**
+ * Streams KYC status changes to clients instead of having them poll {@code POST /kyc/status}.
+ */
+public interface KycStatusStreamService {
+
+    /**
+     * Opens a status stream for the latest process of the supplied national code. The first event carries the full
+     * status, later events carry each recorded step, and comment-only heartbeats keep idle connections open. The
+     * stream completes once the process reaches a terminal status or the maximum stream duration elapses.
+     *
+     * @param nationalCode customer national code
+     * @return server-sent events for the subscription
+     */
+    Flux<ServerSentEvent<Object>> streamStatus(String nationalCode);
+}
@@ -0,0 +1,33 @@
+package ir.ipaam.kycservices.application.service;
+
+import ir.ipaam.kycservices.application.api.dto.CreateUploadRequest;
+import ir.ipaam.kycservices.application.service.dto.UploadSessionResponse;
+import ir.ipaam.kycservices.application.service.dto.VideoUploadResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uploads of a video or a booklet page sent in chunks, so that a dropped connection only costs the chunk in flight.
+ * Once all bytes arrived, the upload is handed to the same checks as a single-request upload.
+ */
+public interface ResumableUploadService {
+
+    UploadSessionResponse createUpload(CreateUploadRequest request);
+
+    UploadSessionResponse getUpload(String uploadId);
+
+    /**
+     * Appends the chunk starting at {@code offset}, which must be the current offset of the upload.
+     */
+    UploadSessionResponse appendChunk(String uploadId, long offset, InputStream chunk);
+
+    void cancelUpload(String uploadId);
+
+    VideoUploadResponse completeVideo(String uploadId, MultipartFile image);
+
+    ResponseEntity<Map<String, Object>> completeBooklet(String processInstanceId, List<String> uploadIds);
+}
@@ -5,5 +5,7 @@ import ir.ipaam.kycservices.application.service.dto.VideoUploadResponse;
 
 public interface VideoService {
 
+    long MAX_VIDEO_SIZE_BYTES = 10 * 1024 * 1024L; // 10 MB
+
     VideoUploadResponse uploadVideo(VideoUploadRequest request);
 }
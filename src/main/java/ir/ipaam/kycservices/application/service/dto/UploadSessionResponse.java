@@ -0,0 +1,14 @@
+package ir.ipaam.kycservices.application.service.dto;
+
+import java.time.LocalDateTime;
+
+public record UploadSessionResponse(
+        String uploadId,
+        String processInstanceId,
+        String documentType,
+        long size,
+        long offset,
+        long chunkSize,
+        LocalDateTime expiresAt
+) {
+}
@@ -0,0 +1,9 @@
+package ir.ipaam.kycservices.application.service.dto;
+
+import ir.ipaam.kycservices.application.api.dto.KycStatusResponse;
+
+public record VersionedKycStatus(
+        String etag,
+        KycStatusResponse status
+) {
+}
@@ -5,15 +5,19 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.camunda.zeebe.client.ZeebeClient;
 import ir.ipaam.kycservices.application.api.dto.AddressVerificationRequest;
+import ir.ipaam.kycservices.application.api.error.EsbUnavailableException;
 import ir.ipaam.kycservices.application.api.error.ResourceNotFoundException;
 import ir.ipaam.kycservices.application.service.AddressService;
 import ir.ipaam.kycservices.application.service.dto.AddressCollectionResponse;
 import ir.ipaam.kycservices.domain.command.CollectAddressCommand;
 import ir.ipaam.kycservices.domain.command.UpdateKycStatusCommand;
+import ir.ipaam.kycservices.domain.model.KycStep;
+import ir.ipaam.kycservices.domain.model.KycStepOutcome;
 import ir.ipaam.kycservices.domain.model.entity.Address;
 import ir.ipaam.kycservices.infrastructure.repository.AddressVerificationRepository;
 import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
-import ir.ipaam.kycservices.infrastructure.repository.KycStepStatusRepository;
+import ir.ipaam.kycservices.infrastructure.resilience.EsbResilience;
+import ir.ipaam.kycservices.infrastructure.tracing.KycTracing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.commandhandling.gateway.CommandGateway;
@@ -39,19 +43,18 @@ import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.PROCES
 @RequiredArgsConstructor
 public class AddressServiceImpl implements AddressService {
 
-    private static final String STEP_ADDRESS_AND_ZIPCODE_COLLECTED = "ADDRESS_AND_ZIPCODE_COLLECTED";
-    private static final String STEP_ZIPCODE_AND_ADDRESS_VALIDATED = "ZIPCODE_AND_ADDRESS_VALIDATED";
+    private static final String STEP_ADDRESS_AND_ZIPCODE_COLLECTED = KycStep.ADDRESS_AND_ZIPCODE_COLLECTED.name();
+    private static final String STEP_ZIPCODE_AND_ADDRESS_VALIDATED = KycStep.ZIPCODE_AND_ADDRESS_VALIDATED.name();
+    private static final String ADDRESS_VALIDATION_ENDPOINT = "address-validation";
 
     private final CommandGateway commandGateway;
     private final KycProcessInstanceRepository kycProcessInstanceRepository;
-    private final KycStepStatusRepository kycStepStatusRepository;
     private final AddressVerificationRepository addressVerificationRepository;
     private final ZeebeClient zeebeClient;
-    private final WebClient.Builder webClientBuilder;
+    private final WebClient addressValidationWebClient;
     private final ObjectMapper objectMapper;
-
-    @Value("${address.validation.base-url:http://192.168.179.21:8290}")
-    private String validationBaseUrl;
+    private final KycTracing kycTracing;
+    private final EsbResilience esbResilience;
 
     @Value("${address.validation.path:/api/transport/tipax/addresses/v1.0/address}")
     private String validationPath;
@@ -68,27 +71,18 @@ public class AddressServiceImpl implements AddressService {
         kycProcessInstanceRepository.findByCamundaInstanceId(processInstanceId)
                 .orElseThrow(() -> new ResourceNotFoundException(PROCESS_NOT_FOUND));
 
-        Optional<Address> latestVerification = addressVerificationRepository
-                .findTopByProcess_CamundaInstanceIdOrderByIdDesc(processInstanceId);
-
-        boolean addressValidatedInProcess = kycStepStatusRepository
-                .existsByProcess_CamundaInstanceIdAndStepName(
-                        processInstanceId,
-                        STEP_ZIPCODE_AND_ADDRESS_VALIDATED);
-
-        boolean addressAlreadyValidated = latestVerification.map(Address::isZipValid).orElse(false)
-                || addressValidatedInProcess;
-
-        if (addressAlreadyValidated) {
-            Address persisted = latestVerification.orElse(null);
+        CollectAddressCommand command = new CollectAddressCommand(processInstanceId, postalCode, address);
+        KycStepOutcome outcome = commandGateway.sendAndWait(command);
+        if (outcome.isAlreadyCompleted()) {
+            // The address of this process was validated already; answer with the one on record.
+            Address persisted = addressVerificationRepository
+                    .findTopByProcess_CamundaInstanceIdOrderByIdDesc(processInstanceId)
+                    .orElse(null);
             String persistedPostalCode = persisted != null ? persisted.getZipCode() : postalCode;
             String persistedAddress = persisted != null ? persisted.getAddress() : address;
             return buildConflictResponse(processInstanceId, persistedPostalCode, persistedAddress, true);
         }
 
-        CollectAddressCommand command = new CollectAddressCommand(processInstanceId, postalCode, address);
-        commandGateway.sendAndWait(command);
-
         publishWorkflowUpdate(
                 "zip-code-and-address-collected",
                 processInstanceId,
@@ -169,9 +163,8 @@ public class AddressServiceImpl implements AddressService {
     private Optional<Map<String, Object>> validateWithExternalService(String postalCode,
                                                                       String address,
                                                                       String stageHeader) {
-        WebClient client = webClientBuilder.clone().baseUrl(validationBaseUrl).build();
         try {
-            WebClient.RequestBodySpec requestSpec = client.post()
+            WebClient.RequestBodySpec requestSpec = addressValidationWebClient.post()
                     .uri(validationPath)
                     .contentType(MediaType.APPLICATION_JSON);
 
@@ -187,6 +180,7 @@ public class AddressServiceImpl implements AddressService {
                     ))
                     .retrieve()
                     .bodyToMono(JsonNode.class)
+                    .transform(esbResilience.protect(ADDRESS_VALIDATION_ENDPOINT))
                     .block();
 
             if (response == null) {
@@ -208,6 +202,10 @@ public class AddressServiceImpl implements AddressService {
         } catch (WebClientResponseException ex) {
             log.error("Address validation service responded with error: {}", ex.getResponseBodyAsString(), ex);
             return Optional.empty();
+        } catch (EsbUnavailableException ex) {
+            // The address is recorded already; it stays unvalidated rather than failing the request.
+            log.warn("Address validation skipped for postalCode {}: {}", postalCode, ex.getCause().getMessage());
+            return Optional.empty();
         } catch (RuntimeException ex) {
             log.error("Address validation call failed", ex);
             return Optional.empty();
@@ -228,7 +226,7 @@ public class AddressServiceImpl implements AddressService {
         zeebeClient.newPublishMessageCommand()
                 .messageName(messageName)
                 .correlationKey(processInstanceId)
-                .variables(variables)
+                .variables(kycTracing.withTraceContext(variables))
                 .send()
                 .join();
     }
@@ -6,12 +6,16 @@ import ir.ipaam.kycservices.application.api.error.ResourceNotFoundException;
 import ir.ipaam.kycservices.application.service.EsbBookletValidation;
 import ir.ipaam.kycservices.application.service.dto.BookletValidationData;
 import ir.ipaam.kycservices.domain.command.UploadBookletPagesCommand;
+import ir.ipaam.kycservices.domain.model.KycStep;
+import ir.ipaam.kycservices.domain.model.KycStepOutcome;
 import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
 import ir.ipaam.kycservices.domain.model.value.DocumentPayloadDescriptor;
 import ir.ipaam.kycservices.common.validation.FileTypeValidator;
+import ir.ipaam.kycservices.infrastructure.concurrency.StepExecutionGuard;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
 import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
-import ir.ipaam.kycservices.infrastructure.repository.KycStepStatusRepository;
 import ir.ipaam.kycservices.infrastructure.service.MinioStorageService;
+import ir.ipaam.kycservices.infrastructure.tracing.KycTracing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.commandhandling.gateway.CommandGateway;
@@ -48,7 +52,6 @@ public class BookletValidationServiceImpl {
 
     public static final long MAX_PAGE_SIZE_BYTES = 20 * 1024 * 1024; // 2 MB
 
-    private static final String STEP_ID_PAGES_UPLOADED = "ID_PAGES_UPLOADED";
     private static final Set<String> ALLOWED_CONTENT_TYPES = Set.of(
             "image/jpeg",
             "image/png",
@@ -58,10 +61,12 @@ public class BookletValidationServiceImpl {
 
     private final CommandGateway commandGateway;
     private final KycProcessInstanceRepository kycProcessInstanceRepository;
-    private final KycStepStatusRepository kycStepStatusRepository;
     private final ZeebeClient zeebeClient;
     private final EsbBookletValidation esbBookletValidation;
     private final MinioStorageService minioStorageService;
+    private final StepExecutionGuard stepExecutionGuard;
+    private final KycMetrics kycMetrics;
+    private final KycTracing kycTracing;
 
     public ResponseEntity<Map<String, Object>> uploadBookletPages(List<MultipartFile> pages, String processInstanceId) {
         List<MultipartFile> normalizedPages = pages == null ? List.of() : pages;
@@ -80,15 +85,15 @@ public class BookletValidationServiceImpl {
                     return new ResourceNotFoundException(PROCESS_NOT_FOUND);
                 });
 
-        if (kycStepStatusRepository.existsByProcess_CamundaInstanceIdAndStepName(
-                normalizedProcessId,
-                STEP_ID_PAGES_UPLOADED)) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
-                    "processInstanceId", normalizedProcessId,
-                    "status", "ID_PAGES_ALREADY_UPLOADED"
-            ));
-        }
+        return kycTracing.inProcess(normalizedProcessId, () -> stepExecutionGuard.execute(normalizedProcessId,
+                KycStep.BOOKLET_PAGES_UPLOADED,
+                () -> validateAndStorePages(normalizedPages, processInstance, normalizedProcessId),
+                () -> alreadyUploaded(normalizedProcessId)));
+    }
 
+    private ResponseEntity<Map<String, Object>> validateAndStorePages(List<MultipartFile> normalizedPages,
+                                                                      ProcessInstance processInstance,
+                                                                      String normalizedProcessId) {
         minioStorageService.assertAvailable();
 
         List<DocumentPayloadDescriptor> descriptors = new ArrayList<>();
@@ -97,7 +102,7 @@ public class BookletValidationServiceImpl {
         for (int i = 0; i < normalizedPages.size(); i++) {
             MultipartFile page = normalizedPages.get(i);
             validateFile(page, ID_PAGE_REQUIRED, ID_PAGE_TOO_LARGE, MAX_PAGE_SIZE_BYTES);
-            byte[] pageBytes = readFile(page);
+            byte[] pageBytes = readFile(page, "BOOKLET");
             sizes.add(pageBytes.length);
             String filename = resolveFilename(page, i);
             descriptors.add(new DocumentPayloadDescriptor(pageBytes, filename));
@@ -109,7 +114,10 @@ public class BookletValidationServiceImpl {
         UploadBookletPagesCommand command = new UploadBookletPagesCommand(
                 normalizedProcessId,
                 new ArrayList<>(descriptors));
-        commandGateway.sendAndWait(command);
+        KycStepOutcome outcome = commandGateway.sendAndWait(command);
+        if (outcome.isAlreadyCompleted()) {
+            return alreadyUploaded(normalizedProcessId);
+        }
         Boolean hasNewCard = null;
         if (processInstance.getCustomer() != null) {
             hasNewCard = processInstance.getCustomer().getHasNewNationalCard();
@@ -128,6 +136,13 @@ public class BookletValidationServiceImpl {
         return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
     }
 
+    private ResponseEntity<Map<String, Object>> alreadyUploaded(String processInstanceId) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "processInstanceId", processInstanceId,
+                "status", "ID_PAGES_ALREADY_UPLOADED"
+        ));
+    }
+
     private static Map<String, Object> toValidationResult(BookletValidationData data) {
         Map<String, Object> map = new LinkedHashMap<>();
         map.put("trackId", data.trackId());
@@ -139,14 +154,14 @@ public class BookletValidationServiceImpl {
     private void publishWorkflowUpdate(String processInstanceId, Boolean hasNewCard) {
         Map<String, Object> variables = new HashMap<>();
         variables.put("processInstanceId", processInstanceId);
-        variables.put("kycStatus", "BOOKLET_PAGES_UPLOADED");
+        variables.put("kycStatus", KycStep.BOOKLET_PAGES_UPLOADED.name());
         if (hasNewCard != null) {
             variables.put("card", hasNewCard);
         }
         zeebeClient.newPublishMessageCommand()
                 .messageName("booklet-pages-uploaded")
                 .correlationKey(processInstanceId)
-                .variables(variables)
+                .variables(kycTracing.withTraceContext(variables))
                 .send()
                 .join();
     }
@@ -193,12 +208,16 @@ public class BookletValidationServiceImpl {
         return processInstanceId.trim();
     }
 
-    private byte[] readFile(MultipartFile file) {
-        try {
-            return file.getBytes();
-        } catch (IOException e) {
-            throw new FileProcessingException(FILE_READ_FAILURE, e);
-        }
+    private byte[] readFile(MultipartFile file, String documentType) {
+        byte[] data = kycMetrics.time(KycMetrics.UPLOAD_READ, documentType, () -> {
+            try {
+                return file.getBytes();
+            } catch (IOException e) {
+                throw new FileProcessingException(FILE_READ_FAILURE, e);
+            }
+        });
+        kycMetrics.recordSize(KycMetrics.UPLOAD_SIZE, documentType, data.length);
+        return data;
     }
 
 }
@@ -18,13 +18,18 @@ import ir.ipaam.kycservices.common.validation.FileTypeValidator;
 import ir.ipaam.kycservices.domain.command.RecordTrackingNumberCommand;
 import ir.ipaam.kycservices.domain.command.UpdateKycStatusCommand;
 import ir.ipaam.kycservices.domain.command.UploadCardDocumentsCommand;
+import ir.ipaam.kycservices.domain.model.KycStep;
+import ir.ipaam.kycservices.domain.model.KycStepOutcome;
 import ir.ipaam.kycservices.domain.model.entity.Customer;
 import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
 import ir.ipaam.kycservices.domain.model.value.DocumentPayloadDescriptor;
+import ir.ipaam.kycservices.infrastructure.concurrency.StepExecutionGuard;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
+import ir.ipaam.kycservices.infrastructure.projection.KycStatusVersions;
 import ir.ipaam.kycservices.infrastructure.repository.CustomerRepository;
 import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
-import ir.ipaam.kycservices.infrastructure.repository.KycStepStatusRepository;
 import ir.ipaam.kycservices.infrastructure.service.MinioStorageService;
+import ir.ipaam.kycservices.infrastructure.tracing.KycTracing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.commandhandling.gateway.CommandGateway;
@@ -35,7 +40,6 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
 import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.CARD_BACK_REQUIRED;
 import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.CARD_BACK_TOO_LARGE;
@@ -54,17 +58,19 @@ import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.TRACKI
 public class CardServiceImpl implements CardService {
 
     private static final long MAX_IMAGE_SIZE_BYTES = CardService.MAX_IMAGE_SIZE_BYTES;
-
-    private static final String STEP_CARD_DOCUMENTS_UPLOADED = "CARD_DOCUMENTS_UPLOADED";
-    private static final String STEP_CARD_STATUS_RECORDED = "CARD_STATUS_RECORDED";
+    private static final String DOCUMENT_TYPE_FRONT = "CARD_FRONT";
+    private static final String DOCUMENT_TYPE_BACK = "CARD_BACK";
 
     private final CommandGateway commandGateway;
     private final KycProcessInstanceRepository kycProcessInstanceRepository;
     private final CustomerRepository customerRepository;
-    private final KycStepStatusRepository kycStepStatusRepository;
+    private final KycStatusVersions kycStatusVersions;
     private final ZeebeClient zeebeClient;
     private final EsbNationalCardValidation esbNationalCardValidation;
     private final MinioStorageService minioStorageService;
+    private final StepExecutionGuard stepExecutionGuard;
+    private final KycMetrics kycMetrics;
+    private final KycTracing kycTracing;
 
     @Override
     public CardDocumentUploadResponse uploadCardDocuments(CardDocumentUploadRequest request) {
@@ -80,21 +86,22 @@ public class CardServiceImpl implements CardService {
                     return new ResourceNotFoundException(PROCESS_NOT_FOUND);
                 });
 
-        if (kycStepStatusRepository.existsByProcess_CamundaInstanceIdAndStepName(
-                normalizedProcessId,
-                STEP_CARD_DOCUMENTS_UPLOADED)) {
-            return new CardDocumentUploadResponse(
-                    normalizedProcessId,
-                    null,
-                    null,
-                    "CARD_DOCUMENTS_ALREADY_UPLOADED"
-            );
-        }
+        return kycTracing.inProcess(normalizedProcessId, () -> stepExecutionGuard.execute(normalizedProcessId,
+                KycStep.CARD_DOCUMENTS_UPLOADED,
+                () -> verifyAndStoreCardDocuments(frontImage, backImage, processInstance, normalizedProcessId),
+                () -> alreadyUploaded(normalizedProcessId)));
+    }
 
+    private CardDocumentUploadResponse verifyAndStoreCardDocuments(MultipartFile frontImage,
+                                                                   MultipartFile backImage,
+                                                                   ProcessInstance processInstance,
+                                                                   String normalizedProcessId) {
         minioStorageService.assertAvailable();
 
-        byte[] frontBytes = ensureWithinLimit(readFile(frontImage), CARD_FRONT_TOO_LARGE);
-        byte[] backBytes = ensureWithinLimit(readFile(backImage), CARD_BACK_TOO_LARGE);
+        byte[] frontBytes = ensureWithinLimit(
+                readFile(frontImage, DOCUMENT_TYPE_FRONT), DOCUMENT_TYPE_FRONT, CARD_FRONT_TOO_LARGE);
+        byte[] backBytes = ensureWithinLimit(
+                readFile(backImage, DOCUMENT_TYPE_BACK), DOCUMENT_TYPE_BACK, CARD_BACK_TOO_LARGE);
 
         CardOcrFrontData frontData = null;
         CardOcrBackData backData = null;
@@ -108,15 +115,19 @@ public class CardServiceImpl implements CardService {
 
         ensureOcrMatchesCustomer(processInstance, frontData);
 
-        updateCustomerWithOcr(processInstance, frontData, backData);
-
         UploadCardDocumentsCommand command = new UploadCardDocumentsCommand(
                 normalizedProcessId,
                 new DocumentPayloadDescriptor(frontBytes, "frontImage_" + normalizedProcessId),
                 new DocumentPayloadDescriptor(backBytes, "backImage_" + normalizedProcessId)
         );
 
-        commandGateway.sendAndWait(command);
+        KycStepOutcome outcome = commandGateway.sendAndWait(command);
+        if (outcome.isAlreadyCompleted()) {
+            return alreadyUploaded(normalizedProcessId);
+        }
+
+        // Only the request that recorded the step may overwrite the customer's OCR fields.
+        updateCustomerWithOcr(processInstance, frontData, backData);
 
         Boolean hasNewCard = null;
         if (processInstance.getCustomer() != null) {
@@ -133,6 +144,15 @@ public class CardServiceImpl implements CardService {
         );
     }
 
+    private CardDocumentUploadResponse alreadyUploaded(String processInstanceId) {
+        return new CardDocumentUploadResponse(
+                processInstanceId,
+                null,
+                null,
+                "CARD_DOCUMENTS_ALREADY_UPLOADED"
+        );
+    }
+
     @Override
     public CardStatusResponse updateCardStatus(CardStatusRequest request) {
         String processInstanceId = normalizeProcessInstanceId(request.processInstanceId());
@@ -141,19 +161,6 @@ public class CardServiceImpl implements CardService {
         ProcessInstance processInstance = kycProcessInstanceRepository.findByCamundaInstanceId(processInstanceId)
                 .orElseThrow(() -> new ResourceNotFoundException(PROCESS_NOT_FOUND));
 
-        if (kycStepStatusRepository.existsByProcess_CamundaInstanceIdAndStepName(
-                processInstanceId,
-                STEP_CARD_STATUS_RECORDED)) {
-            Boolean recordedCardState = Optional.ofNullable(processInstance.getCustomer())
-                    .map(Customer::getHasNewNationalCard)
-                    .orElse(null);
-            return new CardStatusResponse(
-                    processInstanceId,
-                    recordedCardState,
-                    "CARD_STATUS_ALREADY_RECORDED"
-            );
-        }
-
         Customer customer = processInstance.getCustomer();
         if (customer == null) {
             log.warn("Process {} does not have an associated customer when recording card status", processInstanceId);
@@ -162,30 +169,38 @@ public class CardServiceImpl implements CardService {
 
         parseProcessInstanceKey(processInstanceId);
 
-        customer.setHasNewNationalCard(hasNewNationalCard);
-        customerRepository.save(customer);
-
-        commandGateway.sendAndWait(new UpdateKycStatusCommand(
+        KycStepOutcome outcome = commandGateway.sendAndWait(new UpdateKycStatusCommand(
                 processInstanceId,
-                STEP_CARD_STATUS_RECORDED,
-                STEP_CARD_STATUS_RECORDED,
+                KycStep.CARD_STATUS_RECORDED.name(),
+                KycStep.CARD_STATUS_RECORDED.name(),
                 "PASSED"
         ));
+        if (outcome.isAlreadyCompleted()) {
+            return new CardStatusResponse(
+                    processInstanceId,
+                    customer.getHasNewNationalCard(),
+                    "CARD_STATUS_ALREADY_RECORDED"
+            );
+        }
+
+        customer.setHasNewNationalCard(hasNewNationalCard);
+        customerRepository.save(customer);
+        kycStatusVersions.markChanged(customer.getNationalCode());
         zeebeClient.newPublishMessageCommand()
                 .messageName("card-status-recorded")
                 .correlationKey(processInstanceId)
-                .variables(Map.of(
+                .variables(kycTracing.withTraceContext(Map.of(
                         "card", hasNewNationalCard,
                         "processInstanceId", processInstanceId,
-                        "kycStatus", STEP_CARD_STATUS_RECORDED
-                ))
+                        "kycStatus", KycStep.CARD_STATUS_RECORDED.name()
+                )))
                 .send()
                 .join();
 
         return new CardStatusResponse(
                 processInstanceId,
                 hasNewNationalCard,
-                STEP_CARD_STATUS_RECORDED
+                KycStep.CARD_STATUS_RECORDED.name()
         );
     }
 
@@ -197,20 +212,20 @@ public class CardServiceImpl implements CardService {
         Map<String, Object> variables = new HashMap<>();
         variables.put("processInstanceId", processInstanceId);
         variables.put("trackingNumber", trackingNumber);
-        variables.put("status", "RECORD_NATIONAL_CARD_TRACKING_NUMBER");
+        variables.put("status", KycStep.RECORD_NATIONAL_CARD_TRACKING_NUMBER.name());
 
         commandGateway.sendAndWait(new RecordTrackingNumberCommand(trackingNumber, processInstanceId));
         zeebeClient.newPublishMessageCommand()
                 .messageName("save-national-card-tracking-number")
                 .correlationKey(processInstanceId)
-                .variables(variables)
+                .variables(kycTracing.withTraceContext(variables))
                 .send()
                 .join();
 
         return new CardTrackingResponse(
                 processInstanceId,
                 trackingNumber,
-                "RECORD_NATIONAL_CARD_TRACKING_NUMBER"
+                KycStep.RECORD_NATIONAL_CARD_TRACKING_NUMBER.name()
         );
     }
 
@@ -238,6 +253,7 @@ public class CardServiceImpl implements CardService {
         }
 
         var customer = processInstance.getCustomer();
+        String previousNationalCode = customer.getNationalCode();
 
         if (frontData != null) {
             if (frontData.nin() != null) {
@@ -259,6 +275,10 @@ public class CardServiceImpl implements CardService {
         }
 
         customerRepository.save(customer);
+        kycStatusVersions.markChanged(customer.getNationalCode());
+        if (!customer.getNationalCode().equals(previousNationalCode)) {
+            kycStatusVersions.markChanged(previousNationalCode);
+        }
     }
 
     private java.time.LocalDate parseDate(String value) {
@@ -276,14 +296,14 @@ public class CardServiceImpl implements CardService {
     private void publishWorkflowUpdate(String processInstanceId, Boolean hasNewCard) {
         Map<String, Object> variables = new HashMap<>();
         variables.put("processInstanceId", processInstanceId);
-        variables.put("kycStatus", "CARD_DOCUMENTS_UPLOADED");
+        variables.put("kycStatus", KycStep.CARD_DOCUMENTS_UPLOADED.name());
         if (hasNewCard != null) {
             variables.put("card", hasNewCard);
         }
         zeebeClient.newPublishMessageCommand()
                 .messageName("card-documents-uploaded")
                 .correlationKey(processInstanceId)
-                .variables(variables)
+                .variables(kycTracing.withTraceContext(variables))
                 .send()
                 .join();
     }
@@ -321,18 +341,24 @@ public class CardServiceImpl implements CardService {
         return trackingNumber.trim();
     }
 
-    private byte[] readFile(MultipartFile file) {
-        try {
-            return file.getBytes();
-        } catch (IOException e) {
-            throw new FileProcessingException(FILE_READ_FAILURE, e);
-        }
+    private byte[] readFile(MultipartFile file, String documentType) {
+        byte[] data = kycMetrics.time(KycMetrics.UPLOAD_READ, documentType, () -> {
+            try {
+                return file.getBytes();
+            } catch (IOException e) {
+                throw new FileProcessingException(FILE_READ_FAILURE, e);
+            }
+        });
+        kycMetrics.recordSize(KycMetrics.UPLOAD_SIZE, documentType, data.length);
+        return data;
     }
 
-    private byte[] ensureWithinLimit(byte[] data, String sizeKey) {
+    private byte[] ensureWithinLimit(byte[] data, String documentType, String sizeKey) {
         if (data.length > MAX_IMAGE_SIZE_BYTES) {
+            byte[] original = data;
             try {
-                data = ImageCompressionHelper.reduceToMaxSize(data, MAX_IMAGE_SIZE_BYTES);
+                data = kycMetrics.time(KycMetrics.DOCUMENT_COMPRESSION, documentType,
+                        () -> ImageCompressionHelper.reduceToMaxSize(original, MAX_IMAGE_SIZE_BYTES));
             } catch (IllegalArgumentException ex) {
                 throw new IllegalArgumentException(sizeKey);
             }
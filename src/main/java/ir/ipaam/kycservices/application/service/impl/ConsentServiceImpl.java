@@ -6,9 +6,10 @@ import ir.ipaam.kycservices.application.api.error.ResourceNotFoundException;
 import ir.ipaam.kycservices.application.service.ConsentService;
 import ir.ipaam.kycservices.application.service.dto.ConsentResponse;
 import ir.ipaam.kycservices.domain.command.AcceptConsentCommand;
-import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
-import ir.ipaam.kycservices.infrastructure.repository.ConsentRepository;
+import ir.ipaam.kycservices.domain.model.KycStep;
+import ir.ipaam.kycservices.domain.model.KycStepOutcome;
 import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
+import ir.ipaam.kycservices.infrastructure.tracing.KycTracing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.commandhandling.gateway.CommandGateway;
@@ -30,7 +31,7 @@ public class ConsentServiceImpl implements ConsentService {
     private final CommandGateway commandGateway;
     private final KycProcessInstanceRepository kycProcessInstanceRepository;
     private final ZeebeClient zeebeClient;
-    private final ConsentRepository consentRepository;
+    private final KycTracing kycTracing;
 
     @Override
     public ConsentResponse acceptConsent(ConsentRequest request) {
@@ -41,11 +42,18 @@ public class ConsentServiceImpl implements ConsentService {
             throw new IllegalArgumentException(CONSENT_MUST_BE_TRUE);
         }
 
-        ProcessInstance processInstance = kycProcessInstanceRepository
+        kycProcessInstanceRepository
                 .findByCamundaInstanceId(processInstanceId)
                 .orElseThrow(() -> new ResourceNotFoundException(PROCESS_NOT_FOUND));
 
-        if (consentRepository.findByProcessAndAccepted(processInstance, true).isPresent()) {
+        AcceptConsentCommand command = new AcceptConsentCommand(
+                processInstanceId,
+                termsVersion,
+                true
+        );
+
+        KycStepOutcome outcome = commandGateway.sendAndWait(command);
+        if (outcome.isAlreadyCompleted()) {
             log.info("Consent already accepted for process {}", processInstanceId);
             return new ConsentResponse(
                     processInstanceId,
@@ -54,14 +62,6 @@ public class ConsentServiceImpl implements ConsentService {
                     "CONSENT_ALREADY_ACCEPTED"
             );
         }
-
-        AcceptConsentCommand command = new AcceptConsentCommand(
-                processInstanceId,
-                termsVersion,
-                true
-        );
-
-        commandGateway.sendAndWait(command);
         updateWorkflowVariables(processInstanceId, termsVersion);
 
         return new ConsentResponse(
@@ -77,10 +77,10 @@ public class ConsentServiceImpl implements ConsentService {
         zeebeClient.newPublishMessageCommand()
                 .messageName("consent-accepted")
                 .correlationKey(processInstanceId)
-                .variables(Map.of(
+                .variables(kycTracing.withTraceContext(Map.of(
                         "accepted", true,
-                        "kycStatus", "CONSENT_ACCEPTED"
-                ))
+                        "kycStatus", KycStep.CONSENT_ACCEPTED.name()
+                )))
                 .send()
                 .join();
     }
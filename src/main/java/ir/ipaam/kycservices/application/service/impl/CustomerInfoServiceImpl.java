@@ -6,9 +6,11 @@ import ir.ipaam.kycservices.application.api.error.ResourceNotFoundException;
 import ir.ipaam.kycservices.application.service.CustomerInfoService;
 import ir.ipaam.kycservices.application.service.dto.CustomerInfoResponse;
 import ir.ipaam.kycservices.domain.command.ProvideEnglishPersonalInfoCommand;
+import ir.ipaam.kycservices.domain.model.KycStep;
+import ir.ipaam.kycservices.domain.model.KycStepOutcome;
 import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
 import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
-import ir.ipaam.kycservices.infrastructure.repository.KycStepStatusRepository;
+import ir.ipaam.kycservices.infrastructure.tracing.KycTracing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.commandhandling.gateway.CommandGateway;
@@ -34,12 +36,10 @@ public class CustomerInfoServiceImpl implements CustomerInfoService {
 
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^@\\\s]+@[^@\\\s]+\\.[^@\\\s]+$");
 
-    private static final String STEP_CUSTOMER_INFO_PROVIDED = "ENGLISH_PERSONAL_INFO_PROVIDED";
-
     private final CommandGateway commandGateway;
     private final KycProcessInstanceRepository kycProcessInstanceRepository;
-    private final KycStepStatusRepository kycStepStatusRepository;
     private final ZeebeClient zeebeClient;
+    private final KycTracing kycTracing;
 
     @Override
     public CustomerInfoResponse provideCustomerInfo(CustomerInfoRequest request) {
@@ -50,19 +50,6 @@ public class CustomerInfoServiceImpl implements CustomerInfoService {
                     return new ResourceNotFoundException(PROCESS_NOT_FOUND);
                 });
 
-        if (kycStepStatusRepository.existsByProcess_CamundaInstanceIdAndStepName(
-                processInstanceId,
-                STEP_CUSTOMER_INFO_PROVIDED)) {
-            return new CustomerInfoResponse(
-                    processInstanceId,
-                    request.firstNameEn(),
-                    request.lastNameEn(),
-                    request.email(),
-                    request.telephone(),
-                    "CUSTOMER_INFO_ALREADY_PROVIDED"
-            );
-        }
-
         String firstNameEn = normalizeRequiredText(request.firstNameEn(), ENGLISH_FIRST_NAME_REQUIRED);
         String lastNameEn = normalizeRequiredText(request.lastNameEn(), ENGLISH_LAST_NAME_REQUIRED);
         String email = normalizeEmail(request.email());
@@ -76,7 +63,17 @@ public class CustomerInfoServiceImpl implements CustomerInfoService {
                 telephone
         );
 
-        commandGateway.sendAndWait(command);
+        KycStepOutcome outcome = commandGateway.sendAndWait(command);
+        if (outcome.isAlreadyCompleted()) {
+            return new CustomerInfoResponse(
+                    processInstanceId,
+                    request.firstNameEn(),
+                    request.lastNameEn(),
+                    request.email(),
+                    request.telephone(),
+                    "CUSTOMER_INFO_ALREADY_PROVIDED"
+            );
+        }
 
         Boolean hasNewCard = null;
         if (processInstance.getCustomer() != null) {
@@ -98,14 +95,14 @@ public class CustomerInfoServiceImpl implements CustomerInfoService {
     private void publishWorkflowUpdate(String processInstanceId, Boolean hasNewCard) {
         Map<String, Object> variables = new HashMap<>();
         variables.put("processInstanceId", processInstanceId);
-        variables.put("kycStatus", STEP_CUSTOMER_INFO_PROVIDED);
+        variables.put("kycStatus", KycStep.ENGLISH_PERSONAL_INFO_PROVIDED.name());
         if (hasNewCard != null) {
             variables.put("card", hasNewCard);
         }
         zeebeClient.newPublishMessageCommand()
                 .messageName("english-personal-info-provided")
                 .correlationKey(processInstanceId)
-                .variables(variables)
+                .variables(kycTracing.withTraceContext(variables))
                 .send()
                 .join();
     }
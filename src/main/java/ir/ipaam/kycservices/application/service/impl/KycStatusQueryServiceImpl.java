@@ -0,0 +1,62 @@
+package ir.ipaam.kycservices.application.service.impl;
+
+import ir.ipaam.kycservices.application.api.dto.KycStatusResponse;
+import ir.ipaam.kycservices.application.service.KycStatusQueryService;
+import ir.ipaam.kycservices.application.service.dto.VersionedKycStatus;
+import ir.ipaam.kycservices.infrastructure.projection.KycStatusVersions;
+import ir.ipaam.kycservices.infrastructure.service.KycServiceTasks;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.KYC_STATUS_QUERY_FAILED;
+
+@Service
+@RequiredArgsConstructor
+public class KycStatusQueryServiceImpl implements KycStatusQueryService {
+
+    private final KycServiceTasks kycServiceTasks;
+    private final KycStatusVersions kycStatusVersions;
+    private final ConcurrentHashMap<String, CompletableFuture<VersionedKycStatus>> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public String currentETag(String nationalCode) {
+        return kycStatusVersions.currentTag(nationalCode);
+    }
+
+    @Override
+    public VersionedKycStatus loadStatus(String nationalCode) {
+        CompletableFuture<VersionedKycStatus> own = new CompletableFuture<>();
+        CompletableFuture<VersionedKycStatus> leader = inFlight.putIfAbsent(nationalCode, own);
+        if (leader != null) {
+            return await(leader);
+        }
+        try {
+            String etag = kycStatusVersions.tagForLoad(nationalCode);
+            // Mapped by the leading request while its persistence context is open; followers only get the DTO.
+            KycStatusResponse status = KycStatusResponse.success(kycServiceTasks.checkKycStatus(nationalCode));
+            VersionedKycStatus result = new VersionedKycStatus(etag, status);
+            own.complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            own.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(nationalCode, own);
+        }
+    }
+
+    private VersionedKycStatus await(CompletableFuture<VersionedKycStatus> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(KYC_STATUS_QUERY_FAILED, ex.getCause());
+        }
+    }
+}
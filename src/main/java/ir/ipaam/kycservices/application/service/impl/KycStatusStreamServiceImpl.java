@@ -0,0 +1,149 @@
+package ir.ipaam.kycservices.application.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import ir.ipaam.kycservices.application.api.dto.KycStatusResponse;
+import ir.ipaam.kycservices.application.api.error.StatusStreamLimitExceededException;
+import ir.ipaam.kycservices.application.service.KycStatusStreamService;
+import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
+import ir.ipaam.kycservices.domain.query.FindKycStatusQuery;
+import ir.ipaam.kycservices.domain.query.KycStatusUpdate;
+import lombok.extern.slf4j.Slf4j;
+import org.axonframework.messaging.responsetypes.ResponseTypes;
+import org.axonframework.queryhandling.QueryGateway;
+import org.axonframework.queryhandling.SubscriptionQueryResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.KYC_STATUS_QUERY_FAILED;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.STATUS_STREAM_LIMIT_EXCEEDED;
+
+@Slf4j
+@Service
+public class KycStatusStreamServiceImpl implements KycStatusStreamService {
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("COMPLETED", "PROCESS_CANCELLED");
+
+    private final QueryGateway queryGateway;
+    private final int maxConnections;
+    private final int maxConnectionsPerNationalCode;
+    private final Duration heartbeatInterval;
+    private final Duration maxStreamDuration;
+    private final AtomicInteger openSubscriptions = new AtomicInteger();
+    private final ConcurrentHashMap<String, Integer> subscriptionsByNationalCode = new ConcurrentHashMap<>();
+    private final Counter rejectedSubscriptions;
+    private final Counter pushedUpdates;
+
+    public KycStatusStreamServiceImpl(
+            QueryGateway queryGateway,
+            MeterRegistry meterRegistry,
+            @Value("${kyc.status.stream.max-connections:1000}") int maxConnections,
+            @Value("${kyc.status.stream.max-connections-per-national-code:3}") int maxConnectionsPerNationalCode,
+            @Value("${kyc.status.stream.heartbeat-interval:15s}") Duration heartbeatInterval,
+            @Value("${kyc.status.stream.max-duration:10m}") Duration maxStreamDuration) {
+        this.queryGateway = queryGateway;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerNationalCode = maxConnectionsPerNationalCode;
+        this.heartbeatInterval = heartbeatInterval;
+        this.maxStreamDuration = maxStreamDuration;
+        Gauge.builder("kyc.status.stream.subscriptions", openSubscriptions, AtomicInteger::get)
+                .description("Open KYC status streams")
+                .register(meterRegistry);
+        this.rejectedSubscriptions = Counter.builder("kyc.status.stream.rejected")
+                .description("Status streams refused because a connection limit was reached")
+                .register(meterRegistry);
+        this.pushedUpdates = Counter.builder("kyc.status.stream.updates")
+                .description("Step updates pushed to status streams")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Flux<ServerSentEvent<Object>> streamStatus(String nationalCode) {
+        acquire(nationalCode);
+        AtomicBoolean released = new AtomicBoolean();
+        SubscriptionQueryResult<ProcessInstance, KycStatusUpdate> result;
+        KycStatusResponse initialStatus;
+        try {
+            // Updates are buffered from this point on, so nothing recorded while the initial status loads is lost.
+            result = queryGateway.subscriptionQuery(new FindKycStatusQuery(nationalCode),
+                    ResponseTypes.instanceOf(ProcessInstance.class),
+                    ResponseTypes.instanceOf(KycStatusUpdate.class));
+            // Mapped on the request thread, where the lazy step history can still be loaded.
+            initialStatus = KycStatusResponse.success(result.initialResult().block());
+        } catch (RuntimeException ex) {
+            release(nationalCode, released);
+            log.error("Failed to open KYC status stream", ex);
+            throw new IllegalStateException(KYC_STATUS_QUERY_FAILED, ex);
+        }
+
+        ServerSentEvent<Object> initialEvent = ServerSentEvent.<Object>builder(initialStatus).event("status").build();
+        if (isTerminal(initialStatus.status())) {
+            result.cancel();
+            release(nationalCode, released);
+            return Flux.just(initialEvent);
+        }
+
+        Flux<ServerSentEvent<Object>> updates = result.updates()
+                .doOnNext(update -> pushedUpdates.increment())
+                .map(update -> ServerSentEvent.<Object>builder(update).event("step").build());
+        Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(heartbeatInterval)
+                .map(tick -> ServerSentEvent.<Object>builder().comment("heartbeat").build());
+
+        return Flux.concat(Flux.just(initialEvent), Flux.merge(updates, heartbeats))
+                .takeUntil(KycStatusStreamServiceImpl::isTerminal)
+                .take(maxStreamDuration)
+                .doFinally(signal -> {
+                    result.cancel();
+                    release(nationalCode, released);
+                });
+    }
+
+    private static boolean isTerminal(ServerSentEvent<Object> event) {
+        return event.data() instanceof KycStatusUpdate update && isTerminal(update.status());
+    }
+
+    private static boolean isTerminal(String status) {
+        return status != null && TERMINAL_STATUSES.contains(status.toUpperCase(Locale.ROOT));
+    }
+
+    private void acquire(String nationalCode) {
+        if (openSubscriptions.incrementAndGet() > maxConnections) {
+            openSubscriptions.decrementAndGet();
+            rejectedSubscriptions.increment();
+            throw new StatusStreamLimitExceededException(STATUS_STREAM_LIMIT_EXCEEDED);
+        }
+        AtomicBoolean accepted = new AtomicBoolean();
+        subscriptionsByNationalCode.compute(nationalCode, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxConnectionsPerNationalCode) {
+                return count;
+            }
+            accepted.set(true);
+            return current + 1;
+        });
+        if (!accepted.get()) {
+            openSubscriptions.decrementAndGet();
+            rejectedSubscriptions.increment();
+            throw new StatusStreamLimitExceededException(STATUS_STREAM_LIMIT_EXCEEDED);
+        }
+    }
+
+    private void release(String nationalCode, AtomicBoolean released) {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        openSubscriptions.decrementAndGet();
+        subscriptionsByNationalCode.computeIfPresent(nationalCode,
+                (key, count) -> count <= 1 ? null : count - 1);
+    }
+}
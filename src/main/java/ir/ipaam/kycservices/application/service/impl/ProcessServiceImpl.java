@@ -7,6 +7,7 @@ import ir.ipaam.kycservices.application.service.dto.CancelProcessResponse;
 import ir.ipaam.kycservices.domain.command.UpdateKycStatusCommand;
 import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
 import ir.ipaam.kycservices.domain.model.entity.StepStatus;
+import ir.ipaam.kycservices.infrastructure.projection.KycStatusVersions;
 import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,6 +30,7 @@ public class ProcessServiceImpl implements ProcessService {
     private final ZeebeClient zeebeClient;
     private final KycProcessInstanceRepository kycProcessInstanceRepository;
     private final CommandGateway commandGateway;
+    private final KycStatusVersions kycStatusVersions;
 
     @Override
     public CancelProcessResponse cancelProcess(String processInstanceId) {
@@ -60,6 +62,9 @@ public class ProcessServiceImpl implements ProcessService {
         processInstance.setStatus(STATUS_PROCESS_CANCELLED);
         processInstance.setCompletedAt(canceledAt);
         kycProcessInstanceRepository.save(processInstance);
+        if (processInstance.getCustomer() != null) {
+            kycStatusVersions.markChanged(processInstance.getCustomer().getNationalCode());
+        }
 
         return new CancelProcessResponse(
                 normalizedProcessId,
@@ -0,0 +1,301 @@
+package ir.ipaam.kycservices.application.service.impl;
+
+import ir.ipaam.kycservices.application.api.dto.CreateUploadRequest;
+import ir.ipaam.kycservices.application.api.error.ResourceNotFoundException;
+import ir.ipaam.kycservices.application.api.error.UploadOffsetConflictException;
+import ir.ipaam.kycservices.application.service.ResumableUploadService;
+import ir.ipaam.kycservices.application.service.VideoService;
+import ir.ipaam.kycservices.application.service.dto.UploadSessionResponse;
+import ir.ipaam.kycservices.application.service.dto.VideoUploadRequest;
+import ir.ipaam.kycservices.application.service.dto.VideoUploadResponse;
+import ir.ipaam.kycservices.common.validation.FileTypeValidator;
+import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
+import ir.ipaam.kycservices.infrastructure.upload.ResumableUploadStorage;
+import ir.ipaam.kycservices.infrastructure.upload.ResumableUploadStorage.OpenedUpload;
+import ir.ipaam.kycservices.infrastructure.upload.StoredUploadFile;
+import ir.ipaam.kycservices.infrastructure.upload.UploadSessionStore;
+import ir.ipaam.kycservices.infrastructure.upload.UploadSessionStore.UploadSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.FILE_TYPE_NOT_SUPPORTED;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.ID_PAGES_LIMIT;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.ID_PAGES_REQUIRED;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.ID_PAGE_REQUIRED;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.ID_PAGE_TOO_LARGE;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.PROCESS_IDENTIFIER_MISMATCH;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.PROCESS_INSTANCE_ID_REQUIRED;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.PROCESS_NOT_FOUND;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.UPLOAD_DOCUMENT_TYPE;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.UPLOAD_INCOMPLETE;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.UPLOAD_NOT_FOUND;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.UPLOAD_OFFSET_MISMATCH;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.VIDEO_REQUIRED;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.VIDEO_TOO_LARGE;
+
+/**
+ * Resumable uploads: every chunk but the last is {@code kyc.upload.resumable.chunk-size} bytes and becomes one part
+ * of a MinIO multipart upload, so the offset of an upload only moves in whole chunks. A chunk cut short by a dropped
+ * connection is discarded, and the client resends it from the offset it reads back.
+ * <p>
+ * Completing an upload assembles the object and hands it to {@link VideoService} or
+ * {@link BookletValidationServiceImpl} like a part of a multipart request. The session and its object are dropped
+ * once that service answered; when it fails, the client can retry the completion without uploading again.
+ */
+@Slf4j
+@Service
+public class ResumableUploadServiceImpl implements ResumableUploadService {
+
+    private static final long MIN_CHUNK_SIZE_BYTES = 5 * 1024 * 1024L; // smallest part S3 accepts but the last
+    private static final int MAX_BOOKLET_PAGES = 4;
+
+    private final KycProcessInstanceRepository kycProcessInstanceRepository;
+    private final UploadSessionStore uploadSessionStore;
+    private final ResumableUploadStorage resumableUploadStorage;
+    private final VideoService videoService;
+    private final BookletValidationServiceImpl bookletValidationService;
+    private final long chunkSize;
+
+    public ResumableUploadServiceImpl(KycProcessInstanceRepository kycProcessInstanceRepository,
+                                      UploadSessionStore uploadSessionStore,
+                                      ResumableUploadStorage resumableUploadStorage,
+                                      VideoService videoService,
+                                      BookletValidationServiceImpl bookletValidationService,
+                                      @Value("${kyc.upload.resumable.chunk-size:5MB}") DataSize chunkSize) {
+        if (chunkSize.toBytes() < MIN_CHUNK_SIZE_BYTES) {
+            throw new IllegalArgumentException("kyc.upload.resumable.chunk-size must be at least 5MB");
+        }
+        this.kycProcessInstanceRepository = kycProcessInstanceRepository;
+        this.uploadSessionStore = uploadSessionStore;
+        this.resumableUploadStorage = resumableUploadStorage;
+        this.videoService = videoService;
+        this.bookletValidationService = bookletValidationService;
+        this.chunkSize = chunkSize.toBytes();
+    }
+
+    @Override
+    public UploadSessionResponse createUpload(CreateUploadRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException(PROCESS_INSTANCE_ID_REQUIRED);
+        }
+        String processInstanceId = normalizeProcessInstanceId(request.processInstanceId());
+        UploadKind kind = UploadKind.of(request.documentType());
+        long size = request.size() == null ? 0 : request.size();
+        if (size <= 0) {
+            throw new IllegalArgumentException(kind.requiredKey);
+        }
+        if (size > kind.maxSize) {
+            throw new IllegalArgumentException(kind.sizeKey);
+        }
+        String filename = StringUtils.hasText(request.filename()) ? request.filename().trim() : kind.defaultFilename;
+        String contentType = StringUtils.hasText(request.contentType()) ? request.contentType().trim() : null;
+        // Reject what the completion would reject before the client sends any bytes.
+        FileTypeValidator.ensureAllowedType(
+                new StoredUploadFile(null, kind.partName, null, filename, contentType, size),
+                kind.contentTypes,
+                kind.extensions,
+                FILE_TYPE_NOT_SUPPORTED);
+
+        if (kycProcessInstanceRepository.findByCamundaInstanceId(processInstanceId).isEmpty()) {
+            log.warn("Process instance with id {} not found", processInstanceId);
+            throw new ResourceNotFoundException(PROCESS_NOT_FOUND);
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        OpenedUpload opened = resumableUploadStorage.open(processInstanceId, uploadId, kind.name(), contentType);
+        UploadSession session = uploadSessionStore.create(new UploadSession(
+                uploadId,
+                processInstanceId,
+                kind.name(),
+                filename,
+                contentType,
+                size,
+                chunkSize,
+                0,
+                opened.objectName(),
+                opened.multipartUploadId(),
+                false,
+                null));
+        log.info("Opened {} upload {} of {} bytes for process {}", kind, uploadId, size, processInstanceId);
+        return toResponse(session);
+    }
+
+    @Override
+    public UploadSessionResponse getUpload(String uploadId) {
+        return toResponse(findSession(uploadId));
+    }
+
+    @Override
+    public UploadSessionResponse appendChunk(String uploadId, long offset, InputStream chunk) {
+        UploadSession session = findSession(uploadId);
+        if (session.assembled() || offset != session.offset() || session.isComplete()) {
+            throw new UploadOffsetConflictException(UPLOAD_OFFSET_MISMATCH, session.offset());
+        }
+        long length = session.nextChunkLength();
+        int partNumber = (int) (offset / session.chunkSize()) + 1;
+        try {
+            resumableUploadStorage.writeChunk(session, partNumber, length, chunk);
+        } catch (NoSuchElementException ex) {
+            throw new ResourceNotFoundException(UPLOAD_NOT_FOUND);
+        }
+        if (!uploadSessionStore.advance(uploadId, offset, offset + length)) {
+            // A concurrent request appended the same chunk first.
+            throw new UploadOffsetConflictException(UPLOAD_OFFSET_MISMATCH, findSession(uploadId).offset());
+        }
+        return toResponse(findSession(uploadId));
+    }
+
+    @Override
+    public void cancelUpload(String uploadId) {
+        UploadSession session = findSession(uploadId);
+        resumableUploadStorage.discard(session);
+        uploadSessionStore.delete(session.uploadId());
+        log.info("Cancelled upload {} for process {}", uploadId, session.processInstanceId());
+    }
+
+    @Override
+    public VideoUploadResponse completeVideo(String uploadId, MultipartFile image) {
+        UploadSession session = findSession(uploadId, UploadKind.VIDEO);
+        StoredUploadFile video = assemble(session, UploadKind.VIDEO);
+        VideoUploadResponse response = videoService.uploadVideo(
+                new VideoUploadRequest(video, image, session.processInstanceId()));
+        release(session);
+        return response;
+    }
+
+    @Override
+    public ResponseEntity<Map<String, Object>> completeBooklet(String processInstanceId, List<String> uploadIds) {
+        List<String> normalizedIds = uploadIds == null ? List.of() : uploadIds;
+        if (normalizedIds.isEmpty()) {
+            throw new IllegalArgumentException(ID_PAGES_REQUIRED);
+        }
+        if (normalizedIds.size() > MAX_BOOKLET_PAGES || new HashSet<>(normalizedIds).size() != normalizedIds.size()) {
+            throw new IllegalArgumentException(ID_PAGES_LIMIT);
+        }
+        String normalizedProcessId = normalizeProcessInstanceId(processInstanceId);
+
+        List<UploadSession> sessions = normalizedIds.stream()
+                .map(uploadId -> findSession(uploadId, UploadKind.BOOKLET_PAGE))
+                .toList();
+        for (UploadSession session : sessions) {
+            if (!session.processInstanceId().equals(normalizedProcessId)) {
+                throw new IllegalArgumentException(PROCESS_IDENTIFIER_MISMATCH);
+            }
+        }
+        List<MultipartFile> pages = sessions.stream()
+                .map(session -> (MultipartFile) assemble(session, UploadKind.BOOKLET_PAGE))
+                .toList();
+        ResponseEntity<Map<String, Object>> response =
+                bookletValidationService.uploadBookletPages(pages, normalizedProcessId);
+        sessions.forEach(this::release);
+        return response;
+    }
+
+    private StoredUploadFile assemble(UploadSession session, UploadKind kind) {
+        if (!session.isComplete()) {
+            throw new UploadOffsetConflictException(UPLOAD_INCOMPLETE, session.offset());
+        }
+        StoredUploadFile file = resumableUploadStorage.assemble(session, kind.partName);
+        if (!session.assembled()) {
+            uploadSessionStore.markAssembled(session.uploadId());
+        }
+        return file;
+    }
+
+    private void release(UploadSession session) {
+        resumableUploadStorage.deleteObject(session);
+        uploadSessionStore.delete(session.uploadId());
+    }
+
+    private UploadSession findSession(String uploadId, UploadKind kind) {
+        UploadSession session = findSession(uploadId);
+        if (!kind.name().equals(session.documentType())) {
+            throw new IllegalArgumentException(UPLOAD_DOCUMENT_TYPE);
+        }
+        return session;
+    }
+
+    private UploadSession findSession(String uploadId) {
+        if (!StringUtils.hasText(uploadId)) {
+            throw new ResourceNotFoundException(UPLOAD_NOT_FOUND);
+        }
+        return uploadSessionStore.find(uploadId.trim())
+                .orElseThrow(() -> new ResourceNotFoundException(UPLOAD_NOT_FOUND));
+    }
+
+    private String normalizeProcessInstanceId(String processInstanceId) {
+        if (!StringUtils.hasText(processInstanceId)) {
+            throw new IllegalArgumentException(PROCESS_INSTANCE_ID_REQUIRED);
+        }
+        return processInstanceId.trim();
+    }
+
+    private static UploadSessionResponse toResponse(UploadSession session) {
+        return new UploadSessionResponse(
+                session.uploadId(),
+                session.processInstanceId(),
+                session.documentType(),
+                session.size(),
+                session.offset(),
+                session.chunkSize(),
+                session.expiresAt());
+    }
+
+    private enum UploadKind {
+        VIDEO("video", "video", VideoService.MAX_VIDEO_SIZE_BYTES, VIDEO_REQUIRED, VIDEO_TOO_LARGE,
+                FileTypeValidator.VIDEO_CONTENT_TYPES, FileTypeValidator.VIDEO_EXTENSIONS),
+        BOOKLET_PAGE("pages", "page-1", BookletValidationServiceImpl.MAX_PAGE_SIZE_BYTES, ID_PAGE_REQUIRED,
+                ID_PAGE_TOO_LARGE, union(FileTypeValidator.IMAGE_CONTENT_TYPES, FileTypeValidator.PDF_CONTENT_TYPES),
+                union(FileTypeValidator.IMAGE_EXTENSIONS, FileTypeValidator.PDF_EXTENSIONS));
+
+        private final String partName;
+        private final String defaultFilename;
+        private final long maxSize;
+        private final String requiredKey;
+        private final String sizeKey;
+        private final Set<String> contentTypes;
+        private final Set<String> extensions;
+
+        UploadKind(String partName, String defaultFilename, long maxSize, String requiredKey, String sizeKey,
+                   Set<String> contentTypes, Set<String> extensions) {
+            this.partName = partName;
+            this.defaultFilename = defaultFilename;
+            this.maxSize = maxSize;
+            this.requiredKey = requiredKey;
+            this.sizeKey = sizeKey;
+            this.contentTypes = contentTypes;
+            this.extensions = extensions;
+        }
+
+        private static UploadKind of(String documentType) {
+            if (!StringUtils.hasText(documentType)) {
+                throw new IllegalArgumentException(UPLOAD_DOCUMENT_TYPE);
+            }
+            try {
+                return valueOf(documentType.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException(UPLOAD_DOCUMENT_TYPE);
+            }
+        }
+
+        private static Set<String> union(Set<String> first, Set<String> second) {
+            Set<String> union = new HashSet<>(first);
+            union.addAll(second);
+            return Set.copyOf(union);
+        }
+    }
+}
@@ -8,12 +8,16 @@ import ir.ipaam.kycservices.application.service.SelfieService;
 import ir.ipaam.kycservices.application.service.dto.FaceDetectionData;
 import ir.ipaam.kycservices.application.service.dto.SelfieUploadResult;
 import ir.ipaam.kycservices.domain.command.UploadSelfieCommand;
+import ir.ipaam.kycservices.domain.model.KycStep;
+import ir.ipaam.kycservices.domain.model.KycStepOutcome;
 import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
 import ir.ipaam.kycservices.domain.model.value.DocumentPayloadDescriptor;
 import ir.ipaam.kycservices.common.validation.FileTypeValidator;
+import ir.ipaam.kycservices.infrastructure.concurrency.StepExecutionGuard;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
 import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
-import ir.ipaam.kycservices.infrastructure.repository.KycStepStatusRepository;
 import ir.ipaam.kycservices.infrastructure.service.MinioStorageService;
+import ir.ipaam.kycservices.infrastructure.tracing.KycTracing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.commandhandling.gateway.CommandGateway;
@@ -43,16 +47,16 @@ public class SelfieServiceImpl implements SelfieService {
 
     public static final long MAX_SELFIE_SIZE_BYTES = 2 * 1024 * 1024; // 2 MB
 
-    private static final String STEP_SELFIE_UPLOADED = "SELFIE_UPLOADED";
-
     private static final double FACE_CONFIDENCE_THRESHOLD = 0.9d;
 
     private final CommandGateway commandGateway;
     private final KycProcessInstanceRepository kycProcessInstanceRepository;
-    private final KycStepStatusRepository kycStepStatusRepository;
     private final ZeebeClient zeebeClient;
     private final EsbFaceDetection faceDetection;
     private final MinioStorageService minioStorageService;
+    private final StepExecutionGuard stepExecutionGuard;
+    private final KycMetrics kycMetrics;
+    private final KycTracing kycTracing;
 
     @Override
     public SelfieUploadResult uploadSelfie(MultipartFile selfie, String processInstanceId) {
@@ -65,18 +69,18 @@ public class SelfieServiceImpl implements SelfieService {
                     return new ResourceNotFoundException(PROCESS_NOT_FOUND);
                 });
 
-        if (kycStepStatusRepository.existsByProcess_CamundaInstanceIdAndStepName(
-                normalizedProcessId,
-                STEP_SELFIE_UPLOADED)) {
-            return SelfieUploadResult.of(HttpStatus.CONFLICT, Map.of(
-                    "processInstanceId", normalizedProcessId,
-                    "status", "SELFIE_ALREADY_UPLOADED"
-            ));
-        }
+        return kycTracing.inProcess(normalizedProcessId, () -> stepExecutionGuard.execute(normalizedProcessId,
+                KycStep.SELFIE_UPLOADED,
+                () -> verifyAndStoreSelfie(selfie, processInstance, normalizedProcessId),
+                () -> alreadyUploaded(normalizedProcessId)));
+    }
 
+    private SelfieUploadResult verifyAndStoreSelfie(MultipartFile selfie,
+                                                    ProcessInstance processInstance,
+                                                    String normalizedProcessId) {
         minioStorageService.assertAvailable();
 
-        byte[] selfieBytes = readFile(selfie);
+        byte[] selfieBytes = readFile(selfie, "PHOTO");
 
         MediaType contentType = resolveContentType(selfie);
         FaceDetectionData detectionData = faceDetection.detect(
@@ -95,7 +99,10 @@ public class SelfieServiceImpl implements SelfieService {
         DocumentPayloadDescriptor descriptor =
                 new DocumentPayloadDescriptor(selfieBytes, "selfie_" + normalizedProcessId);
 
-        commandGateway.sendAndWait(new UploadSelfieCommand(normalizedProcessId, descriptor));
+        KycStepOutcome outcome = commandGateway.sendAndWait(new UploadSelfieCommand(normalizedProcessId, descriptor));
+        if (outcome.isAlreadyCompleted()) {
+            return alreadyUploaded(normalizedProcessId);
+        }
 
         Boolean hasNewCard = null;
         if (processInstance.getCustomer() != null) {
@@ -113,6 +120,13 @@ public class SelfieServiceImpl implements SelfieService {
         return SelfieUploadResult.of(HttpStatus.ACCEPTED, body);
     }
 
+    private SelfieUploadResult alreadyUploaded(String processInstanceId) {
+        return SelfieUploadResult.of(HttpStatus.CONFLICT, Map.of(
+                "processInstanceId", processInstanceId,
+                "status", "SELFIE_ALREADY_UPLOADED"
+        ));
+    }
+
     private MediaType resolveContentType(MultipartFile file) {
         String contentType = file.getContentType();
         if (!StringUtils.hasText(contentType)) {
@@ -129,14 +143,14 @@ public class SelfieServiceImpl implements SelfieService {
     private void publishWorkflowUpdate(String processInstanceId, Boolean hasNewCard) {
         Map<String, Object> variables = new HashMap<>();
         variables.put("processInstanceId", processInstanceId);
-        variables.put("kycStatus", "SELFIE_UPLOADED");
+        variables.put("kycStatus", KycStep.SELFIE_UPLOADED.name());
         if (hasNewCard != null) {
             variables.put("card", hasNewCard);
         }
         zeebeClient.newPublishMessageCommand()
                 .messageName("selfie-uploaded")
                 .correlationKey(processInstanceId)
-                .variables(variables)
+                .variables(kycTracing.withTraceContext(variables))
                 .send()
                 .join();
     }
@@ -162,11 +176,15 @@ public class SelfieServiceImpl implements SelfieService {
         return processInstanceId.trim();
     }
 
-    private byte[] readFile(MultipartFile file) {
-        try {
-            return file.getBytes();
-        } catch (IOException e) {
-            throw new FileProcessingException(FILE_READ_FAILURE, e);
-        }
+    private byte[] readFile(MultipartFile file, String documentType) {
+        byte[] data = kycMetrics.time(KycMetrics.UPLOAD_READ, documentType, () -> {
+            try {
+                return file.getBytes();
+            } catch (IOException e) {
+                throw new FileProcessingException(FILE_READ_FAILURE, e);
+            }
+        });
+        kycMetrics.recordSize(KycMetrics.UPLOAD_SIZE, documentType, data.length);
+        return data;
     }
 }
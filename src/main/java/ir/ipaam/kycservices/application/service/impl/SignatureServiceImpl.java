@@ -6,12 +6,16 @@ import ir.ipaam.kycservices.application.api.error.ResourceNotFoundException;
 import ir.ipaam.kycservices.application.service.SignatureService;
 import ir.ipaam.kycservices.application.service.dto.SignatureUploadResult;
 import ir.ipaam.kycservices.domain.command.UploadSignatureCommand;
+import ir.ipaam.kycservices.domain.model.KycStep;
+import ir.ipaam.kycservices.domain.model.KycStepOutcome;
 import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
 import ir.ipaam.kycservices.domain.model.value.DocumentPayloadDescriptor;
 import ir.ipaam.kycservices.common.validation.FileTypeValidator;
+import ir.ipaam.kycservices.infrastructure.concurrency.StepExecutionGuard;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
 import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
-import ir.ipaam.kycservices.infrastructure.repository.KycStepStatusRepository;
 import ir.ipaam.kycservices.infrastructure.service.MinioStorageService;
+import ir.ipaam.kycservices.infrastructure.tracing.KycTracing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.commandhandling.gateway.CommandGateway;
@@ -38,13 +42,13 @@ public class SignatureServiceImpl implements SignatureService {
 
     public static final long MAX_SIGNATURE_SIZE_BYTES = 2 * 1024 * 1024; // 2 MB
 
-    private static final String STEP_SIGNATURE_UPLOADED = "SIGNATURE_UPLOADED";
-
     private final CommandGateway commandGateway;
     private final KycProcessInstanceRepository kycProcessInstanceRepository;
-    private final KycStepStatusRepository kycStepStatusRepository;
     private final ZeebeClient zeebeClient;
     private final MinioStorageService minioStorageService;
+    private final StepExecutionGuard stepExecutionGuard;
+    private final KycMetrics kycMetrics;
+    private final KycTracing kycTracing;
 
     @Override
     public SignatureUploadResult uploadSignature(MultipartFile signature, String processInstanceId) {
@@ -57,23 +61,27 @@ public class SignatureServiceImpl implements SignatureService {
                     return new ResourceNotFoundException(PROCESS_NOT_FOUND);
                 });
 
-        if (kycStepStatusRepository.existsByProcess_CamundaInstanceIdAndStepName(
-                normalizedProcessId,
-                STEP_SIGNATURE_UPLOADED)) {
-            return SignatureUploadResult.of(HttpStatus.CONFLICT, Map.of(
-                    "processInstanceId", normalizedProcessId,
-                    "status", "SIGNATURE_ALREADY_UPLOADED"
-            ));
-        }
+        return kycTracing.inProcess(normalizedProcessId, () -> stepExecutionGuard.execute(normalizedProcessId,
+                KycStep.SIGNATURE_UPLOADED,
+                () -> storeSignature(signature, processInstance, normalizedProcessId),
+                () -> alreadyUploaded(normalizedProcessId)));
+    }
 
+    private SignatureUploadResult storeSignature(MultipartFile signature,
+                                                 ProcessInstance processInstance,
+                                                 String normalizedProcessId) {
         minioStorageService.assertAvailable();
 
-        byte[] signatureBytes = readFile(signature);
+        byte[] signatureBytes = readFile(signature, "SIGNATURE");
 
         DocumentPayloadDescriptor descriptor =
                 new DocumentPayloadDescriptor(signatureBytes, "signature_" + normalizedProcessId);
 
-        commandGateway.sendAndWait(new UploadSignatureCommand(normalizedProcessId, descriptor));
+        KycStepOutcome outcome =
+                commandGateway.sendAndWait(new UploadSignatureCommand(normalizedProcessId, descriptor));
+        if (outcome.isAlreadyCompleted()) {
+            return alreadyUploaded(normalizedProcessId);
+        }
 
         Boolean hasNewCard = null;
         if (processInstance.getCustomer() != null) {
@@ -90,17 +98,24 @@ public class SignatureServiceImpl implements SignatureService {
         return SignatureUploadResult.of(HttpStatus.ACCEPTED, body);
     }
 
+    private SignatureUploadResult alreadyUploaded(String processInstanceId) {
+        return SignatureUploadResult.of(HttpStatus.CONFLICT, Map.of(
+                "processInstanceId", processInstanceId,
+                "status", "SIGNATURE_ALREADY_UPLOADED"
+        ));
+    }
+
     private void publishWorkflowUpdate(String processInstanceId, Boolean hasNewCard) {
         Map<String, Object> variables = new HashMap<>();
         variables.put("processInstanceId", processInstanceId);
-        variables.put("kycStatus", "SIGNATURE_UPLOADED");
+        variables.put("kycStatus", KycStep.SIGNATURE_UPLOADED.name());
         if (hasNewCard != null) {
             variables.put("card", hasNewCard);
         }
         zeebeClient.newPublishMessageCommand()
                 .messageName("signature-uploaded")
                 .correlationKey(processInstanceId)
-                .variables(variables)
+                .variables(kycTracing.withTraceContext(variables))
                 .send()
                 .join();
     }
@@ -126,11 +141,15 @@ public class SignatureServiceImpl implements SignatureService {
         return processInstanceId.trim();
     }
 
-    private byte[] readFile(MultipartFile file) {
-        try {
-            return file.getBytes();
-        } catch (IOException e) {
-            throw new FileProcessingException(FILE_READ_FAILURE, e);
-        }
+    private byte[] readFile(MultipartFile file, String documentType) {
+        byte[] data = kycMetrics.time(KycMetrics.UPLOAD_READ, documentType, () -> {
+            try {
+                return file.getBytes();
+            } catch (IOException e) {
+                throw new FileProcessingException(FILE_READ_FAILURE, e);
+            }
+        });
+        kycMetrics.recordSize(KycMetrics.UPLOAD_SIZE, documentType, data.length);
+        return data;
     }
 }
@@ -9,15 +9,21 @@ import ir.ipaam.kycservices.application.service.dto.LivenessCheckData;
 import ir.ipaam.kycservices.application.service.dto.VideoUploadRequest;
 import ir.ipaam.kycservices.application.service.dto.VideoUploadResponse;
 import ir.ipaam.kycservices.domain.command.UploadVideoCommand;
+import ir.ipaam.kycservices.domain.model.KycStep;
+import ir.ipaam.kycservices.domain.model.KycStepOutcome;
 import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
 import ir.ipaam.kycservices.domain.model.value.DocumentPayloadDescriptor;
+import ir.ipaam.kycservices.domain.model.value.StagedDocument;
 import ir.ipaam.kycservices.common.validation.FileTypeValidator;
+import ir.ipaam.kycservices.infrastructure.concurrency.StepExecutionGuard;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
 import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
-import ir.ipaam.kycservices.infrastructure.repository.KycStepStatusRepository;
 import ir.ipaam.kycservices.infrastructure.service.MinioStorageService;
+import ir.ipaam.kycservices.infrastructure.tracing.KycTracing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.commandhandling.gateway.CommandGateway;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
@@ -28,6 +34,8 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.FILE_READ_FAILURE;
 import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.FILE_TYPE_NOT_SUPPORTED;
@@ -44,17 +52,26 @@ import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.WORKFL
 @RequiredArgsConstructor
 public class VideoServiceImpl implements VideoService {
 
-    private static final long MAX_VIDEO_SIZE_BYTES = 10 * 1024 * 1024; // 10 MB
+    private static final long MAX_VIDEO_SIZE_BYTES = VideoService.MAX_VIDEO_SIZE_BYTES;
     private static final long MAX_IMAGE_SIZE_BYTES = 5 * 1024 * 1024; // 5 MB
     private static final double LIVENESS_THRESHOLD = 0.8d;
-    private static final String STEP_VIDEO_UPLOADED = "VIDEO_UPLOADED";
+    private static final String DOCUMENT_TYPE_VIDEO = "VIDEO";
 
     private final CommandGateway commandGateway;
     private final KycProcessInstanceRepository kycProcessInstanceRepository;
-    private final KycStepStatusRepository kycStepStatusRepository;
     private final ZeebeClient zeebeClient;
     private final EsbLivenessDetection livenessDetection;
     private final MinioStorageService minioStorageService;
+    private final StepExecutionGuard stepExecutionGuard;
+    private final KycMetrics kycMetrics;
+    private final KycTracing kycTracing;
+
+    /**
+     * Write the video to a staging object while the liveness check runs, instead of uploading it only after the
+     * check, from the event handler.
+     */
+    @Value("${kyc.video.stage-during-liveness:true}")
+    private boolean stageDuringLiveness;
 
     @Override
     public VideoUploadResponse uploadVideo(VideoUploadRequest request) {
@@ -82,43 +99,65 @@ public class VideoServiceImpl implements VideoService {
                     return new ResourceNotFoundException(PROCESS_NOT_FOUND);
                 });
 
-        if (kycStepStatusRepository.existsByProcess_CamundaInstanceIdAndStepName(
-                normalizedProcessId,
-                STEP_VIDEO_UPLOADED)) {
-            return new VideoUploadResponse(
-                    normalizedProcessId,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    "VIDEO_ALREADY_UPLOADED"
-            );
-        }
+        return kycTracing.inProcess(normalizedProcessId, () -> stepExecutionGuard.execute(normalizedProcessId,
+                KycStep.VIDEO_UPLOADED,
+                () -> checkAndStoreVideo(video, image, processInstance, normalizedProcessId),
+                () -> alreadyUploaded(normalizedProcessId)));
+    }
 
+    private VideoUploadResponse checkAndStoreVideo(MultipartFile video,
+                                                   MultipartFile image,
+                                                   ProcessInstance processInstance,
+                                                   String normalizedProcessId) {
         minioStorageService.assertAvailable();
 
-        byte[] videoBytes = readFile(video);
-        byte[] imageBytes = readFile(image);
+        byte[] videoBytes = readFile(video, DOCUMENT_TYPE_VIDEO);
+        byte[] imageBytes = readFile(image, "PHOTO");
+        DocumentPayloadDescriptor descriptor =
+                new DocumentPayloadDescriptor(videoBytes, "video_" + normalizedProcessId);
+        CompletableFuture<StagedDocument> staging = stageDuringLiveness
+                ? minioStorageService.stage(descriptor, DOCUMENT_TYPE_VIDEO, normalizedProcessId)
+                : null;
 
         MediaType videoContentType = resolveContentType(video);
         MediaType imageContentType = resolveContentType(image);
-        LivenessCheckData livenessData = livenessDetection.check(
-                videoBytes,
-                video.getOriginalFilename(),
-                videoContentType,
-                imageBytes,
-                image.getOriginalFilename(),
-                imageContentType,
-                normalizedProcessId);
-
-        boolean match = isMatch(livenessData);
-
-        DocumentPayloadDescriptor descriptor =
-                new DocumentPayloadDescriptor(videoBytes, "video_" + normalizedProcessId);
+        LivenessCheckData livenessData;
+        boolean match;
+        try {
+            livenessData = livenessDetection.check(
+                    videoBytes,
+                    video.getOriginalFilename(),
+                    videoContentType,
+                    imageBytes,
+                    image.getOriginalFilename(),
+                    imageContentType,
+                    normalizedProcessId);
+            match = isMatch(livenessData);
+        } catch (RuntimeException ex) {
+            discard(staging, normalizedProcessId);
+            throw ex;
+        }
 
-        commandGateway.sendAndWait(new UploadVideoCommand(normalizedProcessId, descriptor));
+        // Only a matching video is committed from staging; any other is kept from the event payload as before.
+        StagedDocument stagedVideo = null;
+        if (match) {
+            stagedVideo = awaitStaged(staging, normalizedProcessId);
+        } else {
+            discard(staging, normalizedProcessId);
+            staging = null;
+        }
+        KycStepOutcome outcome;
+        try {
+            outcome = commandGateway.sendAndWait(
+                    new UploadVideoCommand(normalizedProcessId, descriptor, stagedVideo));
+        } catch (RuntimeException ex) {
+            discard(staging, normalizedProcessId);
+            throw ex;
+        }
+        if (outcome.isAlreadyCompleted()) {
+            discard(staging, normalizedProcessId);
+            return alreadyUploaded(normalizedProcessId);
+        }
 
         Boolean hasNewCard = null;
         if (processInstance.getCustomer() != null) {
@@ -139,13 +178,52 @@ public class VideoServiceImpl implements VideoService {
         );
     }
 
+    /**
+     * @return the staged video, or {@code null} when staging is off or failed, in which case the event handler
+     * uploads the video from the command's payload as before
+     */
+    private StagedDocument awaitStaged(CompletableFuture<StagedDocument> staging, String processInstanceId) {
+        if (staging == null) {
+            return null;
+        }
+        try {
+            return staging.join();
+        } catch (CompletionException ex) {
+            log.warn("Staging the video of process {} failed; it will be uploaded after the command",
+                    processInstanceId, ex.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Removes the staged video once it is written, without waiting for it.
+     */
+    private void discard(CompletableFuture<StagedDocument> staging, String processInstanceId) {
+        if (staging != null) {
+            staging.thenAccept(staged -> minioStorageService.discardStaged(staged, processInstanceId));
+        }
+    }
+
+    private VideoUploadResponse alreadyUploaded(String processInstanceId) {
+        return new VideoUploadResponse(
+                processInstanceId,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                "VIDEO_ALREADY_UPLOADED"
+        );
+    }
+
     private void publishWorkflowUpdate(String processInstanceId,
                                        Boolean hasNewCard,
                                        boolean match,
                                        LivenessCheckData livenessData) {
         Map<String, Object> variables = new HashMap<>();
         variables.put("processInstanceId", processInstanceId);
-        variables.put("kycStatus", "VIDEO_UPLOADED");
+        variables.put("kycStatus", KycStep.VIDEO_UPLOADED.name());
         variables.put("match", match);
         if (hasNewCard != null) {
             variables.put("card", hasNewCard);
@@ -156,7 +234,7 @@ public class VideoServiceImpl implements VideoService {
         zeebeClient.newPublishMessageCommand()
                 .messageName("video-uploaded")
                 .correlationKey(processInstanceId)
-                .variables(variables)
+                .variables(kycTracing.withTraceContext(variables))
                 .send()
                 .join();
     }
@@ -205,11 +283,15 @@ public class VideoServiceImpl implements VideoService {
         }
     }
 
-    private byte[] readFile(MultipartFile file) {
-        try {
-            return file.getBytes();
-        } catch (IOException e) {
-            throw new FileProcessingException(FILE_READ_FAILURE, e);
-        }
+    private byte[] readFile(MultipartFile file, String documentType) {
+        byte[] data = kycMetrics.time(KycMetrics.UPLOAD_READ, documentType, () -> {
+            try {
+                return file.getBytes();
+            } catch (IOException e) {
+                throw new FileProcessingException(FILE_READ_FAILURE, e);
+            }
+        });
+        kycMetrics.recordSize(KycMetrics.UPLOAD_SIZE, documentType, data.length);
+        return data;
     }
 }
@@ -2,8 +2,11 @@ package ir.ipaam.kycservices.application.workflow;
 
 import io.camunda.zeebe.client.api.response.ActivatedJob;
 import io.camunda.zeebe.spring.client.annotation.JobWorker;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
 import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
 import ir.ipaam.kycservices.domain.query.FindKycStatusQuery;
+import ir.ipaam.kycservices.infrastructure.tracing.KycTracing;
 import lombok.RequiredArgsConstructor;
 import org.axonframework.messaging.responsetypes.ResponseTypes;
 import org.axonframework.queryhandling.QueryGateway;
@@ -17,11 +20,28 @@ import java.util.Map;
 public class CheckKycStatusWorker {
 
     private final QueryGateway queryGateway;
+    private final KycTracing kycTracing;
 
     @JobWorker(type = "check-kyc-status")
     public Map<String, Object> handle(final ActivatedJob job) {
         Map<String, Object> variables = job.getVariablesAsMap();
         String processInstanceId = Long.toString(job.getProcessInstanceKey());
+        Span span = kycTracing.continueTrace("job " + job.getType(),
+                        variables.get(KycTracing.ZEEBE_VARIABLE) instanceof Map<?, ?> context ? context : null)
+                .kind(Span.Kind.CONSUMER)
+                .tag(KycTracing.PROCESS_INSTANCE_ID, processInstanceId)
+                .start();
+        try (Tracer.SpanInScope ignored = kycTracing.tracer().withSpan(span)) {
+            return checkStatus(variables, processInstanceId);
+        } catch (RuntimeException ex) {
+            span.error(ex);
+            throw ex;
+        } finally {
+            span.end();
+        }
+    }
+
+    private Map<String, Object> checkStatus(Map<String, Object> variables, String processInstanceId) {
         String nationalCode = (String) variables.get("nationalCode");
         ProcessInstance instance = queryGateway.query(
                 new FindKycStatusQuery(nationalCode),
@@ -1,33 +1,57 @@
 package ir.ipaam.kycservices.config;
 
+import io.netty.channel.ChannelOption;
+import ir.ipaam.kycservices.infrastructure.resilience.EsbConcurrencyLimits;
 import ir.ipaam.kycservices.infrastructure.service.security.EsbTokenProvider;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * WebClients of the ESB endpoints. Each one has a connection pool of its own, configured under
+ * {@code kyc.esb.http.endpoints.<endpoint>}: the endpoints share one ESB host, and with the shared default pool a
+ * burst of video uploads could hold every connection to it.
+ */
 @Configuration
 public class EsbClientConfig {
 
+    private final EsbHttpClientProperties httpProperties;
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+    public EsbClientConfig(EsbHttpClientProperties httpProperties) {
+        this.httpProperties = httpProperties;
+    }
+
     @Bean
     @Qualifier("cardOcrWebClient")
     public WebClient cardOcrWebClient(@Value("${ocr.card.base-url}") String baseUrl,
                                       WebClient.Builder builder,
-                                      EsbTokenProvider tokenProvider) {
-        return buildAuthorizedClient(baseUrl, builder, tokenProvider);
+                                      EsbTokenProvider tokenProvider,
+                                      EsbConcurrencyLimits concurrencyLimits) {
+        return buildAuthorizedClient("card-ocr", baseUrl, builder, tokenProvider, concurrencyLimits);
     }
     @Bean
     @Qualifier("bookletValidationWebClient")
     public WebClient bookletValidationWebClient(
             @Value("${ocr.booklet.base-url}") String baseUrl,
             WebClient.Builder builder,
-            EsbTokenProvider tokenProvider) {
-        return buildAuthorizedClient(baseUrl, builder, tokenProvider);
+            EsbTokenProvider tokenProvider,
+            EsbConcurrencyLimits concurrencyLimits) {
+        return buildAuthorizedClient("booklet-validation", baseUrl, builder, tokenProvider, concurrencyLimits);
     }
 
     @Bean
@@ -35,8 +59,33 @@ public class EsbClientConfig {
     public WebClient faceDetectionWebClient(
             @Value("${ocr.face.base-url}") String baseUrl,
             WebClient.Builder builder,
-            EsbTokenProvider tokenProvider) {
-        return buildAuthorizedClient(baseUrl, builder, tokenProvider);
+            EsbTokenProvider tokenProvider,
+            EsbConcurrencyLimits concurrencyLimits) {
+        return buildAuthorizedClient("face-detection", baseUrl, builder, tokenProvider, concurrencyLimits);
+    }
+
+    /**
+     * Same service as face detection, but its large uploads get their own pool.
+     */
+    @Bean
+    @Qualifier("livenessWebClient")
+    public WebClient livenessWebClient(
+            @Value("${ocr.face.base-url}") String baseUrl,
+            WebClient.Builder builder,
+            EsbTokenProvider tokenProvider,
+            EsbConcurrencyLimits concurrencyLimits) {
+        return buildAuthorizedClient("liveness", baseUrl, builder, tokenProvider, concurrencyLimits);
+    }
+
+    @Bean
+    @Qualifier("addressValidationWebClient")
+    public WebClient addressValidationWebClient(
+            @Value("${address.validation.base-url:http://192.168.179.21:8290}") String baseUrl,
+            WebClient.Builder builder) {
+        return builder
+                .baseUrl(baseUrl)
+                .clientConnector(connector("address-validation", baseUrl))
+                .build();
     }
 
     @Bean
@@ -45,9 +94,16 @@ public class EsbClientConfig {
         return builder.build();
     }
 
-    private WebClient buildAuthorizedClient(String baseUrl,
+    @PreDestroy
+    void disposeConnectionProviders() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
+    private WebClient buildAuthorizedClient(String endpoint,
+                                            String baseUrl,
                                             WebClient.Builder builder,
-                                            EsbTokenProvider tokenProvider) {
+                                            EsbTokenProvider tokenProvider,
+                                            EsbConcurrencyLimits concurrencyLimits) {
         ExchangeFilterFunction authorizationFilter = (request, next) -> Mono.defer(() -> {
             String accessToken = tokenProvider.getAccessToken();
             ClientRequest authenticatedRequest = ClientRequest.from(request)
@@ -58,7 +114,35 @@ public class EsbClientConfig {
 
         return builder
                 .baseUrl(baseUrl)
+                .clientConnector(connector(endpoint, baseUrl))
                 .filter(authorizationFilter)
+                // Registered after the token filter, so fetching a token neither holds a slot nor skews the latency.
+                .filter(concurrencyLimits.filter())
                 .build();
     }
+
+    private ReactorClientHttpConnector connector(String endpoint, String baseUrl) {
+        EsbHttpClientProperties.Endpoint settings = httpProperties.endpoint(endpoint);
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("esb-" + endpoint)
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+                .maxIdleTime(settings.getMaxIdleTime())
+                .maxLifeTime(settings.getMaxLifeTime())
+                .evictInBackground(settings.getEvictionInterval())
+                .metrics(settings.isMetrics())
+                .build();
+        connectionProviders.add(connectionProvider);
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) settings.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, settings.isKeepAlive())
+                .responseTimeout(settings.getResponseTimeout());
+        if (settings.isHttp2()) {
+            httpClient = baseUrl.startsWith("https:")
+                    ? httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure()
+                    : httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return new ReactorClientHttpConnector(httpClient);
+    }
 }
@@ -0,0 +1,83 @@
+package ir.ipaam.kycservices.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "kyc.esb.http")
+@Getter
+@Setter
+public class EsbHttpClientProperties {
+
+    /**
+     * HTTP client per ESB endpoint: {@code card-ocr}, {@code booklet-validation}, {@code face-detection},
+     * {@code liveness} and {@code address-validation}. Every endpoint gets a connection pool of its own, so slow video
+     * uploads cannot take the connections of the OCR calls. Endpoints without an entry use the defaults of
+     * {@link Endpoint}.
+     */
+    private Map<String, Endpoint> endpoints = new HashMap<>();
+
+    public Endpoint endpoint(String name) {
+        return endpoints.getOrDefault(name, new Endpoint());
+    }
+
+    @Getter
+    @Setter
+    public static class Endpoint {
+
+        private int maxConnections = 20;
+
+        /**
+         * Requests allowed to wait for a pooled connection; further requests fail right away.
+         */
+        private int pendingAcquireMaxCount = 40;
+
+        /**
+         * Longest a request waits for a pooled connection.
+         */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Idle connections are closed after this, ahead of the idle timeout of the ESB and the load balancers.
+         */
+        private Duration maxIdleTime = Duration.ofSeconds(20);
+
+        /**
+         * Connections are closed after this, so new ESB nodes receive traffic too.
+         */
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+
+        /**
+         * Interval of the background eviction of idle and expired connections; zero evicts on acquire only.
+         */
+        private Duration evictionInterval = Duration.ofSeconds(30);
+
+        private Duration connectTimeout = Duration.ofSeconds(5);
+
+        /**
+         * Longest wait for the response once the request is written, per read of the network.
+         */
+        private Duration responseTimeout = Duration.ofSeconds(60);
+
+        /**
+         * TCP keep-alive on pooled connections.
+         */
+        private boolean keepAlive = true;
+
+        /**
+         * Offer HTTP/2, over TLS (h2) or as a cleartext upgrade (h2c), falling back to HTTP/1.1.
+         */
+        private boolean http2 = false;
+
+        /**
+         * Publish the pool's {@code reactor.netty.connection.provider.*} meters.
+         */
+        private boolean metrics = true;
+    }
+}
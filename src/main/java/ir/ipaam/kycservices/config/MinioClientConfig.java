@@ -1,6 +1,8 @@
 package ir.ipaam.kycservices.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
+import ir.ipaam.kycservices.infrastructure.service.MinioMultipartClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,4 +21,14 @@ public class MinioClientConfig {
                 .build();
     }
 
+    @Bean
+    public MinioMultipartClient minioMultipartClient(
+            @Value("${storage.minio.endpoint}") String endpoint,
+            @Value("${storage.minio.access-key}") String accessKey,
+            @Value("${storage.minio.secret-key}") String secretKey) {
+        return new MinioMultipartClient(MinioAsyncClient.builder()
+                .endpoint(endpoint)
+                .credentials(accessKey, secretKey)
+                .build());
+    }
 }
@@ -0,0 +1,14 @@
+package ir.ipaam.kycservices.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the {@code @Scheduled} jobs: the projection rebuild lock check, the event archive and the idempotency and
+ * upload session purges. They share Boot's task scheduler, sized by {@code spring.task.scheduling.pool.size} so a
+ * long archive run does not hold up the lock check or the purges.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,36 @@
+package ir.ipaam.kycservices.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class StorageExecutorConfig {
+
+    /**
+     * Bounded pool used to brand, encrypt and upload the documents of a single event concurrently.
+     * When the queue is full the submitting thread runs the upload itself instead of failing. Tasks inherit the
+     * submitter's trace context, so their storage spans stay in the request's trace.
+     */
+    @Bean(destroyMethod = "shutdown")
+    @Qualifier("storageUploadExecutor")
+    public ThreadPoolTaskExecutor storageUploadExecutor(
+            @Value("${storage.minio.upload.pool-size:4}") int poolSize,
+            @Value("${storage.minio.upload.queue-capacity:32}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("storage-upload-");
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+}
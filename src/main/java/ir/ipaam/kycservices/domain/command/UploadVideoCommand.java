@@ -1,10 +1,12 @@
 package ir.ipaam.kycservices.domain.command;
 
 import ir.ipaam.kycservices.domain.model.value.DocumentPayloadDescriptor;
+import ir.ipaam.kycservices.domain.model.value.StagedDocument;
 import org.axonframework.modelling.command.TargetAggregateIdentifier;
 
 public record UploadVideoCommand(
         @TargetAggregateIdentifier String processInstanceId,
-        DocumentPayloadDescriptor videoDescriptor
+        DocumentPayloadDescriptor videoDescriptor,
+        StagedDocument stagedVideo
 ) {
 }
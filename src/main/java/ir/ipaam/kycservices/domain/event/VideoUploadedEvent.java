@@ -1,6 +1,7 @@
 package ir.ipaam.kycservices.domain.event;
 
 import ir.ipaam.kycservices.domain.model.value.DocumentPayloadDescriptor;
+import ir.ipaam.kycservices.domain.model.value.StagedDocument;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -14,4 +15,10 @@ public class VideoUploadedEvent {
     private final String nationalCode;
     private final DocumentPayloadDescriptor descriptor;
     private final LocalDateTime uploadedAt;
+
+    /**
+     * The video as already written to a staging object while the liveness check ran, or {@code null} when it still
+     * has to be uploaded from {@link #descriptor}. Older events have none.
+     */
+    private final StagedDocument stagedVideo;
 }
@@ -0,0 +1,36 @@
+package ir.ipaam.kycservices.domain.model;
+
+import java.util.Optional;
+
+/**
+ * Workflow steps the KYC process aggregate records once completed. The names double as the step names stored in
+ * {@code kyc_step_status} and the {@code kycStatus} variables published to the workflow.
+ */
+public enum KycStep {
+    CARD_DOCUMENTS_UPLOADED,
+    CARD_STATUS_RECORDED,
+    BOOKLET_PAGES_UPLOADED,
+    RECORD_NATIONAL_CARD_TRACKING_NUMBER,
+    SELFIE_UPLOADED,
+    SIGNATURE_UPLOADED,
+    VIDEO_UPLOADED,
+    CONSENT_ACCEPTED,
+    ADDRESS_AND_ZIPCODE_COLLECTED,
+    ZIPCODE_AND_ADDRESS_VALIDATED,
+    ENGLISH_PERSONAL_INFO_PROVIDED;
+
+    /**
+     * @return the step with the given name, or empty for step names that are not tracked (e.g. workflow failures)
+     */
+    public static Optional<KycStep> fromStepName(String stepName) {
+        if (stepName == null) {
+            return Optional.empty();
+        }
+        for (KycStep step : values()) {
+            if (step.name().equals(stepName)) {
+                return Optional.of(step);
+            }
+        }
+        return Optional.empty();
+    }
+}
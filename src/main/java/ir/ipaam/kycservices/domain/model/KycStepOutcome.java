@@ -0,0 +1,19 @@
+package ir.ipaam.kycservices.domain.model;
+
+/**
+ * Result of a command that completes a {@link KycStep}.
+ */
+public enum KycStepOutcome {
+    /**
+     * The step was recorded by this command.
+     */
+    APPLIED,
+    /**
+     * The step had already been completed; the command was ignored.
+     */
+    ALREADY_COMPLETED;
+
+    public boolean isAlreadyCompleted() {
+        return this == ALREADY_COMPLETED;
+    }
+}
@@ -2,6 +2,8 @@ package ir.ipaam.kycservices.domain.model.aggregate;
 
 import ir.ipaam.kycservices.domain.command.*;
 import ir.ipaam.kycservices.domain.event.*;
+import ir.ipaam.kycservices.domain.model.KycStep;
+import ir.ipaam.kycservices.domain.model.KycStepOutcome;
 import ir.ipaam.kycservices.domain.model.value.DocumentPayloadDescriptor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -14,6 +16,7 @@ import org.axonframework.spring.stereotype.Aggregate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.regex.Pattern;
@@ -54,7 +57,13 @@ public class KycProcessAggregate {
     private String telephone;
     private String postalCode;
     private String address;
+    /**
+     * Steps completed so far, rebuilt from the event stream; used to turn repeated requests into
+     * {@link KycStepOutcome#ALREADY_COMPLETED} instead of duplicate events.
+     */
+    private EnumSet<KycStep> completedSteps = EnumSet.noneOf(KycStep.class);
 
+    private static final String STATE_PASSED = "PASSED";
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^@\\\s]+@[^@\\\s]+\\.[^@\\\s]+$");
 
     @CommandHandler
@@ -66,7 +75,11 @@ public class KycProcessAggregate {
     }
 
     @CommandHandler
-    public void handle(UpdateKycStatusCommand command) {
+    public KycStepOutcome handle(UpdateKycStatusCommand command) {
+        if (STATE_PASSED.equalsIgnoreCase(command.state())
+                && KycStep.fromStepName(command.stepName()).filter(completedSteps::contains).isPresent()) {
+            return KycStepOutcome.ALREADY_COMPLETED;
+        }
         AggregateLifecycle.apply(new KycStatusUpdatedEvent(
                 command.processInstanceId(),
                 this.nationalCode,
@@ -74,10 +87,11 @@ public class KycProcessAggregate {
                 command.stepName(),
                 command.state(),
                 LocalDateTime.now()));
+        return KycStepOutcome.APPLIED;
     }
 
     @CommandHandler
-    public void handle(UploadCardDocumentsCommand command) {
+    public KycStepOutcome handle(UploadCardDocumentsCommand command) {
         if (this.processInstanceId == null) {
             throw new IllegalStateException(KYC_NOT_STARTED);
         }
@@ -90,16 +104,21 @@ public class KycProcessAggregate {
             throw new IllegalArgumentException(CARD_DESCRIPTORS_REQUIRED);
         }
 
+        if (completedSteps.contains(KycStep.CARD_DOCUMENTS_UPLOADED)) {
+            return KycStepOutcome.ALREADY_COMPLETED;
+        }
+
         AggregateLifecycle.apply(new CardDocumentsUploadedEvent(
                 command.getProcessInstanceId(),
                 this.nationalCode,
                 command.getFrontDescriptor(),
                 command.getBackDescriptor(),
                 LocalDateTime.now()));
+        return KycStepOutcome.APPLIED;
     }
 
     @CommandHandler
-    public void handle(UploadBookletPagesCommand command) {
+    public KycStepOutcome handle(UploadBookletPagesCommand command) {
         if (this.processInstanceId == null) {
             throw new IllegalStateException(KYC_NOT_STARTED);
         }
@@ -119,11 +138,16 @@ public class KycProcessAggregate {
             throw new IllegalArgumentException(ID_DESCRIPTOR_NULL);
         }
 
+        if (completedSteps.contains(KycStep.BOOKLET_PAGES_UPLOADED)) {
+            return KycStepOutcome.ALREADY_COMPLETED;
+        }
+
         AggregateLifecycle.apply(new BookletPagesUploadedEvent(
                 command.processInstanceId(),
                 this.nationalCode,
                 new ArrayList<>(descriptors),
                 LocalDateTime.now()));
+        return KycStepOutcome.APPLIED;
     }
 
     @CommandHandler
@@ -134,7 +158,7 @@ public class KycProcessAggregate {
     }
 
     @CommandHandler
-    public void handle(UploadSelfieCommand command) {
+    public KycStepOutcome handle(UploadSelfieCommand command) {
         if (this.processInstanceId == null) {
             throw new IllegalStateException(KYC_NOT_STARTED);
         }
@@ -147,15 +171,20 @@ public class KycProcessAggregate {
             throw new IllegalArgumentException(SELFIE_DESCRIPTOR_REQUIRED);
         }
 
+        if (completedSteps.contains(KycStep.SELFIE_UPLOADED)) {
+            return KycStepOutcome.ALREADY_COMPLETED;
+        }
+
         AggregateLifecycle.apply(new SelfieUploadedEvent(
                 command.processInstanceId(),
                 this.nationalCode,
                 command.selfieDescriptor(),
                 LocalDateTime.now()));
+        return KycStepOutcome.APPLIED;
     }
 
     @CommandHandler
-    public void handle(UploadSignatureCommand command) {
+    public KycStepOutcome handle(UploadSignatureCommand command) {
         if (this.processInstanceId == null) {
             throw new IllegalStateException(KYC_NOT_STARTED);
         }
@@ -168,15 +197,20 @@ public class KycProcessAggregate {
             throw new IllegalArgumentException(SIGNATURE_DESCRIPTOR_REQUIRED);
         }
 
+        if (completedSteps.contains(KycStep.SIGNATURE_UPLOADED)) {
+            return KycStepOutcome.ALREADY_COMPLETED;
+        }
+
         AggregateLifecycle.apply(new SignatureUploadedEvent(
                 command.processInstanceId(),
                 this.nationalCode,
                 command.signatureDescriptor(),
                 LocalDateTime.now()));
+        return KycStepOutcome.APPLIED;
     }
 
     @CommandHandler
-    public void handle(UploadVideoCommand command) {
+    public KycStepOutcome handle(UploadVideoCommand command) {
         if (this.processInstanceId == null) {
             throw new IllegalStateException(KYC_NOT_STARTED);
         }
@@ -189,15 +223,21 @@ public class KycProcessAggregate {
             throw new IllegalArgumentException(VIDEO_DESCRIPTOR_REQUIRED);
         }
 
+        if (completedSteps.contains(KycStep.VIDEO_UPLOADED)) {
+            return KycStepOutcome.ALREADY_COMPLETED;
+        }
+
         AggregateLifecycle.apply(new VideoUploadedEvent(
                 command.processInstanceId(),
                 this.nationalCode,
                 command.videoDescriptor(),
-                LocalDateTime.now()));
+                LocalDateTime.now(),
+                command.stagedVideo()));
+        return KycStepOutcome.APPLIED;
     }
 
     @CommandHandler
-    public void handle(AcceptConsentCommand command) {
+    public KycStepOutcome handle(AcceptConsentCommand command) {
         if (this.processInstanceId == null) {
             throw new IllegalStateException(KYC_NOT_STARTED);
         }
@@ -214,16 +254,21 @@ public class KycProcessAggregate {
             throw new IllegalArgumentException(CONSENT_NOT_ACCEPTED);
         }
 
+        if (completedSteps.contains(KycStep.CONSENT_ACCEPTED)) {
+            return KycStepOutcome.ALREADY_COMPLETED;
+        }
+
         AggregateLifecycle.apply(new ConsentAcceptedEvent(
                 command.getProcessInstanceId(),
                 this.nationalCode,
                 command.getTermsVersion().trim(),
                 true,
                 LocalDateTime.now()));
+        return KycStepOutcome.APPLIED;
     }
 
     @CommandHandler
-    public void handle(ProvideEnglishPersonalInfoCommand command) {
+    public KycStepOutcome handle(ProvideEnglishPersonalInfoCommand command) {
         if (this.processInstanceId == null) {
             throw new IllegalStateException(KYC_NOT_STARTED);
         }
@@ -237,6 +282,10 @@ public class KycProcessAggregate {
         String email = normalizeEmail(command.email());
         String telephone = normalizeRequiredText(command.telephone(), TELEPHONE_REQUIRED);
 
+        if (completedSteps.contains(KycStep.ENGLISH_PERSONAL_INFO_PROVIDED)) {
+            return KycStepOutcome.ALREADY_COMPLETED;
+        }
+
         AggregateLifecycle.apply(new EnglishPersonalInfoProvidedEvent(
                 this.processInstanceId,
                 this.nationalCode,
@@ -245,10 +294,11 @@ public class KycProcessAggregate {
                 email,
                 telephone,
                 LocalDateTime.now()));
+        return KycStepOutcome.APPLIED;
     }
 
     @CommandHandler
-    public void handle(CollectAddressCommand command) {
+    public KycStepOutcome handle(CollectAddressCommand command) {
         if (this.processInstanceId == null) {
             throw new IllegalStateException(KYC_NOT_STARTED);
         }
@@ -260,6 +310,10 @@ public class KycProcessAggregate {
         String normalizedPostalCode = normalizePostalCode(command.postalCode());
         String normalizedAddress = normalizeRequiredText(command.address(), ADDRESS_REQUIRED);
 
+        if (completedSteps.contains(KycStep.ZIPCODE_AND_ADDRESS_VALIDATED)) {
+            return KycStepOutcome.ALREADY_COMPLETED;
+        }
+
         AggregateLifecycle.apply(new AddressAndZipCodeCollectedEvent(
                 this.processInstanceId,
                 this.nationalCode,
@@ -267,6 +321,7 @@ public class KycProcessAggregate {
                 normalizedAddress,
                 LocalDateTime.now()
         ));
+        return KycStepOutcome.APPLIED;
     }
 
     private String normalizeRequiredText(String value, String messageKey) {
@@ -309,41 +364,51 @@ public class KycProcessAggregate {
     @EventSourcingHandler
     public void on(KycStatusUpdatedEvent event) {
         this.status = event.getStatus();
+        if (STATE_PASSED.equalsIgnoreCase(event.getState())) {
+            KycStep.fromStepName(event.getStepName()).ifPresent(completedSteps::add);
+        }
     }
 
     @EventSourcingHandler
     public void on(CardDocumentsUploadedEvent event) {
-        this.status = "CARD_DOCUMENTS_UPLOADED";
+        this.status = KycStep.CARD_DOCUMENTS_UPLOADED.name();
+        completedSteps.add(KycStep.CARD_DOCUMENTS_UPLOADED);
     }
 
     @EventSourcingHandler
     public void on(BookletPagesUploadedEvent event) {
-        this.status = "BOOKLET_PAGES_UPLOADED";
+        this.status = KycStep.BOOKLET_PAGES_UPLOADED.name();
+        completedSteps.add(KycStep.BOOKLET_PAGES_UPLOADED);
     }
 
     @EventSourcingHandler
     public void on(RecordTrackingNumberEvent event) {
-        this.status = "RECORD_NATIONAL_CARD_TRACKING_NUMBER";
+        this.status = KycStep.RECORD_NATIONAL_CARD_TRACKING_NUMBER.name();
+        completedSteps.add(KycStep.RECORD_NATIONAL_CARD_TRACKING_NUMBER);
     }
 
     @EventSourcingHandler
     public void on(SelfieUploadedEvent event) {
-        this.status = "SELFIE_UPLOADED";
+        this.status = KycStep.SELFIE_UPLOADED.name();
+        completedSteps.add(KycStep.SELFIE_UPLOADED);
     }
 
     @EventSourcingHandler
     public void on(SignatureUploadedEvent event) {
-        this.status = "SIGNATURE_UPLOADED";
+        this.status = KycStep.SIGNATURE_UPLOADED.name();
+        completedSteps.add(KycStep.SIGNATURE_UPLOADED);
     }
 
     @EventSourcingHandler
     public void on(VideoUploadedEvent event) {
-        this.status = "VIDEO_UPLOADED";
+        this.status = KycStep.VIDEO_UPLOADED.name();
+        completedSteps.add(KycStep.VIDEO_UPLOADED);
     }
 
     @EventSourcingHandler
     public void on(ConsentAcceptedEvent event) {
-        this.status = "CONSENT_ACCEPTED";
+        this.status = KycStep.CONSENT_ACCEPTED.name();
+        completedSteps.add(KycStep.CONSENT_ACCEPTED);
     }
 
     @EventSourcingHandler
@@ -352,13 +417,15 @@ public class KycProcessAggregate {
         this.lastNameEn = event.getLastNameEn();
         this.email = event.getEmail();
         this.telephone = event.getTelephone();
-        this.status = "ENGLISH_PERSONAL_INFO_PROVIDED";
+        this.status = KycStep.ENGLISH_PERSONAL_INFO_PROVIDED.name();
+        completedSteps.add(KycStep.ENGLISH_PERSONAL_INFO_PROVIDED);
     }
 
     @EventSourcingHandler
     public void on(AddressAndZipCodeCollectedEvent event) {
         this.postalCode = event.getPostalCode();
         this.address = event.getAddress();
-        this.status = "ADDRESS_AND_ZIPCODE_COLLECTED";
+        this.status = KycStep.ADDRESS_AND_ZIPCODE_COLLECTED.name();
+        completedSteps.add(KycStep.ADDRESS_AND_ZIPCODE_COLLECTED);
     }
 }
@@ -12,7 +12,8 @@ import lombok.*;
 @ToString
 public class Address {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "addressIdGenerator")
+    @SequenceGenerator(name = "addressIdGenerator", sequenceName = "address_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 @ToString
 public class Consent {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "consentIdGenerator")
+    @SequenceGenerator(name = "consentIdGenerator", sequenceName = "consent_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
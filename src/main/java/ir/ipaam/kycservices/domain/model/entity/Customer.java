@@ -14,7 +14,8 @@ import java.time.LocalDate;
 @ToString
 public class Customer {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customerIdGenerator")
+    @SequenceGenerator(name = "customerIdGenerator", sequenceName = "customer_seq", allocationSize = 50)
     private Long id;
     @Column(unique = true, nullable = false)
     private String nationalCode;
@@ -12,7 +12,8 @@ import lombok.*;
 @ToString
 public class Document {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documentIdGenerator")
+    @SequenceGenerator(name = "documentIdGenerator", sequenceName = "document_seq", allocationSize = 50)
     private Long id;
 
     private String type;       // CARD, ID_BOOKLET, PHOTO, VIDEO, SIGNATURE
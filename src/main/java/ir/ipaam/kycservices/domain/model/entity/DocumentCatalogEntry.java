@@ -0,0 +1,43 @@
+package ir.ipaam.kycservices.domain.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Latest verified document per customer and document type, maintained next to {@link Document} so downloads are a
+ * primary-key lookup instead of a join over processes and customers.
+ */
+@Entity
+@Table(name = "KYC_DOCUMENT_CATALOG")
+@IdClass(DocumentCatalogEntry.Key.class)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class DocumentCatalogEntry {
+    @Id
+    private String nationalCode;
+
+    @Id
+    private String type;
+
+    private Long documentId;
+    private String storagePath;
+    private String hash;
+    private boolean encrypted;
+    private String encryptionIv;
+    private Long size;
+    private LocalDateTime updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String nationalCode;
+        private String type;
+    }
+}
@@ -16,7 +16,8 @@ import java.util.List;
 @ToString
 public class ProcessInstance {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "processInstanceIdGenerator")
+    @SequenceGenerator(name = "processInstanceIdGenerator", sequenceName = "process_instance_seq", allocationSize = 50)
     private Long id;
 
     private String camundaInstanceId;
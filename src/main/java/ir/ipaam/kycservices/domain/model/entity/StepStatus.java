@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 public class StepStatus {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stepStatusIdGenerator")
+    @SequenceGenerator(name = "stepStatusIdGenerator", sequenceName = "step_status_seq", allocationSize = 50)
     private Long id;
 
     private String stepName;
@@ -35,6 +35,10 @@ public final class DocumentPayloadDescriptor {
         return filename;
     }
 
+    public int size() {
+        return data.length;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
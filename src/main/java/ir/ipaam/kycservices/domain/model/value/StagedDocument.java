@@ -0,0 +1,84 @@
+package ir.ipaam.kycservices.domain.model.value;
+
+import java.util.Objects;
+
+/**
+ * A document already written to a staging object in the external storage service, still to be committed to its
+ * final location once the step it belongs to is accepted.
+ */
+public final class StagedDocument {
+
+    private final String path;
+    private final String hash;
+    private final boolean branded;
+    private final boolean encrypted;
+    private final String encryptionIv;
+    private final long size;
+
+    public StagedDocument(String path, String hash, boolean branded, boolean encrypted, String encryptionIv,
+                          long size) {
+        Objects.requireNonNull(path, "path must not be null");
+        if (path.isBlank()) {
+            throw new IllegalArgumentException("path must not be blank");
+        }
+        this.path = path;
+        this.hash = hash;
+        this.branded = branded;
+        this.encrypted = encrypted;
+        this.encryptionIv = encryptionIv;
+        this.size = size;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public String hash() {
+        return hash;
+    }
+
+    public boolean branded() {
+        return branded;
+    }
+
+    public boolean encrypted() {
+        return encrypted;
+    }
+
+    public String encryptionIv() {
+        return encryptionIv;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StagedDocument other)) {
+            return false;
+        }
+        return branded == other.branded
+                && encrypted == other.encrypted
+                && size == other.size
+                && Objects.equals(path, other.path)
+                && Objects.equals(hash, other.hash)
+                && Objects.equals(encryptionIv, other.encryptionIv);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, hash, branded, encrypted, encryptionIv, size);
+    }
+
+    @Override
+    public String toString() {
+        return "StagedDocument[" +
+                "path=" + path +
+                ", size=" + size +
+                ']';
+    }
+}
@@ -0,0 +1,15 @@
+package ir.ipaam.kycservices.domain.query;
+
+import java.time.LocalDateTime;
+
+/**
+ * Incremental update pushed to {@link FindKycStatusQuery} subscribers whenever a step is recorded for a process.
+ */
+public record KycStatusUpdate(
+        String processInstanceId,
+        String status,
+        String stepName,
+        String state,
+        LocalDateTime timestamp,
+        String errorCause) {
+}
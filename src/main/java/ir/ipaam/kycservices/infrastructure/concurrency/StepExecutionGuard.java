@@ -0,0 +1,216 @@
+package ir.ipaam.kycservices.infrastructure.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import ir.ipaam.kycservices.application.api.error.StepInProgressException;
+import ir.ipaam.kycservices.domain.model.KycStep;
+import ir.ipaam.kycservices.domain.model.aggregate.KycProcessAggregate;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
+import ir.ipaam.kycservices.infrastructure.profiling.KycStepEvent;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.modelling.command.AggregateNotFoundException;
+import org.axonframework.modelling.command.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.STEP_IN_PROGRESS;
+
+/**
+ * Lets only one request at a time do the expensive part of an upload step (OCR, face detection, MinIO writes) for a
+ * given process.
+ * <p>
+ * Within a node, the first caller for a {@code (processInstanceId, step)} pair becomes the leader and runs the work;
+ * callers arriving while it runs wait for and return the leader's result instead of repeating the work. Keys live in a
+ * {@link ConcurrentHashMap}, so unrelated processes never contend. When the leader fails, one of the waiting callers
+ * takes over with its own payload.
+ * <p>
+ * With {@code kyc.step-guard.mode=advisory} the leader also holds a Postgres session advisory lock for the pair, so
+ * leaders on different nodes run one after the other. A leader that had to wait for another node checks the aggregate
+ * first and answers with the caller's "already completed" response when the step was recorded meanwhile; results are
+ * not shared across nodes. Every step in flight then keeps one pooled connection for as long as the work runs.
+ */
+@Component
+public class StepExecutionGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(StepExecutionGuard.class);
+
+    /**
+     * First half of the two-key advisory lock, keeping these locks apart from any other advisory lock user.
+     */
+    private static final int ADVISORY_LOCK_NAMESPACE = 0x4B594353;
+    private static final long ADVISORY_POLL_INTERVAL_MILLIS = 50;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final DataSource dataSource;
+    private final Repository<KycProcessAggregate> aggregateRepository;
+    private final boolean advisory;
+    private final Duration waitTimeout;
+    private final Counter sharedResults;
+    private final Counter skippedAfterRemoteCompletion;
+
+    public StepExecutionGuard(DataSource dataSource,
+                              Repository<KycProcessAggregate> aggregateRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${kyc.step-guard.mode:local}") String mode,
+                              @Value("${kyc.step-guard.wait-timeout:60s}") Duration waitTimeout) {
+        this.dataSource = dataSource;
+        this.aggregateRepository = aggregateRepository;
+        this.advisory = "advisory".equalsIgnoreCase(mode.trim());
+        this.waitTimeout = waitTimeout;
+        this.sharedResults = Counter.builder("kyc.step.guard.shared")
+                .description("Upload requests answered with the result of a concurrent request for the same step")
+                .register(meterRegistry);
+        this.skippedAfterRemoteCompletion = Counter.builder("kyc.step.guard.skipped")
+                .description("Upload requests that found their step completed by another node after waiting for it")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code work} unless a concurrent request for the same step is already running it.
+     *
+     * @param alreadyCompleted the response to give when, in advisory mode, another node completed the step while this
+     *                         caller waited for it
+     * @return the result of {@code work}, this caller's or a concurrent caller's
+     * @throws StepInProgressException when the step is still being worked on after {@code kyc.step-guard.wait-timeout}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String processInstanceId, KycStep step, Supplier<T> work, Supplier<T> alreadyCompleted) {
+        String key = processInstanceId + ":" + step.name();
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            CompletableFuture<Object> own = new CompletableFuture<>();
+            CompletableFuture<Object> leader = inFlight.putIfAbsent(key, own);
+            if (leader == null) {
+                KycStepEvent event = new KycStepEvent();
+                event.begin();
+                Throwable failure = null;
+                try {
+                    T result = advisory
+                            ? runWithAdvisoryLock(processInstanceId, step, work, alreadyCompleted, deadline)
+                            : work.get();
+                    own.complete(result);
+                    return result;
+                } catch (RuntimeException | Error ex) {
+                    failure = ex;
+                    own.completeExceptionally(ex);
+                    throw ex;
+                } finally {
+                    inFlight.remove(key, own);
+                    commit(event, processInstanceId, step, failure);
+                }
+            }
+            if (awaitLeader(leader, key, deadline)) {
+                sharedResults.increment();
+                return (T) leader.join();
+            }
+            // The leader failed; its payload may have been the problem, so this caller gets its own attempt.
+        }
+    }
+
+    private static void commit(KycStepEvent event, String processInstanceId, KycStep step, Throwable failure) {
+        if (event.shouldCommit()) {
+            event.processInstanceId = processInstanceId;
+            event.step = step.name();
+            event.outcome = KycMetrics.outcomeOf(failure);
+            event.commit();
+        }
+    }
+
+    /**
+     * @return {@code true} when the leader succeeded, {@code false} when it failed
+     */
+    private boolean awaitLeader(CompletableFuture<Object> leader, String key, long deadline) {
+        try {
+            leader.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (ExecutionException | CompletionException ex) {
+            log.debug("Concurrent execution of {} failed, retrying with this request", key);
+            return false;
+        } catch (TimeoutException ex) {
+            log.warn("Step {} still in progress after {}", key, waitTimeout);
+            throw new StepInProgressException(STEP_IN_PROGRESS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new StepInProgressException(STEP_IN_PROGRESS);
+        }
+    }
+
+    private <T> T runWithAdvisoryLock(String processInstanceId, KycStep step, Supplier<T> work,
+                                      Supplier<T> alreadyCompleted, long deadline) {
+        int objectKey = (processInstanceId + ":" + step.name()).hashCode();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean contended = false;
+            while (!tryAdvisoryLock(connection, objectKey)) {
+                contended = true;
+                if (System.nanoTime() - deadline >= 0) {
+                    log.warn("Step {} of process {} still locked by another node after {}",
+                            step, processInstanceId, waitTimeout);
+                    throw new StepInProgressException(STEP_IN_PROGRESS);
+                }
+                try {
+                    Thread.sleep(ADVISORY_POLL_INTERVAL_MILLIS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new StepInProgressException(STEP_IN_PROGRESS);
+                }
+            }
+            try {
+                if (contended && isCompleted(processInstanceId, step)) {
+                    skippedAfterRemoteCompletion.increment();
+                    return alreadyCompleted.get();
+                }
+                return work.get();
+            } finally {
+                advisoryUnlock(connection, objectKey);
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to use advisory lock for step " + step, ex);
+        }
+    }
+
+    private boolean tryAdvisoryLock(Connection connection, int objectKey) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?, ?)")) {
+            statement.setInt(1, ADVISORY_LOCK_NAMESPACE);
+            statement.setInt(2, objectKey);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private void advisoryUnlock(Connection connection, int objectKey) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?, ?)")) {
+            statement.setInt(1, ADVISORY_LOCK_NAMESPACE);
+            statement.setInt(2, objectKey);
+            statement.execute();
+        }
+    }
+
+    private boolean isCompleted(String processInstanceId, KycStep step) {
+        DefaultUnitOfWork<?> unitOfWork = DefaultUnitOfWork.startAndGet(null);
+        try {
+            return aggregateRepository.load(processInstanceId)
+                    .invoke(aggregate -> aggregate.getCompletedSteps().contains(step));
+        } catch (AggregateNotFoundException ex) {
+            return false;
+        } finally {
+            unitOfWork.rollback();
+        }
+    }
+}
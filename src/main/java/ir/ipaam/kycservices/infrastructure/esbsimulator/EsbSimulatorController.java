@@ -0,0 +1,236 @@
+package ir.ipaam.kycservices.infrastructure.esbsimulator;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import ir.ipaam.kycservices.application.service.dto.BookletValidationData;
+import ir.ipaam.kycservices.application.service.dto.CardOcrBackData;
+import ir.ipaam.kycservices.application.service.dto.CardOcrFrontData;
+import ir.ipaam.kycservices.infrastructure.service.dto.BookletValidationResponse;
+import ir.ipaam.kycservices.infrastructure.service.dto.CardOcrBackResponse;
+import ir.ipaam.kycservices.infrastructure.service.dto.CardOcrFrontResponse;
+import ir.ipaam.kycservices.infrastructure.service.dto.FaceDetectionResponse;
+import ir.ipaam.kycservices.infrastructure.service.dto.LivenessResponse;
+import ir.ipaam.kycservices.infrastructure.service.security.dto.OcrTokenResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the ESB endpoints (OAuth token, card OCR, face detection, liveness, booklet validation and
+ * address validation), active with the {@value EsbSimulatorProperties#PROFILE} profile. The profile's properties point
+ * the ESB clients at {@code /esb-simulator} on this application, so calls still go through the real WebClients,
+ * serialization and connection pools.
+ * <p>
+ * Responses use the same DTOs the clients parse and pass the clients' validation (faces above the confidence
+ * threshold, live videos). Each endpoint draws a log-normal latency and fails or hangs at its configured rates; the
+ * delays are scheduled, so simulated latency does not hold servlet threads.
+ */
+@Slf4j
+@Hidden
+@RestController
+@Profile(EsbSimulatorProperties.PROFILE)
+@RequestMapping("/esb-simulator")
+public class EsbSimulatorController {
+
+    private static final double Z_99 = 2.3263;
+    private static final Pattern NATIONAL_CODE = Pattern.compile("\\d{10}");
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final EsbSimulatorProperties properties;
+    private final Map<String, Instant> issuedTokens = new ConcurrentHashMap<>();
+
+    public EsbSimulatorController(EsbSimulatorProperties properties) {
+        this.properties = properties;
+        log.warn("ESB simulator active: OCR, face, liveness, booklet and address calls are answered locally");
+    }
+
+    @PostMapping(path = "/oauth2/token", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public CompletableFuture<ResponseEntity<?>> token(@RequestParam(name = "scope", required = false) String scope) {
+        return respond("token", () -> {
+            Instant now = Instant.now();
+            issuedTokens.values().removeIf(expiry -> expiry.isBefore(now));
+            String accessToken = UUID.randomUUID().toString();
+            issuedTokens.put(accessToken, now.plus(properties.getTokenTtl()));
+            return new OcrTokenResponse(accessToken, "Bearer", properties.getTokenTtl().toSeconds(), scope);
+        });
+    }
+
+    @PostMapping(path = "/api/kyc/v0.1/idcards/{side}/ocr", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<?>> cardOcr(
+            @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @PathVariable String side,
+            @RequestPart("idcard") MultipartFile idCard) {
+        if (!isAuthorized(authorization)) {
+            return unauthorized();
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if ("back".equals(side)) {
+            return respond("card-ocr", () -> new CardOcrBackResponse(new CardOcrBackResponse.Result(
+                    new CardOcrBackData(trackId(), "0" + random.nextInt(10_000_000, 100_000_000),
+                            Long.toString(random.nextLong(1_000_000_000_000L, 10_000_000_000_000L)), true, 0))));
+        }
+        String filename = StringUtils.stripFilenameExtension(String.valueOf(idCard.getOriginalFilename()));
+        // A card image named after a national code is "read" as that code, so load tests can pass the match check.
+        String nin = NATIONAL_CODE.matcher(filename).matches() ? filename : null;
+        LocalDate birthDate = LocalDate.of(1960, 1, 1).plusDays(random.nextInt(365 * 45));
+        return respond("card-ocr", () -> new CardOcrFrontResponse(new CardOcrFrontResponse.Result(
+                new CardOcrFrontData(trackId(), nin, "علی", "محمدی", birthDate.toString(), "حسین",
+                        LocalDate.now().plusYears(random.nextInt(1, 8)).toString(), 0))));
+    }
+
+    @PostMapping(path = "/api/kyc/v0.1/faces/detect", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<?>> detectFace(
+            @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(name = "referenceid", required = false) String referenceId,
+            @RequestPart("image") MultipartFile image) {
+        if (!isAuthorized(authorization)) {
+            return unauthorized();
+        }
+        FaceDetectionResponse.ServiceStatus ok = new FaceDetectionResponse.ServiceStatus(200, "OK", null);
+        return respond("face-detection", () -> new FaceDetectionResponse(
+                new FaceDetectionResponse.Result(new FaceDetectionResponse.Data(trackId(), List.of(
+                        new FaceDetectionResponse.Face(new FaceDetectionResponse.Position(120, 96, 240, 300),
+                                confidence()))), ok),
+                ok,
+                new FaceDetectionResponse.Meta(transactionId(referenceId))));
+    }
+
+    @PostMapping(path = "/api/kyc/v0.1/faces/authenticate", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<?>> authenticate(
+            @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestParam(name = "referenceid", required = false) String referenceId,
+            @RequestPart("video") MultipartFile video,
+            @RequestPart("image1") MultipartFile image) {
+        if (!isAuthorized(authorization)) {
+            return unauthorized();
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LivenessResponse.ResponseStatus ok = new LivenessResponse.ResponseStatus(200, "OK", null);
+        LivenessResponse.Face face = new LivenessResponse.Face(
+                new LivenessResponse.FacePosition(120, 96, 240, 300), confidence());
+        return respond("liveness", () -> new LivenessResponse(
+                ok,
+                new LivenessResponse.Result(new LivenessResponse.LivenessData(
+                        trackId(),
+                        new LivenessResponse.Image(face, confidence(), true),
+                        null,
+                        new LivenessResponse.Video(random.nextInt(30, 91), face, confidence(), true, confidence(),
+                                true),
+                        true), ok),
+                new LivenessResponse.Meta(transactionId(referenceId))));
+    }
+
+    @PostMapping(path = "/api/kyc/v0.1/booklets/validate", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public CompletableFuture<ResponseEntity<?>> validateBooklet(
+            @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestPart("image") MultipartFile image) {
+        if (!isAuthorized(authorization)) {
+            return unauthorized();
+        }
+        BookletValidationResponse.ServiceStatus ok = new BookletValidationResponse.ServiceStatus(200, "OK", null);
+        return respond("booklet-validation", () -> new BookletValidationResponse(
+                new BookletValidationResponse.Result(new BookletValidationData(trackId(), "IDENTITY_PAGE", 0), ok),
+                ok));
+    }
+
+    @PostMapping(path = "${address.validation.path}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<?>> validateAddress(@RequestBody Map<String, Object> request) {
+        return respond("address-validation", () -> {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("postalCode", request.get("postalCode"));
+            data.put("address", request.get("address"));
+            data.put("valid", true);
+            return Map.of(
+                    "status", Map.of("code", 200, "message", "OK"),
+                    "result", Map.of("data", data));
+        });
+    }
+
+    private CompletableFuture<ResponseEntity<?>> respond(String endpointName, Supplier<?> body) {
+        EsbSimulatorProperties.Endpoint endpoint = properties.endpoint(endpointName);
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < endpoint.getTimeoutRate()) {
+            return after(properties.getHangDuration().toMillis(),
+                    () -> error(HttpStatus.GATEWAY_TIMEOUT, "Simulated ESB timeout"));
+        }
+        long latency = latencyMillis(endpoint);
+        if (roll < endpoint.getTimeoutRate() + endpoint.getErrorRate()) {
+            return after(latency, () -> error(HttpStatus.SERVICE_UNAVAILABLE, "Simulated ESB failure"));
+        }
+        return after(latency, () -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body.get()));
+    }
+
+    private static CompletableFuture<ResponseEntity<?>> after(long delayMillis,
+                                                              Supplier<ResponseEntity<?>> response) {
+        return CompletableFuture.supplyAsync(response,
+                CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private static long latencyMillis(EsbSimulatorProperties.Endpoint endpoint) {
+        double median = endpoint.getLatencyMedian().toMillis();
+        double p99 = endpoint.getLatencyP99().toMillis();
+        if (median <= 0) {
+            return 0;
+        }
+        if (p99 <= median) {
+            return (long) median;
+        }
+        double sigma = Math.log(p99 / median) / Z_99;
+        return (long) Math.exp(Math.log(median) + sigma * ThreadLocalRandom.current().nextGaussian());
+    }
+
+    private boolean isAuthorized(String authorization) {
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return false;
+        }
+        Instant expiry = issuedTokens.get(authorization.substring(BEARER_PREFIX.length()));
+        return expiry != null && expiry.isAfter(Instant.now());
+    }
+
+    private static CompletableFuture<ResponseEntity<?>> unauthorized() {
+        return CompletableFuture.completedFuture(error(HttpStatus.UNAUTHORIZED, "Invalid or expired access token"));
+    }
+
+    private static ResponseEntity<?> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("status", Map.of("code", status.value(), "message", message)));
+    }
+
+    private static double confidence() {
+        return ThreadLocalRandom.current().nextDouble(0.95, 0.999);
+    }
+
+    private static String trackId() {
+        return UUID.randomUUID().toString();
+    }
+
+    private static String transactionId(String referenceId) {
+        return StringUtils.hasText(referenceId) ? referenceId : UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,64 @@
+package ir.ipaam.kycservices.infrastructure.esbsimulator;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@Profile(EsbSimulatorProperties.PROFILE)
+@ConfigurationProperties(prefix = "kyc.esb-simulator")
+public class EsbSimulatorProperties {
+
+    public static final String PROFILE = "esb-simulator";
+
+    /**
+     * Lifetime of issued access tokens. Calls with an unknown or expired token are answered with 401.
+     */
+    private Duration tokenTtl = Duration.ofHours(1);
+
+    /**
+     * How long a simulated timeout keeps the request open before answering 504.
+     */
+    private Duration hangDuration = Duration.ofMinutes(2);
+
+    /**
+     * Behaviour per endpoint: {@code token}, {@code card-ocr}, {@code face-detection}, {@code liveness},
+     * {@code booklet-validation} and {@code address-validation}. Endpoints without an entry use the defaults of
+     * {@link Endpoint}.
+     */
+    private Map<String, Endpoint> endpoints = new HashMap<>();
+
+    public Endpoint endpoint(String name) {
+        return endpoints.getOrDefault(name, new Endpoint());
+    }
+
+    @Getter
+    @Setter
+    public static class Endpoint {
+
+        /**
+         * Median latency; latencies are drawn from a log-normal distribution through the median and the p99.
+         */
+        private Duration latencyMedian = Duration.ofMillis(200);
+
+        private Duration latencyP99 = Duration.ofMillis(800);
+
+        /**
+         * Share of calls answered with 503 after the drawn latency.
+         */
+        private double errorRate;
+
+        /**
+         * Share of calls held open for {@code hang-duration}, so the client's own timeout fires first.
+         */
+        private double timeoutRate;
+    }
+}
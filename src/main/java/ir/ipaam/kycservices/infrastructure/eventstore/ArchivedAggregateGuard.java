@@ -0,0 +1,67 @@
+package ir.ipaam.kycservices.infrastructure.eventstore;
+
+import ir.ipaam.kycservices.application.api.error.ProcessArchivedException;
+import ir.ipaam.kycservices.domain.command.StartKycProcessCommand;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.axonframework.commandhandling.CommandBus;
+import org.axonframework.commandhandling.CommandMessage;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.MessageDispatchInterceptor;
+import org.axonframework.messaging.MessageHandlerInterceptor;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.axonframework.modelling.command.AggregateNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.PROCESS_ARCHIVED;
+
+/**
+ * Rejects commands addressed to an archived aggregate, so they fail with {@link ProcessArchivedException} instead of
+ * an empty event stream or, for the start command, silently recreating the aggregate.
+ * <p>
+ * The tombstones are only looked up where an archived aggregate would otherwise go wrong: at dispatch of the start
+ * command, once per process, and when loading the aggregate of any other command failed. Commands for live
+ * aggregates never query {@code archived_aggregate}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ArchivedAggregateGuard implements MessageDispatchInterceptor<CommandMessage<?>>,
+        MessageHandlerInterceptor<CommandMessage<?>> {
+
+    private final CommandBus commandBus;
+    private final EventArchiveService eventArchiveService;
+
+    @PostConstruct
+    void register() {
+        commandBus.registerDispatchInterceptor(this);
+        commandBus.registerHandlerInterceptor(this);
+    }
+
+    @Override
+    public BiFunction<Integer, CommandMessage<?>, CommandMessage<?>> handle(List<? extends CommandMessage<?>> messages) {
+        return (index, command) -> {
+            if (command.getPayload() instanceof StartKycProcessCommand start
+                    && eventArchiveService.isArchived(start.processInstanceId())) {
+                throw new ProcessArchivedException(PROCESS_ARCHIVED);
+            }
+            return command;
+        };
+    }
+
+    @Override
+    public Object handle(UnitOfWork<? extends CommandMessage<?>> unitOfWork, InterceptorChain interceptorChain)
+            throws Exception {
+        try {
+            return interceptorChain.proceed();
+        } catch (AggregateNotFoundException ex) {
+            if (ex.getAggregateIdentifier() != null
+                    && eventArchiveService.isArchived(ex.getAggregateIdentifier().toString())) {
+                throw new ProcessArchivedException(PROCESS_ARCHIVED);
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ir.ipaam.kycservices.infrastructure.eventstore;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One event of a process history as returned to auditors, whether it came from the live store or the archive.
+ * Only the event type and the name and size of uploaded files are exposed; personal data and document bytes in the
+ * payload are left out.
+ */
+public record AuditedEvent(
+        long sequenceNumber,
+        String eventIdentifier,
+        Instant timestamp,
+        String payloadType,
+        List<AuditedFile> files
+) {
+}
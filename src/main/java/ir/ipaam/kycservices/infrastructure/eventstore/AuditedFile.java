@@ -0,0 +1,10 @@
+package ir.ipaam.kycservices.infrastructure.eventstore;
+
+/**
+ * Metadata of a file uploaded with an audited event.
+ */
+public record AuditedFile(
+        String name,
+        long size
+) {
+}
@@ -0,0 +1,29 @@
+package ir.ipaam.kycservices.infrastructure.eventstore;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the event archiving on {@code kyc.eventstore.archive.cron} when {@code kyc.eventstore.archive.enabled=true}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "kyc.eventstore.archive.enabled", havingValue = "true")
+public class EventArchiveJob {
+
+    private final EventArchiveService eventArchiveService;
+
+    @Scheduled(cron = "${kyc.eventstore.archive.cron:0 30 2 * * *}")
+    public void archive() {
+        try {
+            int archived = eventArchiveService.archiveFinishedProcesses();
+            log.info("Event archiving finished, {} processes archived", archived);
+        } catch (RuntimeException ex) {
+            log.error("Event archiving failed", ex);
+        }
+    }
+}
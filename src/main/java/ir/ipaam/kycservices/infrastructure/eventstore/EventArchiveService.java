@@ -0,0 +1,230 @@
+package ir.ipaam.kycservices.infrastructure.eventstore;
+
+import ir.ipaam.kycservices.domain.event.BookletPagesUploadedEvent;
+import ir.ipaam.kycservices.domain.event.CardDocumentsUploadedEvent;
+import ir.ipaam.kycservices.domain.event.SelfieUploadedEvent;
+import ir.ipaam.kycservices.domain.event.SignatureUploadedEvent;
+import ir.ipaam.kycservices.domain.event.VideoUploadedEvent;
+import ir.ipaam.kycservices.domain.model.value.DocumentPayloadDescriptor;
+import jakarta.annotation.PostConstruct;
+import org.axonframework.eventsourcing.eventstore.EventStore;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Moves the events of processes that finished long ago out of {@code domain_event_entry}.
+ * <p>
+ * Events of aggregates whose projection reached {@code COMPLETED} or {@code PROCESS_CANCELLED} more than
+ * {@code kyc.eventstore.archive.retention-days} ago are copied to {@code domain_event_archive} (payloads as
+ * {@code BYTEA}, whichever storage engine wrote them), their snapshots are dropped, and a tombstone is written to
+ * {@code archived_aggregate} so later commands are rejected before the aggregate is loaded. Each batch of aggregates
+ * is moved in one transaction. The read tables are left as they are.
+ */
+@Service
+public class EventArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(EventArchiveService.class);
+
+    static final String ARCHIVE_TABLE = "domain_event_archive";
+    static final String TOMBSTONE_TABLE = "archived_aggregate";
+    private static final String EVENT_TABLE = "domain_event_entry";
+    private static final String SNAPSHOT_TABLE = "snapshot_event_entry";
+    private static final List<String> FINISHED_STATUSES = List.of("COMPLETED", "PROCESS_CANCELLED");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EventStore eventStore;
+    private final Serializer eventSerializer;
+    private final int retentionDays;
+    private final int batchSize;
+
+    private boolean largeObjectPayloads;
+
+    public EventArchiveService(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               EventStore eventStore,
+                               @Qualifier("eventSerializer") Serializer eventSerializer,
+                               @Value("${kyc.eventstore.archive.retention-days:90}") int retentionDays,
+                               @Value("${kyc.eventstore.archive.batch-size:100}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventStore = eventStore;
+        this.eventSerializer = eventSerializer;
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * The archive tables are created by the {@code V3__event_archive_tables} migration; only the payload storage of
+     * the live event table, which depends on the active storage engine, is detected here.
+     */
+    @PostConstruct
+    void detectPayloadStorage() {
+        String payloadType = jdbcTemplate.query(
+                "SELECT data_type FROM information_schema.columns WHERE table_name = ? AND column_name = 'payload'",
+                rs -> rs.next() ? rs.getString(1) : null, EVENT_TABLE);
+        largeObjectPayloads = "oid".equalsIgnoreCase(payloadType);
+    }
+
+    /**
+     * Archives every eligible aggregate, one batch per transaction.
+     *
+     * @return the number of aggregates archived
+     */
+    public int archiveFinishedProcesses() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int archived = 0;
+        List<FinishedProcess> batch;
+        do {
+            batch = findArchivable(cutoff);
+            if (!batch.isEmpty()) {
+                List<FinishedProcess> current = batch;
+                Integer events = transactionTemplate.execute(tx -> archiveBatch(current));
+                archived += current.size();
+                log.info("Archived {} events of {} finished processes", events, current.size());
+            }
+        } while (batch.size() == batchSize);
+        return archived;
+    }
+
+    public boolean isArchived(String aggregateIdentifier) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + TOMBSTONE_TABLE + " WHERE aggregate_identifier = ?)",
+                Boolean.class, aggregateIdentifier));
+    }
+
+    /**
+     * Reconstructs the event history of a process for audits, from the archive when the process has been archived
+     * and from the live event store otherwise. Payloads are reduced to the metadata of their files.
+     */
+    public List<AuditedEvent> readHistory(String aggregateIdentifier) {
+        if (!isArchived(aggregateIdentifier)) {
+            List<AuditedEvent> history = new ArrayList<>();
+            eventStore.readEvents(aggregateIdentifier).asStream().forEach(message -> history.add(new AuditedEvent(
+                    message.getSequenceNumber(), message.getIdentifier(), message.getTimestamp(),
+                    message.getPayloadType().getName(), auditedFiles(message.getPayload()))));
+            return history;
+        }
+        return jdbcTemplate.query("SELECT sequence_number, event_identifier, time_stamp, payload_type, "
+                        + "payload_revision, payload FROM " + ARCHIVE_TABLE
+                        + " WHERE aggregate_identifier = ? ORDER BY sequence_number",
+                (rs, rowNum) -> new AuditedEvent(
+                        rs.getLong("sequence_number"),
+                        rs.getString("event_identifier"),
+                        Instant.parse(rs.getString("time_stamp")),
+                        rs.getString("payload_type"),
+                        auditedFiles(deserialize(rs.getBytes("payload"), rs.getString("payload_type"),
+                                rs.getString("payload_revision")))),
+                aggregateIdentifier);
+    }
+
+    /**
+     * Feeds the payloads of all archived events to {@code consumer} in their original global order. Used by the
+     * projection rebuild so archived processes keep their read-model rows.
+     */
+    public void forEachArchivedPayload(Consumer<Object> consumer) {
+        jdbcTemplate.query("SELECT payload_type, payload_revision, payload FROM " + ARCHIVE_TABLE
+                        + " ORDER BY global_index",
+                rs -> {
+                    consumer.accept(deserialize(rs.getBytes("payload"), rs.getString("payload_type"),
+                            rs.getString("payload_revision")));
+                });
+    }
+
+    private List<FinishedProcess> findArchivable(LocalDateTime cutoff) {
+        return jdbcTemplate.query("SELECT p.camunda_instance_id, p.status, p.completed_at "
+                        + "FROM kyc_process_instance p "
+                        + "WHERE p.status IN (?, ?) AND p.completed_at < ? AND p.camunda_instance_id IS NOT NULL "
+                        + "AND NOT EXISTS (SELECT 1 FROM " + TOMBSTONE_TABLE + " t "
+                        + "WHERE t.aggregate_identifier = p.camunda_instance_id) "
+                        + "ORDER BY p.completed_at LIMIT ?",
+                (rs, rowNum) -> new FinishedProcess(
+                        rs.getString("camunda_instance_id"),
+                        rs.getString("status"),
+                        rs.getTimestamp("completed_at")),
+                FINISHED_STATUSES.get(0), FINISHED_STATUSES.get(1), Timestamp.valueOf(cutoff), batchSize);
+    }
+
+    private int archiveBatch(List<FinishedProcess> processes) {
+        String payload = largeObjectPayloads ? "lo_get(payload)" : "payload";
+        String metaData = largeObjectPayloads ? "lo_get(meta_data)" : "meta_data";
+        Timestamp archivedAt = Timestamp.valueOf(LocalDateTime.now());
+        int events = 0;
+        for (FinishedProcess process : processes) {
+            int moved = jdbcTemplate.update("INSERT INTO " + ARCHIVE_TABLE + " (global_index, event_identifier, "
+                            + "aggregate_identifier, sequence_number, type, payload_type, payload_revision, payload, "
+                            + "meta_data, time_stamp, archived_at) "
+                            + "SELECT global_index, event_identifier, aggregate_identifier, sequence_number, type, "
+                            + "payload_type, payload_revision, " + payload + ", " + metaData + ", time_stamp, ? "
+                            + "FROM " + EVENT_TABLE + " WHERE aggregate_identifier = ?",
+                    archivedAt, process.aggregateIdentifier());
+            if (largeObjectPayloads) {
+                unlinkLargeObjects(EVENT_TABLE, process.aggregateIdentifier());
+                unlinkLargeObjects(SNAPSHOT_TABLE, process.aggregateIdentifier());
+            }
+            jdbcTemplate.update("DELETE FROM " + SNAPSHOT_TABLE + " WHERE aggregate_identifier = ?",
+                    process.aggregateIdentifier());
+            jdbcTemplate.update("DELETE FROM " + EVENT_TABLE + " WHERE aggregate_identifier = ?",
+                    process.aggregateIdentifier());
+            jdbcTemplate.update("INSERT INTO " + TOMBSTONE_TABLE + " (aggregate_identifier, final_status, "
+                            + "completed_at, event_count, archived_at) VALUES (?, ?, ?, ?, ?)",
+                    process.aggregateIdentifier(), process.status(), process.completedAt(), moved, archivedAt);
+            events += moved;
+        }
+        return events;
+    }
+
+    private void unlinkLargeObjects(String table, String aggregateIdentifier) {
+        jdbcTemplate.query("SELECT lo_unlink(lo) FROM (SELECT payload AS lo FROM " + table
+                        + " WHERE aggregate_identifier = ? UNION SELECT meta_data FROM " + table
+                        + " WHERE aggregate_identifier = ?) objects WHERE lo IS NOT NULL",
+                rs -> {
+                }, aggregateIdentifier, aggregateIdentifier);
+    }
+
+    private Object deserialize(byte[] payload, String payloadType, String payloadRevision) {
+        SerializedObject<byte[]> serialized =
+                new SimpleSerializedObject<>(payload, byte[].class, payloadType, payloadRevision);
+        return eventSerializer.deserialize(serialized);
+    }
+
+    private static List<AuditedFile> auditedFiles(Object payload) {
+        List<DocumentPayloadDescriptor> descriptors = new ArrayList<>();
+        if (payload instanceof CardDocumentsUploadedEvent event) {
+            descriptors.add(event.getFrontDescriptor());
+            descriptors.add(event.getBackDescriptor());
+        } else if (payload instanceof BookletPagesUploadedEvent event && event.pageDescriptors() != null) {
+            descriptors.addAll(event.pageDescriptors());
+        } else if (payload instanceof SelfieUploadedEvent event) {
+            descriptors.add(event.getDescriptor());
+        } else if (payload instanceof SignatureUploadedEvent event) {
+            descriptors.add(event.getDescriptor());
+        } else if (payload instanceof VideoUploadedEvent event) {
+            descriptors.add(event.getDescriptor());
+        }
+        return descriptors.stream()
+                .filter(Objects::nonNull)
+                .map(descriptor -> new AuditedFile(descriptor.filename(), descriptor.size()))
+                .toList();
+    }
+
+    private record FinishedProcess(String aggregateIdentifier, String status, Timestamp completedAt) {
+    }
+}
@@ -4,13 +4,20 @@ import ir.ipaam.kycservices.domain.event.*;
 import ir.ipaam.kycservices.domain.model.entity.*;
 import ir.ipaam.kycservices.domain.model.value.DocumentPayloadDescriptor;
 import ir.ipaam.kycservices.domain.query.FindKycStatusQuery;
+import ir.ipaam.kycservices.domain.query.KycStatusUpdate;
+import ir.ipaam.kycservices.infrastructure.projection.DocumentCatalog;
+import ir.ipaam.kycservices.infrastructure.projection.KycStatusVersions;
 import ir.ipaam.kycservices.infrastructure.repository.AddressVerificationRepository;
 import ir.ipaam.kycservices.infrastructure.repository.ConsentRepository;
 import ir.ipaam.kycservices.infrastructure.repository.CustomerRepository;
 import ir.ipaam.kycservices.infrastructure.repository.DocumentRepository;
 import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
+import ir.ipaam.kycservices.infrastructure.repository.KycStepStatusRepository;
 import ir.ipaam.kycservices.infrastructure.service.MinioStorageService;
+import ir.ipaam.kycservices.infrastructure.service.MinioStorageService.StorageUpload;
 import ir.ipaam.kycservices.infrastructure.service.dto.DocumentMetadata;
+import org.axonframework.config.ProcessingGroup;
+import org.axonframework.eventhandling.DisallowReplay;
 import org.axonframework.eventhandling.EventHandler;
 import org.axonframework.queryhandling.QueryHandler;
 import org.slf4j.Logger;
@@ -21,8 +28,16 @@ import java.time.LocalDateTime;
 import java.util.*;
 
 @Component
+@ProcessingGroup(KycProcessEventHandler.PROCESSING_GROUP)
 public class KycProcessEventHandler {
 
+    /**
+     * Matches Axon's default package-based group name so existing tracking tokens stay valid.
+     * Handlers that write to object storage are marked {@link DisallowReplay}; rebuilding the read tables goes
+     * through {@link ir.ipaam.kycservices.infrastructure.projection.ProjectionRebuildService} instead.
+     */
+    public static final String PROCESSING_GROUP = "ir.ipaam.kycservices.infrastructure.handler";
+
     private static final Logger log = LoggerFactory.getLogger(KycProcessEventHandler.class);
     private static final String DOCUMENT_TYPE_FRONT = "CARD_FRONT";
     private static final String DOCUMENT_TYPE_BACK = "CARD_BACK";
@@ -37,21 +52,33 @@ public class KycProcessEventHandler {
     private final DocumentRepository documentRepository;
     private final AddressVerificationRepository addressVerificationRepository;
     private final ConsentRepository consentRepository;
+    private final KycStepStatusRepository kycStepStatusRepository;
     private final MinioStorageService storageService;
+    private final KycStatusUpdateRelay statusUpdateRelay;
+    private final KycStatusVersions kycStatusVersions;
+    private final DocumentCatalog documentCatalog;
 
     public KycProcessEventHandler(
             KycProcessInstanceRepository kycProcessInstanceRepository,
             CustomerRepository customerRepository,
             DocumentRepository documentRepository,
             ConsentRepository consentRepository,
+            KycStepStatusRepository kycStepStatusRepository,
             MinioStorageService storageService,
-            AddressVerificationRepository addressVerificationRepository) {
+            AddressVerificationRepository addressVerificationRepository,
+            KycStatusUpdateRelay statusUpdateRelay,
+            KycStatusVersions kycStatusVersions,
+            DocumentCatalog documentCatalog) {
         this.kycProcessInstanceRepository = kycProcessInstanceRepository;
         this.customerRepository = customerRepository;
         this.documentRepository = documentRepository;
         this.consentRepository = consentRepository;
+        this.kycStepStatusRepository = kycStepStatusRepository;
         this.storageService = storageService;
         this.addressVerificationRepository = addressVerificationRepository;
+        this.statusUpdateRelay = statusUpdateRelay;
+        this.kycStatusVersions = kycStatusVersions;
+        this.documentCatalog = documentCatalog;
     }
 
     @EventHandler
@@ -71,6 +98,7 @@ public class KycProcessEventHandler {
         instance.setCustomer(customer);
 
                     kycProcessInstanceRepository.save(instance);
+        kycStatusVersions.markChanged(event.getNationalCode());
     }
 
     @EventHandler
@@ -106,32 +134,26 @@ public class KycProcessEventHandler {
                         instance.setCompletedAt(event.getUpdatedAt());
                     }
 
-                    instance.getStatuses().add(stepStatus);
-
                     kycProcessInstanceRepository.save(instance);
+                    kycStepStatusRepository.save(stepStatus);
+                    emitStatusUpdate(instance, stepStatus);
                 });
     }
 
     @EventHandler
+    @DisallowReplay
     public void on(CardDocumentsUploadedEvent event) {
         ProcessInstance processInstance = findProcessInstance(event.getProcessInstanceId());
-        DocumentMetadata frontMetadata = storageService.upload(
-                event.getFrontDescriptor(),
-                DOCUMENT_TYPE_FRONT,
+        List<DocumentMetadata> metadataList = storageService.uploadAll(List.of(
+                        new StorageUpload(event.getFrontDescriptor(), DOCUMENT_TYPE_FRONT),
+                        new StorageUpload(event.getBackDescriptor(), DOCUMENT_TYPE_BACK)),
                 event.getProcessInstanceId());
-        if (frontMetadata != null) {
-            frontMetadata.setInquiryDocumentId(null);
-        }
-        persistMetadata(frontMetadata, DOCUMENT_TYPE_FRONT, event.getProcessInstanceId(), processInstance);
 
-        DocumentMetadata backMetadata = storageService.upload(
-                event.getBackDescriptor(),
-                DOCUMENT_TYPE_BACK,
-                event.getProcessInstanceId());
-        if (backMetadata != null) {
-            backMetadata.setInquiryDocumentId(null);
-        }
-        persistMetadata(backMetadata, DOCUMENT_TYPE_BACK, event.getProcessInstanceId(), processInstance);
+        persistAllMetadata(
+                metadataList,
+                List.of(DOCUMENT_TYPE_FRONT, DOCUMENT_TYPE_BACK),
+                event.getProcessInstanceId(),
+                processInstance);
 
         recordSuccessfulStep(processInstance, "CARD_DOCUMENTS_UPLOADED", event.getUploadedAt());
     }
@@ -151,6 +173,7 @@ public class KycProcessEventHandler {
 
         updateCustomerInfo(customer, event);
         customerRepository.save(customer);
+        kycStatusVersions.markChanged(customer.getNationalCode());
 
         processInstance.ifPresent(instance -> {
             if (instance.getCustomer() == null) {
@@ -177,13 +200,6 @@ public class KycProcessEventHandler {
         verification.setZipValid(false);
         addressVerificationRepository.save(verification);
 
-        List<Address> addresses = processInstance.getAddresses();
-        if (addresses == null) {
-            addresses = new ArrayList<>();
-            processInstance.setAddresses(addresses);
-        }
-        addresses.add(verification);
-
         recordSuccessfulStep(processInstance, "ADDRESS_AND_ZIPCODE_COLLECTED", event.getCollectedAt());
     }
 
@@ -195,6 +211,7 @@ public class KycProcessEventHandler {
     }
 
     @EventHandler
+    @DisallowReplay
     public void on(BookletPagesUploadedEvent event) {
         log.info("Received BookletPagesUploadedEvent for {}", event.processInstanceId());
         List<DocumentPayloadDescriptor> descriptors = event.pageDescriptors();
@@ -202,27 +219,17 @@ public class KycProcessEventHandler {
             log.warn("Received ID pages event without descriptors for process {}", event.processInstanceId());
             return;
         }
-        List<String> inquiryIds = new ArrayList<>(Collections.nCopies(descriptors.size(), null));
         ProcessInstance processInstance = findProcessInstance(event.processInstanceId());
-        List<DocumentMetadata> metadataList = new ArrayList<>(descriptors.size());
+        List<StorageUpload> uploads = new ArrayList<>(descriptors.size());
+        List<String> types = new ArrayList<>(descriptors.size());
         for (int i = 0; i < descriptors.size(); i++) {
-            DocumentMetadata metadata = storageService.upload(
-                    descriptors.get(i),
-                    DOCUMENT_TYPE_BOOKLET + (i + 1),
-                    event.processInstanceId());
-            metadataList.add(metadata);
-        }
-        for (int i = 0; i < descriptors.size(); i++) {
-            DocumentMetadata metadata = i < metadataList.size() ? metadataList.get(i) : null;
-            if (metadata != null) {
-                metadata.setInquiryDocumentId(inquiryIds.get(i));
-            }
-            persistMetadata(
-                    metadata,
-                    DOCUMENT_TYPE_BOOKLET + (i + 1),
-                    event.processInstanceId(),
-                    processInstance);
+            String type = DOCUMENT_TYPE_BOOKLET + (i + 1);
+            uploads.add(new StorageUpload(descriptors.get(i), type));
+            types.add(type);
         }
+        List<DocumentMetadata> metadataList = storageService.uploadAll(uploads, event.processInstanceId());
+
+        persistAllMetadata(metadataList, types, event.processInstanceId(), processInstance);
 
         recordSuccessfulStep(processInstance, "BOOKLET_PAGES_UPLOADED", event.uploadedAt());
     }
@@ -231,19 +238,7 @@ public class KycProcessEventHandler {
     public void on(RecordTrackingNumberEvent event) {
         ProcessInstance processInstance = findProcessInstance(event.getProcessInstanceId());
         if (processInstance != null) {
-            processInstance.setStatus("RECORD_NATIONAL_CARD_TRACKING_NUMBER");
-            StepStatus stepStatus = new StepStatus();
-            stepStatus.setProcess(processInstance);
-            stepStatus.setStepName("RECORD_NATIONAL_CARD_TRACKING_NUMBER");
-            stepStatus.setTimestamp(event.getDate());
-            stepStatus.setState(StepStatus.State.PASSED);
-            List<StepStatus> statuses = processInstance.getStatuses();
-            if (statuses == null) {
-                statuses = new ArrayList<>();
-                processInstance.setStatuses(statuses);
-            }
-            statuses.add(stepStatus);
-            kycProcessInstanceRepository.save(processInstance);
+            recordSuccessfulStep(processInstance, "RECORD_NATIONAL_CARD_TRACKING_NUMBER", event.getDate());
         }
         assert processInstance != null;
         updateCustomerWithTrackingNumber(processInstance,event.getTrackingNumber());
@@ -258,10 +253,12 @@ public class KycProcessEventHandler {
         var customer = processInstance.getCustomer();
         customer.setNationalCardTrackingNumber(trackingNumber);
         customerRepository.save(customer);
+        kycStatusVersions.markChanged(customer.getNationalCode());
     }
 
 
     @EventHandler
+    @DisallowReplay
     public void on(SelfieUploadedEvent event) {
         DocumentMetadata storageMetadata = storageService.upload(
                 event.getDescriptor(),
@@ -279,26 +276,10 @@ public class KycProcessEventHandler {
     }
 
     @EventHandler
+    @DisallowReplay
     public void on(SignatureUploadedEvent event) {
         ProcessInstance processInstance = findProcessInstance(event.getProcessInstanceId());
-        if (processInstance != null) {
-            processInstance.setStatus("SIGNATURE_UPLOADED");
-
-            StepStatus stepStatus = new StepStatus();
-            stepStatus.setProcess(processInstance);
-            stepStatus.setStepName("SIGNATURE_UPLOADED");
-            stepStatus.setTimestamp(event.getUploadedAt());
-            stepStatus.setState(StepStatus.State.PASSED);
-
-            List<StepStatus> statuses = processInstance.getStatuses();
-            if (statuses == null) {
-                statuses = new ArrayList<>();
-                processInstance.setStatuses(statuses);
-            }
-            statuses.add(stepStatus);
-
-            kycProcessInstanceRepository.save(processInstance);
-        }
+        recordSuccessfulStep(processInstance, "SIGNATURE_UPLOADED", event.getUploadedAt());
 
         DocumentMetadata metadata = storageService.upload(
                 event.getDescriptor(),
@@ -312,11 +293,9 @@ public class KycProcessEventHandler {
     }
 
     @EventHandler
+    @DisallowReplay
     public void on(VideoUploadedEvent event) {
-        DocumentMetadata storageMetadata = storageService.upload(
-                event.getDescriptor(),
-                DOCUMENT_TYPE_VIDEO,
-                event.getProcessInstanceId());
+        DocumentMetadata storageMetadata = storeVideo(event);
 
         if (storageMetadata != null) {
             storageMetadata.setInquiryDocumentId(null);
@@ -328,6 +307,26 @@ public class KycProcessEventHandler {
         recordSuccessfulStep(processInstance, "VIDEO_UPLOADED", event.getUploadedAt());
     }
 
+    /**
+     * Commits the video staged while the liveness check ran. Without a staged object, or once it is gone (e.g. this
+     * event is handled again after the commit), the video is uploaded from the event's payload instead.
+     */
+    private DocumentMetadata storeVideo(VideoUploadedEvent event) {
+        if (event.getStagedVideo() != null) {
+            try {
+                return storageService.commitStaged(
+                        event.getStagedVideo(),
+                        DOCUMENT_TYPE_VIDEO,
+                        event.getDescriptor().filename(),
+                        event.getProcessInstanceId());
+            } catch (NoSuchElementException ex) {
+                log.warn("Staged video {} of process {} is gone; uploading it again",
+                        event.getStagedVideo().path(), event.getProcessInstanceId());
+            }
+        }
+        return storageService.upload(event.getDescriptor(), DOCUMENT_TYPE_VIDEO, event.getProcessInstanceId());
+    }
+
     @EventHandler
     public void on(ConsentAcceptedEvent event) {
         kycProcessInstanceRepository.findByCamundaInstanceId(event.getProcessInstanceId())
@@ -370,9 +369,44 @@ public class KycProcessEventHandler {
 
     private void persistMetadata(DocumentMetadata metadata, String type, String processInstanceId,
                                  ProcessInstance processInstance) {
+        Document document = toDocument(metadata, type, processInstanceId, processInstance);
+        if (document != null) {
+            documentRepository.save(document);
+            catalog(document, metadata, processInstance);
+            logPersisted(document, processInstanceId);
+        }
+    }
+
+    /**
+     * Inserts the documents of a multi-document event in one batch, only after every upload succeeded.
+     */
+    private void persistAllMetadata(List<DocumentMetadata> metadataList, List<String> types, String processInstanceId,
+                                    ProcessInstance processInstance) {
+        List<Document> documents = new ArrayList<>(metadataList.size());
+        List<DocumentMetadata> persistedMetadata = new ArrayList<>(metadataList.size());
+        for (int i = 0; i < metadataList.size(); i++) {
+            DocumentMetadata metadata = metadataList.get(i);
+            if (metadata != null) {
+                metadata.setInquiryDocumentId(null);
+            }
+            Document document = toDocument(metadata, types.get(i), processInstanceId, processInstance);
+            if (document != null) {
+                documents.add(document);
+                persistedMetadata.add(metadata);
+            }
+        }
+        documentRepository.saveAll(documents);
+        for (int i = 0; i < documents.size(); i++) {
+            catalog(documents.get(i), persistedMetadata.get(i), processInstance);
+        }
+        documents.forEach(document -> logPersisted(document, processInstanceId));
+    }
+
+    private Document toDocument(DocumentMetadata metadata, String type, String processInstanceId,
+                                ProcessInstance processInstance) {
         if (metadata == null) {
             log.warn("Storage metadata for {} document is missing for process {}", type, processInstanceId);
-            return;
+            return null;
         }
 
         Document document = new Document();
@@ -384,14 +418,25 @@ public class KycProcessEventHandler {
         document.setEncrypted(metadata.isEncrypted());
         document.setEncryptionIv(metadata.getEncryptionIv());
         document.setProcess(processInstance);
-        documentRepository.save(document);
+        return document;
+    }
+
+    private void catalog(Document document, DocumentMetadata metadata, ProcessInstance processInstance) {
+        if (processInstance == null || processInstance.getCustomer() == null) {
+            return;
+        }
+        documentCatalog.record(document, processInstance.getCustomer().getNationalCode(), metadata.getSize());
+    }
+
+    private void logPersisted(Document document, String processInstanceId) {
         log.info("Persisted document metadata for type {} at path {} for process {} (verified={})",
-                type,
-                metadata.getPath(),
+                document.getType(),
+                document.getStoragePath(),
                 processInstanceId,
                 document.isVerified());
         if (!document.isVerified()) {
-            log.debug("Document {} for process {} is not verified because branding was skipped or failed", type, processInstanceId);
+            log.debug("Document {} for process {} is not verified because branding was skipped or failed",
+                    document.getType(), processInstanceId);
         }
     }
 
@@ -400,28 +445,16 @@ public class KycProcessEventHandler {
             return;
         }
 
-        List<StepStatus> statuses = processInstance.getStatuses();
-        if (statuses == null) {
-            statuses = new ArrayList<>();
-            processInstance.setStatuses(statuses);
-        }
-
-        boolean alreadyMarked = statuses.stream()
-                .anyMatch(step -> STATUS_PROCESS_COMPLETED.equalsIgnoreCase(step.getStepName()));
+        boolean alreadyMarked = kycStepStatusRepository.existsByProcess_CamundaInstanceIdAndStepNameIgnoreCase(
+                processInstance.getCamundaInstanceId(),
+                STATUS_PROCESS_COMPLETED);
         processInstance.setStatus(STATUS_PROCESS_COMPLETED);
         processInstance.setCompletedAt(completedAt);
+        kycProcessInstanceRepository.save(processInstance);
 
         if (!alreadyMarked) {
-            StepStatus completionStep = new StepStatus();
-            completionStep.setProcess(processInstance);
-            completionStep.setStepName(STATUS_PROCESS_COMPLETED);
-            completionStep.setTimestamp(completedAt);
-            completionStep.setState(StepStatus.State.PASSED);
-            completionStep.setErrorCause(null);
-            statuses.add(completionStep);
+            appendPassedStep(processInstance, STATUS_PROCESS_COMPLETED, completedAt);
         }
-
-        kycProcessInstanceRepository.save(processInstance);
     }
 
     private void recordSuccessfulStep(ProcessInstance processInstance, String status, LocalDateTime timestamp) {
@@ -430,21 +463,42 @@ public class KycProcessEventHandler {
         }
 
         processInstance.setStatus(status);
+        kycProcessInstanceRepository.save(processInstance);
+        appendPassedStep(processInstance, status, timestamp);
+    }
 
+    /**
+     * Inserts the step row directly so the process' {@code statuses} collection is never loaded on the write path.
+     */
+    private void appendPassedStep(ProcessInstance processInstance, String stepName, LocalDateTime timestamp) {
         StepStatus stepStatus = new StepStatus();
         stepStatus.setProcess(processInstance);
-        stepStatus.setStepName(status);
+        stepStatus.setStepName(stepName);
         stepStatus.setTimestamp(timestamp);
         stepStatus.setState(StepStatus.State.PASSED);
         stepStatus.setErrorCause(null);
+        kycStepStatusRepository.save(stepStatus);
+        emitStatusUpdate(processInstance, stepStatus);
+    }
 
-        List<StepStatus> statuses = processInstance.getStatuses();
-        if (statuses == null) {
-            statuses = new ArrayList<>();
-            processInstance.setStatuses(statuses);
+    /**
+     * Pushes the recorded step to status-stream subscribers of the process' national code, on every node, and
+     * invalidates its status ETag. Both take effect only after the event's transaction commits.
+     */
+    private void emitStatusUpdate(ProcessInstance processInstance, StepStatus stepStatus) {
+        Customer customer = processInstance.getCustomer();
+        if (customer == null || customer.getNationalCode() == null) {
+            return;
         }
-        statuses.add(stepStatus);
-
-        kycProcessInstanceRepository.save(processInstance);
+        String nationalCode = customer.getNationalCode();
+        kycStatusVersions.markChanged(nationalCode);
+        statusUpdateRelay.publish(nationalCode,
+                new KycStatusUpdate(
+                        processInstance.getCamundaInstanceId(),
+                        processInstance.getStatus(),
+                        stepStatus.getStepName(),
+                        stepStatus.getState() != null ? stepStatus.getState().name() : null,
+                        stepStatus.getTimestamp(),
+                        stepStatus.getErrorCause()));
     }
 }
@@ -0,0 +1,132 @@
+package ir.ipaam.kycservices.infrastructure.handler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ir.ipaam.kycservices.domain.query.FindKycStatusQuery;
+import ir.ipaam.kycservices.domain.query.KycStatusUpdate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.axonframework.queryhandling.QueryUpdateEmitter;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Delivers status-stream updates to the subscribers on every node.
+ * <p>
+ * A step is recorded by whichever node owns the event's segment of the projection processor, while a client's stream
+ * is held by the node it connected to, and Axon's query bus only reaches subscriptions of the local node. Updates are
+ * therefore sent with Postgres {@code NOTIFY} in the event's transaction, which delivers them only once it commits,
+ * and every node {@code LISTEN}s on a connection of its own and emits them to its local subscription queries.
+ * Updates sent while a node reconnects are not delivered to its streams.
+ */
+@Component
+public class KycStatusUpdateRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(KycStatusUpdateRelay.class);
+
+    static final String CHANNEL = "kyc_status_update";
+    private static final int POLL_TIMEOUT_MILLIS = 1_000;
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final QueryUpdateEmitter queryUpdateEmitter;
+    private final Thread listener = new Thread(this::listen, "kyc-status-update-listener");
+
+    private volatile boolean running;
+
+    public KycStatusUpdateRelay(DataSource dataSource,
+                                JdbcTemplate jdbcTemplate,
+                                ObjectMapper objectMapper,
+                                QueryUpdateEmitter queryUpdateEmitter) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.queryUpdateEmitter = queryUpdateEmitter;
+        listener.setDaemon(true);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        listener.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        listener.interrupt();
+        listener.join(POLL_TIMEOUT_MILLIS * 2L);
+    }
+
+    /**
+     * Sends the update to the subscribers of {@code nationalCode} on every node once the current transaction commits.
+     */
+    public void publish(String nationalCode, KycStatusUpdate update) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(new Notification(nationalCode, update));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialize the status update", ex);
+        }
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> {
+        }, CHANNEL, payload);
+    }
+
+    void deliver(String payload) {
+        Notification notification;
+        try {
+            notification = objectMapper.readValue(payload, Notification.class);
+        } catch (JsonProcessingException ex) {
+            log.warn("Ignoring an unreadable status update notification", ex);
+            return;
+        }
+        queryUpdateEmitter.emit(FindKycStatusQuery.class,
+                query -> notification.nationalCode().equals(query.nationalCode()),
+                notification.update());
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        deliver(notification.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException ex) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Listening for status updates failed; reconnecting in {} ms", RECONNECT_DELAY_MILLIS, ex);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    record Notification(String nationalCode, KycStatusUpdate update) {
+    }
+}
@@ -0,0 +1,28 @@
+package ir.ipaam.kycservices.infrastructure.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes expired idempotency records every {@code kyc.idempotency.purge-interval}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IdempotencyPurgeJob {
+
+    private final IdempotencyStore idempotencyStore;
+
+    @Scheduled(fixedDelayString = "${kyc.idempotency.purge-interval:1h}",
+            initialDelayString = "${kyc.idempotency.purge-interval:1h}")
+    public void purge() {
+        try {
+            int purged = idempotencyStore.purgeExpired();
+            log.debug("Purged {} expired idempotency records", purged);
+        } catch (RuntimeException ex) {
+            log.error("Purging idempotency records failed", ex);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ir.ipaam.kycservices.infrastructure.idempotency;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stores the first response given for each {@code Idempotency-Key} in {@code kyc_idempotency_record}, so every
+ * instance can answer a retried request with it. Keys are unique within a scope, the process or client the request
+ * addresses.
+ * <p>
+ * A request claims its key before it runs; the claim is identified by a random token so a request whose claim was
+ * taken over can no longer complete or release it. Claims that never completed (e.g. the instance died) can be taken
+ * over after {@code kyc.idempotency.in-progress-timeout}; completed records are kept for {@code kyc.idempotency.ttl}.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final String TABLE = "kyc_idempotency_record";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate,
+                            @Value("${kyc.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${kyc.idempotency.in-progress-timeout:5m}") Duration inProgressTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = ttl;
+        this.inProgressTimeout = inProgressTimeout;
+    }
+
+    /**
+     * Claims {@code idempotencyKey} within {@code scope} for a request that is about to run, unless a live record
+     * already exists.
+     *
+     * @return the claim token when the key was claimed, empty when another request owns it
+     */
+    public Optional<String> claim(String scope, String idempotencyKey, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        String claimToken = UUID.randomUUID().toString();
+        int claimed = jdbcTemplate.update("INSERT INTO " + TABLE + " AS r (scope, idempotency_key, "
+                        + "request_hash, claim_token, created_at, expires_at) VALUES (?, ?, ?, ?, ?, ?) "
+                        + "ON CONFLICT (scope, idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, "
+                        + "claim_token = EXCLUDED.claim_token, response_status = NULL, response_headers = NULL, "
+                        + "response_body = NULL, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at "
+                        + "WHERE r.expires_at < ? OR (r.response_status IS NULL AND r.created_at < ?)",
+                scope, idempotencyKey, requestHash, claimToken, Timestamp.valueOf(now),
+                Timestamp.valueOf(now.plus(ttl)), Timestamp.valueOf(now),
+                Timestamp.valueOf(now.minus(inProgressTimeout)));
+        return claimed == 1 ? Optional.of(claimToken) : Optional.empty();
+    }
+
+    /**
+     * @return the live record of {@code idempotencyKey} within {@code scope}, if any
+     */
+    public Optional<IdempotencyRecord> find(String scope, String idempotencyKey) {
+        List<IdempotencyRecord> records = jdbcTemplate.query("SELECT request_hash, response_status, "
+                        + "response_headers, response_body FROM " + TABLE
+                        + " WHERE scope = ? AND idempotency_key = ? AND expires_at >= ?",
+                (rs, rowNum) -> new IdempotencyRecord(
+                        rs.getString("request_hash"),
+                        (Integer) rs.getObject("response_status"),
+                        rs.getString("response_headers"),
+                        rs.getBytes("response_body")),
+                scope, idempotencyKey, Timestamp.valueOf(LocalDateTime.now()));
+        return records.stream().findFirst();
+    }
+
+    /**
+     * Stores the response of a claimed request and keeps it for {@code kyc.idempotency.ttl}.
+     */
+    public void complete(String scope, String idempotencyKey, String claimToken, int status, String headers,
+                         byte[] body) {
+        jdbcTemplate.update("UPDATE " + TABLE + " SET response_status = ?, response_headers = ?, response_body = ?, "
+                        + "expires_at = ? WHERE scope = ? AND idempotency_key = ? AND claim_token = ?",
+                status, headers, body, Timestamp.valueOf(LocalDateTime.now().plus(ttl)), scope, idempotencyKey,
+                claimToken);
+    }
+
+    /**
+     * Drops a claim whose response is not worth replaying, so the client can retry with the same key.
+     */
+    public void release(String scope, String idempotencyKey, String claimToken) {
+        jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE scope = ? AND idempotency_key = ? AND claim_token = ?",
+                scope, idempotencyKey, claimToken);
+    }
+
+    /**
+     * @return the number of expired records removed
+     */
+    public int purgeExpired() {
+        return jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE expires_at < ?",
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public record IdempotencyRecord(String requestHash, Integer responseStatus, String responseHeaders,
+                                    byte[] responseBody) {
+
+        public boolean isCompleted() {
+            return responseStatus != null;
+        }
+    }
+}
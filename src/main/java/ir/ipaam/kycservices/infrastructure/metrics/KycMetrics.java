@@ -0,0 +1,115 @@
+package ir.ipaam.kycservices.infrastructure.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ir.ipaam.kycservices.infrastructure.profiling.KycOperationEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Timers and payload-size summaries of the KYC hot paths, published under {@code kyc.*}.
+ * <p>
+ * Timers carry a {@code type} tag (document type, ESB operation, command or event name) and an {@code outcome} tag:
+ * {@code success}, {@code rejected} for {@link IllegalArgumentException}s, which this code base uses for validation
+ * and business rejections, or {@code error}. Histogram buckets are switched on for every {@code kyc.*} meter through
+ * {@code management.metrics.distribution.percentiles-histogram.kyc}.
+ */
+@Component
+public class KycMetrics {
+
+    public static final String UPLOAD_READ = "kyc.upload.read";
+    public static final String UPLOAD_SIZE = "kyc.upload.size";
+    public static final String UPLOAD_CHUNK = "kyc.upload.chunk";
+    public static final String ESB_CALL = "kyc.esb.call";
+    public static final String ESB_REQUEST_SIZE = "kyc.esb.request.size";
+    public static final String ESB_RETRY_BUDGET_BALANCE = "kyc.esb.retry.budget.balance";
+    public static final String ESB_RETRY_BUDGET_EXHAUSTED = "kyc.esb.retry.budget.exhausted";
+    public static final String ESB_CONCURRENCY_LIMIT = "kyc.esb.concurrency.limit";
+    public static final String ESB_CONCURRENCY_INFLIGHT = "kyc.esb.concurrency.inflight";
+    public static final String ESB_CONCURRENCY_QUEUED = "kyc.esb.concurrency.queued";
+    public static final String ESB_CONCURRENCY_REJECTED = "kyc.esb.concurrency.rejected";
+    public static final String ESB_HEDGE_CALLS = "kyc.esb.hedge.calls";
+    public static final String ESB_HEDGE_SENT = "kyc.esb.hedge.sent";
+    public static final String ESB_HEDGE_DENIED = "kyc.esb.hedge.denied";
+    public static final String ESB_HEDGE_SAVED = "kyc.esb.hedge.saved";
+    public static final String ESB_HEDGE_DELAY = "kyc.esb.hedge.delay";
+    public static final String DOCUMENT_BRANDING = "kyc.document.branding";
+    public static final String DOCUMENT_COMPRESSION = "kyc.document.compression";
+    public static final String DOCUMENT_ENCRYPTION = "kyc.document.encryption";
+    public static final String DOCUMENT_DECRYPTION = "kyc.document.decryption";
+    public static final String DOCUMENT_STORED_SIZE = "kyc.document.stored.size";
+    public static final String STORAGE_PUT = "kyc.storage.put";
+    public static final String STORAGE_GET = "kyc.storage.get";
+    public static final String STORAGE_COPY = "kyc.storage.copy";
+    public static final String COMMAND = "kyc.command";
+    public static final String EVENT_HANDLER = "kyc.event.handler";
+    public static final String ZEEBE_CALL = "kyc.zeebe.call";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_REJECTED = "rejected";
+    public static final String OUTCOME_ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    public KycMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs {@code work} and records its duration under {@code name}, tagged with {@code type} and its outcome. The
+     * run is also emitted as a {@link KycOperationEvent} while a flight recording is active.
+     */
+    public <T> T time(String name, String type, Supplier<T> work) {
+        KycOperationEvent event = new KycOperationEvent();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_ERROR;
+        try {
+            T result = work.get();
+            outcome = OUTCOME_SUCCESS;
+            return result;
+        } catch (IllegalArgumentException ex) {
+            outcome = OUTCOME_REJECTED;
+            throw ex;
+        } finally {
+            stop(sample, name, type, outcome);
+            if (event.shouldCommit()) {
+                event.name = name;
+                event.type = type;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void stop(Timer.Sample sample, String name, String type, String outcome) {
+        sample.stop(Timer.builder(name)
+                .tag("type", type)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+
+    /**
+     * Records a payload size in bytes under {@code name}, tagged with {@code type}.
+     */
+    public void recordSize(String name, String type, long bytes) {
+        DistributionSummary.builder(name)
+                .baseUnit("bytes")
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    public static String outcomeOf(Throwable failure) {
+        if (failure == null) {
+            return OUTCOME_SUCCESS;
+        }
+        return failure instanceof IllegalArgumentException ? OUTCOME_REJECTED : OUTCOME_ERROR;
+    }
+}
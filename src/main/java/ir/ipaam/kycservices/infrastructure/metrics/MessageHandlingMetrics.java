@@ -0,0 +1,68 @@
+package ir.ipaam.kycservices.infrastructure.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.axonframework.commandhandling.CommandBus;
+import org.axonframework.commandhandling.CommandMessage;
+import org.axonframework.config.EventProcessingConfigurer;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.Message;
+import org.axonframework.messaging.MessageHandlerInterceptor;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times command handling ({@value KycMetrics#COMMAND}) and every event handler invocation of the projection
+ * processors ({@value KycMetrics#EVENT_HANDLER}), tagged with the payload's simple class name.
+ * <p>
+ * Commands are handled on the dispatching thread, so the command timer covers most of a
+ * {@code commandGateway.sendAndWait} call: loading the aggregate, the handler and appending its events.
+ */
+@Component
+public class MessageHandlingMetrics {
+
+    private final KycMetrics kycMetrics;
+    private final CommandBus commandBus;
+
+    public MessageHandlingMetrics(KycMetrics kycMetrics, CommandBus commandBus) {
+        this.kycMetrics = kycMetrics;
+        this.commandBus = commandBus;
+    }
+
+    @PostConstruct
+    void registerCommandTimer() {
+        commandBus.registerHandlerInterceptor(new TimingInterceptor<CommandMessage<?>>(KycMetrics.COMMAND));
+    }
+
+    @Autowired
+    void registerEventHandlerTimer(EventProcessingConfigurer eventProcessingConfigurer) {
+        eventProcessingConfigurer.registerDefaultHandlerInterceptor(
+                (configuration, processorName) -> new TimingInterceptor<EventMessage<?>>(KycMetrics.EVENT_HANDLER));
+    }
+
+    private class TimingInterceptor<T extends Message<?>> implements MessageHandlerInterceptor<T> {
+
+        private final String name;
+
+        private TimingInterceptor(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Object handle(UnitOfWork<? extends T> unitOfWork, InterceptorChain interceptorChain) throws Exception {
+            String type = unitOfWork.getMessage().getPayloadType().getSimpleName();
+            Timer.Sample sample = kycMetrics.start();
+            Throwable failure = null;
+            try {
+                return interceptorChain.proceed();
+            } catch (Exception | Error ex) {
+                failure = ex;
+                throw ex;
+            } finally {
+                kycMetrics.stop(sample, name, type, KycMetrics.outcomeOf(failure));
+            }
+        }
+    }
+}
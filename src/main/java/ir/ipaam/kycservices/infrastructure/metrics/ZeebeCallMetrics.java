@@ -0,0 +1,46 @@
+package ir.ipaam.kycservices.infrastructure.metrics;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * gRPC interceptor of the Zeebe client, picked up by the Camunda starter like any {@link ClientInterceptor} bean. Every
+ * gateway call (message publication, process creation, cancellation, deployment, ...) is timed under
+ * {@value KycMetrics#ZEEBE_CALL}, tagged with the gateway method and the gRPC status code as outcome.
+ */
+@Component
+public class ZeebeCallMetrics implements ClientInterceptor {
+
+    private final KycMetrics kycMetrics;
+
+    public ZeebeCallMetrics(KycMetrics kycMetrics) {
+        this.kycMetrics = kycMetrics;
+    }
+
+    @Override
+    public <Q, R> ClientCall<Q, R> interceptCall(MethodDescriptor<Q, R> method, CallOptions callOptions, Channel next) {
+        String type = method.getBareMethodName() != null ? method.getBareMethodName() : method.getFullMethodName();
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<R> responseListener, Metadata headers) {
+                Timer.Sample sample = kycMetrics.start();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        kycMetrics.stop(sample, KycMetrics.ZEEBE_CALL, type, status.getCode().name());
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+}
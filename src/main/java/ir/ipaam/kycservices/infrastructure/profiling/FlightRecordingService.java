@@ -0,0 +1,216 @@
+package ir.ipaam.kycservices.infrastructure.profiling;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Operator-triggered JDK Flight Recorder recordings, one at a time.
+ * <p>
+ * Recordings start from the JDK's {@code profile} settings with lower thresholds, so allocation hot spots (image
+ * branding, encryption, ESB payload encoding) and lock or park contention (connection pools, blocking ESB calls) show
+ * up without attaching an external profiler, and with the {@code ir.ipaam.kyc.*} events enabled. Each recording is
+ * bounded by {@code kyc.profiling.recording.max-duration} and {@code kyc.profiling.recording.max-size} and written
+ * to {@code kyc.profiling.recording.directory}; starting a new one discards the previous file. Events that capture the
+ * JVM's system properties, environment variables and command line are disabled, since they carry the database, MinIO
+ * and ESB credentials. Only available with the {@value #PROFILE} profile.
+ */
+@Service
+@Profile(FlightRecordingService.PROFILE)
+public class FlightRecordingService {
+
+    public static final String PROFILE = "profiling";
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecordingService.class);
+
+    private static final Map<String, String> SETTING_OVERRIDES = Map.ofEntries(
+            Map.entry("jdk.ObjectAllocationSample#throttle", "1000/s"),
+            Map.entry("jdk.JavaMonitorEnter#threshold", "1 ms"),
+            Map.entry("jdk.JavaMonitorWait#threshold", "1 ms"),
+            Map.entry("jdk.ThreadPark#threshold", "1 ms"),
+            Map.entry("jdk.SocketRead#threshold", "1 ms"),
+            Map.entry("jdk.SocketWrite#threshold", "1 ms"),
+            Map.entry("jdk.ExecutionSample#period", "10 ms"),
+            Map.entry("ir.ipaam.kyc.Step#enabled", "true"),
+            Map.entry("ir.ipaam.kyc.Document#enabled", "true"),
+            Map.entry("ir.ipaam.kyc.Operation#enabled", "true"),
+            Map.entry("ir.ipaam.kyc.Operation#stackTrace", "false"),
+            Map.entry("jdk.InitialSystemProperty#enabled", "false"),
+            Map.entry("jdk.InitialEnvironmentVariable#enabled", "false"),
+            Map.entry("jdk.JVMInformation#enabled", "false"));
+
+    private final Duration defaultDuration;
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+    private final String directory;
+
+    private Recording recording;
+    private LocalDateTime startedAt;
+
+    public FlightRecordingService(
+            @Value("${kyc.profiling.recording.default-duration:2m}") Duration defaultDuration,
+            @Value("${kyc.profiling.recording.max-duration:10m}") Duration maxDuration,
+            @Value("${kyc.profiling.recording.max-size:200MB}") DataSize maxSize,
+            @Value("${kyc.profiling.recording.directory:}") String directory) {
+        this.defaultDuration = defaultDuration;
+        this.maxDuration = maxDuration;
+        this.maxSizeBytes = maxSize.toBytes();
+        this.directory = directory;
+    }
+
+    /**
+     * Starts a recording that stops by itself after {@code requested} (capped at the configured maximum), or after
+     * the default duration when {@code null}.
+     *
+     * @return {@code false} when a recording is already running
+     */
+    public synchronized boolean start(Duration requested) {
+        if (isRunning()) {
+            return false;
+        }
+        discard();
+        Duration duration = requested == null || requested.isZero() || requested.isNegative()
+                ? defaultDuration
+                : (requested.compareTo(maxDuration) > 0 ? maxDuration : requested);
+
+        Recording next = new Recording(settings());
+        next.setName("kyc-on-demand");
+        next.setToDisk(true);
+        next.setMaxSize(maxSizeBytes);
+        next.setDuration(duration);
+        try {
+            next.setDestination(recordingDirectory().resolve("kyc-" + System.currentTimeMillis() + ".jfr"));
+        } catch (IOException ex) {
+            next.close();
+            throw new UncheckedIOException("Unable to prepare the flight recording file", ex);
+        }
+        next.start();
+        recording = next;
+        startedAt = LocalDateTime.now();
+        log.info("Started flight recording for {} (max {} bytes) to {}", duration, maxSizeBytes,
+                next.getDestination());
+        return true;
+    }
+
+    public synchronized FlightRecordingStatus stop() {
+        if (isRunning()) {
+            recording.stop();
+            log.info("Stopped flight recording, written to {}", recording.getDestination());
+        }
+        return status();
+    }
+
+    public synchronized FlightRecordingStatus status() {
+        if (recording == null) {
+            return FlightRecordingStatus.idle();
+        }
+        FlightRecordingStatus.State state = isRunning()
+                ? FlightRecordingStatus.State.RUNNING
+                : FlightRecordingStatus.State.STOPPED;
+        return new FlightRecordingStatus(state, startedAt, recording.getDuration(), maxSizeBytes, size());
+    }
+
+    /**
+     * Opens the recorded data: a snapshot of everything recorded so far while the recording runs, the final file
+     * once it stopped.
+     *
+     * @return empty when nothing was recorded yet
+     */
+    public synchronized Optional<InputStream> open() {
+        if (recording == null) {
+            return Optional.empty();
+        }
+        try {
+            if (isRunning()) {
+                Path snapshot = Files.createTempFile(recordingDirectory(), "kyc-snapshot-", ".jfr");
+                recording.dump(snapshot);
+                return Optional.of(Files.newInputStream(snapshot, StandardOpenOption.DELETE_ON_CLOSE));
+            }
+            Path destination = recording.getDestination();
+            if (destination == null || !Files.exists(destination)) {
+                return Optional.empty();
+            }
+            return Optional.of(Files.newInputStream(destination));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read the flight recording", ex);
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        discard();
+    }
+
+    private boolean isRunning() {
+        return recording != null
+                && (recording.getState() == RecordingState.RUNNING || recording.getState() == RecordingState.DELAYED);
+    }
+
+    private long size() {
+        Path destination = recording.getDestination();
+        if (!isRunning() && destination != null && Files.exists(destination)) {
+            try {
+                return Files.size(destination);
+            } catch (IOException ex) {
+                return 0;
+            }
+        }
+        return recording.getSize();
+    }
+
+    private void discard() {
+        if (recording == null) {
+            return;
+        }
+        Path destination = recording.getDestination();
+        recording.close();
+        recording = null;
+        startedAt = null;
+        if (destination != null) {
+            try {
+                Files.deleteIfExists(destination);
+            } catch (IOException ex) {
+                log.warn("Unable to delete flight recording {}", destination, ex);
+            }
+        }
+    }
+
+    private Path recordingDirectory() throws IOException {
+        if (directory == null || directory.isBlank()) {
+            return Files.createDirectories(Path.of(System.getProperty("java.io.tmpdir"), "kyc-jfr"));
+        }
+        return Files.createDirectories(Path.of(directory));
+    }
+
+    private static Map<String, String> settings() {
+        Map<String, String> settings;
+        try {
+            settings = new HashMap<>(Configuration.getConfiguration("profile").getSettings());
+        } catch (IOException | ParseException ex) {
+            log.warn("JFR 'profile' settings unavailable, recording with the overrides only", ex);
+            settings = new HashMap<>();
+        }
+        settings.putAll(SETTING_OVERRIDES);
+        return settings;
+    }
+}
@@ -0,0 +1,26 @@
+package ir.ipaam.kycservices.infrastructure.profiling;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of the current or last on-demand flight recording.
+ */
+public record FlightRecordingStatus(
+        State state,
+        LocalDateTime startedAt,
+        Duration duration,
+        long maxSizeBytes,
+        long sizeBytes
+) {
+
+    public static FlightRecordingStatus idle() {
+        return new FlightRecordingStatus(State.IDLE, null, null, 0, 0);
+    }
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        STOPPED
+    }
+}
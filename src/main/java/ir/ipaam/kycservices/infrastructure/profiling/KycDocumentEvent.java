@@ -0,0 +1,45 @@
+package ir.ipaam.kycservices.infrastructure.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A document written to object storage, with the time spent in each stage of {@code MinioStorageService.upload}.
+ */
+@Name("ir.ipaam.kyc.Document")
+@Label("KYC Document Stored")
+@Category({"KYC"})
+@Description("Branding, encryption and MinIO upload of a KYC document")
+public class KycDocumentEvent extends Event {
+
+    @Label("Process Instance Id")
+    public String processInstanceId;
+
+    @Label("Document Type")
+    public String documentType;
+
+    @Label("Payload Size")
+    @DataAmount
+    public long payloadBytes;
+
+    @Label("Stored Size")
+    @DataAmount
+    public long storedBytes;
+
+    @Label("Branding Time")
+    @Timespan
+    public long brandingTime;
+
+    @Label("Encryption Time")
+    @Timespan
+    public long encryptionTime;
+
+    @Label("MinIO Time")
+    @Timespan
+    public long storageTime;
+}
@@ -0,0 +1,27 @@
+package ir.ipaam.kycservices.infrastructure.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An operation timed by {@code KycMetrics}, e.g. an ESB call ({@code kyc.esb.call}, whose duration is the remote
+ * latency), the read of an upload or a decryption. Carries the same name, type and outcome as the timer.
+ */
+@Name("ir.ipaam.kyc.Operation")
+@Label("KYC Operation")
+@Category({"KYC"})
+@Description("Operation timed under a kyc.* timer")
+public class KycOperationEvent extends Event {
+
+    @Label("Name")
+    public String name;
+
+    @Label("Type")
+    public String type;
+
+    @Label("Outcome")
+    public String outcome;
+}
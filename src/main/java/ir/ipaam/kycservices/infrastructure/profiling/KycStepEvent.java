@@ -0,0 +1,28 @@
+package ir.ipaam.kycservices.infrastructure.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One execution of an upload step by the request that won the {@code StepExecutionGuard}: OCR or face detection,
+ * branding, encryption and storage of its documents. The documents and remote calls of the step are recorded as
+ * {@link KycDocumentEvent}s and {@link KycOperationEvent}s on the same thread within its time span.
+ */
+@Name("ir.ipaam.kyc.Step")
+@Label("KYC Step")
+@Category({"KYC"})
+@Description("Execution of a KYC upload step")
+public class KycStepEvent extends Event {
+
+    @Label("Process Instance Id")
+    public String processInstanceId;
+
+    @Label("Step")
+    public String step;
+
+    @Label("Outcome")
+    public String outcome;
+}
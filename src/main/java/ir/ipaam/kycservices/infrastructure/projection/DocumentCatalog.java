@@ -0,0 +1,122 @@
+package ir.ipaam.kycservices.infrastructure.projection;
+
+import ir.ipaam.kycservices.domain.model.entity.Document;
+import ir.ipaam.kycservices.domain.model.entity.DocumentCatalogEntry;
+import ir.ipaam.kycservices.infrastructure.repository.DocumentCatalogRepository;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Latest verified document per {@code (nationalCode, type)}, read by primary key from {@code kyc_document_catalog}
+ * and kept in a small near-cache.
+ * <p>
+ * The projection records every verified document it persists; the cached entry of that key is dropped once the
+ * projection transaction commits. Only the instance running the projection processor sees those invalidations, so
+ * entries also expire after {@code kyc.document.catalog.cache.ttl}. A max-entries of 0 disables the cache.
+ */
+@Component
+public class DocumentCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentCatalog.class);
+
+    private final DocumentCatalogRepository documentCatalogRepository;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<DocumentCatalogEntry.Key, CachedEntry> cache;
+    private long generation;
+
+    public DocumentCatalog(DocumentCatalogRepository documentCatalogRepository,
+                           @Value("${kyc.document.catalog.cache.max-entries:10000}") int maxEntries,
+                           @Value("${kyc.document.catalog.cache.ttl:30s}") Duration ttl) {
+        this.documentCatalogRepository = documentCatalogRepository;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DocumentCatalogEntry.Key, CachedEntry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public Optional<DocumentCatalogEntry> findLatest(String nationalCode, String type) {
+        DocumentCatalogEntry.Key key = new DocumentCatalogEntry.Key(nationalCode, type);
+        if (maxEntries <= 0) {
+            return documentCatalogRepository.findById(key);
+        }
+        long loadGeneration;
+        synchronized (cache) {
+            CachedEntry cached = cache.get(key);
+            if (cached != null && System.nanoTime() - cached.loadedAt() < ttlNanos) {
+                return Optional.of(cached.entry());
+            }
+            loadGeneration = generation;
+        }
+        Optional<DocumentCatalogEntry> entry = documentCatalogRepository.findById(key);
+        entry.ifPresent(value -> {
+            synchronized (cache) {
+                // An invalidation that happened during the load may have raced a newer row past this one.
+                if (generation == loadGeneration) {
+                    cache.put(key, new CachedEntry(value, System.nanoTime()));
+                }
+            }
+        });
+        return entry;
+    }
+
+    /**
+     * Makes {@code document} the catalog entry of its customer and type if it is verified and newer than the current
+     * one. Must run in the transaction that persisted the document.
+     */
+    public void record(Document document, String nationalCode, Long size) {
+        if (!document.isVerified() || nationalCode == null || document.getType() == null
+                || document.getId() == null) {
+            return;
+        }
+        documentCatalogRepository.upsertLatest(nationalCode, document.getType(), document.getId(),
+                document.getStoragePath(), document.getHash(), document.isEncrypted(), document.getEncryptionIv(),
+                size, LocalDateTime.now());
+        DocumentCatalogEntry.Key key = new DocumentCatalogEntry.Key(nationalCode, document.getType());
+        if (CurrentUnitOfWork.isStarted()) {
+            CurrentUnitOfWork.get().afterCommit(unitOfWork -> invalidate(key));
+        } else {
+            invalidate(key);
+        }
+    }
+
+    /**
+     * Brings the catalog in line with {@code kyc_document} after the document table was replaced wholesale.
+     * Must run in the transaction that replaced it.
+     */
+    public void reconcile() {
+        int removed = documentCatalogRepository.deleteOrphans();
+        int added = documentCatalogRepository.insertMissing();
+        log.info("Reconciled document catalog: {} stale entries removed, {} entries added", removed, added);
+    }
+
+    public void invalidateAll() {
+        synchronized (cache) {
+            generation++;
+            cache.clear();
+        }
+    }
+
+    private void invalidate(DocumentCatalogEntry.Key key) {
+        synchronized (cache) {
+            generation++;
+            cache.remove(key);
+        }
+    }
+
+    private record CachedEntry(DocumentCatalogEntry entry, long loadedAt) {
+    }
+}
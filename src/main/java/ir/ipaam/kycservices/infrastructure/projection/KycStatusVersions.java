@@ -0,0 +1,158 @@
+package ir.ipaam.kycservices.infrastructure.projection;
+
+import ir.ipaam.kycservices.infrastructure.repository.CustomerRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Versions of the projected KYC status per national code, used to answer conditional status requests without
+ * loading the status.
+ * <p>
+ * The version lives in {@code kyc_customer.status_version}, so every instance hands out the same ETag. Each writer of
+ * the status, the projection as well as the services that update the read tables directly, calls
+ * {@link #markChanged} in its transaction, which moves the column to a new value of a sequence when that transaction
+ * commits; a stale ETag can therefore never match again. Versions are kept in a small near-cache: the entry of a
+ * national code is dropped once a local change commits, and changes committed by other instances are picked up within
+ * {@code kyc.status.etag.ttl}. A max-entries of 0 disables the cache.
+ */
+@Component
+public class KycStatusVersions {
+
+    private final CustomerRepository customerRepository;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<String, CachedVersion> versions;
+    private long generation;
+
+    public KycStatusVersions(CustomerRepository customerRepository,
+                             @Value("${kyc.status.etag.max-entries:10000}") int maxEntries,
+                             @Value("${kyc.status.etag.ttl:2s}") Duration ttl) {
+        this.customerRepository = customerRepository;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.versions = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedVersion> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the ETag of the current status of {@code nationalCode}, or {@code null} when there is no such customer
+     */
+    public String currentTag(String nationalCode) {
+        synchronized (versions) {
+            CachedVersion cached = versions.get(nationalCode);
+            if (cached != null && System.nanoTime() - cached.loadedAt() < ttlNanos) {
+                return toTag(cached.version());
+            }
+        }
+        return tagForLoad(nationalCode);
+    }
+
+    /**
+     * Returns the ETag to attach to a status that is about to be loaded. Must be called before the load, so a change
+     * committed in between makes the tag older than the status instead of hiding the change behind it.
+     */
+    public String tagForLoad(String nationalCode) {
+        long loadGeneration;
+        synchronized (versions) {
+            loadGeneration = generation;
+        }
+        Optional<Long> version = customerRepository.findStatusVersion(nationalCode);
+        if (version.isEmpty()) {
+            return null;
+        }
+        if (maxEntries > 0) {
+            synchronized (versions) {
+                // A local change that committed during the read may have moved the version past this one.
+                if (generation == loadGeneration) {
+                    versions.put(nationalCode, new CachedVersion(version.get(), System.nanoTime()));
+                }
+            }
+        }
+        return toTag(version.get());
+    }
+
+    /**
+     * Moves the version of {@code nationalCode} forward when the current transaction commits, and drops the cached one
+     * afterwards. The national codes changed by one transaction, e.g. a projection batch, are moved with a single
+     * update right before its commit. Without a transaction the version is moved and dropped right away.
+     */
+    public void markChanged(String nationalCode) {
+        if (nationalCode == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            customerRepository.bumpStatusVersions(List.of(nationalCode));
+            invalidate(nationalCode);
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.nationalCodes.add(nationalCode);
+    }
+
+    /**
+     * Forgets every cached version, e.g. after the read tables were replaced by a rebuild.
+     */
+    public void invalidateAll() {
+        synchronized (versions) {
+            generation++;
+            versions.clear();
+        }
+    }
+
+    private void invalidate(String nationalCode) {
+        synchronized (versions) {
+            generation++;
+            versions.remove(nationalCode);
+        }
+    }
+
+    private static String toTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private record CachedVersion(long version, long loadedAt) {
+    }
+
+    /**
+     * National codes changed by the current transaction, in a stable order so concurrent transactions lock their
+     * customer rows in the same order.
+     */
+    private final class PendingChanges implements TransactionSynchronization {
+
+        private final Set<String> nationalCodes = new TreeSet<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            customerRepository.bumpStatusVersions(nationalCodes);
+        }
+
+        @Override
+        public void afterCommit() {
+            nationalCodes.forEach(KycStatusVersions.this::invalidate);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(KycStatusVersions.this);
+        }
+    }
+}
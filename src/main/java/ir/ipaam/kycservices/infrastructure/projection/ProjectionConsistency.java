@@ -0,0 +1,186 @@
+package ir.ipaam.kycservices.infrastructure.projection;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import ir.ipaam.kycservices.infrastructure.handler.KycProcessEventHandler;
+import jakarta.annotation.PostConstruct;
+import org.axonframework.eventhandling.GapAwareTrackingToken;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.eventhandling.WrappedToken;
+import org.axonframework.eventsourcing.eventstore.EventStore;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Read-your-writes support for the asynchronous KYC projection.
+ * <p>
+ * Command endpoints hand out the global index of the last event their command appended as a consistency token; query
+ * endpoints can wait until the projection processor has handled that event before reading. Progress is read from the
+ * processor's tokens in {@code token_entry}, which are committed together with the projection changes, so the wait
+ * works on every instance, whether or not it owns segments of the processor.
+ */
+@Component
+public class ProjectionConsistency {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectionConsistency.class);
+    private static final long POLL_INTERVAL_MILLIS = 50;
+    private static final String EVENT_TABLE = "domain_event_entry";
+    private static final String TOKEN_TABLE = "token_entry";
+
+    private final EventStore eventStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final Serializer serializer;
+    private final MeterRegistry meterRegistry;
+    private final Duration maxWait;
+
+    private boolean largeObjectTokens;
+
+    public ProjectionConsistency(EventStore eventStore,
+                                 JdbcTemplate jdbcTemplate,
+                                 Serializer serializer,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${kyc.projection.consistency.max-wait:3s}") Duration maxWait) {
+        this.eventStore = eventStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.serializer = serializer;
+        this.meterRegistry = meterRegistry;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Detects whether the token store keeps tokens as large objects (JPA) or {@code BYTEA}, and registers the lag
+     * gauge.
+     */
+    @PostConstruct
+    void initialize() {
+        String tokenType = jdbcTemplate.query(
+                "SELECT data_type FROM information_schema.columns WHERE table_name = ? AND column_name = 'token'",
+                rs -> rs.next() ? rs.getString(1) : null, TOKEN_TABLE);
+        largeObjectTokens = "oid".equalsIgnoreCase(tokenType);
+        Gauge.builder("kyc.projection.lag", this, ProjectionConsistency::lag)
+                .description("Events appended to the event store that the KYC projection has not processed yet")
+                .baseUnit("events")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the global index of the event with the given aggregate and sequence number, to be handed out as a
+     * consistency token
+     */
+    public OptionalLong globalIndexOf(String aggregateIdentifier, long sequenceNumber) {
+        List<Long> indexes = jdbcTemplate.queryForList("SELECT global_index FROM " + EVENT_TABLE
+                        + " WHERE aggregate_identifier = ? AND sequence_number = ?",
+                Long.class, aggregateIdentifier, sequenceNumber);
+        return indexes.isEmpty() ? OptionalLong.empty() : OptionalLong.of(indexes.get(0));
+    }
+
+    /**
+     * @return the global index of the newest event in the store
+     */
+    public OptionalLong headIndex() {
+        TrackingToken head = eventStore.createHeadToken();
+        return head != null ? head.position() : OptionalLong.empty();
+    }
+
+    /**
+     * @return the lowest position stored by the segments of the projection processor, empty when a segment has not
+     * stored a token yet
+     */
+    public OptionalLong processedIndex() {
+        List<TrackingToken> tokens = storedTokens();
+        if (tokens.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        long lowest = Long.MAX_VALUE;
+        for (TrackingToken token : tokens) {
+            OptionalLong position = token != null ? token.position() : OptionalLong.empty();
+            if (position.isEmpty()) {
+                return OptionalLong.empty();
+            }
+            lowest = Math.min(lowest, position.getAsLong());
+        }
+        return OptionalLong.of(lowest);
+    }
+
+    /**
+     * Blocks until every segment of the projection processor has stored a token past {@code globalIndex}, without
+     * the event in its gaps, or {@code kyc.projection.consistency.max-wait} has elapsed.
+     *
+     * @return {@code false} when the wait timed out and a read would possibly return stale data
+     */
+    public boolean awaitProcessed(long globalIndex) {
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        while (true) {
+            if (isProcessed(globalIndex)) {
+                return true;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                log.debug("Projection did not reach global index {} within {}", globalIndex, maxWait);
+                return false;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private boolean isProcessed(long globalIndex) {
+        List<TrackingToken> tokens = storedTokens();
+        if (tokens.isEmpty()) {
+            return false;
+        }
+        for (TrackingToken token : tokens) {
+            if (token == null || token.position().orElse(-1) < globalIndex) {
+                return false;
+            }
+            // An event committed after the processor read past its index stays a gap until it is handled.
+            if (WrappedToken.unwrapLowerBound(token) instanceof GapAwareTrackingToken gapAware
+                    && gapAware.getGaps().contains(globalIndex)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<TrackingToken> storedTokens() {
+        String token = largeObjectTokens ? "lo_get(token)" : "token";
+        return jdbcTemplate.query("SELECT token_type, " + token + " AS token FROM " + TOKEN_TABLE
+                        + " WHERE processor_name = ?",
+                (rs, rowNum) -> {
+                    byte[] serialized = rs.getBytes("token");
+                    String type = rs.getString("token_type");
+                    if (serialized == null || type == null) {
+                        return null;
+                    }
+                    return serializer.<byte[], TrackingToken>deserialize(
+                            new SimpleSerializedObject<>(serialized, byte[].class, type, null));
+                },
+                KycProcessEventHandler.PROCESSING_GROUP);
+    }
+
+    private double lag() {
+        try {
+            OptionalLong head = headIndex();
+            OptionalLong processed = processedIndex();
+            if (head.isEmpty() || processed.isEmpty()) {
+                return Double.NaN;
+            }
+            return Math.max(0, head.getAsLong() - processed.getAsLong());
+        } catch (RuntimeException ex) {
+            log.debug("Unable to compute projection lag", ex);
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ir.ipaam.kycservices.infrastructure.projection;
+
+import ir.ipaam.kycservices.infrastructure.handler.KycProcessEventHandler;
+import org.axonframework.config.EventProcessingConfiguration;
+import org.axonframework.eventhandling.StreamingEventProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Cluster-wide flag of a running projection rebuild: a Postgres session advisory lock held by the rebuilding node for
+ * as long as the rebuild runs.
+ * <p>
+ * Every node checks the lock every {@code kyc.projection.rebuild.lock-check-interval}. While another node holds it,
+ * the local projection processor is shut down, which releases its token claims so the rebuilding node can claim
+ * them; once the lock is gone the processor is started again. Only a processor this component shut down is restarted.
+ */
+@Component
+public class ProjectionRebuildLock {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectionRebuildLock.class);
+
+    /**
+     * First half of the two-key advisory lock, apart from the keys of the step guard.
+     */
+    private static final int ADVISORY_LOCK_NAMESPACE = 0x4B595052;
+    private static final int ADVISORY_LOCK_KEY = KycProcessEventHandler.PROCESSING_GROUP.hashCode();
+
+    private final DataSource dataSource;
+    private final EventProcessingConfiguration eventProcessingConfiguration;
+
+    private Connection lockConnection;
+    private boolean pausedByRemoteRebuild;
+
+    public ProjectionRebuildLock(DataSource dataSource, EventProcessingConfiguration eventProcessingConfiguration) {
+        this.dataSource = dataSource;
+        this.eventProcessingConfiguration = eventProcessingConfiguration;
+    }
+
+    /**
+     * @return {@code false} when a rebuild already runs, on this node or another one
+     */
+    public synchronized boolean tryAcquire() {
+        if (lockConnection != null) {
+            return false;
+        }
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            if (!execute(connection, "SELECT pg_try_advisory_lock(?, ?)")) {
+                connection.close();
+                return false;
+            }
+            lockConnection = connection;
+            return true;
+        } catch (SQLException ex) {
+            closeQuietly(connection);
+            throw new IllegalStateException("Unable to take the projection rebuild lock", ex);
+        }
+    }
+
+    public synchronized void release() {
+        if (lockConnection == null) {
+            return;
+        }
+        try {
+            execute(lockConnection, "SELECT pg_advisory_unlock(?, ?)");
+        } catch (SQLException ex) {
+            log.warn("Failed to release the projection rebuild lock; closing its connection ends it", ex);
+        } finally {
+            closeQuietly(lockConnection);
+            lockConnection = null;
+        }
+    }
+
+    /**
+     * Pauses the local projection processor while another node rebuilds the read tables, and resumes it afterwards.
+     */
+    @Scheduled(fixedDelayString = "${kyc.projection.rebuild.lock-check-interval:2s}",
+            initialDelayString = "${kyc.projection.rebuild.lock-check-interval:2s}")
+    public synchronized void followRemoteRebuild() {
+        if (lockConnection != null) {
+            return;
+        }
+        try {
+            boolean rebuilding = heldElsewhere();
+            StreamingEventProcessor processor = processor();
+            if (processor == null) {
+                return;
+            }
+            if (rebuilding && processor.isRunning()) {
+                log.info("Pausing processor {} while another node rebuilds the projections", processor.getName());
+                processor.shutDown();
+                pausedByRemoteRebuild = true;
+            } else if (!rebuilding && pausedByRemoteRebuild) {
+                log.info("Resuming processor {} after the projection rebuild", processor.getName());
+                processor.start();
+                pausedByRemoteRebuild = false;
+            }
+        } catch (RuntimeException | SQLException ex) {
+            log.warn("Checking for a projection rebuild on another node failed", ex);
+        }
+    }
+
+    private boolean heldElsewhere() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!execute(connection, "SELECT pg_try_advisory_lock_shared(?, ?)")) {
+                return true;
+            }
+            execute(connection, "SELECT pg_advisory_unlock_shared(?, ?)");
+            return false;
+        }
+    }
+
+    private StreamingEventProcessor processor() {
+        return eventProcessingConfiguration
+                .eventProcessor(KycProcessEventHandler.PROCESSING_GROUP, StreamingEventProcessor.class)
+                .orElse(null);
+    }
+
+    private static boolean execute(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, ADVISORY_LOCK_NAMESPACE);
+            statement.setInt(2, ADVISORY_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException ex) {
+            log.debug("Failed to close advisory lock connection", ex);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package ir.ipaam.kycservices.infrastructure.projection;
+
+import ir.ipaam.kycservices.infrastructure.eventstore.EventArchiveService;
+import ir.ipaam.kycservices.infrastructure.handler.KycProcessEventHandler;
+import org.axonframework.common.stream.BlockingStream;
+import org.axonframework.config.EventProcessingConfiguration;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.GapAwareTrackingToken;
+import org.axonframework.eventhandling.Segment;
+import org.axonframework.eventhandling.StreamingEventProcessor;
+import org.axonframework.eventhandling.TrackedEventMessage;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.eventhandling.WrappedToken;
+import org.axonframework.eventhandling.async.SequencingPolicy;
+import org.axonframework.eventhandling.tokenstore.TokenStore;
+import org.axonframework.eventhandling.tokenstore.UnableToClaimTokenException;
+import org.axonframework.eventsourcing.eventstore.EventStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Operator-triggered rebuild of the KYC read tables from the event store.
+ * <p>
+ * The projection processor is paused on every node and this node claims all of its segments, so no other node
+ * writes to the read tables until the swap. The head of the store is captured once every segment is held, and the
+ * events up to it are streamed into shadow tables (no MinIO work is repeated, archived events are replayed first).
+ * Only events a segment had already handled before it was paused are rebuilt; the shadow tables then replace the live
+ * ones in one transaction and the claims are released with the tokens left as they were, so events appended while the
+ * processor was paused, or during the rebuild, still reach every live handler, object storage included. Command-side
+ * writes made to the read tables while the rebuild runs are not carried over, so it should be run in a maintenance
+ * window.
+ */
+@Service
+public class ProjectionRebuildService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectionRebuildService.class);
+    private static final long PROGRESS_LOG_INTERVAL = 10_000;
+    private static final long CLAIM_RETRY_MILLIS = 1_000;
+
+    private final EventStore eventStore;
+    private final EventArchiveService eventArchiveService;
+    private final KycStatusVersions kycStatusVersions;
+    private final DocumentCatalog documentCatalog;
+    private final EventProcessingConfiguration eventProcessingConfiguration;
+    private final TokenStore tokenStore;
+    private final ProjectionRebuildLock rebuildLock;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration claimTimeout;
+    private final Duration claimExtensionInterval;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "projection-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile ProjectionRebuildStatus status = ProjectionRebuildStatus.idle();
+
+    public ProjectionRebuildService(EventStore eventStore,
+                                    EventArchiveService eventArchiveService,
+                                    KycStatusVersions kycStatusVersions,
+                                    DocumentCatalog documentCatalog,
+                                    EventProcessingConfiguration eventProcessingConfiguration,
+                                    TokenStore tokenStore,
+                                    ProjectionRebuildLock rebuildLock,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${kyc.projection.rebuild.batch-size:500}") int batchSize,
+                                    @Value("${kyc.projection.rebuild.claim-timeout:60s}") Duration claimTimeout,
+                                    @Value("${axon.eventhandling.tokenstore.claim-timeout:10s}") Duration tokenClaimTimeout) {
+        this.eventStore = eventStore;
+        this.eventArchiveService = eventArchiveService;
+        this.kycStatusVersions = kycStatusVersions;
+        this.documentCatalog = documentCatalog;
+        this.eventProcessingConfiguration = eventProcessingConfiguration;
+        this.tokenStore = tokenStore;
+        this.rebuildLock = rebuildLock;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.claimTimeout = claimTimeout;
+        this.claimExtensionInterval = tokenClaimTimeout.dividedBy(3);
+    }
+
+    /**
+     * Starts a rebuild in the background.
+     *
+     * @return {@code false} when a rebuild is already running, on this node or another one
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        boolean locked;
+        try {
+            locked = rebuildLock.tryAcquire();
+        } catch (RuntimeException ex) {
+            running.set(false);
+            throw ex;
+        }
+        if (!locked) {
+            running.set(false);
+            return false;
+        }
+        status = new ProjectionRebuildStatus(
+                ProjectionRebuildStatus.State.RUNNING, "PAUSING_PROCESSOR", 0, 0d, LocalDateTime.now(), null, null);
+        executor.execute(this::rebuild);
+        return true;
+    }
+
+    public ProjectionRebuildStatus status() {
+        return status;
+    }
+
+    private void rebuild() {
+        LocalDateTime startedAt = status.startedAt();
+        long startNanos = System.nanoTime();
+        long processed = 0;
+        StreamingEventProcessor processor = null;
+        ShadowProjectionBuilder builder = new ShadowProjectionBuilder(jdbcTemplate, batchSize);
+        ClaimedSegments claims = null;
+        boolean swapped = false;
+        try {
+            processor = eventProcessingConfiguration
+                    .eventProcessor(KycProcessEventHandler.PROCESSING_GROUP, StreamingEventProcessor.class)
+                    .orElseThrow(() -> new IllegalStateException(
+                            "No streaming processor registered for " + KycProcessEventHandler.PROCESSING_GROUP));
+            processor.shutDown();
+
+            updatePhase("CLAIMING_SEGMENTS", processed, startNanos);
+            claims = claimAllSegments(processor.getName());
+            // Nothing is handled live from here on, so every event past the head is still ahead of every token.
+            TrackingToken headToken = eventStore.createHeadToken();
+            long headPosition = headToken == null ? -1 : headToken.position().orElse(-1);
+
+            updatePhase("PREPARING_SHADOW_TABLES", processed, startNanos);
+            builder.prepare();
+
+            updatePhase("REPLAYING_ARCHIVED_EVENTS", processed, startNanos);
+            long[] archived = {0};
+            ClaimedSegments heldClaims = claims;
+            eventArchiveService.forEachArchivedPayload(payload -> {
+                builder.apply(payload);
+                heldClaims.extendIfDue();
+                archived[0]++;
+            });
+            processed = archived[0];
+
+            updatePhase("REPLAYING_EVENTS", processed, startNanos);
+            try (BlockingStream<TrackedEventMessage<?>> stream = eventStore.openStream(null)) {
+                long position = -1;
+                while (position < headPosition) {
+                    if (!stream.hasNextAvailable(1, TimeUnit.SECONDS)) {
+                        claims.extendIfDue();
+                        continue;
+                    }
+                    TrackedEventMessage<?> message = stream.nextAvailable();
+                    position = message.trackingToken().position().orElse(headPosition);
+                    claims.extendIfDue();
+                    if (!claims.handled(message)) {
+                        continue;
+                    }
+                    builder.apply(message.getPayload());
+                    processed++;
+                    if (processed % batchSize == 0) {
+                        updatePhase("REPLAYING_EVENTS", processed, startNanos);
+                    }
+                    if (processed % PROGRESS_LOG_INTERVAL == 0) {
+                        log.info("Projection rebuild replayed {} events ({} events/s)",
+                                processed, String.format("%.1f", eventsPerSecond(processed, startNanos)));
+                    }
+                }
+            }
+
+            updatePhase("WRITING_SHADOW_TABLES", processed, startNanos);
+            builder.complete();
+            claims.extendIfDue();
+
+            updatePhase("SWAPPING_TABLES", processed, startNanos);
+            transactionTemplate.executeWithoutResult(tx -> {
+                builder.swap();
+                documentCatalog.reconcile();
+            });
+            swapped = true;
+            kycStatusVersions.invalidateAll();
+            documentCatalog.invalidateAll();
+
+            double eventsPerSecond = eventsPerSecond(processed, startNanos);
+            status = new ProjectionRebuildStatus(ProjectionRebuildStatus.State.COMPLETED, "DONE", processed,
+                    eventsPerSecond, startedAt, LocalDateTime.now(), null);
+            log.info("Projection rebuild replayed {} events in {} ({} events/s)", processed,
+                    Duration.ofNanos(System.nanoTime() - startNanos),
+                    String.format("%.1f", eventsPerSecond));
+        } catch (Exception ex) {
+            log.error("Projection rebuild failed after {} events", processed, ex);
+            if (processor != null && !swapped) {
+                try {
+                    builder.dropShadowTables();
+                } catch (RuntimeException cleanupEx) {
+                    log.warn("Failed to drop shadow tables after rebuild failure", cleanupEx);
+                }
+            }
+            status = new ProjectionRebuildStatus(ProjectionRebuildStatus.State.FAILED, status.phase(), processed,
+                    eventsPerSecond(processed, startNanos), startedAt, LocalDateTime.now(), ex.getMessage());
+        } finally {
+            if (claims != null) {
+                claims.release();
+            }
+            if (processor != null) {
+                processor.start();
+            }
+            rebuildLock.release();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Claims every segment of the processor for this node. Other nodes release theirs once they notice the rebuild
+     * lock and pause their processors; claims of nodes that died expire after the token store's claim timeout.
+     */
+    private ClaimedSegments claimAllSegments(String processorName) throws InterruptedException {
+        int[] segments = transactionTemplate.execute(tx -> tokenStore.fetchSegments(processorName));
+        long deadline = System.nanoTime() + claimTimeout.toNanos();
+        Set<Integer> pending = new TreeSet<>();
+        for (int segment : segments) {
+            pending.add(segment);
+        }
+        ClaimedSegments claims = new ClaimedSegments(processorName, segments);
+        while (true) {
+            for (Iterator<Integer> iterator = pending.iterator(); iterator.hasNext(); ) {
+                int segment = iterator.next();
+                try {
+                    TrackingToken token =
+                            transactionTemplate.execute(tx -> tokenStore.fetchToken(processorName, segment));
+                    claims.tokens.put(segment, token);
+                    iterator.remove();
+                } catch (UnableToClaimTokenException ex) {
+                    log.debug("Segment {} of {} is still claimed by another node", segment, processorName);
+                }
+            }
+            if (pending.isEmpty()) {
+                return claims;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                claims.release();
+                throw new IllegalStateException("Segments " + pending + " of " + processorName
+                        + " are still claimed by other nodes after " + claimTimeout);
+            }
+            claims.extendIfDue();
+            Thread.sleep(CLAIM_RETRY_MILLIS);
+        }
+    }
+
+    private final class ClaimedSegments {
+
+        private final String processorName;
+        private final int[] segmentIds;
+        private final Map<Integer, TrackingToken> tokens = new LinkedHashMap<>();
+        private final SequencingPolicy<? super EventMessage<?>> sequencingPolicy =
+                eventProcessingConfiguration.sequencingPolicy(KycProcessEventHandler.PROCESSING_GROUP);
+        private long lastExtension = System.nanoTime();
+
+        private ClaimedSegments(String processorName, int[] segmentIds) {
+            this.processorName = processorName;
+            this.segmentIds = segmentIds;
+        }
+
+        /**
+         * Whether the segment the event belongs to had handled it before the processor was paused.
+         */
+        private boolean handled(TrackedEventMessage<?> message) {
+            Object sequenceIdentifier = sequencingPolicy.getSequenceIdentifierFor(message);
+            Object key = sequenceIdentifier != null ? sequenceIdentifier : message.getIdentifier();
+            for (Map.Entry<Integer, TrackingToken> entry : tokens.entrySet()) {
+                if (Segment.computeSegment(entry.getKey(), segmentIds).matches(key)) {
+                    return covers(entry.getValue(), message.trackingToken());
+                }
+            }
+            return false;
+        }
+
+        private void extendIfDue() {
+            if (System.nanoTime() - lastExtension < claimExtensionInterval.toNanos()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(tx ->
+                    tokens.keySet().forEach(segment -> tokenStore.extendClaim(processorName, segment)));
+            lastExtension = System.nanoTime();
+        }
+
+        private void release() {
+            for (int segment : tokens.keySet()) {
+                try {
+                    transactionTemplate.executeWithoutResult(tx -> tokenStore.releaseClaim(processorName, segment));
+                } catch (RuntimeException ex) {
+                    log.warn("Failed to release segment {} of {}; it expires after the claim timeout",
+                            segment, processorName, ex);
+                }
+            }
+            tokens.clear();
+        }
+    }
+
+    /**
+     * Whether a segment's stored token is past the event. Gap-aware tokens are compared by index, since a gap the
+     * event's token has closed would otherwise make {@link TrackingToken#covers} fail for an event already handled.
+     */
+    private static boolean covers(TrackingToken segmentToken, TrackingToken eventToken) {
+        TrackingToken handled = WrappedToken.unwrapLowerBound(segmentToken);
+        if (handled == null) {
+            return false;
+        }
+        if (handled instanceof GapAwareTrackingToken gapAware && eventToken instanceof GapAwareTrackingToken event) {
+            return event.getIndex() <= gapAware.getIndex() && !gapAware.getGaps().contains(event.getIndex());
+        }
+        return handled.covers(eventToken);
+    }
+
+    private void updatePhase(String phase, long processed, long startNanos) {
+        status = new ProjectionRebuildStatus(ProjectionRebuildStatus.State.RUNNING, phase, processed,
+                eventsPerSecond(processed, startNanos), status.startedAt(), null, null);
+    }
+
+    private double eventsPerSecond(long processed, long startNanos) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        if (elapsedNanos <= 0) {
+            return 0d;
+        }
+        return processed * 1_000_000_000d / elapsedNanos;
+    }
+}
@@ -0,0 +1,28 @@
+package ir.ipaam.kycservices.infrastructure.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of the most recent projection rebuild, exposed to operators while it runs and after it finishes.
+ */
+public record ProjectionRebuildStatus(
+        State state,
+        String phase,
+        long eventsProcessed,
+        double eventsPerSecond,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        String error
+) {
+
+    public static ProjectionRebuildStatus idle() {
+        return new ProjectionRebuildStatus(State.IDLE, null, 0, 0d, null, null, null);
+    }
+
+    public enum State {
+        IDLE,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,487 @@
+package ir.ipaam.kycservices.infrastructure.projection;
+
+import ir.ipaam.kycservices.domain.event.AddressAndZipCodeCollectedEvent;
+import ir.ipaam.kycservices.domain.event.BookletPagesUploadedEvent;
+import ir.ipaam.kycservices.domain.event.CardDocumentsUploadedEvent;
+import ir.ipaam.kycservices.domain.event.ConsentAcceptedEvent;
+import ir.ipaam.kycservices.domain.event.EnglishPersonalInfoProvidedEvent;
+import ir.ipaam.kycservices.domain.event.KycProcessStartedEvent;
+import ir.ipaam.kycservices.domain.event.KycStatusUpdatedEvent;
+import ir.ipaam.kycservices.domain.event.RecordTrackingNumberEvent;
+import ir.ipaam.kycservices.domain.event.SelfieUploadedEvent;
+import ir.ipaam.kycservices.domain.event.SignatureUploadedEvent;
+import ir.ipaam.kycservices.domain.event.VideoUploadedEvent;
+import ir.ipaam.kycservices.domain.model.entity.StepStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Rebuilds the KYC read tables into {@code *_shadow} copies with JDBC batch inserts, mirroring the state changes of
+ * {@link ir.ipaam.kycservices.infrastructure.handler.KycProcessEventHandler} without any storage side effects.
+ * <p>
+ * Customers and documents carry data that is not part of the event stream (OCR fields, storage path, hash and IV),
+ * so they are copied from the live tables and only the event-derived columns are re-applied. Process instances keep
+ * their live ids so the copied documents still point at the right rows. One instance is used per rebuild.
+ */
+class ShadowProjectionBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(ShadowProjectionBuilder.class);
+
+    static final String SHADOW_SUFFIX = "_shadow";
+    static final String RETIRED_SUFFIX = "_retired";
+
+    static final String CUSTOMER_TABLE = "kyc_customer";
+    static final String PROCESS_TABLE = "kyc_process_instance";
+    static final String STEP_TABLE = "kyc_step_status";
+    static final String DOCUMENT_TABLE = "kyc_document";
+    static final String ADDRESS_TABLE = "kyc_address";
+    static final String CONSENT_TABLE = "kyc_consent";
+
+    /**
+     * Parent tables first, so foreign keys can be recreated in order.
+     */
+    static final List<String> TABLES = List.of(
+            CUSTOMER_TABLE, PROCESS_TABLE, STEP_TABLE, DOCUMENT_TABLE, ADDRESS_TABLE, CONSENT_TABLE);
+
+    private static final String STATUS_PROCESS_CANCELLED = "PROCESS_CANCELLED";
+    private static final String STATUS_PROCESS_COMPLETED = "COMPLETED";
+
+    /**
+     * Must match the {@code allocationSize} of the entity sequence generators.
+     */
+    private static final int SEQUENCE_ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    private final Map<String, Long> customerIdsByNationalCode = new HashMap<>();
+    private final Map<String, Long> liveProcessIds = new HashMap<>();
+    private final Map<String, ProcessRow> processes = new LinkedHashMap<>();
+    private final Map<Long, CustomerUpdate> customerUpdates = new LinkedHashMap<>();
+    private final List<Object[]> newCustomers = new ArrayList<>();
+    private final List<Object[]> pendingSteps = new ArrayList<>();
+    private final List<Object[]> pendingAddresses = new ArrayList<>();
+    private final List<Object[]> pendingConsents = new ArrayList<>();
+
+    private final IdBlock customerIds;
+    private final IdBlock processIds;
+    private final IdBlock stepIds;
+    private final IdBlock addressIds;
+    private final IdBlock consentIds;
+
+    ShadowProjectionBuilder(JdbcTemplate jdbcTemplate, int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.customerIds = new IdBlock("customer_seq");
+        this.processIds = new IdBlock("process_instance_seq");
+        this.stepIds = new IdBlock("step_status_seq");
+        this.addressIds = new IdBlock("address_seq");
+        this.consentIds = new IdBlock("consent_seq");
+    }
+
+    void prepare() {
+        assertNotReferencedFromOutside("");
+        dropShadowTables();
+        for (String table : TABLES) {
+            jdbcTemplate.execute("CREATE TABLE " + table + SHADOW_SUFFIX + " (LIKE " + table + " INCLUDING ALL)");
+        }
+        jdbcTemplate.execute("INSERT INTO " + CUSTOMER_TABLE + SHADOW_SUFFIX + " SELECT * FROM " + CUSTOMER_TABLE);
+        jdbcTemplate.query("SELECT id, national_code FROM " + CUSTOMER_TABLE + SHADOW_SUFFIX,
+                rs -> {
+                    customerIdsByNationalCode.put(rs.getString("national_code"), rs.getLong("id"));
+                });
+        jdbcTemplate.query("SELECT id, camunda_instance_id FROM " + PROCESS_TABLE,
+                rs -> {
+                    String camundaInstanceId = rs.getString("camunda_instance_id");
+                    if (camundaInstanceId != null) {
+                        liveProcessIds.putIfAbsent(camundaInstanceId, rs.getLong("id"));
+                    }
+                });
+    }
+
+    void apply(Object payload) {
+        if (payload instanceof KycProcessStartedEvent event) {
+            onStarted(event);
+        } else if (payload instanceof KycStatusUpdatedEvent event) {
+            onStatusUpdated(event);
+        } else if (payload instanceof CardDocumentsUploadedEvent event) {
+            recordSuccessfulStep(event.getProcessInstanceId(), "CARD_DOCUMENTS_UPLOADED", event.getUploadedAt());
+        } else if (payload instanceof BookletPagesUploadedEvent event) {
+            if (event.pageDescriptors() != null && !event.pageDescriptors().isEmpty()) {
+                recordSuccessfulStep(event.processInstanceId(), "BOOKLET_PAGES_UPLOADED", event.uploadedAt());
+            }
+        } else if (payload instanceof SelfieUploadedEvent event) {
+            recordSuccessfulStep(event.getProcessInstanceId(), "SELFIE_UPLOADED", event.getUploadedAt());
+        } else if (payload instanceof SignatureUploadedEvent event) {
+            recordSuccessfulStep(event.getProcessInstanceId(), "SIGNATURE_UPLOADED", event.getUploadedAt());
+        } else if (payload instanceof VideoUploadedEvent event) {
+            recordSuccessfulStep(event.getProcessInstanceId(), "VIDEO_UPLOADED", event.getUploadedAt());
+        } else if (payload instanceof RecordTrackingNumberEvent event) {
+            onTrackingNumberRecorded(event);
+        } else if (payload instanceof ConsentAcceptedEvent event) {
+            onConsentAccepted(event);
+        } else if (payload instanceof AddressAndZipCodeCollectedEvent event) {
+            onAddressCollected(event);
+        } else if (payload instanceof EnglishPersonalInfoProvidedEvent event) {
+            onEnglishInfoProvided(event);
+        }
+        flushChildRows(false);
+    }
+
+    /**
+     * Writes the remaining rows, copies the documents and recreates the foreign keys between the shadow tables.
+     */
+    void complete() {
+        if (!newCustomers.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + CUSTOMER_TABLE + SHADOW_SUFFIX + " (id, national_code) VALUES (?, ?)",
+                    newCustomers, batchSize, (ps, row) -> {
+                        ps.setLong(1, (Long) row[0]);
+                        ps.setString(2, (String) row[1]);
+                    });
+        }
+        jdbcTemplate.batchUpdate("UPDATE " + CUSTOMER_TABLE + SHADOW_SUFFIX
+                        + " SET first_name_en = ?, last_name_en = ?, email = ?, mobile = ? WHERE id = ?",
+                customerUpdates.entrySet().stream().filter(entry -> entry.getValue().englishInfoProvided).toList(),
+                batchSize, (ps, entry) -> {
+                    CustomerUpdate update = entry.getValue();
+                    ps.setString(1, update.firstNameEn);
+                    ps.setString(2, update.lastNameEn);
+                    ps.setString(3, update.email);
+                    ps.setString(4, update.mobile);
+                    ps.setLong(5, entry.getKey());
+                });
+        jdbcTemplate.batchUpdate("UPDATE " + CUSTOMER_TABLE + SHADOW_SUFFIX
+                        + " SET national_card_tracking_number = ? WHERE id = ?",
+                customerUpdates.entrySet().stream().filter(entry -> entry.getValue().trackingNumberRecorded).toList(),
+                batchSize, (ps, entry) -> {
+                    ps.setString(1, entry.getValue().trackingNumber);
+                    ps.setLong(2, entry.getKey());
+                });
+
+        jdbcTemplate.batchUpdate("INSERT INTO " + PROCESS_TABLE + SHADOW_SUFFIX
+                        + " (id, camunda_instance_id, status, started_at, completed_at, customer_id) VALUES (?, ?, ?, ?, ?, ?)",
+                List.copyOf(processes.values()), batchSize, (ps, process) -> {
+                    ps.setLong(1, process.id);
+                    ps.setString(2, process.camundaInstanceId);
+                    ps.setString(3, process.status);
+                    ps.setObject(4, process.startedAt);
+                    ps.setObject(5, process.completedAt);
+                    ps.setObject(6, process.customerId);
+                });
+
+        flushChildRows(true);
+
+        jdbcTemplate.execute("INSERT INTO " + DOCUMENT_TABLE + SHADOW_SUFFIX + " SELECT * FROM " + DOCUMENT_TABLE
+                + " WHERE process_id IS NULL OR process_id IN (SELECT id FROM " + PROCESS_TABLE + SHADOW_SUFFIX + ")");
+
+        addForeignKey(PROCESS_TABLE, "customer_id", CUSTOMER_TABLE);
+        addForeignKey(STEP_TABLE, "process_id", PROCESS_TABLE);
+        addForeignKey(DOCUMENT_TABLE, "process_id", PROCESS_TABLE);
+        addForeignKey(ADDRESS_TABLE, "process_id", PROCESS_TABLE);
+        addForeignKey(CONSENT_TABLE, "process_id", PROCESS_TABLE);
+    }
+
+    /**
+     * Retires the live tables and promotes the shadow copies. Must run inside a single transaction.
+     * <p>
+     * The retired tables are dropped without {@code CASCADE}: a foreign key another table holds on one of them would
+     * otherwise be dropped silently, and nothing recreates it. Such a key fails the swap instead, rolling it back.
+     */
+    void swap() {
+        Map<String, String> indexNames = new LinkedHashMap<>();
+        for (String table : TABLES) {
+            indexNames.putAll(matchIndexNames(table));
+        }
+        for (String table : TABLES) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " RENAME TO " + table + RETIRED_SUFFIX);
+            jdbcTemplate.execute("ALTER TABLE " + table + SHADOW_SUFFIX + " RENAME TO " + table);
+        }
+        assertNotReferencedFromOutside(RETIRED_SUFFIX);
+        for (String table : TABLES.reversed()) {
+            jdbcTemplate.execute("DROP TABLE " + table + RETIRED_SUFFIX);
+        }
+        indexNames.forEach((shadowName, liveName) ->
+                jdbcTemplate.execute("ALTER INDEX \"" + shadowName + "\" RENAME TO \"" + liveName + "\""));
+    }
+
+    void dropShadowTables() {
+        for (String table : TABLES.reversed()) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + table + SHADOW_SUFFIX);
+        }
+    }
+
+    private void onStarted(KycProcessStartedEvent event) {
+        Long customerId = customerIdsByNationalCode.get(event.getNationalCode());
+        if (customerId == null) {
+            customerId = customerIds.next();
+            customerIdsByNationalCode.put(event.getNationalCode(), customerId);
+            newCustomers.add(new Object[]{customerId, event.getNationalCode()});
+        }
+
+        ProcessRow process = new ProcessRow();
+        Long liveId = liveProcessIds.remove(event.getProcessInstanceId());
+        process.id = liveId != null ? liveId : processIds.next();
+        process.camundaInstanceId = event.getProcessInstanceId();
+        process.status = "STARTED";
+        process.startedAt = Optional.ofNullable(event.getStartedAt()).orElseGet(LocalDateTime::now);
+        process.customerId = customerId;
+        processes.putIfAbsent(event.getProcessInstanceId(), process);
+    }
+
+    private void onStatusUpdated(KycStatusUpdatedEvent event) {
+        ProcessRow process = processes.get(event.getProcessInstanceId());
+        if (process == null) {
+            return;
+        }
+        process.status = event.getStatus();
+
+        StepStatus.State state = null;
+        String errorCause = null;
+        if (event.getState() != null) {
+            state = StepStatus.State.valueOf(event.getState().toUpperCase(Locale.ROOT));
+            if (state == StepStatus.State.FAILED) {
+                errorCause = event.getStatus();
+            }
+            if (state == StepStatus.State.CANCELLED) {
+                process.completedAt = event.getUpdatedAt();
+            }
+        }
+        if (STATUS_PROCESS_CANCELLED.equalsIgnoreCase(event.getStatus())
+                || STATUS_PROCESS_COMPLETED.equalsIgnoreCase(event.getStatus())) {
+            process.completedAt = event.getUpdatedAt();
+        }
+        appendStep(process, event.getStepName(), event.getUpdatedAt(), state, errorCause);
+    }
+
+    private void onTrackingNumberRecorded(RecordTrackingNumberEvent event) {
+        ProcessRow process = recordSuccessfulStep(
+                event.getProcessInstanceId(), "RECORD_NATIONAL_CARD_TRACKING_NUMBER", event.getDate());
+        if (process == null || process.customerId == null) {
+            return;
+        }
+        CustomerUpdate update = customerUpdates.computeIfAbsent(process.customerId, id -> new CustomerUpdate());
+        update.trackingNumber = event.getTrackingNumber();
+        update.trackingNumberRecorded = true;
+    }
+
+    private void onConsentAccepted(ConsentAcceptedEvent event) {
+        ProcessRow process = processes.get(event.getProcessInstanceId());
+        if (process != null) {
+            process.status = "CONSENT_ACCEPTED";
+            pendingConsents.add(new Object[]{
+                    consentIds.next(), process.id, event.isAccepted(), event.getAcceptedAt(), event.getTermsVersion()});
+        }
+        recordSuccessfulStep(event.getProcessInstanceId(), "CONSENT_ACCEPTED", event.getAcceptedAt());
+    }
+
+    private void onAddressCollected(AddressAndZipCodeCollectedEvent event) {
+        ProcessRow process = processes.get(event.getProcessInstanceId());
+        if (process == null) {
+            return;
+        }
+        pendingAddresses.add(new Object[]{
+                addressIds.next(), process.id, event.getAddress(), event.getPostalCode(), false});
+        recordSuccessfulStep(event.getProcessInstanceId(), "ADDRESS_AND_ZIPCODE_COLLECTED", event.getCollectedAt());
+    }
+
+    private void onEnglishInfoProvided(EnglishPersonalInfoProvidedEvent event) {
+        ProcessRow process = processes.get(event.getProcessInstanceId());
+        Long customerId = process != null && process.customerId != null
+                ? process.customerId
+                : customerIdsByNationalCode.get(event.getNationalCode());
+        if (customerId == null) {
+            customerId = customerIds.next();
+            customerIdsByNationalCode.put(event.getNationalCode(), customerId);
+            newCustomers.add(new Object[]{customerId, event.getNationalCode()});
+        }
+        CustomerUpdate update = customerUpdates.computeIfAbsent(customerId, id -> new CustomerUpdate());
+        update.firstNameEn = event.getFirstNameEn();
+        update.lastNameEn = event.getLastNameEn();
+        update.email = event.getEmail();
+        update.mobile = event.getTelephone();
+        update.englishInfoProvided = true;
+
+        if (process == null) {
+            return;
+        }
+        if (process.customerId == null) {
+            process.customerId = customerId;
+        }
+        recordSuccessfulStep(event.getProcessInstanceId(), "ENGLISH_PERSONAL_INFO_PROVIDED", event.getProvidedAt());
+        process.status = STATUS_PROCESS_COMPLETED;
+        process.completedAt = event.getProvidedAt();
+        if (process.stepNames.add(STATUS_PROCESS_COMPLETED)) {
+            pendingSteps.add(new Object[]{stepIds.next(), STATUS_PROCESS_COMPLETED,
+                    StepStatus.State.PASSED.name(), event.getProvidedAt(), null, process.id});
+        }
+    }
+
+    private ProcessRow recordSuccessfulStep(String processInstanceId, String status, LocalDateTime timestamp) {
+        ProcessRow process = processes.get(processInstanceId);
+        if (process == null) {
+            return null;
+        }
+        process.status = status;
+        appendStep(process, status, timestamp, StepStatus.State.PASSED, null);
+        return process;
+    }
+
+    private void appendStep(ProcessRow process, String stepName, LocalDateTime timestamp,
+                            StepStatus.State state, String errorCause) {
+        if (stepName != null) {
+            // Upper-cased like the case-insensitive lookup of the live handler.
+            process.stepNames.add(stepName.toUpperCase(Locale.ROOT));
+        }
+        pendingSteps.add(new Object[]{
+                stepIds.next(), stepName, state != null ? state.name() : null, timestamp, errorCause, process.id});
+    }
+
+    /**
+     * Child rows reference process ids that are only inserted in {@link #complete()}, so the shadow tables carry no
+     * foreign keys until then and child rows can be flushed in batches as they accumulate.
+     */
+    private void flushChildRows(boolean force) {
+        if (force || pendingSteps.size() >= batchSize) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + STEP_TABLE + SHADOW_SUFFIX
+                            + " (id, step_name, state, timestamp, error_cause, process_id) VALUES (?, ?, ?, ?, ?, ?)",
+                    pendingSteps, batchSize, (ps, row) -> {
+                        for (int i = 0; i < row.length; i++) {
+                            ps.setObject(i + 1, row[i]);
+                        }
+                    });
+            pendingSteps.clear();
+        }
+        if (force || pendingAddresses.size() >= batchSize) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + ADDRESS_TABLE + SHADOW_SUFFIX
+                            + " (id, process_id, address, zip_code, zip_valid) VALUES (?, ?, ?, ?, ?)",
+                    pendingAddresses, batchSize, (ps, row) -> {
+                        for (int i = 0; i < row.length; i++) {
+                            ps.setObject(i + 1, row[i]);
+                        }
+                    });
+            pendingAddresses.clear();
+        }
+        if (force || pendingConsents.size() >= batchSize) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + CONSENT_TABLE + SHADOW_SUFFIX
+                            + " (id, process_id, accepted, accepted_at, terms_version) VALUES (?, ?, ?, ?, ?)",
+                    pendingConsents, batchSize, (ps, row) -> {
+                        for (int i = 0; i < row.length; i++) {
+                            ps.setObject(i + 1, row[i]);
+                        }
+                    });
+            pendingConsents.clear();
+        }
+    }
+
+    /**
+     * {@code LIKE ... INCLUDING ALL} gives the copied indexes generated names. Pairs every shadow index with the live
+     * index of the same definition, so the names created by the Flyway migrations survive a rebuild.
+     */
+    private Map<String, String> matchIndexNames(String table) {
+        String sql = "SELECT indexname, indexdef LIKE 'CREATE UNIQUE %' AS is_unique, "
+                + "substring(indexdef from ' USING .*$') AS definition "
+                + "FROM pg_indexes WHERE schemaname = current_schema() AND tablename = ?";
+        Map<String, String> liveNames = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            liveNames.putIfAbsent(rs.getBoolean("is_unique") + rs.getString("definition"), rs.getString("indexname"));
+        }, table);
+        Map<String, String> renames = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            String liveName = liveNames.remove(rs.getBoolean("is_unique") + rs.getString("definition"));
+            if (liveName != null && !liveName.equals(rs.getString("indexname"))) {
+                renames.put(rs.getString("indexname"), liveName);
+            }
+        }, table + SHADOW_SUFFIX);
+        return renames;
+    }
+
+    /**
+     * Fails when a table outside the rebuilt set holds a foreign key on one of the {@code table + suffix} tables. The
+     * rebuild only recreates the keys between its own tables.
+     */
+    private void assertNotReferencedFromOutside(String suffix) {
+        String tables = TABLES.stream().map(table -> "'" + table + suffix + "'").collect(Collectors.joining(", "));
+        List<String> references = jdbcTemplate.queryForList(
+                "SELECT c.conname || ' on ' || referencing.relname || ' -> ' || referenced.relname "
+                        + "FROM pg_constraint c "
+                        + "JOIN pg_class referenced ON referenced.oid = c.confrelid "
+                        + "JOIN pg_class referencing ON referencing.oid = c.conrelid "
+                        + "WHERE c.contype = 'f' "
+                        + "AND referenced.relnamespace = current_schema()::regnamespace "
+                        + "AND referenced.relname IN (" + tables + ") "
+                        + "AND NOT (referencing.relnamespace = referenced.relnamespace "
+                        + "AND referencing.relname IN (" + tables + "))",
+                String.class);
+        if (!references.isEmpty()) {
+            throw new IllegalStateException("Tables outside the projection rebuild reference the read tables: "
+                    + String.join(", ", references) + ". Move these foreign keys before rebuilding.");
+        }
+    }
+
+    private void addForeignKey(String table, String column, String referencedTable) {
+        jdbcTemplate.execute("ALTER TABLE " + table + SHADOW_SUFFIX
+                + " ADD CONSTRAINT fk_" + table + "_" + column
+                + " FOREIGN KEY (" + column + ") REFERENCES " + referencedTable + SHADOW_SUFFIX + " (id)");
+    }
+
+    private static final class ProcessRow {
+        private long id;
+        private String camundaInstanceId;
+        private String status;
+        private LocalDateTime startedAt;
+        private LocalDateTime completedAt;
+        private Long customerId;
+        private final Set<String> stepNames = new HashSet<>();
+    }
+
+    private static final class CustomerUpdate {
+        private String firstNameEn;
+        private String lastNameEn;
+        private String email;
+        private String mobile;
+        private boolean englishInfoProvided;
+        private String trackingNumber;
+        private boolean trackingNumberRecorded;
+    }
+
+    /**
+     * Hands out ids from the same pooled sequences Hibernate uses, one block of {@link #SEQUENCE_ALLOCATION_SIZE}
+     * per {@code nextval}, so rebuilt rows never collide with ids allocated by the live application.
+     */
+    private final class IdBlock {
+
+        private final String sequence;
+        private long next;
+        private long last = -1;
+
+        private IdBlock(String sequence) {
+            this.sequence = sequence;
+        }
+
+        private long next() {
+            if (next > last) {
+                Long hi = jdbcTemplate.queryForObject("SELECT nextval('" + sequence + "')", Long.class);
+                if (hi == null) {
+                    throw new IllegalStateException("Sequence " + sequence + " returned no value");
+                }
+                last = hi;
+                next = Math.max(1, hi - SEQUENCE_ALLOCATION_SIZE + 1);
+                log.debug("Allocated id block [{}, {}] from {}", next, last, sequence);
+            }
+            return next++;
+        }
+    }
+}
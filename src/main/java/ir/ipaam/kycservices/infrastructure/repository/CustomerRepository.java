@@ -2,7 +2,12 @@ package ir.ipaam.kycservices.infrastructure.repository;
 
 import ir.ipaam.kycservices.domain.model.entity.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -17,5 +22,29 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
      * @return optional customer
      */
     Optional<Customer> findByNationalCode(String nationalCode);
-}
 
+    /**
+     * Reads the version of the projected KYC status of a customer. The column is not mapped on {@link Customer}, so
+     * entity flushes never write an old value back.
+     *
+     * @param nationalCode national identification code of the customer
+     * @return the version, empty when there is no such customer
+     */
+    @Query(value = "SELECT status_version FROM kyc_customer WHERE national_code = :nationalCode", nativeQuery = true)
+    Optional<Long> findStatusVersion(@Param("nationalCode") String nationalCode);
+
+    /**
+     * Moves the status version of the given customers to new values of {@code kyc_status_version_seq}, in the
+     * surrounding transaction if there is one. Pending entity changes are flushed first, so customers inserted by the
+     * same transaction are updated too.
+     *
+     * @param nationalCodes national identification codes of the customers
+     * @return the number of rows updated
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE kyc_customer SET status_version = nextval('kyc_status_version_seq') "
+            + "WHERE national_code IN (:nationalCodes)",
+            nativeQuery = true)
+    int bumpStatusVersions(@Param("nationalCodes") Collection<String> nationalCodes);
+}
@@ -0,0 +1,71 @@
+package ir.ipaam.kycservices.infrastructure.repository;
+
+import ir.ipaam.kycservices.domain.model.entity.DocumentCatalogEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository for the {@link DocumentCatalogEntry} projection.
+ */
+@Repository
+public interface DocumentCatalogRepository extends JpaRepository<DocumentCatalogEntry, DocumentCatalogEntry.Key> {
+
+    /**
+     * Points the catalog entry of {@code (nationalCode, type)} at the given document unless it already references a
+     * newer one, so events handled out of id order never move the entry backwards.
+     *
+     * @return the number of rows inserted or updated
+     */
+    @Modifying
+    @Query(value = "INSERT INTO kyc_document_catalog (national_code, type, document_id, storage_path, hash, "
+            + "encrypted, encryption_iv, size, updated_at) "
+            + "VALUES (:nationalCode, :type, :documentId, :storagePath, :hash, :encrypted, :encryptionIv, :size, "
+            + ":updatedAt) "
+            + "ON CONFLICT (national_code, type) DO UPDATE SET document_id = EXCLUDED.document_id, "
+            + "storage_path = EXCLUDED.storage_path, hash = EXCLUDED.hash, encrypted = EXCLUDED.encrypted, "
+            + "encryption_iv = EXCLUDED.encryption_iv, size = EXCLUDED.size, updated_at = EXCLUDED.updated_at "
+            + "WHERE kyc_document_catalog.document_id IS NULL "
+            + "OR kyc_document_catalog.document_id < EXCLUDED.document_id",
+            nativeQuery = true)
+    int upsertLatest(@Param("nationalCode") String nationalCode,
+                     @Param("type") String type,
+                     @Param("documentId") Long documentId,
+                     @Param("storagePath") String storagePath,
+                     @Param("hash") String hash,
+                     @Param("encrypted") boolean encrypted,
+                     @Param("encryptionIv") String encryptionIv,
+                     @Param("size") Long size,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Removes entries whose document no longer exists, e.g. after a projection rebuild dropped its process.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM kyc_document_catalog c "
+            + "WHERE NOT EXISTS (SELECT 1 FROM kyc_document d WHERE d.id = c.document_id)",
+            nativeQuery = true)
+    int deleteOrphans();
+
+    /**
+     * Adds an entry for every customer and type that has verified documents but no catalog entry yet. Sizes are
+     * unknown for documents stored before the catalog existed.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO kyc_document_catalog (national_code, type, document_id, storage_path, hash, "
+            + "encrypted, encryption_iv, size, updated_at) "
+            + "SELECT DISTINCT ON (c.national_code, d.type) c.national_code, d.type, d.id, d.storage_path, d.hash, "
+            + "d.encrypted, d.encryption_iv, NULL, now() "
+            + "FROM kyc_document d "
+            + "JOIN kyc_process_instance p ON p.id = d.process_id "
+            + "JOIN kyc_customer c ON c.id = p.customer_id "
+            + "WHERE d.verified AND d.type IS NOT NULL "
+            + "ORDER BY c.national_code, d.type, d.id DESC "
+            + "ON CONFLICT (national_code, type) DO NOTHING",
+            nativeQuery = true)
+    int insertMissing();
+}
@@ -11,11 +11,12 @@ import org.springframework.stereotype.Repository;
 public interface KycStepStatusRepository extends JpaRepository<StepStatus, Long> {
 
     /**
-     * Checks whether the given process has already recorded the supplied step name.
+     * Checks whether the given process has already recorded the supplied step name, ignoring case, since statuses
+     * reported by the workflow are stored as sent.
      *
      * @param camundaInstanceId the process identifier
      * @param stepName          the workflow step to check
      * @return {@code true} when a matching step record exists
      */
-    boolean existsByProcess_CamundaInstanceIdAndStepName(String camundaInstanceId, String stepName);
+    boolean existsByProcess_CamundaInstanceIdAndStepNameIgnoreCase(String camundaInstanceId, String stepName);
 }
@@ -0,0 +1,200 @@
+package ir.ipaam.kycservices.infrastructure.resilience;
+
+import com.netflix.concurrency.limits.Limit;
+import com.netflix.concurrency.limits.Limiter;
+import com.netflix.concurrency.limits.limit.Gradient2Limit;
+import com.netflix.concurrency.limits.limit.VegasLimit;
+import com.netflix.concurrency.limits.limit.WindowedLimit;
+import com.netflix.concurrency.limits.limiter.SimpleLimiter;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Adaptive concurrency limit of one ESB endpoint. The limit itself is a windowed {@link VegasLimit} or
+ * {@link Gradient2Limit}: it grows while the latency samples stay flat and shrinks as soon as they show requests queueing
+ * up at the ESB or calls are dropped. Calls over the limit wait, without holding a thread, in a bounded FIFO queue and
+ * are granted a slot as soon as one is released; calls that find the queue full or wait longer than {@code maxWait}
+ * fail with {@link RejectedExecutionException}.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    private final String endpoint;
+    private final SimpleLimiter<Void> limiter;
+    private final int queueSize;
+    private final Duration maxWait;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    AdaptiveConcurrencyLimiter(String endpoint, EsbResilienceProperties.ConcurrencyLimit settings) {
+        this.endpoint = endpoint;
+        this.limiter = SimpleLimiter.newBuilder()
+                .named(endpoint)
+                .limit(WindowedLimit.newBuilder().build(limitOf(settings)))
+                .build();
+        this.queueSize = settings.getQueueSize();
+        this.maxWait = settings.getMaxWait();
+    }
+
+    private static Limit limitOf(EsbResilienceProperties.ConcurrencyLimit settings) {
+        return switch (settings.getAlgorithm()) {
+            case VEGAS -> VegasLimit.newBuilder()
+                    .initialLimit(settings.getInitialLimit())
+                    .maxConcurrency(settings.getMaxLimit())
+                    .build();
+            case GRADIENT2 -> Gradient2Limit.newBuilder()
+                    .initialLimit(settings.getInitialLimit())
+                    .minLimit(settings.getMinLimit())
+                    .maxConcurrency(settings.getMaxLimit())
+                    .build();
+        };
+    }
+
+    /**
+     * @return a slot, emitted once the call may go ahead; exactly one of its outcome methods has to be called when the
+     * call ends, which frees the slot and feeds the latency of the call into the limit
+     */
+    Mono<Limiter.Listener> acquire() {
+        return Mono.defer(() -> {
+            Waiter waiter;
+            synchronized (this) {
+                if (waiters.isEmpty()) {
+                    Optional<Limiter.Listener> listener = limiter.acquire(null);
+                    if (listener.isPresent()) {
+                        return Mono.just(new Slot(listener.get()));
+                    }
+                }
+                if (waiters.size() >= queueSize) {
+                    return Mono.error(rejection("queue of " + queueSize + " calls is full"));
+                }
+                waiter = new Waiter();
+                waiters.addLast(waiter);
+            }
+            // The limit may have grown since the calls ahead of this one were queued.
+            grantToWaiters();
+            return waiter.slot.asMono()
+                    .timeout(maxWait)
+                    .onErrorMap(TimeoutException.class, timeout -> {
+                        abandon(waiter);
+                        return rejection("no slot freed up within " + maxWait);
+                    })
+                    .doOnCancel(() -> abandon(waiter));
+        });
+    }
+
+    int limit() {
+        return limiter.getLimit();
+    }
+
+    int inflight() {
+        return limiter.getInflight();
+    }
+
+    synchronized int queued() {
+        return waiters.size();
+    }
+
+    private RejectedExecutionException rejection(String reason) {
+        return new RejectedExecutionException("Concurrency limit " + limiter.getLimit() + " of ESB endpoint "
+                + endpoint + " reached, " + reason);
+    }
+
+    private void abandon(Waiter waiter) {
+        synchronized (this) {
+            waiters.remove(waiter);
+        }
+        waiter.abandon();
+    }
+
+    /**
+     * Hands the slots freed up since the last release to the longest waiting calls. The calls resume outside the lock,
+     * on the thread that released the slot.
+     */
+    private void grantToWaiters() {
+        List<Waiter> granted = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        synchronized (this) {
+            while (!waiters.isEmpty()) {
+                Optional<Limiter.Listener> listener = limiter.acquire(null);
+                if (listener.isEmpty()) {
+                    break;
+                }
+                granted.add(waiters.pollFirst());
+                slots.add(new Slot(listener.get()));
+            }
+        }
+        for (int i = 0; i < granted.size(); i++) {
+            granted.get(i).grant(slots.get(i));
+        }
+    }
+
+    private static class Waiter {
+
+        private final Sinks.One<Limiter.Listener> slot = Sinks.one();
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private volatile Slot granted;
+
+        private void grant(Slot granted) {
+            this.granted = granted;
+            if (settled.compareAndSet(false, true)) {
+                slot.tryEmitValue(granted);
+            } else {
+                granted.onIgnore();
+            }
+        }
+
+        /**
+         * Gives back a slot granted just as the wait timed out or was cancelled.
+         */
+        private void abandon() {
+            if (!settled.compareAndSet(false, true) && granted != null) {
+                granted.onIgnore();
+            }
+        }
+    }
+
+    /**
+     * A granted slot: the first outcome reported wins, and freeing the slot lets the next waiter in.
+     */
+    private class Slot implements Limiter.Listener {
+
+        private final Limiter.Listener listener;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Slot(Limiter.Listener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSuccess() {
+            if (released.compareAndSet(false, true)) {
+                listener.onSuccess();
+                grantToWaiters();
+            }
+        }
+
+        @Override
+        public void onIgnore() {
+            if (released.compareAndSet(false, true)) {
+                listener.onIgnore();
+                grantToWaiters();
+            }
+        }
+
+        @Override
+        public void onDropped() {
+            if (released.compareAndSet(false, true)) {
+                listener.onDropped();
+                grantToWaiters();
+            }
+        }
+    }
+}
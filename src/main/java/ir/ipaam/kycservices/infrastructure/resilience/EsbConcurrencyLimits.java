@@ -0,0 +1,100 @@
+package ir.ipaam.kycservices.infrastructure.resilience;
+
+import com.netflix.concurrency.limits.Limiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import ir.ipaam.kycservices.application.api.error.EsbUnavailableException;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Adaptive concurrency limits of the ESB endpoints, applied as a WebClient filter. A request names its endpoint in the
+ * {@value #ENDPOINT_ATTRIBUTE} attribute and is held back until the {@link AdaptiveConcurrencyLimiter} of that
+ * endpoint grants it a slot; requests without the attribute, or of an endpoint whose limit is disabled under
+ * {@code kyc.esb.resilience.endpoints.<endpoint>.concurrency-limit}, pass straight through.
+ * <p>
+ * The time to the response headers is the latency sample. Overload answers (429, 503), connection failures and
+ * exchanges cancelled by the time limiter count as drops and shrink the limit; other answers, 4xx included, are
+ * successful samples. Shed requests fail with {@link EsbUnavailableException}.
+ */
+@Slf4j
+@Component
+public class EsbConcurrencyLimits {
+
+    public static final String ENDPOINT_ATTRIBUTE = EsbConcurrencyLimits.class.getName() + ".endpoint";
+
+    private final EsbResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Optional<AdaptiveConcurrencyLimiter>> limiters = new ConcurrentHashMap<>();
+
+    public EsbConcurrencyLimits(EsbResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public ExchangeFilterFunction filter() {
+        return (request, next) -> request.attribute(ENDPOINT_ATTRIBUTE)
+                .map(String.class::cast)
+                .flatMap(endpoint -> limiters.computeIfAbsent(endpoint, this::createLimiter)
+                        .map(limiter -> limit(endpoint, limiter, request, next)))
+                .orElseGet(() -> next.exchange(request));
+    }
+
+    private Mono<ClientResponse> limit(String endpoint,
+                                       AdaptiveConcurrencyLimiter limiter,
+                                       ClientRequest request,
+                                       ExchangeFunction next) {
+        return limiter.acquire()
+                .onErrorMap(RejectedExecutionException.class, rejected -> {
+                    meterRegistry.counter(KycMetrics.ESB_CONCURRENCY_REJECTED, "type", endpoint).increment();
+                    log.warn("Shedding call to ESB endpoint {}: {}", endpoint, rejected.getMessage());
+                    return new EsbUnavailableException(endpoint, rejected);
+                })
+                .flatMap(slot -> next.exchange(request)
+                        .doOnNext(response -> release(slot, response.statusCode()))
+                        .doOnError(failure -> slot.onDropped())
+                        .doOnCancel(slot::onDropped)
+                        .doFinally(signal -> slot.onIgnore()));
+    }
+
+    private static void release(Limiter.Listener slot, HttpStatusCode status) {
+        if (status.value() == 429 || status.value() == 503) {
+            slot.onDropped();
+        } else {
+            slot.onSuccess();
+        }
+    }
+
+    private Optional<AdaptiveConcurrencyLimiter> createLimiter(String endpoint) {
+        EsbResilienceProperties.ConcurrencyLimit settings = properties.endpoint(endpoint).getConcurrencyLimit();
+        if (!settings.isEnabled()) {
+            return Optional.empty();
+        }
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(endpoint, settings);
+        Gauge.builder(KycMetrics.ESB_CONCURRENCY_LIMIT, limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Current adaptive concurrency limit of the ESB endpoint")
+                .tag("type", endpoint)
+                .register(meterRegistry);
+        Gauge.builder(KycMetrics.ESB_CONCURRENCY_INFLIGHT, limiter, AdaptiveConcurrencyLimiter::inflight)
+                .description("ESB calls holding a concurrency slot")
+                .tag("type", endpoint)
+                .register(meterRegistry);
+        Gauge.builder(KycMetrics.ESB_CONCURRENCY_QUEUED, limiter, AdaptiveConcurrencyLimiter::queued)
+                .description("ESB calls waiting for a concurrency slot")
+                .tag("type", endpoint)
+                .register(meterRegistry);
+        return Optional.of(limiter);
+    }
+}
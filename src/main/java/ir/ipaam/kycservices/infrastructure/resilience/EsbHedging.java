@@ -0,0 +1,203 @@
+package ir.ipaam.kycservices.infrastructure.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Hedged ESB requests, configured under {@code kyc.esb.resilience.endpoints.<endpoint>.hedging}. When a request has
+ * not answered within the configured percentile of the endpoint's recent latencies, a duplicate is sent and the first
+ * answer is used. Hedges are drawn from a {@link TokenBudget} per endpoint, so they add at most {@code ratio} to its
+ * traffic. A request only fails once the hedge has failed too.
+ * <p>
+ * The losing request is left to finish, bounded by the endpoint's {@code timeout}: the ESB keeps working on it
+ * either way, so it keeps its concurrency slot, and its latency shows how much the hedge saved. Apply the hedge inside
+ * {@link EsbResilience#protect(String)}, so that a call and its hedge share one bulkhead permit, time limit and
+ * circuit breaker outcome.
+ */
+@Slf4j
+@Component
+public class EsbHedging {
+
+    private final EsbResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Hedge> hedges = new ConcurrentHashMap<>();
+
+    public EsbHedging(EsbResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return an operator hedging a (cold, resubscribable) ESB call of {@code endpoint}, for use with
+     * {@link Mono#transform(Function)}; the call is left as it is when hedging is disabled for the endpoint
+     */
+    public <T> Function<Mono<T>, Mono<T>> hedge(String endpoint) {
+        EsbResilienceProperties.Endpoint settings = properties.endpoint(endpoint);
+        if (!settings.getHedging().isEnabled()) {
+            return call -> call;
+        }
+        Hedge hedge = hedges.computeIfAbsent(endpoint, name -> new Hedge(name, settings));
+        return call -> Mono.create(sink -> new Race<>(hedge, call, sink).start());
+    }
+
+    private class Hedge {
+
+        private final String endpoint;
+        private final EsbResilienceProperties.Hedging settings;
+        private final Duration attemptTimeout;
+        private final LatencyWindow latencies;
+        private final TokenBudget budget;
+        private final Counter calls;
+        private final Counter denied;
+        private final Timer saved;
+
+        private Hedge(String endpoint, EsbResilienceProperties.Endpoint endpointSettings) {
+            this.endpoint = endpoint;
+            this.settings = endpointSettings.getHedging();
+            this.attemptTimeout = endpointSettings.getTimeout();
+            this.latencies = new LatencyWindow(settings.getSampleWindow());
+            this.budget = new TokenBudget(settings.getRatio(), 0, settings.getMaxBalance());
+            this.calls = meterRegistry.counter(KycMetrics.ESB_HEDGE_CALLS, "type", endpoint);
+            this.denied = meterRegistry.counter(KycMetrics.ESB_HEDGE_DENIED, "type", endpoint);
+            this.saved = Timer.builder(KycMetrics.ESB_HEDGE_SAVED)
+                    .description("Latency a winning hedge saved over the request it duplicated")
+                    .tag("type", endpoint)
+                    .publishPercentiles(0.5, 0.95)
+                    .register(meterRegistry);
+            TimeGauge.builder(KycMetrics.ESB_HEDGE_DELAY, this, TimeUnit.NANOSECONDS, Hedge::delayNanos)
+                    .description("Current delay after which an ESB request is hedged")
+                    .tag("type", endpoint)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * @return the hedge delay in nanoseconds, or -1 while too few latencies are known to hedge at all
+         */
+        private long delayNanos() {
+            long percentile = latencies.percentile(settings.getPercentile(), settings.getMinSamples());
+            return percentile < 0 ? -1 : Math.max(percentile, settings.getMinDelay().toNanos());
+        }
+
+        private void sent(boolean won) {
+            meterRegistry.counter(KycMetrics.ESB_HEDGE_SENT, "type", endpoint, "outcome", won ? "won" : "lost")
+                    .increment();
+        }
+    }
+
+    /**
+     * One call: the first request, possibly its hedge, and the first answer among them.
+     */
+    private static class Race<T> {
+
+        private final Hedge hedge;
+        private final Mono<T> call;
+        private final MonoSink<T> sink;
+        private final long startedAt = System.nanoTime();
+        private final AtomicBoolean decided = new AtomicBoolean();
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final Disposable.Composite requests = Disposables.composite();
+        private volatile Disposable timer = Disposables.disposed();
+        private volatile boolean hedged;
+        private volatile long decidedAfter;
+
+        private Race(Hedge hedge, Mono<T> call, MonoSink<T> sink) {
+            this.hedge = hedge;
+            this.call = call;
+            this.sink = sink;
+        }
+
+        private void start() {
+            hedge.calls.increment();
+            hedge.budget.deposit();
+            sink.onCancel(() -> {
+                timer.dispose();
+                requests.dispose();
+            });
+            long delay = hedge.delayNanos();
+            if (delay >= 0) {
+                timer = Mono.delay(Duration.ofNanos(delay)).subscribe(tick -> sendHedge());
+            }
+            send(false);
+        }
+
+        private void sendHedge() {
+            pending.incrementAndGet();
+            if (decided.get()) {
+                pending.decrementAndGet();
+                return;
+            }
+            if (!hedge.budget.tryWithdraw()) {
+                pending.decrementAndGet();
+                hedge.denied.increment();
+                return;
+            }
+            hedged = true;
+            log.debug("Hedging ESB request to {} after {} ms", hedge.endpoint,
+                    Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+            send(true);
+        }
+
+        private void send(boolean isHedge) {
+            long sentAt = System.nanoTime();
+            requests.add(call.map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .timeout(hedge.attemptTimeout)
+                    .contextWrite(sink.contextView())
+                    .subscribe(answer -> answered(isHedge, sentAt, answer), failure -> failed(isHedge, failure)));
+        }
+
+        private void answered(boolean isHedge, long sentAt, Optional<T> answer) {
+            long now = System.nanoTime();
+            hedge.latencies.record(now - sentAt);
+            if (decide(now)) {
+                if (hedged) {
+                    hedge.sent(isHedge);
+                }
+                answer.ifPresentOrElse(sink::success, sink::success);
+            } else if (!isHedge) {
+                hedge.saved.record(now - startedAt - decidedAfter, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void failed(boolean isHedge, Throwable failure) {
+            long now = System.nanoTime();
+            if (pending.decrementAndGet() == 0 && decide(now)) {
+                if (hedged) {
+                    hedge.sent(false);
+                }
+                sink.error(failure);
+            } else if (!isHedge && decided.get() && failure instanceof TimeoutException) {
+                // The first request never answered: what was saved is at least the rest of its time limit.
+                hedge.saved.record(now - startedAt - decidedAfter, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private boolean decide(long now) {
+            if (!decided.compareAndSet(false, true)) {
+                return false;
+            }
+            decidedAfter = now - startedAt;
+            timer.dispose();
+            return true;
+        }
+    }
+}
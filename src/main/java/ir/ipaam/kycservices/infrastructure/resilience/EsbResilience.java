@@ -0,0 +1,203 @@
+package ir.ipaam.kycservices.infrastructure.resilience;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.core.IntervalFunction;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedRetryMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedTimeLimiterMetrics;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.github.resilience4j.reactor.retry.RetryOperator;
+import io.github.resilience4j.reactor.timelimiter.TimeLimiterOperator;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import ir.ipaam.kycservices.application.api.error.EsbUnavailableException;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Protects the ESB calls of every endpoint with, from the outside in, a retry, a circuit breaker, a time limiter and
+ * a semaphore bulkhead, configured under {@code kyc.esb.resilience.endpoints.<endpoint>}. Calls rejected by an open
+ * circuit or a full bulkhead fail fast with {@link EsbUnavailableException}; retries are additionally drawn from a
+ * {@link TokenBudget} shared by all endpoints.
+ * <p>
+ * State, call and retry metrics of each endpoint are published under the {@code resilience4j.*} meters, tagged with
+ * the endpoint as {@code name}.
+ */
+@Slf4j
+@Component
+public class EsbResilience {
+
+    private final EsbResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final TokenBudget retryBudget;
+    private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+    private final BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+    private final TimeLimiterRegistry timeLimiters = TimeLimiterRegistry.ofDefaults();
+    private final RetryRegistry retries = RetryRegistry.ofDefaults();
+    private final Map<String, Protection> protections = new ConcurrentHashMap<>();
+
+    public EsbResilience(EsbResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        EsbResilienceProperties.RetryBudget budget = properties.getRetryBudget();
+        this.retryBudget = new TokenBudget(budget.getRatio(), budget.getMinRetriesPerSecond(), budget.getMaxBalance());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        TaggedTimeLimiterMetrics.ofTimeLimiterRegistry(timeLimiters).bindTo(meterRegistry);
+        TaggedRetryMetrics.ofRetryRegistry(retries).bindTo(meterRegistry);
+        Gauge.builder(KycMetrics.ESB_RETRY_BUDGET_BALANCE, retryBudget, TokenBudget::balance)
+                .description("Retries the shared ESB retry budget currently allows")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return an operator applying the protection of {@code endpoint} to a (cold) ESB call, for use with
+     * {@link Mono#transform(Function)}
+     */
+    public <T> Function<Mono<T>, Mono<T>> protect(String endpoint) {
+        Protection protection = protections.computeIfAbsent(endpoint, this::createProtection);
+        return call -> Mono.defer(() -> protection.apply(call));
+    }
+
+    private Protection createProtection(String endpoint) {
+        EsbResilienceProperties.Endpoint settings = properties.endpoint(endpoint);
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(endpoint, CircuitBreakerConfig.custom()
+                .failureRateThreshold(settings.getFailureRateThreshold())
+                .slowCallRateThreshold(settings.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(settings.getSlowCallDuration())
+                .slidingWindowSize(settings.getSlidingWindowSize())
+                .minimumNumberOfCalls(settings.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(settings.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(settings.getPermittedCallsInHalfOpenState())
+                .recordException(EsbResilience::isFailure)
+                .build());
+        Bulkhead bulkhead = bulkheads.bulkhead(endpoint, BulkheadConfig.custom()
+                .maxConcurrentCalls(settings.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        TimeLimiter timeLimiter = timeLimiters.timeLimiter(endpoint, TimeLimiterConfig.custom()
+                .timeoutDuration(settings.getTimeout())
+                .cancelRunningFuture(true)
+                .build());
+        Retry retry = retries.retry(endpoint, RetryConfig.custom()
+                .maxAttempts(settings.getMaxAttempts())
+                .intervalFunction(IntervalFunction.ofExponentialRandomBackoff(settings.getRetryBackoff(),
+                        settings.getRetryBackoffMultiplier(), settings.getRetryJitter()))
+                .retryOnException(EsbResilience::isRetryable)
+                .build());
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("ESB circuit breaker {}: {}", endpoint, event.getStateTransition()));
+        return new Protection(endpoint, circuitBreaker, bulkhead, timeLimiter, retry);
+    }
+
+    /**
+     * Whether a failure counts against the circuit: answers the ESB gave to a request it considers invalid do not, nor
+     * do calls shed by the adaptive concurrency limit before reaching the ESB.
+     */
+    private static boolean isFailure(Throwable failure) {
+        if (failure instanceof BulkheadFullException || failure instanceof EsbUnavailableException) {
+            return false;
+        }
+        if (failure instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return true;
+    }
+
+    /**
+     * Retries are limited to failures that a later attempt can fix without having waited out a time limit:
+     * connection errors and overload answers. Timeouts are not retried, the attempt used up its time already.
+     */
+    private static boolean isRetryable(Throwable failure) {
+        if (failure instanceof WebClientRequestException) {
+            return true;
+        }
+        return failure instanceof WebClientResponseException response && isTransient(response.getStatusCode());
+    }
+
+    private static boolean isTransient(HttpStatusCode status) {
+        int code = status.value();
+        return code == 429 || code == 502 || code == 503 || code == 504;
+    }
+
+    private class Protection {
+
+        private final String endpoint;
+        private final CircuitBreaker circuitBreaker;
+        private final Bulkhead bulkhead;
+        private final TimeLimiter timeLimiter;
+        private final Retry retry;
+
+        private Protection(String endpoint,
+                           CircuitBreaker circuitBreaker,
+                           Bulkhead bulkhead,
+                           TimeLimiter timeLimiter,
+                           Retry retry) {
+            this.endpoint = endpoint;
+            this.circuitBreaker = circuitBreaker;
+            this.bulkhead = bulkhead;
+            this.timeLimiter = timeLimiter;
+            this.retry = retry;
+        }
+
+        private <T> Mono<T> apply(Mono<T> call) {
+            retryBudget.deposit();
+            AtomicInteger attempts = new AtomicInteger();
+            AtomicReference<Throwable> lastFailure = new AtomicReference<>();
+            Mono<T> attempt = call
+                    .transformDeferred(BulkheadOperator.of(bulkhead))
+                    .transformDeferred(TimeLimiterOperator.of(timeLimiter))
+                    .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                    .doOnError(lastFailure::set);
+            // Every resubscription by the retry operator is a retry and has to be paid for from the budget.
+            Mono<T> budgeted = Mono.defer(() -> attempts.getAndIncrement() == 0 || retryBudget.tryWithdraw()
+                    ? attempt
+                    : Mono.error(new RetryBudgetExhaustedException(lastFailure.get())));
+            return budgeted
+                    .transformDeferred(RetryOperator.of(retry))
+                    .onErrorMap(RetryBudgetExhaustedException.class, exhausted -> {
+                        meterRegistry.counter(KycMetrics.ESB_RETRY_BUDGET_EXHAUSTED, "type", endpoint).increment();
+                        log.warn("Retry budget exhausted, giving up on ESB endpoint {} after {} attempt(s)",
+                                endpoint, attempts.get() - 1);
+                        return exhausted.getCause();
+                    })
+                    .onErrorMap(failure -> failure instanceof CallNotPermittedException
+                                    || failure instanceof BulkheadFullException,
+                            rejected -> new EsbUnavailableException(endpoint, rejected));
+        }
+    }
+
+    private static class RetryBudgetExhaustedException extends RuntimeException {
+
+        private RetryBudgetExhaustedException(Throwable lastFailure) {
+            super(lastFailure);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package ir.ipaam.kycservices.infrastructure.resilience;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "kyc.esb.resilience")
+public class EsbResilienceProperties {
+
+    /**
+     * Protection per endpoint: {@code card-ocr}, {@code face-detection}, {@code liveness},
+     * {@code booklet-validation} and {@code address-validation}. Endpoints without an entry use the defaults of
+     * {@link Endpoint}.
+     */
+    private Map<String, Endpoint> endpoints = new HashMap<>();
+
+    private RetryBudget retryBudget = new RetryBudget();
+
+    public Endpoint endpoint(String name) {
+        return endpoints.getOrDefault(name, new Endpoint());
+    }
+
+    @Getter
+    @Setter
+    public static class Endpoint {
+
+        /**
+         * Time limit of a single attempt; the exchange is cancelled when it expires.
+         */
+        private Duration timeout = Duration.ofSeconds(30);
+
+        /**
+         * Calls allowed in flight at once; further calls fail fast instead of queueing request threads.
+         */
+        private int maxConcurrentCalls = 20;
+
+        /**
+         * Failure percentage over the sliding window that opens the circuit.
+         */
+        private float failureRateThreshold = 50;
+
+        /**
+         * Percentage of calls slower than {@code slow-call-duration} that opens the circuit.
+         */
+        private float slowCallRateThreshold = 80;
+
+        private Duration slowCallDuration = Duration.ofSeconds(10);
+
+        /**
+         * Number of most recent calls the failure and slow-call rates are computed over.
+         */
+        private int slidingWindowSize = 20;
+
+        private int minimumNumberOfCalls = 10;
+
+        /**
+         * How long an open circuit rejects calls before letting {@code permitted-calls-in-half-open-state} probe
+         * calls through.
+         */
+        private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+
+        private int permittedCallsInHalfOpenState = 3;
+
+        /**
+         * Attempts per call, the first one included. Only connection failures and 429/502/503/504 answers are
+         * retried, and only while the shared retry budget allows it.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Wait before the first retry; later waits grow by {@code retry-backoff-multiplier}.
+         */
+        private Duration retryBackoff = Duration.ofMillis(200);
+
+        private double retryBackoffMultiplier = 2.0;
+
+        /**
+         * Randomization of each wait: 0.5 spreads it over 50% to 150% of the backoff.
+         */
+        private double retryJitter = 0.5;
+
+        /**
+         * Adaptive limit of the calls in flight, below {@code max-concurrent-calls}. Only applies to the endpoints
+         * served by the WebClients of {@code EsbClientConfig}.
+         */
+        private ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+        /**
+         * Duplicate requests sent when the first one is slow; only honoured by the card OCR and booklet validation
+         * clients.
+         */
+        private Hedging hedging = new Hedging();
+    }
+
+    @Getter
+    @Setter
+    public static class Hedging {
+
+        private boolean enabled = false;
+
+        /**
+         * Latency percentile of the recent calls after which the duplicate is sent.
+         */
+        private double percentile = 0.95;
+
+        /**
+         * Number of most recent successful requests the percentile is computed over.
+         */
+        private int sampleWindow = 200;
+
+        /**
+         * Successful requests needed before the first hedge; until then calls are not hedged.
+         */
+        private int minSamples = 20;
+
+        /**
+         * Floor of the hedge delay, so latency jitter of a fast endpoint does not trigger hedges.
+         */
+        private Duration minDelay = Duration.ofMillis(200);
+
+        /**
+         * Hedges earned per call: 0.05 lets hedges add at most 5% to the endpoint's traffic.
+         */
+        private double ratio = 0.05;
+
+        /**
+         * Upper bound of the saved-up hedges, i.e. the largest hedge burst after a quiet period.
+         */
+        private double maxBalance = 5;
+    }
+
+    @Getter
+    @Setter
+    public static class ConcurrencyLimit {
+
+        private boolean enabled = true;
+
+        /**
+         * {@code vegas} estimates the queue building up at the ESB from the lowest latency seen, {@code gradient2}
+         * follows the ratio of the long-term to the recent latency and tolerates a slower, steadier rise.
+         */
+        private Algorithm algorithm = Algorithm.VEGAS;
+
+        private int initialLimit = 10;
+
+        /**
+         * Floor of the limit; {@code gradient2} only.
+         */
+        private int minLimit = 1;
+
+        /**
+         * Upper bound the limit may grow to; calls queued for a slot count against {@code max-concurrent-calls}, so
+         * keep the bulkhead above this.
+         */
+        private int maxLimit = 20;
+
+        /**
+         * Calls allowed to wait for a slot once the limit is reached; further calls are shed right away.
+         */
+        private int queueSize = 10;
+
+        /**
+         * Longest a queued call waits for a slot before it is shed.
+         */
+        private Duration maxWait = Duration.ofSeconds(2);
+    }
+
+    public enum Algorithm {
+        VEGAS,
+        GRADIENT2
+    }
+
+    @Getter
+    @Setter
+    public static class RetryBudget {
+
+        /**
+         * Retries earned per call: 0.1 lets retries add at most 10% to the ESB traffic.
+         */
+        private double ratio = 0.1;
+
+        /**
+         * Retries earned per second regardless of traffic, so a quiet instance can still retry.
+         */
+        private double minRetriesPerSecond = 1;
+
+        /**
+         * Upper bound of the saved-up retries, i.e. the largest retry burst after a quiet period.
+         */
+        private double maxBalance = 10;
+    }
+}
@@ -0,0 +1,37 @@
+package ir.ipaam.kycservices.infrastructure.resilience;
+
+import java.util.Arrays;
+
+/**
+ * The latencies of the most recent requests of one endpoint, in nanoseconds, from which a percentile is read.
+ */
+class LatencyWindow {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+    }
+
+    /**
+     * @return the {@code percentile} (0 to 1) of the recorded latencies in nanoseconds, or -1 while fewer than
+     * {@code minSamples} were recorded
+     */
+    synchronized long percentile(double percentile, int minSamples) {
+        if (count == 0 || count < minSamples) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))];
+    }
+}
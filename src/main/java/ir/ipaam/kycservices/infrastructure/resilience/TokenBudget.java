@@ -0,0 +1,50 @@
+package ir.ipaam.kycservices.infrastructure.resilience;
+
+/**
+ * Token bucket limiting extra ESB requests, retries and hedges, to a share of the traffic. Every call deposits
+ * {@code ratio} tokens, the bucket also refills by {@code tokensPerSecond} per second, and each extra request
+ * withdraws one token. When the ESB fails or slows down as a whole, extra requests therefore stop at a fixed share of
+ * the traffic instead of multiplying it.
+ */
+class TokenBudget {
+
+    private final double ratio;
+    private final double tokensPerSecond;
+    private final double maxBalance;
+
+    private double balance;
+    private long refilledAt;
+
+    TokenBudget(double ratio, double tokensPerSecond, double maxBalance) {
+        this.ratio = ratio;
+        this.tokensPerSecond = tokensPerSecond;
+        this.maxBalance = maxBalance;
+        this.balance = maxBalance;
+        this.refilledAt = System.nanoTime();
+    }
+
+    synchronized void deposit() {
+        refill();
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    synchronized boolean tryWithdraw() {
+        refill();
+        if (balance < 1) {
+            return false;
+        }
+        balance -= 1;
+        return true;
+    }
+
+    synchronized double balance() {
+        refill();
+        return balance;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        balance = Math.min(maxBalance, balance + (now - refilledAt) / 1e9 * tokensPerSecond);
+        refilledAt = now;
+    }
+}
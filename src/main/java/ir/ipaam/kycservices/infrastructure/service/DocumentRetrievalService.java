@@ -2,9 +2,9 @@ package ir.ipaam.kycservices.infrastructure.service;
 
 import ir.ipaam.kycservices.application.api.error.DocumentNotFoundException;
 import ir.ipaam.kycservices.application.api.error.ErrorMessageKeys;
-import ir.ipaam.kycservices.domain.model.entity.Document;
+import ir.ipaam.kycservices.domain.model.entity.DocumentCatalogEntry;
 import ir.ipaam.kycservices.domain.model.DocumentType;
-import ir.ipaam.kycservices.infrastructure.repository.DocumentRepository;
+import ir.ipaam.kycservices.infrastructure.projection.DocumentCatalog;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -14,19 +14,16 @@ import java.util.NoSuchElementException;
 @RequiredArgsConstructor
 public class DocumentRetrievalService {
 
-    private final DocumentRepository documentRepository;
+    private final DocumentCatalog documentCatalog;
     private final MinioStorageService minioStorageService;
 
     public RetrievedDocument retrieveLatestDocument(String nationalCode, DocumentType documentType) {
         String repositoryDocumentType = documentType.name();
-        Document document = documentRepository
-                .findTopByTypeAndProcess_Customer_NationalCodeAndVerifiedTrueOrderByIdDesc(repositoryDocumentType, nationalCode)
+        // The catalog only ever references verified documents.
+        DocumentCatalogEntry document = documentCatalog
+                .findLatest(nationalCode, repositoryDocumentType)
                 .orElseThrow(() -> new DocumentNotFoundException(ErrorMessageKeys.DOCUMENT_NOT_FOUND));
 
-        if (!document.isVerified()) {
-            throw new DocumentNotFoundException(ErrorMessageKeys.DOCUMENT_NOT_FOUND);
-        }
-
         String storagePath = document.getStoragePath();
         if (storagePath == null || storagePath.isBlank()) {
             throw new DocumentNotFoundException(ErrorMessageKeys.DOCUMENT_NOT_FOUND);
@@ -0,0 +1,146 @@
+package ir.ipaam.kycservices.infrastructure.service;
+
+import com.google.common.collect.Multimap;
+import com.google.common.collect.MultimapBuilder;
+import io.minio.BucketExistsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioAsyncClient;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * The S3 multipart upload calls, which the MinIO SDK only exposes to subclasses of its client. Resumable uploads
+ * write each chunk as one part.
+ * <p>
+ * Parts are read from a file: the SDK signs a part before sending it, and copies a part given as a stream into
+ * memory to do so, while it reads a file twice instead.
+ */
+public class MinioMultipartClient extends MinioAsyncClient {
+
+    private final Set<String> ensuredBuckets = ConcurrentHashMap.newKeySet();
+
+    public MinioMultipartClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    /**
+     * @return the id of the new multipart upload
+     */
+    public String createMultipartUpload(String bucket, String objectName, String contentType) {
+        ensureBucketExists(bucket);
+        return await(() -> createMultipartUploadAsync(bucket, null, objectName,
+                contentType == null ? null : headers("Content-Type", contentType), null))
+                .result()
+                .uploadId();
+    }
+
+    /**
+     * Uploads {@code length} bytes from the start of {@code file} as part {@code partNumber}, replacing an earlier
+     * upload of the same part.
+     *
+     * @throws NoSuchElementException when the multipart upload no longer exists
+     */
+    public void uploadPart(String bucket, String objectName, String uploadId, int partNumber, RandomAccessFile file,
+                           long length) {
+        await(() -> uploadPartAsync(bucket, null, objectName, file, length, uploadId, partNumber, null, null));
+    }
+
+    /**
+     * @return the uploaded parts, by part number
+     * @throws NoSuchElementException when the multipart upload no longer exists
+     */
+    public List<Part> listParts(String bucket, String objectName, String uploadId) {
+        List<Part> parts = new ArrayList<>();
+        int marker = 0;
+        while (true) {
+            int partNumberMarker = marker;
+            ListPartsResult result = await(() -> listPartsAsync(bucket, null, objectName, null, partNumberMarker, uploadId,
+                    null, null)).result();
+            parts.addAll(result.partList());
+            if (!result.isTruncated()) {
+                return parts;
+            }
+            marker = result.nextPartNumberMarker();
+        }
+    }
+
+    /**
+     * Assembles the parts into the object.
+     *
+     * @throws NoSuchElementException when the multipart upload no longer exists
+     */
+    public void completeMultipartUpload(String bucket, String objectName, String uploadId, List<Part> parts) {
+        Part[] completed = parts.stream()
+                .map(part -> new Part(part.partNumber(), part.etag()))
+                .toArray(Part[]::new);
+        await(() -> completeMultipartUploadAsync(bucket, null, objectName, uploadId, completed, null, null));
+    }
+
+    /**
+     * Drops the multipart upload and its parts; an upload that no longer exists is ignored.
+     */
+    public void abortMultipartUpload(String bucket, String objectName, String uploadId) {
+        try {
+            await(() -> abortMultipartUploadAsync(bucket, null, objectName, uploadId, null, null));
+        } catch (NoSuchElementException ex) {
+            // Already completed or aborted.
+        }
+    }
+
+    private void ensureBucketExists(String bucket) {
+        if (ensuredBuckets.contains(bucket)) {
+            return;
+        }
+        boolean exists = await(() -> bucketExists(BucketExistsArgs.builder().bucket(bucket).build()));
+        if (!exists) {
+            try {
+                await(() -> makeBucket(MakeBucketArgs.builder().bucket(bucket).build()));
+            } catch (IllegalStateException ex) {
+                // Another instance may have created it meanwhile.
+                if (!await(() -> bucketExists(BucketExistsArgs.builder().bucket(bucket).build()))) {
+                    throw ex;
+                }
+            }
+        }
+        ensuredBuckets.add(bucket);
+    }
+
+    private static Multimap<String, String> headers(String name, String value) {
+        Multimap<String, String> headers = MultimapBuilder.hashKeys().arrayListValues().build();
+        headers.put(name, value);
+        return headers;
+    }
+
+    private static <T> T await(AsyncCall<T> call) {
+        try {
+            return call.start().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling object storage", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof ErrorResponseException response && response.errorResponse() != null
+                    && "NoSuchUpload".equals(response.errorResponse().code())) {
+                throw new NoSuchElementException("Multipart upload not found in storage");
+            }
+            throw new IllegalStateException("Multipart upload request to object storage failed", cause);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Multipart upload request to object storage failed", ex);
+        }
+    }
+
+    @FunctionalInterface
+    private interface AsyncCall<T> {
+        CompletableFuture<T> start() throws Exception;
+    }
+}
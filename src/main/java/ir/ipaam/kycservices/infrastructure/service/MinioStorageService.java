@@ -1,14 +1,19 @@
 package ir.ipaam.kycservices.infrastructure.service;
 
 import io.minio.BucketExistsArgs;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
 import io.minio.GetObjectArgs;
 import io.minio.GetObjectResponse;
 import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
 import io.minio.errors.ErrorResponseException;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
@@ -16,22 +21,33 @@ import org.springframework.stereotype.Service;
 import ir.ipaam.kycservices.application.api.error.ErrorMessageKeys;
 import ir.ipaam.kycservices.application.api.error.ObjectStorageUnavailableException;
 import ir.ipaam.kycservices.domain.model.value.DocumentPayloadDescriptor;
+import ir.ipaam.kycservices.domain.model.value.StagedDocument;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
+import ir.ipaam.kycservices.infrastructure.profiling.KycDocumentEvent;
 import ir.ipaam.kycservices.infrastructure.service.dto.DocumentMetadata;
+import ir.ipaam.kycservices.infrastructure.tracing.KycTracing;
 
 import java.io.ByteArrayInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 import java.util.Locale;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.UnaryOperator;
 
 @Service
 public class MinioStorageService {
 
     private static final Logger log = LoggerFactory.getLogger(MinioStorageService.class);
+    private static final String STAGING_PREFIX = "staging/";
 
     private final MinioClient minioClient;
     private final String cardBucket;
@@ -41,6 +57,9 @@ public class MinioStorageService {
     private final String signatureBucket;
     private final ImageBrandingService imageBrandingService;
     private final DocumentCryptoService documentCryptoService;
+    private final Executor uploadExecutor;
+    private final KycMetrics kycMetrics;
+    private final KycTracing kycTracing;
     private final Set<String> ensuredBuckets = ConcurrentHashMap.newKeySet();
 
     public MinioStorageService(
@@ -51,7 +70,10 @@ public class MinioStorageService {
             @Value("${storage.minio.bucket.biometric}") String biometricBucket,
             @Value("${storage.minio.bucket.signature}") String signatureBucket,
             ImageBrandingService imageBrandingService,
-            DocumentCryptoService documentCryptoService) {
+            DocumentCryptoService documentCryptoService,
+            @Qualifier("storageUploadExecutor") Executor uploadExecutor,
+            KycMetrics kycMetrics,
+            KycTracing kycTracing) {
         this.minioClient = minioClient;
         this.cardBucket = cardBucket;
         this.idBucket = idBucket;
@@ -60,9 +82,68 @@ public class MinioStorageService {
         this.signatureBucket = signatureBucket;
         this.imageBrandingService = imageBrandingService;
         this.documentCryptoService = documentCryptoService;
+        this.uploadExecutor = uploadExecutor;
+        this.kycMetrics = kycMetrics;
+        this.kycTracing = kycTracing;
     }
 
     public DocumentMetadata upload(DocumentPayloadDescriptor descriptor, String documentType, String processInstanceId) {
+        return store(descriptor, documentType, processInstanceId, UnaryOperator.identity());
+    }
+
+    /**
+     * Brands, encrypts and writes the document to a staging object under {@code staging/} of its bucket on the storage
+     * executor, so that the caller can check it meanwhile. The staged object is later either moved to the document's
+     * final location with {@link #commitStaged}, or removed with {@link #discardStaged}.
+     */
+    public CompletableFuture<StagedDocument> stage(DocumentPayloadDescriptor descriptor, String documentType,
+                                                   String processInstanceId) {
+        return CompletableFuture.supplyAsync(() -> {
+            DocumentMetadata metadata = store(descriptor, documentType, processInstanceId,
+                    objectName -> STAGING_PREFIX + UUID.randomUUID() + "/" + objectName);
+            return new StagedDocument(metadata.getPath(), metadata.getHash(), metadata.isBranded(),
+                    metadata.isEncrypted(), metadata.getEncryptionIv(), metadata.getSize());
+        }, uploadExecutor);
+    }
+
+    /**
+     * Copies a staged object to the final location of the document on the storage server and removes the staged
+     * object. The copy keeps the stored bytes as they are, so the hash and IV of the staged object stay valid.
+     *
+     * @throws NoSuchElementException when the staged object no longer exists
+     */
+    public DocumentMetadata commitStaged(StagedDocument staged, String documentType, String filename,
+                                         String processInstanceId) {
+        StoragePath source = StoragePath.parse(staged.path());
+        String objectName = buildObjectName(processInstanceId, documentType, filename);
+        kycTracing.span("minio copy", documentType,
+                () -> copyObject(source, objectName, documentType, processInstanceId));
+        discardStaged(staged, processInstanceId);
+
+        DocumentMetadata metadata = new DocumentMetadata();
+        metadata.setPath(source.bucket() + "/" + objectName);
+        metadata.setHash(staged.hash());
+        metadata.setBranded(staged.branded());
+        metadata.setEncrypted(staged.encrypted());
+        metadata.setEncryptionIv(staged.encryptionIv());
+        metadata.setSize(staged.size());
+        return metadata;
+    }
+
+    /**
+     * Removes a staged object. A failure is only logged, leaving the object to the bucket's lifecycle rule.
+     */
+    public void discardStaged(StagedDocument staged, String processInstanceId) {
+        try {
+            delete(staged.path());
+            log.debug("Removed staged object {} for process {}", staged.path(), processInstanceId);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to remove staged object {} for process {}", staged.path(), processInstanceId, ex);
+        }
+    }
+
+    private DocumentMetadata store(DocumentPayloadDescriptor descriptor, String documentType, String processInstanceId,
+                                   UnaryOperator<String> placement) {
         if (descriptor == null) {
             throw new IllegalArgumentException(ErrorMessageKeys.STORAGE_DESCRIPTOR_REQUIRED);
         }
@@ -73,10 +154,16 @@ public class MinioStorageService {
         if (data == null || data.length == 0) {
             throw new IllegalArgumentException(ErrorMessageKeys.STORAGE_DESCRIPTOR_DATA_REQUIRED);
         }
+        KycDocumentEvent event = new KycDocumentEvent();
+        event.begin();
+        event.payloadBytes = data.length;
 
         boolean branded = false;
         if (shouldApplyBranding(documentType)) {
-            ImageBrandingService.BrandingResult result = imageBrandingService.brand(data, descriptor.filename());
+            long brandingStart = System.nanoTime();
+            byte[] original = data;
+            ImageBrandingService.BrandingResult result = kycMetrics.time(KycMetrics.DOCUMENT_BRANDING, documentType,
+                    () -> imageBrandingService.brand(original, descriptor.filename()));
             if (result.data() != null && result.data().length > 0) {
                 data = result.data();
             }
@@ -86,41 +173,117 @@ public class MinioStorageService {
             } else {
                 log.debug("Branding skipped or failed for document {} ({})", documentType, descriptor.filename());
             }
+            event.brandingTime = System.nanoTime() - brandingStart;
         }
 
         String bucket = determineBucket(documentType);
         String objectName = buildObjectName(processInstanceId, documentType, descriptor.filename());
+        String target = placement.apply(objectName);
 
         String hash = hash(data);
-        DocumentCryptoService.EncryptionResult encryption = documentCryptoService.encrypt(data);
+        byte[] plain = data;
+        long encryptionStart = System.nanoTime();
+        DocumentCryptoService.EncryptionResult encryption = kycMetrics.time(KycMetrics.DOCUMENT_ENCRYPTION,
+                documentType, () -> documentCryptoService.encrypt(plain));
         byte[] payload = encryption.payload();
+        event.encryptionTime = System.nanoTime() - encryptionStart;
+        kycMetrics.recordSize(KycMetrics.DOCUMENT_STORED_SIZE, documentType, payload.length);
 
+        long storageStart = System.nanoTime();
         ensureBucketExists(bucket);
-        try (ByteArrayInputStream stream = new ByteArrayInputStream(payload)) {
-            minioClient.putObject(
-                    PutObjectArgs.builder()
-                            .bucket(bucket)
-                            .object(objectName)
-                            .stream(stream, payload.length, -1)
-                            .contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE)
-                            .build()
-            );
-        } catch (Exception ex) {
-            log.error("Failed to upload {} for process {} to bucket {}", documentType, processInstanceId, bucket, ex);
-            throw new IllegalStateException("Failed to upload document to object storage", ex);
+        kycTracing.span("minio put", documentType,
+                () -> putObject(bucket, target, payload, documentType, processInstanceId));
+        event.storageTime = System.nanoTime() - storageStart;
+        if (event.shouldCommit()) {
+            event.processInstanceId = processInstanceId;
+            event.documentType = documentType;
+            event.storedBytes = payload.length;
+            event.commit();
         }
 
         DocumentMetadata metadata = new DocumentMetadata();
-        metadata.setPath(bucket + "/" + objectName);
+        metadata.setPath(bucket + "/" + target);
         metadata.setHash(hash);
         metadata.setBranded(branded);
         metadata.setEncrypted(encryption.encrypted());
+        metadata.setSize(payload.length);
         if (encryption.encrypted() && encryption.initializationVector() != null) {
             metadata.setEncryptionIv(Base64.getEncoder().encodeToString(encryption.initializationVector()));
         }
         return metadata;
     }
 
+    /**
+     * Uploads every request concurrently on the storage executor. The call is all-or-nothing: when any
+     * upload fails, the objects already written for the batch are removed before the failure is rethrown.
+     * <p>
+     * The objects of a batch are written under a segment of their own ({@code <process>/<type>/<batch>/<file>}), so
+     * the rollback only ever removes objects this call created. A redelivered event, or a second upload of the same
+     * documents, never overwrites or removes the objects the earlier {@code Document} rows point at.
+     *
+     * @return metadata in the same order as the supplied requests
+     */
+    public List<DocumentMetadata> uploadAll(List<StorageUpload> uploads, String processInstanceId) {
+        if (uploads == null || uploads.isEmpty()) {
+            return List.of();
+        }
+
+        String batch = UUID.randomUUID().toString();
+        List<CompletableFuture<DocumentMetadata>> futures = new ArrayList<>(uploads.size());
+        for (StorageUpload upload : uploads) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> store(upload.descriptor(), upload.documentType(), processInstanceId,
+                            objectName -> inBatch(objectName, batch)),
+                    uploadExecutor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException ex) {
+            removeCompleted(futures, processInstanceId);
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to upload document to object storage", cause);
+        }
+
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    public void delete(String storagePath) {
+        StoragePath path = StoragePath.parse(storagePath);
+        try {
+            minioClient.removeObject(
+                    RemoveObjectArgs.builder()
+                            .bucket(path.bucket())
+                            .object(path.objectName())
+                            .build());
+        } catch (Exception ex) {
+            throw new IllegalStateException("Failed to remove object from storage", ex);
+        }
+    }
+
+    private static String inBatch(String objectName, String batch) {
+        int lastSlash = objectName.lastIndexOf('/');
+        return objectName.substring(0, lastSlash + 1) + batch + objectName.substring(lastSlash);
+    }
+
+    private void removeCompleted(List<CompletableFuture<DocumentMetadata>> futures, String processInstanceId) {
+        for (CompletableFuture<DocumentMetadata> future : futures) {
+            if (future.isCompletedExceptionally()) {
+                continue;
+            }
+            DocumentMetadata metadata = future.join();
+            try {
+                delete(metadata.getPath());
+                log.info("Removed orphaned object {} for process {}", metadata.getPath(), processInstanceId);
+            } catch (RuntimeException ex) {
+                log.error("Failed to remove orphaned object {} for process {}", metadata.getPath(), processInstanceId, ex);
+            }
+        }
+    }
+
     public void assertAvailable() {
         try {
             minioClient.listBuckets();
@@ -152,26 +315,21 @@ public class MinioStorageService {
             throw new IllegalArgumentException("Initialization vector metadata is not valid Base64", ex);
         }
 
-        return documentCryptoService.decrypt(data, iv);
+        return kycMetrics.time(KycMetrics.DOCUMENT_DECRYPTION, StoragePath.parse(storagePath).bucket(),
+                () -> documentCryptoService.decrypt(data, iv));
     }
 
     private byte[] fetchObject(String storagePath) {
-        if (storagePath == null || storagePath.isBlank()) {
-            throw new IllegalArgumentException("storagePath must not be blank");
-        }
-
-        int separator = storagePath.indexOf('/');
-        if (separator <= 0 || separator >= storagePath.length() - 1) {
-            throw new IllegalArgumentException("storagePath must contain bucket and object");
-        }
-
-        String bucket = storagePath.substring(0, separator);
-        String objectName = storagePath.substring(separator + 1);
+        StoragePath path = StoragePath.parse(storagePath);
+        return kycMetrics.time(KycMetrics.STORAGE_GET, path.bucket(),
+                () -> kycTracing.span("minio get", path.bucket(), () -> fetchObject(path)));
+    }
 
+    private byte[] fetchObject(StoragePath path) {
         try (GetObjectResponse response = minioClient.getObject(
                 GetObjectArgs.builder()
-                        .bucket(bucket)
-                        .object(objectName)
+                        .bucket(path.bucket())
+                        .object(path.objectName())
                         .build())) {
             return response.readAllBytes();
         } catch (ErrorResponseException ex) {
@@ -185,6 +343,54 @@ public class MinioStorageService {
         }
     }
 
+    private void putObject(String bucket, String objectName, byte[] payload, String documentType,
+                           String processInstanceId) {
+        Timer.Sample putSample = kycMetrics.start();
+        try (ByteArrayInputStream stream = new ByteArrayInputStream(payload)) {
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucket)
+                            .object(objectName)
+                            .stream(stream, payload.length, -1)
+                            .contentType(MediaType.APPLICATION_OCTET_STREAM_VALUE)
+                            .build()
+            );
+            kycMetrics.stop(putSample, KycMetrics.STORAGE_PUT, documentType, KycMetrics.OUTCOME_SUCCESS);
+        } catch (Exception ex) {
+            kycMetrics.stop(putSample, KycMetrics.STORAGE_PUT, documentType, KycMetrics.OUTCOME_ERROR);
+            log.error("Failed to upload {} for process {} to bucket {}", documentType, processInstanceId, bucket, ex);
+            throw new IllegalStateException("Failed to upload document to object storage", ex);
+        }
+    }
+
+    private void copyObject(StoragePath source, String objectName, String documentType, String processInstanceId) {
+        Timer.Sample copySample = kycMetrics.start();
+        try {
+            minioClient.copyObject(
+                    CopyObjectArgs.builder()
+                            .bucket(source.bucket())
+                            .object(objectName)
+                            .source(CopySource.builder()
+                                    .bucket(source.bucket())
+                                    .object(source.objectName())
+                                    .build())
+                            .build());
+            kycMetrics.stop(copySample, KycMetrics.STORAGE_COPY, documentType, KycMetrics.OUTCOME_SUCCESS);
+        } catch (ErrorResponseException ex) {
+            kycMetrics.stop(copySample, KycMetrics.STORAGE_COPY, documentType, KycMetrics.OUTCOME_ERROR);
+            String code = ex.errorResponse() != null ? ex.errorResponse().code() : null;
+            if ("NoSuchKey".equals(code)) {
+                throw new NoSuchElementException("Staged object not found in storage");
+            }
+            log.error("Failed to commit staged {} for process {}", documentType, processInstanceId, ex);
+            throw new IllegalStateException("Failed to commit staged object in storage", ex);
+        } catch (Exception ex) {
+            kycMetrics.stop(copySample, KycMetrics.STORAGE_COPY, documentType, KycMetrics.OUTCOME_ERROR);
+            log.error("Failed to commit staged {} for process {}", documentType, processInstanceId, ex);
+            throw new IllegalStateException("Failed to commit staged object in storage", ex);
+        }
+    }
+
     private String determineBucket(String documentType) {
         if (documentType.startsWith("CARD_")) {
             return cardBucket;
@@ -273,4 +479,23 @@ public class MinioStorageService {
             throw new IllegalStateException("SHA-256 algorithm is not available", ex);
         }
     }
+
+    public record StorageUpload(DocumentPayloadDescriptor descriptor, String documentType) {
+    }
+
+    private record StoragePath(String bucket, String objectName) {
+
+        private static StoragePath parse(String storagePath) {
+            if (storagePath == null || storagePath.isBlank()) {
+                throw new IllegalArgumentException("storagePath must not be blank");
+            }
+
+            int separator = storagePath.indexOf('/');
+            if (separator <= 0 || separator >= storagePath.length() - 1) {
+                throw new IllegalArgumentException("storagePath must contain bucket and object");
+            }
+
+            return new StoragePath(storagePath.substring(0, separator), storagePath.substring(separator + 1));
+        }
+    }
 }
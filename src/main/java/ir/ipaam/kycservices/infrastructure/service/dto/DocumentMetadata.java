@@ -12,4 +12,5 @@ public class DocumentMetadata {
     private boolean branded;
     private boolean encrypted;
     private String encryptionIv;
+    private long size;
 }
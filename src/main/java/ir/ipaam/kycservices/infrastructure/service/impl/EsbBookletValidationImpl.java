@@ -3,46 +3,61 @@ package ir.ipaam.kycservices.infrastructure.service.impl;
 import ir.ipaam.kycservices.application.service.EsbBookletValidation;
 import ir.ipaam.kycservices.application.service.dto.BookletValidationData;
 import ir.ipaam.kycservices.application.api.error.ErrorMessageKeys;
+import ir.ipaam.kycservices.application.api.error.EsbUnavailableException;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
+import ir.ipaam.kycservices.infrastructure.resilience.EsbConcurrencyLimits;
+import ir.ipaam.kycservices.infrastructure.resilience.EsbHedging;
+import ir.ipaam.kycservices.infrastructure.resilience.EsbResilience;
 import ir.ipaam.kycservices.infrastructure.service.dto.BookletValidationResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MultiValueMap;
-import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
-import java.time.Duration;
-
 @Slf4j
 @Service
 public class EsbBookletValidationImpl implements EsbBookletValidation {
 
     private static final String BOOKLET_PART_NAME = "image";
-    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(600);
+    private static final String OPERATION = "booklet-validation";
 
     private final WebClient bookletWebClient;
+    private final KycMetrics kycMetrics;
+    private final EsbResilience esbResilience;
+    private final EsbHedging esbHedging;
 
     public EsbBookletValidationImpl(
-            @Qualifier("bookletValidationWebClient") WebClient bookletWebClient) {
+            @Qualifier("bookletValidationWebClient") WebClient bookletWebClient,
+            KycMetrics kycMetrics,
+            EsbResilience esbResilience,
+            EsbHedging esbHedging) {
         this.bookletWebClient = bookletWebClient;
+        this.kycMetrics = kycMetrics;
+        this.esbResilience = esbResilience;
+        this.esbHedging = esbHedging;
     }
 
     @Override
     public BookletValidationData validate(byte[] content, String filename, MediaType contentType) {
+        kycMetrics.recordSize(KycMetrics.ESB_REQUEST_SIZE, OPERATION, content.length);
         try {
-            BookletValidationResponse response = bookletWebClient.post()
-                    .uri("/api/kyc/v0.1/booklets/validate")
-                    .contentType(MediaType.MULTIPART_FORM_DATA)
-                    .body(BodyInserters.fromMultipartData(createMultipart(content, filename, contentType)))
-                    .retrieve()
-                    .bodyToMono(BookletValidationResponse.class)
-                    .block(DEFAULT_TIMEOUT);
+            BookletValidationResponse response = kycMetrics.time(KycMetrics.ESB_CALL, OPERATION,
+                    () -> bookletWebClient.post()
+                            .uri("/api/kyc/v0.1/booklets/validate")
+                            .attribute(EsbConcurrencyLimits.ENDPOINT_ATTRIBUTE, OPERATION)
+                            .contentType(MediaType.MULTIPART_FORM_DATA)
+                            .body(BodyInserters.fromMultipartData(createMultipart(content, filename, contentType)))
+                            .retrieve()
+                            .bodyToMono(BookletValidationResponse.class)
+                            .transform(esbHedging.hedge(OPERATION))
+                            .transform(esbResilience.protect(OPERATION))
+                            .block());
 
             if (response == null) {
                 throw new IllegalArgumentException(ErrorMessageKeys.WORKFLOW_BOOKLET_VALIDATION_FAILED);
@@ -69,7 +84,7 @@ public class EsbBookletValidationImpl implements EsbBookletValidation {
         } catch (WebClientResponseException ex) {
             log.warn("Booklet validation request rejected with status {}", ex.getStatusCode(), ex);
             throw new IllegalArgumentException(ErrorMessageKeys.WORKFLOW_BOOKLET_VALIDATION_FAILED, ex);
-        } catch (IllegalArgumentException ex) {
+        } catch (IllegalArgumentException | EsbUnavailableException ex) {
             throw ex;
         } catch (RuntimeException ex) {
             log.error("Failed to validate booklet page", ex);
@@ -79,17 +94,8 @@ public class EsbBookletValidationImpl implements EsbBookletValidation {
 
     private MultiValueMap<String, HttpEntity<?>> createMultipart(byte[] content, String filename, MediaType contentType) {
         MultipartBodyBuilder builder = new MultipartBodyBuilder();
-        builder.part(BOOKLET_PART_NAME, new ByteArrayResource(content) {
-                    @Override
-                    public String getFilename() {
-                        if (StringUtils.hasText(filename)) {
-                            return filename;
-                        }
-                        return BOOKLET_PART_NAME + ".jpg";
-                    }
-                })
-                .filename(StringUtils.hasText(filename) ? filename : BOOKLET_PART_NAME + ".jpg")
-                .contentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM);
+        EsbMultipartParts.addPart(builder, BOOKLET_PART_NAME, content, filename, BOOKLET_PART_NAME + ".jpg",
+                contentType);
         return builder.build();
     }
 }
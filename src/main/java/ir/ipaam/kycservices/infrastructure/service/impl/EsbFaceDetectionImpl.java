@@ -3,22 +3,23 @@ package ir.ipaam.kycservices.infrastructure.service.impl;
 import ir.ipaam.kycservices.application.service.EsbFaceDetection;
 import ir.ipaam.kycservices.application.service.dto.FaceDetectionData;
 import ir.ipaam.kycservices.application.api.error.ErrorMessageKeys;
+import ir.ipaam.kycservices.application.api.error.EsbUnavailableException;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
+import ir.ipaam.kycservices.infrastructure.resilience.EsbConcurrencyLimits;
+import ir.ipaam.kycservices.infrastructure.resilience.EsbResilience;
 import ir.ipaam.kycservices.infrastructure.service.dto.FaceDetectionResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.MultiValueMap;
-import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
-import java.time.Duration;
 import java.util.Comparator;
 
 @Slf4j
@@ -26,26 +27,36 @@ import java.util.Comparator;
 public class EsbFaceDetectionImpl implements EsbFaceDetection {
 
     private static final String SELFIE_PART_NAME = "image";
-    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(60);
+    private static final String OPERATION = "face-detection";
 
     private final WebClient faceDetectionWebClient;
+    private final KycMetrics kycMetrics;
+    private final EsbResilience esbResilience;
 
-    public EsbFaceDetectionImpl(@Qualifier("faceDetectionWebClient") WebClient faceDetectionWebClient) {
+    public EsbFaceDetectionImpl(@Qualifier("faceDetectionWebClient") WebClient faceDetectionWebClient,
+                                KycMetrics kycMetrics,
+                                EsbResilience esbResilience) {
         this.faceDetectionWebClient = faceDetectionWebClient;
+        this.kycMetrics = kycMetrics;
+        this.esbResilience = esbResilience;
     }
 
     @Override
     public FaceDetectionData detect(byte[] content, String filename, MediaType contentType, String referenceId) {
+        kycMetrics.recordSize(KycMetrics.ESB_REQUEST_SIZE, OPERATION, content.length);
         try {
-            FaceDetectionResponse response = faceDetectionWebClient.post()
-                    .uri(uriBuilder -> uriBuilder.path("/api/kyc/v0.1/faces/detect")
-                            .queryParam("referenceid", referenceId)
-                            .build())
-                    .contentType(MediaType.MULTIPART_FORM_DATA)
-                    .body(BodyInserters.fromMultipartData(createMultipart(content, filename, contentType)))
-                    .retrieve()
-                    .bodyToMono(FaceDetectionResponse.class)
-                    .block(DEFAULT_TIMEOUT);
+            FaceDetectionResponse response = kycMetrics.time(KycMetrics.ESB_CALL, OPERATION,
+                    () -> faceDetectionWebClient.post()
+                            .uri(uriBuilder -> uriBuilder.path("/api/kyc/v0.1/faces/detect")
+                                    .queryParam("referenceid", referenceId)
+                                    .build())
+                            .attribute(EsbConcurrencyLimits.ENDPOINT_ATTRIBUTE, OPERATION)
+                            .contentType(MediaType.MULTIPART_FORM_DATA)
+                            .body(BodyInserters.fromMultipartData(createMultipart(content, filename, contentType)))
+                            .retrieve()
+                            .bodyToMono(FaceDetectionResponse.class)
+                            .transform(esbResilience.protect(OPERATION))
+                            .block());
 
             if (response == null) {
                 log.warn("Face detection response was null");
@@ -79,7 +90,7 @@ public class EsbFaceDetectionImpl implements EsbFaceDetection {
         } catch (WebClientResponseException ex) {
             log.warn("Face detection request rejected with status {}", ex.getStatusCode(), ex);
             throw new IllegalArgumentException(ErrorMessageKeys.WORKFLOW_SELFIE_VALIDATION_FAILED, ex);
-        } catch (IllegalArgumentException ex) {
+        } catch (IllegalArgumentException | EsbUnavailableException ex) {
             throw ex;
         } catch (RuntimeException ex) {
             log.error("Failed to validate selfie image", ex);
@@ -89,17 +100,7 @@ public class EsbFaceDetectionImpl implements EsbFaceDetection {
 
     private MultiValueMap<String, HttpEntity<?>> createMultipart(byte[] content, String filename, MediaType contentType) {
         MultipartBodyBuilder builder = new MultipartBodyBuilder();
-        builder.part(SELFIE_PART_NAME, new ByteArrayResource(content) {
-                    @Override
-                    public String getFilename() {
-                        if (StringUtils.hasText(filename)) {
-                            return filename;
-                        }
-                        return SELFIE_PART_NAME + ".jpg";
-                    }
-                })
-                .filename(StringUtils.hasText(filename) ? filename : SELFIE_PART_NAME + ".jpg")
-                .contentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM);
+        EsbMultipartParts.addPart(builder, SELFIE_PART_NAME, content, filename, SELFIE_PART_NAME + ".jpg", contentType);
         return builder.build();
     }
 }
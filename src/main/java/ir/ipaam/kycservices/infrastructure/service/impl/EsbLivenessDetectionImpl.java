@@ -1,36 +1,42 @@
 package ir.ipaam.kycservices.infrastructure.service.impl;
 
 import ir.ipaam.kycservices.application.api.error.ErrorMessageKeys;
+import ir.ipaam.kycservices.application.api.error.EsbUnavailableException;
 import ir.ipaam.kycservices.application.service.EsbLivenessDetection;
 import ir.ipaam.kycservices.application.service.dto.LivenessCheckData;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
+import ir.ipaam.kycservices.infrastructure.resilience.EsbConcurrencyLimits;
+import ir.ipaam.kycservices.infrastructure.resilience.EsbResilience;
 import ir.ipaam.kycservices.infrastructure.service.dto.LivenessResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MultiValueMap;
-import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
-import java.time.Duration;
-
 @Slf4j
 @Service
 public class EsbLivenessDetectionImpl implements EsbLivenessDetection {
 
     private static final String VIDEO_PART_NAME = "video";
     private static final String IMAGE_PART_NAME = "image1";
-    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(60);
+    private static final String OPERATION = "liveness";
 
-    private final WebClient faceDetectionWebClient;
+    private final WebClient livenessWebClient;
+    private final KycMetrics kycMetrics;
+    private final EsbResilience esbResilience;
 
-    public EsbLivenessDetectionImpl(@Qualifier("faceDetectionWebClient") WebClient faceDetectionWebClient) {
-        this.faceDetectionWebClient = faceDetectionWebClient;
+    public EsbLivenessDetectionImpl(@Qualifier("livenessWebClient") WebClient livenessWebClient,
+                                    KycMetrics kycMetrics,
+                                    EsbResilience esbResilience) {
+        this.livenessWebClient = livenessWebClient;
+        this.kycMetrics = kycMetrics;
+        this.esbResilience = esbResilience;
     }
 
     @Override
@@ -41,23 +47,28 @@ public class EsbLivenessDetectionImpl implements EsbLivenessDetection {
                                    String imageFilename,
                                    MediaType imageContentType,
                                    String referenceId) {
+        kycMetrics.recordSize(KycMetrics.ESB_REQUEST_SIZE, OPERATION,
+                (long) videoContent.length + imageContent.length);
         try {
-            LivenessResponse response = faceDetectionWebClient.post()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/api/kyc/v0.1/faces/authenticate")
-                            .queryParam("referenceid", referenceId)
-                            .build())
-                    .contentType(MediaType.MULTIPART_FORM_DATA)
-                    .body(BodyInserters.fromMultipartData(createMultipart(
-                            videoContent,
-                            videoFilename,
-                            videoContentType,
-                            imageContent,
-                            imageFilename,
-                            imageContentType)))
-                    .retrieve()
-                    .bodyToMono(LivenessResponse.class)
-                    .block(DEFAULT_TIMEOUT);
+            LivenessResponse response = kycMetrics.time(KycMetrics.ESB_CALL, OPERATION,
+                    () -> livenessWebClient.post()
+                            .uri(uriBuilder -> uriBuilder
+                                    .path("/api/kyc/v0.1/faces/authenticate")
+                                    .queryParam("referenceid", referenceId)
+                                    .build())
+                            .attribute(EsbConcurrencyLimits.ENDPOINT_ATTRIBUTE, OPERATION)
+                            .contentType(MediaType.MULTIPART_FORM_DATA)
+                            .body(BodyInserters.fromMultipartData(createMultipart(
+                                    videoContent,
+                                    videoFilename,
+                                    videoContentType,
+                                    imageContent,
+                                    imageFilename,
+                                    imageContentType)))
+                            .retrieve()
+                            .bodyToMono(LivenessResponse.class)
+                            .transform(esbResilience.protect(OPERATION))
+                            .block());
 
             if (response == null) {
                 log.warn("Liveness response was null for reference {}", referenceId);
@@ -86,7 +97,7 @@ public class EsbLivenessDetectionImpl implements EsbLivenessDetection {
         } catch (WebClientResponseException ex) {
             log.warn("Liveness request rejected with status {}", ex.getStatusCode(), ex);
             throw new IllegalArgumentException(ErrorMessageKeys.WORKFLOW_VIDEO_UPLOAD_FAILED, ex);
-        } catch (IllegalArgumentException ex) {
+        } catch (IllegalArgumentException | EsbUnavailableException ex) {
             throw ex;
         } catch (RuntimeException ex) {
             log.error("Failed to verify liveness for reference {}", referenceId, ex);
@@ -101,28 +112,10 @@ public class EsbLivenessDetectionImpl implements EsbLivenessDetection {
                                                                 String imageFilename,
                                                                 MediaType imageContentType) {
         MultipartBodyBuilder builder = new MultipartBodyBuilder();
-        builder.part(VIDEO_PART_NAME, new ByteArrayResource(videoContent) {
-                    @Override
-                    public String getFilename() {
-                        if (StringUtils.hasText(videoFilename)) {
-                            return videoFilename;
-                        }
-                        return VIDEO_PART_NAME + ".mp4";
-                    }
-                })
-                .filename(StringUtils.hasText(videoFilename) ? videoFilename : VIDEO_PART_NAME + ".mp4")
-                .contentType(videoContentType != null ? videoContentType : MediaType.APPLICATION_OCTET_STREAM);
-        builder.part(IMAGE_PART_NAME, new ByteArrayResource(imageContent) {
-                    @Override
-                    public String getFilename() {
-                        if (StringUtils.hasText(imageFilename)) {
-                            return imageFilename;
-                        }
-                        return IMAGE_PART_NAME + ".jpg";
-                    }
-                })
-                .filename(StringUtils.hasText(imageFilename) ? imageFilename : IMAGE_PART_NAME + ".jpg")
-                .contentType(imageContentType != null ? imageContentType : MediaType.APPLICATION_OCTET_STREAM);
+        EsbMultipartParts.addPart(builder, VIDEO_PART_NAME, videoContent, videoFilename, VIDEO_PART_NAME + ".mp4",
+                videoContentType);
+        EsbMultipartParts.addPart(builder, IMAGE_PART_NAME, imageContent, imageFilename, IMAGE_PART_NAME + ".jpg",
+                imageContentType);
         return builder.build();
     }
 }
@@ -0,0 +1,50 @@
+package ir.ipaam.kycservices.infrastructure.service.impl;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Multipart parts of the ESB requests, streamed from the upload bytes the caller already holds.
+ * <p>
+ * A part is a sequence of {@value #CHUNK_SIZE}-byte read-only views of the array rather than a
+ * {@code ByteArrayResource}, which the resource encoder copies into 4 KB buffers. Netty copies each view into a
+ * pooled direct buffer of the same size while writing it, instead of allocating one direct buffer the size of the
+ * whole video. The views are created per subscription, so retries and hedges resend the same bytes without copying
+ * them.
+ */
+final class EsbMultipartParts {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private EsbMultipartParts() {
+    }
+
+    static void addPart(MultipartBodyBuilder builder,
+                        String name,
+                        byte[] content,
+                        String filename,
+                        String defaultFilename,
+                        MediaType contentType) {
+        builder.asyncPart(name, chunks(content), DataBuffer.class)
+                .filename(StringUtils.hasText(filename) ? filename : defaultFilename)
+                .contentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    static Flux<DataBuffer> chunks(byte[] content) {
+        return Flux.defer(() -> {
+            ByteBuffer shared = ByteBuffer.wrap(content).asReadOnlyBuffer();
+            int chunks = Math.max(1, (content.length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            return Flux.range(0, chunks).map(index -> {
+                int offset = index * CHUNK_SIZE;
+                int length = Math.min(CHUNK_SIZE, content.length - offset);
+                return DefaultDataBufferFactory.sharedInstance.wrap(shared.slice(offset, length));
+            });
+        });
+    }
+}
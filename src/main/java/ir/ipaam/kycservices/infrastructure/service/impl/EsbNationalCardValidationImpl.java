@@ -3,23 +3,23 @@ package ir.ipaam.kycservices.infrastructure.service.impl;
 import ir.ipaam.kycservices.application.service.EsbNationalCardValidation;
 import ir.ipaam.kycservices.application.service.dto.CardOcrBackData;
 import ir.ipaam.kycservices.application.service.dto.CardOcrFrontData;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
+import ir.ipaam.kycservices.infrastructure.resilience.EsbConcurrencyLimits;
+import ir.ipaam.kycservices.infrastructure.resilience.EsbHedging;
+import ir.ipaam.kycservices.infrastructure.resilience.EsbResilience;
 import ir.ipaam.kycservices.infrastructure.service.dto.CardOcrBackResponse;
 import ir.ipaam.kycservices.infrastructure.service.dto.CardOcrFrontResponse;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import java.time.Duration;
-
 @Slf4j
 @Service
 public class EsbNationalCardValidationImpl implements EsbNationalCardValidation {
@@ -27,12 +27,23 @@ public class EsbNationalCardValidationImpl implements EsbNationalCardValidation
     private static final String FRONT_SIDE = "front";
     private static final String BACK_SIDE = "back";
     private static final String ID_CARD_PART_NAME = "idcard";
-    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+    private static final String ENDPOINT = "card-ocr";
+    private static final String OPERATION_FRONT_OCR = "card-ocr-front";
+    private static final String OPERATION_BACK_OCR = "card-ocr-back";
 
     private final WebClient cardOcrWebClient;
+    private final KycMetrics kycMetrics;
+    private final EsbResilience esbResilience;
+    private final EsbHedging esbHedging;
 
-    public EsbNationalCardValidationImpl(@Qualifier("cardOcrWebClient") WebClient cardOcrWebClient) {
+    public EsbNationalCardValidationImpl(@Qualifier("cardOcrWebClient") WebClient cardOcrWebClient,
+                                         KycMetrics kycMetrics,
+                                         EsbResilience esbResilience,
+                                         EsbHedging esbHedging) {
         this.cardOcrWebClient = cardOcrWebClient;
+        this.kycMetrics = kycMetrics;
+        this.esbResilience = esbResilience;
+        this.esbHedging = esbHedging;
     }
 
     @PostConstruct
@@ -48,13 +59,18 @@ public class EsbNationalCardValidationImpl implements EsbNationalCardValidation
 
     @Override
     public CardOcrFrontData extractFront(byte[] content, String filename) {
-        CardOcrFrontResponse response = cardOcrWebClient.post()
-                .uri(uriBuilder -> uriBuilder.path("/api/kyc/v0.1/idcards/{side}/ocr").build(FRONT_SIDE))
-                .contentType(MediaType.MULTIPART_FORM_DATA)
-                .body(BodyInserters.fromMultipartData(createMultipart(content, filename)))
-                .retrieve()
-                .bodyToMono(CardOcrFrontResponse.class)
-                .block();
+        kycMetrics.recordSize(KycMetrics.ESB_REQUEST_SIZE, OPERATION_FRONT_OCR, content.length);
+        CardOcrFrontResponse response = kycMetrics.time(KycMetrics.ESB_CALL, OPERATION_FRONT_OCR,
+                () -> cardOcrWebClient.post()
+                        .uri(uriBuilder -> uriBuilder.path("/api/kyc/v0.1/idcards/{side}/ocr").build(FRONT_SIDE))
+                        .attribute(EsbConcurrencyLimits.ENDPOINT_ATTRIBUTE, ENDPOINT)
+                        .contentType(MediaType.MULTIPART_FORM_DATA)
+                        .body(BodyInserters.fromMultipartData(createMultipart(content, filename)))
+                        .retrieve()
+                        .bodyToMono(CardOcrFrontResponse.class)
+                        .transform(esbHedging.hedge(ENDPOINT))
+                        .transform(esbResilience.protect(ENDPOINT))
+                        .block());
 
         if (response == null || response.result() == null) {
             throw new IllegalStateException("Empty response from front OCR service");
@@ -64,13 +80,18 @@ public class EsbNationalCardValidationImpl implements EsbNationalCardValidation
 
     @Override
     public CardOcrBackData extractBack(byte[] content, String filename) {
-        CardOcrBackResponse response = cardOcrWebClient.post()
-                .uri(uriBuilder -> uriBuilder.path("/api/kyc/v0.1/idcards/{side}/ocr").build(BACK_SIDE))
-                .contentType(MediaType.MULTIPART_FORM_DATA)
-                .body(BodyInserters.fromMultipartData(createMultipart(content, filename)))
-                .retrieve()
-                .bodyToMono(CardOcrBackResponse.class)
-                .block(DEFAULT_TIMEOUT);
+        kycMetrics.recordSize(KycMetrics.ESB_REQUEST_SIZE, OPERATION_BACK_OCR, content.length);
+        CardOcrBackResponse response = kycMetrics.time(KycMetrics.ESB_CALL, OPERATION_BACK_OCR,
+                () -> cardOcrWebClient.post()
+                        .uri(uriBuilder -> uriBuilder.path("/api/kyc/v0.1/idcards/{side}/ocr").build(BACK_SIDE))
+                        .attribute(EsbConcurrencyLimits.ENDPOINT_ATTRIBUTE, ENDPOINT)
+                        .contentType(MediaType.MULTIPART_FORM_DATA)
+                        .body(BodyInserters.fromMultipartData(createMultipart(content, filename)))
+                        .retrieve()
+                        .bodyToMono(CardOcrBackResponse.class)
+                        .transform(esbHedging.hedge(ENDPOINT))
+                        .transform(esbResilience.protect(ENDPOINT))
+                        .block());
 
         if (response == null || response.result() == null) {
             throw new IllegalStateException("Empty response from back OCR service");
@@ -81,16 +102,8 @@ public class EsbNationalCardValidationImpl implements EsbNationalCardValidation
 
     private MultiValueMap<String, HttpEntity<?>> createMultipart(byte[] content, String filename) {
         MultipartBodyBuilder builder = new MultipartBodyBuilder();
-        builder.part(ID_CARD_PART_NAME, new ByteArrayResource(content) {
-            @Override
-            public String getFilename() {
-                if (StringUtils.hasText(filename)) {
-                    return filename;
-                }
-                return ID_CARD_PART_NAME + ".jpg";
-            }
-        }).filename(StringUtils.hasText(filename) ? filename : ID_CARD_PART_NAME + ".jpg")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM);
+        EsbMultipartParts.addPart(builder, ID_CARD_PART_NAME, content, filename, ID_CARD_PART_NAME + ".jpg",
+                MediaType.APPLICATION_OCTET_STREAM);
         return builder.build();
     }
 }
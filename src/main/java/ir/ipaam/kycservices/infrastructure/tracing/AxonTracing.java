@@ -0,0 +1,136 @@
+package ir.ipaam.kycservices.infrastructure.tracing;
+
+import io.micrometer.tracing.BaggageInScope;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.annotation.PostConstruct;
+import org.axonframework.commandhandling.CommandBus;
+import org.axonframework.commandhandling.CommandMessage;
+import org.axonframework.config.EventProcessingConfigurer;
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.EventBus;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.Message;
+import org.axonframework.messaging.MessageDispatchInterceptor;
+import org.axonframework.messaging.MessageHandlerInterceptor;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.axonframework.modelling.command.AnnotationCommandTargetResolver;
+import org.axonframework.modelling.command.CommandTargetResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Carries the trace context through Axon. Commands and events pick up the current context in their metadata when they
+ * are dispatched; command handling and every projection event handler then run in a span continuing that context,
+ * named after the payload and tagged with the process instance id (the aggregate identifier).
+ * <p>
+ * Events are published by the command handler, so a tracking processor handling an event hours later still joins the
+ * trace of the request that caused it.
+ */
+@Component
+public class AxonTracing {
+
+    private final KycTracing kycTracing;
+    private final CommandBus commandBus;
+    private final EventBus eventBus;
+    private final CommandTargetResolver targetResolver = AnnotationCommandTargetResolver.builder().build();
+
+    public AxonTracing(KycTracing kycTracing, CommandBus commandBus, EventBus eventBus) {
+        this.kycTracing = kycTracing;
+        this.commandBus = commandBus;
+        this.eventBus = eventBus;
+    }
+
+    @PostConstruct
+    void register() {
+        commandBus.registerDispatchInterceptor(new ContextInjector<CommandMessage<?>>());
+        commandBus.registerHandlerInterceptor(new CommandSpan());
+        eventBus.registerDispatchInterceptor(new ContextInjector<EventMessage<?>>());
+    }
+
+    @Autowired
+    void registerEventHandlerSpans(EventProcessingConfigurer eventProcessingConfigurer) {
+        eventProcessingConfigurer.registerDefaultHandlerInterceptor(
+                (configuration, processorName) -> new EventSpan(processorName));
+    }
+
+    private Object handleInSpan(Span span, String processInstanceId, InterceptorChain interceptorChain)
+            throws Exception {
+        Tracer tracer = kycTracing.tracer();
+        if (processInstanceId != null) {
+            span.tag(KycTracing.PROCESS_INSTANCE_ID, processInstanceId);
+        }
+        try (Tracer.SpanInScope spanScope = tracer.withSpan(span);
+             BaggageInScope baggageScope = processInstanceId != null
+                     ? tracer.createBaggageInScope(KycTracing.PROCESS_INSTANCE_ID, processInstanceId)
+                     : null) {
+            return interceptorChain.proceed();
+        } catch (Exception | Error ex) {
+            span.error(ex);
+            throw ex;
+        } finally {
+            span.end();
+        }
+    }
+
+    private class ContextInjector<T extends Message<?>> implements MessageDispatchInterceptor<T> {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public BiFunction<Integer, T, T> handle(List<? extends T> messages) {
+            return (index, message) -> {
+                Map<String, String> context = kycTracing.currentContext();
+                return context.isEmpty() ? message : (T) message.andMetaData(context);
+            };
+        }
+    }
+
+    private class CommandSpan implements MessageHandlerInterceptor<CommandMessage<?>> {
+
+        @Override
+        public Object handle(UnitOfWork<? extends CommandMessage<?>> unitOfWork, InterceptorChain interceptorChain)
+                throws Exception {
+            CommandMessage<?> command = unitOfWork.getMessage();
+            Span span = kycTracing.continueTrace("command " + command.getPayloadType().getSimpleName(),
+                    command.getMetaData()).start();
+            return handleInSpan(span, targetOf(command), interceptorChain);
+        }
+
+        private String targetOf(CommandMessage<?> command) {
+            try {
+                return targetResolver.resolveTarget(command).getIdentifier();
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+    }
+
+    private class EventSpan implements MessageHandlerInterceptor<EventMessage<?>> {
+
+        private final String processorName;
+
+        private EventSpan(String processorName) {
+            this.processorName = processorName;
+        }
+
+        @Override
+        public Object handle(UnitOfWork<? extends EventMessage<?>> unitOfWork, InterceptorChain interceptorChain)
+                throws Exception {
+            EventMessage<?> event = unitOfWork.getMessage();
+            Span span = kycTracing.continueTrace("event " + event.getPayloadType().getSimpleName(),
+                            event.getMetaData())
+                    .kind(Span.Kind.CONSUMER)
+                    .tag("processor", processorName)
+                    .start();
+            String processInstanceId = event instanceof DomainEventMessage<?> domainEvent
+                    ? domainEvent.getAggregateIdentifier()
+                    : null;
+            return handleInSpan(span, processInstanceId, interceptorChain);
+        }
+    }
+}
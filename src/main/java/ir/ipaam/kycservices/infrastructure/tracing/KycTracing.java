@@ -0,0 +1,131 @@
+package ir.ipaam.kycservices.infrastructure.tracing;
+
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.BaggageInScope;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.contextpropagation.ObservationAwareBaggageThreadLocalAccessor;
+import io.micrometer.tracing.contextpropagation.ObservationAwareSpanThreadLocalAccessor;
+import io.micrometer.tracing.propagation.Propagator;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Entry point of the application code into Micrometer Tracing.
+ * <p>
+ * The process instance id travels as the {@value #PROCESS_INSTANCE_ID} baggage field: it is tagged onto every span
+ * started while it is in scope, written to the logging MDC and propagated with the trace context
+ * ({@code management.tracing.baggage.*}). The trace context itself crosses asynchronous boundaries as a plain string
+ * map, in Axon message metadata and in the {@value #ZEEBE_VARIABLE} process variable. Spans and baggage opened here are
+ * registered with the context-propagation library, so executors decorated with a
+ * {@code ContextPropagatingTaskDecorator} and Reactor pipelines carry them too.
+ */
+@Component
+public class KycTracing {
+
+    public static final String PROCESS_INSTANCE_ID = "processInstanceId";
+    public static final String ZEEBE_VARIABLE = "traceContext";
+
+    private final Tracer tracer;
+    private final Propagator propagator;
+    private final ObservationRegistry observationRegistry;
+
+    public KycTracing(Tracer tracer, Propagator propagator, ObservationRegistry observationRegistry) {
+        this.tracer = tracer;
+        this.propagator = propagator;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @PostConstruct
+    void registerContextAccessors() {
+        ContextRegistry.getInstance()
+                .registerThreadLocalAccessor(new ObservationAwareSpanThreadLocalAccessor(observationRegistry, tracer))
+                .registerThreadLocalAccessor(new ObservationAwareBaggageThreadLocalAccessor(observationRegistry, tracer));
+    }
+
+    /**
+     * Runs {@code work} with {@code processInstanceId} as baggage and tags the current span with it.
+     */
+    public <T> T inProcess(String processInstanceId, Supplier<T> work) {
+        if (processInstanceId == null) {
+            return work.get();
+        }
+        Span current = tracer.currentSpan();
+        if (current != null) {
+            current.tag(PROCESS_INSTANCE_ID, processInstanceId);
+        }
+        try (BaggageInScope ignored = tracer.createBaggageInScope(PROCESS_INSTANCE_ID, processInstanceId)) {
+            return work.get();
+        }
+    }
+
+    /**
+     * Runs {@code work} in a child span of the current one, tagged with {@code type}.
+     */
+    public <T> T span(String name, String type, Supplier<T> work) {
+        Span span = tracer.nextSpan().name(name).tag("type", type).start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            return work.get();
+        } catch (RuntimeException | Error ex) {
+            span.error(ex);
+            throw ex;
+        } finally {
+            span.end();
+        }
+    }
+
+    public void span(String name, String type, Runnable work) {
+        span(name, type, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return the propagation fields ({@code traceparent}, {@code baggage}) of the current context, empty outside a
+     * span
+     */
+    public Map<String, String> currentContext() {
+        Map<String, String> carrier = new LinkedHashMap<>();
+        TraceContext context = tracer.currentTraceContext().context();
+        if (context != null) {
+            propagator.inject(context, carrier, Map::put);
+        }
+        return carrier;
+    }
+
+    /**
+     * @return a copy of {@code variables} carrying the current trace context under {@value #ZEEBE_VARIABLE}, so job
+     * workers activated by the published message or created instance can continue the trace
+     */
+    public Map<String, Object> withTraceContext(Map<String, Object> variables) {
+        Map<String, Object> result = new HashMap<>(variables);
+        Map<String, String> context = currentContext();
+        if (!context.isEmpty()) {
+            result.put(ZEEBE_VARIABLE, context);
+        }
+        return result;
+    }
+
+    /**
+     * @return a builder for a span continuing the trace of {@code carrier}, or starting a new trace when it carries
+     * none
+     */
+    public Span.Builder continueTrace(String name, Map<?, ?> carrier) {
+        Span.Builder builder = carrier == null || carrier.isEmpty()
+                ? tracer.spanBuilder()
+                : propagator.extract(carrier, (map, key) -> map.get(key) instanceof String value ? value : null);
+        return builder.name(name);
+    }
+
+    public Tracer tracer() {
+        return tracer;
+    }
+}
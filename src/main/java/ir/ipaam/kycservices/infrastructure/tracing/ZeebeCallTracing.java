@@ -0,0 +1,61 @@
+package ir.ipaam.kycservices.infrastructure.tracing;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.stereotype.Component;
+
+/**
+ * gRPC interceptor of the Zeebe client, registered next to {@code ZeebeCallMetrics}: every gateway call issued within
+ * a trace runs in a client span named after the gateway method and tagged with the gRPC status code.
+ * The trace context reaches job workers through the {@value KycTracing#ZEEBE_VARIABLE} process variable instead, as
+ * the gateway does not forward request headers to the broker.
+ */
+@Component
+public class ZeebeCallTracing implements ClientInterceptor {
+
+    private final Tracer tracer;
+
+    public ZeebeCallTracing(KycTracing kycTracing) {
+        this.tracer = kycTracing.tracer();
+    }
+
+    @Override
+    public <Q, R> ClientCall<Q, R> interceptCall(MethodDescriptor<Q, R> method, CallOptions callOptions, Channel next) {
+        if (tracer.currentSpan() == null) {
+            // Job polling and other background calls of the client itself: no trace to attach them to.
+            return next.newCall(method, callOptions);
+        }
+        String type = method.getBareMethodName() != null ? method.getBareMethodName() : method.getFullMethodName();
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<R> responseListener, Metadata headers) {
+                Span span = tracer.spanBuilder()
+                        .name("zeebe " + type)
+                        .kind(Span.Kind.CLIENT)
+                        .tag("rpc.system", "grpc")
+                        .tag("rpc.method", type)
+                        .start();
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        span.tag("rpc.grpc.status_code", status.getCode().name());
+                        if (!status.isOk() && status.getCause() != null) {
+                            span.error(status.getCause());
+                        }
+                        span.end();
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+}
@@ -0,0 +1,180 @@
+package ir.ipaam.kycservices.infrastructure.upload;
+
+import io.minio.messages.Part;
+import ir.ipaam.kycservices.application.api.error.FileProcessingException;
+import ir.ipaam.kycservices.infrastructure.metrics.KycMetrics;
+import ir.ipaam.kycservices.infrastructure.service.MinioMultipartClient;
+import ir.ipaam.kycservices.infrastructure.service.MinioStorageService;
+import ir.ipaam.kycservices.infrastructure.tracing.KycTracing;
+import ir.ipaam.kycservices.infrastructure.upload.UploadSessionStore.UploadSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.FILE_READ_FAILURE;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.UPLOAD_CHUNK_SIZE;
+
+/**
+ * The object storage side of resumable uploads. Every session streams into a MinIO multipart upload in the
+ * {@code storage.minio.bucket.uploads} bucket, one part per chunk, and is assembled into a single object once all of
+ * its bytes arrived. A chunk is spooled to a temporary file on its way, never held in memory.
+ */
+@Slf4j
+@Component
+public class ResumableUploadStorage {
+
+    private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+
+    private final MinioMultipartClient multipartClient;
+    private final MinioStorageService storageService;
+    private final KycMetrics kycMetrics;
+    private final KycTracing kycTracing;
+    private final String bucket;
+
+    public ResumableUploadStorage(MinioMultipartClient multipartClient,
+                                  MinioStorageService storageService,
+                                  KycMetrics kycMetrics,
+                                  KycTracing kycTracing,
+                                  @Value("${storage.minio.bucket.uploads:kyc-uploads}") String bucket) {
+        this.multipartClient = multipartClient;
+        this.storageService = storageService;
+        this.kycMetrics = kycMetrics;
+        this.kycTracing = kycTracing;
+        this.bucket = bucket;
+    }
+
+    /**
+     * Starts the multipart upload the chunks of a new session go to.
+     */
+    public OpenedUpload open(String processInstanceId, String uploadId, String documentType, String contentType) {
+        String objectName = processInstanceId.replaceAll("[^a-zA-Z0-9\\-_]", "-") + "/" + uploadId;
+        String multipartUploadId = kycTracing.span("minio create multipart upload", documentType,
+                () -> multipartClient.createMultipartUpload(bucket, objectName, contentType));
+        return new OpenedUpload(objectName, multipartUploadId);
+    }
+
+    /**
+     * Writes the chunk of {@code length} bytes read from {@code chunk} as part {@code partNumber} of the session.
+     *
+     * @return the number of bytes written
+     * @throws IllegalArgumentException when the chunk is not exactly {@code length} bytes long
+     * @throws NoSuchElementException   when the multipart upload of the session is gone
+     */
+    public long writeChunk(UploadSession session, int partNumber, long length, InputStream chunk) {
+        return kycMetrics.time(KycMetrics.UPLOAD_CHUNK, session.documentType(), () -> {
+            Path spooled = spool(chunk, length);
+            try (RandomAccessFile file = new RandomAccessFile(spooled.toFile(), "r")) {
+                kycTracing.span("minio upload part", session.documentType(),
+                        () -> multipartClient.uploadPart(bucket, session.objectName(), session.multipartUploadId(),
+                                partNumber, file, length));
+                return length;
+            } catch (IOException ex) {
+                throw new FileProcessingException(FILE_READ_FAILURE, ex);
+            } finally {
+                deleteQuietly(spooled);
+            }
+        });
+    }
+
+    /**
+     * Assembles the parts of a complete session into its object, unless that already happened.
+     *
+     * @return the object, named {@code name} for the service it is handed to
+     */
+    public StoredUploadFile assemble(UploadSession session, String name) {
+        if (!session.assembled()) {
+            try {
+                List<Part> parts = multipartClient.listParts(bucket, session.objectName(),
+                        session.multipartUploadId());
+                kycTracing.span("minio complete multipart upload", session.documentType(),
+                        () -> multipartClient.completeMultipartUpload(bucket, session.objectName(),
+                                session.multipartUploadId(), parts));
+            } catch (NoSuchElementException ex) {
+                // Completed meanwhile by a concurrent request for the same session.
+                log.debug("Multipart upload of session {} was already completed", session.uploadId());
+            }
+        }
+        return new StoredUploadFile(storageService, name, path(session), session.filename(), session.contentType(),
+                session.size());
+    }
+
+    /**
+     * Drops what the session wrote: its multipart upload or, once assembled, its object. A failure is only logged,
+     * leaving the leftovers to the bucket's lifecycle rule.
+     */
+    public void discard(UploadSession session) {
+        if (session.assembled()) {
+            deleteObject(session);
+            return;
+        }
+        try {
+            multipartClient.abortMultipartUpload(bucket, session.objectName(), session.multipartUploadId());
+        } catch (RuntimeException ex) {
+            log.warn("Failed to abort the multipart upload of session {}", session.uploadId(), ex);
+        }
+    }
+
+    /**
+     * Deletes the assembled object of a session, e.g. once it was handed over. A failure is only logged.
+     */
+    public void deleteObject(UploadSession session) {
+        try {
+            storageService.delete(path(session));
+        } catch (RuntimeException ex) {
+            log.warn("Failed to delete the object of upload session {}", session.uploadId(), ex);
+        }
+    }
+
+    private String path(UploadSession session) {
+        return bucket + "/" + session.objectName();
+    }
+
+    private Path spool(InputStream chunk, long length) {
+        Path file;
+        try {
+            file = Files.createTempFile("kyc-upload-", ".part");
+        } catch (IOException ex) {
+            throw new FileProcessingException(FILE_READ_FAILURE, ex);
+        }
+        long written = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[SPOOL_BUFFER_SIZE];
+            // One byte more than expected is enough to tell that the chunk is too long.
+            long remaining = length + 1;
+            int read;
+            while (remaining > 0 && (read = chunk.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                out.write(buffer, 0, read);
+                written += read;
+                remaining -= read;
+            }
+        } catch (IOException ex) {
+            deleteQuietly(file);
+            throw new FileProcessingException(FILE_READ_FAILURE, ex);
+        }
+        if (written != length) {
+            deleteQuietly(file);
+            throw new IllegalArgumentException(UPLOAD_CHUNK_SIZE);
+        }
+        return file;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Failed to delete spooled chunk {}", file, ex);
+        }
+    }
+
+    public record OpenedUpload(String objectName, String multipartUploadId) {
+    }
+}
@@ -0,0 +1,86 @@
+package ir.ipaam.kycservices.infrastructure.upload;
+
+import ir.ipaam.kycservices.infrastructure.service.MinioStorageService;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * A completed resumable upload, handed to the services that take a {@link MultipartFile} in place of a part of a
+ * multipart request. The content is read from object storage when first asked for.
+ */
+public class StoredUploadFile implements MultipartFile {
+
+    private final MinioStorageService storageService;
+    private final String name;
+    private final String storagePath;
+    private final String filename;
+    private final String contentType;
+    private final long size;
+    private byte[] content;
+
+    public StoredUploadFile(MinioStorageService storageService,
+                            String name,
+                            String storagePath,
+                            String filename,
+                            String contentType,
+                            long size) {
+        this.storageService = storageService;
+        this.name = name;
+        this.storagePath = storagePath;
+        this.filename = filename;
+        this.contentType = contentType;
+        this.size = size;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return filename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        if (content == null) {
+            try {
+                content = storageService.download(storagePath);
+            } catch (RuntimeException ex) {
+                throw new IOException("Failed to read upload " + storagePath + " from storage", ex);
+            }
+        }
+        return content;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new ByteArrayInputStream(getBytes());
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.write(dest.toPath(), getBytes());
+    }
+}
@@ -0,0 +1,43 @@
+package ir.ipaam.kycservices.infrastructure.upload;
+
+import ir.ipaam.kycservices.infrastructure.upload.UploadSessionStore.UploadSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Discards expired upload sessions and the data they wrote every {@code kyc.upload.resumable.purge-interval}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UploadSessionPurgeJob {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final UploadSessionStore uploadSessionStore;
+    private final ResumableUploadStorage resumableUploadStorage;
+
+    @Scheduled(fixedDelayString = "${kyc.upload.resumable.purge-interval:15m}",
+            initialDelayString = "${kyc.upload.resumable.purge-interval:15m}")
+    public void purge() {
+        try {
+            List<UploadSession> expired;
+            int purged = 0;
+            do {
+                expired = uploadSessionStore.findExpired(BATCH_SIZE);
+                for (UploadSession session : expired) {
+                    resumableUploadStorage.discard(session);
+                    uploadSessionStore.delete(session.uploadId());
+                    purged++;
+                }
+            } while (expired.size() == BATCH_SIZE);
+            log.debug("Purged {} expired upload sessions", purged);
+        } catch (RuntimeException ex) {
+            log.error("Purging upload sessions failed", ex);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ir.ipaam.kycservices.infrastructure.upload;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps the resumable uploads in progress in {@code kyc_upload_session}, so a client can resume against any instance.
+ * The offset only moves forward through {@link #advance}, which succeeds for one of several requests racing to
+ * append the same chunk. A session expires {@code kyc.upload.resumable.ttl} after its last chunk.
+ */
+@Component
+public class UploadSessionStore {
+
+    private static final String TABLE = "kyc_upload_session";
+    private static final String COLUMNS = "upload_id, process_instance_id, document_type, filename, content_type, "
+            + "total_size, chunk_size, upload_offset, object_name, multipart_upload_id, assembled, expires_at";
+    private static final RowMapper<UploadSession> ROW_MAPPER = (rs, rowNum) -> new UploadSession(
+            rs.getString("upload_id"),
+            rs.getString("process_instance_id"),
+            rs.getString("document_type"),
+            rs.getString("filename"),
+            rs.getString("content_type"),
+            rs.getLong("total_size"),
+            rs.getLong("chunk_size"),
+            rs.getLong("upload_offset"),
+            rs.getString("object_name"),
+            rs.getString("multipart_upload_id"),
+            rs.getBoolean("assembled"),
+            rs.getTimestamp("expires_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+
+    public UploadSessionStore(JdbcTemplate jdbcTemplate,
+                              @Value("${kyc.upload.resumable.ttl:24h}") Duration ttl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = ttl;
+    }
+
+    /**
+     * @return the stored session, with its expiry
+     */
+    public UploadSession create(UploadSession session) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(ttl);
+        jdbcTemplate.update("INSERT INTO " + TABLE + " (" + COLUMNS + ", created_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                session.uploadId(), session.processInstanceId(), session.documentType(), session.filename(),
+                session.contentType(), session.size(), session.chunkSize(), session.offset(), session.objectName(),
+                session.multipartUploadId(), session.assembled(), Timestamp.valueOf(expiresAt),
+                Timestamp.valueOf(now));
+        return session.withExpiry(expiresAt);
+    }
+
+    /**
+     * @return the live session of {@code uploadId}, if any
+     */
+    public Optional<UploadSession> find(String uploadId) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + TABLE + " WHERE upload_id = ? AND expires_at >= ?",
+                        ROW_MAPPER, uploadId, Timestamp.valueOf(LocalDateTime.now()))
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Moves the offset of a session from {@code expectedOffset} to {@code newOffset} and extends its expiry.
+     *
+     * @return false when the offset was no longer {@code expectedOffset}
+     */
+    public boolean advance(String uploadId, long expectedOffset, long newOffset) {
+        return jdbcTemplate.update("UPDATE " + TABLE + " SET upload_offset = ?, expires_at = ? "
+                        + "WHERE upload_id = ? AND upload_offset = ?",
+                newOffset, Timestamp.valueOf(LocalDateTime.now().plus(ttl)), uploadId, expectedOffset) == 1;
+    }
+
+    /**
+     * Records that the parts of a session were assembled into its object.
+     */
+    public void markAssembled(String uploadId) {
+        jdbcTemplate.update("UPDATE " + TABLE + " SET assembled = TRUE WHERE upload_id = ?", uploadId);
+    }
+
+    public void delete(String uploadId) {
+        jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE upload_id = ?", uploadId);
+    }
+
+    /**
+     * @return up to {@code limit} expired sessions, oldest first
+     */
+    public List<UploadSession> findExpired(int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM " + TABLE + " WHERE expires_at < ? "
+                        + "ORDER BY expires_at LIMIT ?",
+                ROW_MAPPER, Timestamp.valueOf(LocalDateTime.now()), limit);
+    }
+
+    public record UploadSession(String uploadId,
+                                String processInstanceId,
+                                String documentType,
+                                String filename,
+                                String contentType,
+                                long size,
+                                long chunkSize,
+                                long offset,
+                                String objectName,
+                                String multipartUploadId,
+                                boolean assembled,
+                                LocalDateTime expiresAt) {
+
+        public boolean isComplete() {
+            return offset == size;
+        }
+
+        /**
+         * @return the length the chunk starting at the current offset must have
+         */
+        public long nextChunkLength() {
+            return Math.min(chunkSize, size - offset);
+        }
+
+        private UploadSession withExpiry(LocalDateTime expiry) {
+            return new UploadSession(uploadId, processInstanceId, documentType, filename, contentType, size,
+                    chunkSize, offset, objectName, multipartUploadId, assembled, expiry);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+-- ONE-OFF, run by hand: converts an event store the default profile's JPA engine has
+-- already written to, before the service is first started with the jdbc-event-store
+-- profile. It is not a Flyway migration because it rewrites every stored event and
+-- unlinks their large objects, which belongs in a maintenance window rather than in
+-- an application start. Stop the application before running it, and run it once:
+-- the conversion is one-way and fails on columns that are already BYTEA.
+--
+--  * payload and meta_data move from large objects (oid) to BYTEA, and the old
+--    large objects are unlinked so they no longer leak in pg_largeobject;
+--  * global_index gets its own increment-by-one sequence as column default, because
+--    the JDBC engine leaves the column out of its inserts;
+--  * the time_stamp index used to create tokens at a point in time is added.
+--
+-- The versioned migration db/eventstore/migration/V8__jdbc_event_store.sql, applied at
+-- the next start under the profile, then finds the layout in place. On a database without
+-- events the migration does the whole job and this script is not needed.
+
+BEGIN;
+
+CREATE TEMPORARY TABLE event_store_large_objects ON COMMIT DROP AS
+    SELECT payload AS loid FROM domain_event_entry WHERE payload IS NOT NULL
+    UNION SELECT meta_data FROM domain_event_entry WHERE meta_data IS NOT NULL
+    UNION SELECT payload FROM snapshot_event_entry WHERE payload IS NOT NULL
+    UNION SELECT meta_data FROM snapshot_event_entry WHERE meta_data IS NOT NULL;
+
+ALTER TABLE domain_event_entry
+    ALTER COLUMN payload TYPE BYTEA USING lo_get(payload),
+    ALTER COLUMN meta_data TYPE BYTEA USING lo_get(meta_data);
+
+ALTER TABLE snapshot_event_entry
+    ALTER COLUMN payload TYPE BYTEA USING lo_get(payload),
+    ALTER COLUMN meta_data TYPE BYTEA USING lo_get(meta_data);
+
+SELECT lo_unlink(loid) FROM event_store_large_objects;
+
+CREATE SEQUENCE IF NOT EXISTS domain_event_entry_global_index_seq;
+SELECT setval('domain_event_entry_global_index_seq',
+              (SELECT COALESCE(MAX(global_index), 0) + 1 FROM domain_event_entry), false);
+ALTER TABLE domain_event_entry
+    ALTER COLUMN global_index SET DEFAULT nextval('domain_event_entry_global_index_seq');
+ALTER SEQUENCE domain_event_entry_global_index_seq OWNED BY domain_event_entry.global_index;
+
+-- The JPA schema already carries unique constraints on (aggregate_identifier, sequence_number)
+-- and event_identifier, which serve aggregate loads; tracking-token scans use the primary key.
+-- Only createTokenAt(Instant) lacks an index.
+CREATE INDEX IF NOT EXISTS ix_domain_event_entry_time_stamp
+    ON domain_event_entry (time_stamp);
+
+COMMIT;
+
+ANALYZE domain_event_entry;
+ANALYZE snapshot_event_entry;
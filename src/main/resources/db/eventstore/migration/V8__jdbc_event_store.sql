@@ -0,0 +1,45 @@
+-- Event store layout of the jdbc-event-store profile, applied only under that profile
+-- (application-jdbc-event-store.properties adds this location to spring.flyway.locations).
+--
+--  * payload and meta_data become BYTEA. Only empty tables are converted here; a store
+--    the JPA engine already wrote to must first be converted by the one-off
+--    db/eventstore/migrate-jpa-to-jdbc.sql, after which this step is a no-op;
+--  * global_index gets its own increment-by-one sequence as column default, because
+--    the JDBC engine leaves the column out of its inserts;
+--  * the time_stamp index used to create tokens at a point in time is added.
+--
+-- Every statement is guarded, so the migration also runs over a store converted by hand.
+
+DO $$
+BEGIN
+    IF (SELECT udt_name FROM information_schema.columns
+        WHERE table_schema = current_schema()
+          AND table_name = 'domain_event_entry'
+          AND column_name = 'payload') = 'oid' THEN
+        IF EXISTS (SELECT 1 FROM domain_event_entry) OR EXISTS (SELECT 1 FROM snapshot_event_entry) THEN
+            RAISE EXCEPTION 'domain_event_entry holds large-object payloads of the JPA engine; '
+                'run db/eventstore/migrate-jpa-to-jdbc.sql before starting with the jdbc-event-store profile';
+        END IF;
+        ALTER TABLE domain_event_entry
+            ALTER COLUMN payload TYPE BYTEA USING NULL,
+            ALTER COLUMN meta_data TYPE BYTEA USING NULL;
+        ALTER TABLE snapshot_event_entry
+            ALTER COLUMN payload TYPE BYTEA USING NULL,
+            ALTER COLUMN meta_data TYPE BYTEA USING NULL;
+    END IF;
+END $$;
+
+CREATE SEQUENCE IF NOT EXISTS domain_event_entry_global_index_seq;
+SELECT setval('domain_event_entry_global_index_seq',
+              GREATEST((SELECT COALESCE(MAX(global_index), 0) + 1 FROM domain_event_entry),
+                       (SELECT CASE WHEN is_called THEN last_value + 1 ELSE last_value END
+                        FROM domain_event_entry_global_index_seq)), false);
+ALTER TABLE domain_event_entry
+    ALTER COLUMN global_index SET DEFAULT nextval('domain_event_entry_global_index_seq');
+ALTER SEQUENCE domain_event_entry_global_index_seq OWNED BY domain_event_entry.global_index;
+
+-- The baseline schema already carries unique constraints on (aggregate_identifier, sequence_number)
+-- and event_identifier, which serve aggregate loads; tracking-token scans use the primary key.
+-- Only createTokenAt(Instant) lacks an index.
+CREATE INDEX IF NOT EXISTS ix_domain_event_entry_time_stamp
+    ON domain_event_entry (time_stamp);
@@ -0,0 +1,213 @@
+-- Baseline of the schema previously created by spring.jpa.hibernate.ddl-auto=update:
+-- the KYC read model plus the tables of Axon's JPA event store, token store, saga
+-- store and dead-letter queue. Every statement is guarded so the script is a no-op
+-- on databases Hibernate already created; Flyway baselines those at version 0.
+
+CREATE SEQUENCE IF NOT EXISTS address_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS association_value_entry_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS consent_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS customer_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS document_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS domain_event_entry_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS process_instance_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS step_status_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS kyc_customer (
+    birth_date                    DATE,
+    card_expiration_date          DATE,
+    has_new_national_card         BOOLEAN,
+    id                            BIGINT       NOT NULL,
+    card_barcode                  VARCHAR(255),
+    card_ocr_back_track_id        VARCHAR(255),
+    card_ocr_front_track_id       VARCHAR(255),
+    card_serial_number            VARCHAR(255),
+    email                         VARCHAR(255),
+    father_name                   VARCHAR(255),
+    first_name_en                 VARCHAR(255),
+    first_name_fa                 VARCHAR(255),
+    last_name_en                  VARCHAR(255),
+    last_name_fa                  VARCHAR(255),
+    mobile                        VARCHAR(255),
+    national_card_tracking_number VARCHAR(255),
+    national_code                 VARCHAR(255) NOT NULL UNIQUE,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS kyc_process_instance (
+    completed_at        TIMESTAMP(6),
+    customer_id         BIGINT,
+    id                  BIGINT NOT NULL,
+    started_at          TIMESTAMP(6),
+    camunda_instance_id VARCHAR(255),
+    status              VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS kyc_step_status (
+    id          BIGINT NOT NULL,
+    process_id  BIGINT,
+    timestamp   TIMESTAMP(6),
+    error_cause VARCHAR(255),
+    state       VARCHAR(255) CHECK (state IN ('STARTED', 'PASSED', 'FAILED', 'CANCELLED')),
+    step_name   VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS kyc_document (
+    encrypted           BOOLEAN NOT NULL,
+    verified            BOOLEAN NOT NULL,
+    id                  BIGINT  NOT NULL,
+    process_id          BIGINT,
+    encryption_iv       VARCHAR(255),
+    hash                VARCHAR(255),
+    inquiry_document_id VARCHAR(255),
+    storage_path        VARCHAR(255),
+    type                VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS kyc_address (
+    zip_valid  BOOLEAN NOT NULL,
+    id         BIGINT  NOT NULL,
+    process_id BIGINT,
+    address    VARCHAR(255),
+    zip_code   VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS kyc_consent (
+    accepted      BOOLEAN NOT NULL,
+    accepted_at   TIMESTAMP(6),
+    id            BIGINT  NOT NULL,
+    process_id    BIGINT,
+    terms_version VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS kyc_process_deployment (
+    process_version INTEGER NOT NULL,
+    deployed_at     TIMESTAMP(6),
+    deployment_key  BIGINT  NOT NULL,
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    file_hash       VARCHAR(255),
+    process_id      VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+-- Foreign keys are matched by column rather than by name: Hibernate generated hashed
+-- names, while a projection rebuild recreates them as fk_<table>_<column>.
+DO $$
+DECLARE
+    fk RECORD;
+BEGIN
+    FOR fk IN SELECT * FROM (VALUES
+            ('kyc_process_instance', 'customer_id', 'kyc_customer'),
+            ('kyc_step_status', 'process_id', 'kyc_process_instance'),
+            ('kyc_document', 'process_id', 'kyc_process_instance'),
+            ('kyc_address', 'process_id', 'kyc_process_instance'),
+            ('kyc_consent', 'process_id', 'kyc_process_instance')) AS t(tbl, col, ref)
+    LOOP
+        IF NOT EXISTS (
+                SELECT 1
+                FROM pg_constraint c
+                JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey)
+                WHERE c.contype = 'f'
+                  AND c.conrelid = fk.tbl::regclass
+                  AND a.attname = fk.col) THEN
+            EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I FOREIGN KEY (%I) REFERENCES %I (id)',
+                           fk.tbl, 'fk_' || fk.tbl || '_' || fk.col, fk.col, fk.ref);
+        END IF;
+    END LOOP;
+END $$;
+
+CREATE TABLE IF NOT EXISTS domain_event_entry (
+    global_index         BIGINT       NOT NULL,
+    sequence_number      BIGINT       NOT NULL,
+    aggregate_identifier VARCHAR(255) NOT NULL,
+    event_identifier     VARCHAR(255) NOT NULL UNIQUE,
+    payload_revision     VARCHAR(255),
+    payload_type         VARCHAR(255) NOT NULL,
+    time_stamp           VARCHAR(255) NOT NULL,
+    type                 VARCHAR(255),
+    meta_data            OID,
+    payload              OID          NOT NULL,
+    PRIMARY KEY (global_index),
+    UNIQUE (aggregate_identifier, sequence_number)
+);
+
+CREATE TABLE IF NOT EXISTS snapshot_event_entry (
+    sequence_number      BIGINT       NOT NULL,
+    aggregate_identifier VARCHAR(255) NOT NULL,
+    event_identifier     VARCHAR(255) NOT NULL UNIQUE,
+    payload_revision     VARCHAR(255),
+    payload_type         VARCHAR(255) NOT NULL,
+    time_stamp           VARCHAR(255) NOT NULL,
+    type                 VARCHAR(255) NOT NULL,
+    meta_data            OID,
+    payload              OID          NOT NULL,
+    PRIMARY KEY (sequence_number, aggregate_identifier, type)
+);
+
+CREATE TABLE IF NOT EXISTS token_entry (
+    segment        INTEGER      NOT NULL,
+    owner          VARCHAR(255),
+    processor_name VARCHAR(255) NOT NULL,
+    timestamp      VARCHAR(255) NOT NULL,
+    token_type     VARCHAR(255),
+    token          OID,
+    PRIMARY KEY (segment, processor_name)
+);
+
+CREATE TABLE IF NOT EXISTS saga_entry (
+    revision        VARCHAR(255),
+    saga_id         VARCHAR(255) NOT NULL,
+    saga_type       VARCHAR(255),
+    serialized_saga OID,
+    PRIMARY KEY (saga_id)
+);
+
+CREATE TABLE IF NOT EXISTS association_value_entry (
+    id                BIGINT       NOT NULL,
+    association_key   VARCHAR(255) NOT NULL,
+    association_value VARCHAR(255),
+    saga_id           VARCHAR(255) NOT NULL,
+    saga_type         VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS IDXk45eqnxkgd8hpdn6xixn8sgft
+    ON association_value_entry (saga_type, association_key, association_value);
+CREATE INDEX IF NOT EXISTS IDXgv5k1v2mh6frxuy5c0hgbau94
+    ON association_value_entry (saga_id, saga_type);
+
+CREATE TABLE IF NOT EXISTS dead_letter_entry (
+    enqueued_at          TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    last_touched         TIMESTAMP(6) WITH TIME ZONE,
+    processing_started   TIMESTAMP(6) WITH TIME ZONE,
+    sequence_index       BIGINT        NOT NULL,
+    sequence_number      BIGINT,
+    cause_message        VARCHAR(1023),
+    aggregate_identifier VARCHAR(255),
+    cause_type           VARCHAR(255),
+    dead_letter_id       VARCHAR(255)  NOT NULL,
+    event_identifier     VARCHAR(255)  NOT NULL,
+    message_type         VARCHAR(255)  NOT NULL,
+    payload_revision     VARCHAR(255),
+    payload_type         VARCHAR(255)  NOT NULL,
+    processing_group     VARCHAR(255)  NOT NULL,
+    sequence_identifier  VARCHAR(255)  NOT NULL,
+    time_stamp           VARCHAR(255)  NOT NULL,
+    token_type           VARCHAR(255),
+    type                 VARCHAR(255),
+    diagnostics          OID,
+    meta_data            OID,
+    payload              OID           NOT NULL,
+    token                OID,
+    PRIMARY KEY (dead_letter_id),
+    UNIQUE (processing_group, sequence_identifier, sequence_index)
+);
+
+CREATE INDEX IF NOT EXISTS IDXe67wcx5fiq9hl4y4qkhlcj9cg
+    ON dead_letter_entry (processing_group);
+CREATE INDEX IF NOT EXISTS IDXrwucpgs6sn93ldgoeh2q9k6bn
+    ON dead_letter_entry (processing_group, sequence_identifier);
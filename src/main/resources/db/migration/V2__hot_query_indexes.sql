@@ -0,0 +1,57 @@
+-- Secondary indexes for the repository lookups on the hot path. Hibernate's ddl-auto
+-- never created any of these, so every lookup below was a sequential scan.
+
+-- ddl-auto never enforced one row per camunda_instance_id, so a KycProcessStartedEvent
+-- handled twice left duplicates (on which findByCamundaInstanceId already failed). Keep the
+-- first row of each instance, point the rows of its duplicates at it and drop the duplicates,
+-- so the unique index below can be built.
+CREATE TEMPORARY TABLE duplicate_process_instance ON COMMIT DROP AS
+SELECT p.id AS duplicate_id, kept.id AS kept_id
+FROM kyc_process_instance p
+JOIN (SELECT camunda_instance_id, MIN(id) AS id
+      FROM kyc_process_instance
+      WHERE camunda_instance_id IS NOT NULL
+      GROUP BY camunda_instance_id
+      HAVING COUNT(*) > 1) kept
+    ON kept.camunda_instance_id = p.camunda_instance_id AND p.id <> kept.id;
+
+UPDATE kyc_step_status t SET process_id = d.kept_id
+FROM duplicate_process_instance d WHERE t.process_id = d.duplicate_id;
+UPDATE kyc_document t SET process_id = d.kept_id
+FROM duplicate_process_instance d WHERE t.process_id = d.duplicate_id;
+UPDATE kyc_address t SET process_id = d.kept_id
+FROM duplicate_process_instance d WHERE t.process_id = d.duplicate_id;
+UPDATE kyc_consent t SET process_id = d.kept_id
+FROM duplicate_process_instance d WHERE t.process_id = d.duplicate_id;
+DELETE FROM kyc_process_instance p
+USING duplicate_process_instance d WHERE p.id = d.duplicate_id;
+
+-- KycProcessInstanceRepository.findByCamundaInstanceId; also the join side of every
+-- Process_CamundaInstanceId derived query. One row per KycProcessStartedEvent.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_kyc_process_instance_camunda_instance_id
+    ON kyc_process_instance (camunda_instance_id);
+
+-- KycProcessInstanceRepository.findTopByCustomer_NationalCodeOrderByStartedAtDesc
+-- (kyc_customer.national_code is already unique) and the document lookups by national code.
+CREATE INDEX IF NOT EXISTS ix_kyc_process_instance_customer_started_at
+    ON kyc_process_instance (customer_id, started_at DESC);
+
+-- KycStepStatusRepository.existsByProcess_CamundaInstanceIdAndStepNameIgnoreCase (narrowed by process_id)
+CREATE INDEX IF NOT EXISTS ix_kyc_step_status_process_step_name
+    ON kyc_step_status (process_id, step_name);
+
+-- AddressVerificationRepository.findTopByProcess_CamundaInstanceIdOrderByIdDesc
+CREATE INDEX IF NOT EXISTS ix_kyc_address_process_id
+    ON kyc_address (process_id, id DESC);
+
+-- ConsentRepository.findByProcessAndAccepted
+CREATE INDEX IF NOT EXISTS ix_kyc_consent_process_accepted
+    ON kyc_consent (process_id, accepted);
+
+-- DocumentRepository.findTopByTypeAndProcess_Customer_NationalCode[AndVerifiedTrue]OrderByIdDesc
+CREATE INDEX IF NOT EXISTS ix_kyc_document_process_type
+    ON kyc_document (process_id, type, id DESC);
+
+-- ProcessDeploymentRepository.findByFileHash
+CREATE INDEX IF NOT EXISTS ix_kyc_process_deployment_file_hash
+    ON kyc_process_deployment (file_hash);
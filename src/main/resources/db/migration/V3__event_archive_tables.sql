@@ -0,0 +1,26 @@
+-- Tables used by EventArchiveService, previously created at startup.
+
+CREATE TABLE IF NOT EXISTS domain_event_archive (
+    global_index         BIGINT PRIMARY KEY,
+    event_identifier     VARCHAR(255) NOT NULL,
+    aggregate_identifier VARCHAR(255) NOT NULL,
+    sequence_number      BIGINT       NOT NULL,
+    type                 VARCHAR(255),
+    payload_type         VARCHAR(255) NOT NULL,
+    payload_revision     VARCHAR(255),
+    payload              BYTEA        NOT NULL,
+    meta_data            BYTEA,
+    time_stamp           VARCHAR(255) NOT NULL,
+    archived_at          TIMESTAMP    NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_domain_event_archive_aggregate_seq
+    ON domain_event_archive (aggregate_identifier, sequence_number);
+
+CREATE TABLE IF NOT EXISTS archived_aggregate (
+    aggregate_identifier VARCHAR(255) PRIMARY KEY,
+    final_status         VARCHAR(255),
+    completed_at         TIMESTAMP,
+    event_count          INTEGER   NOT NULL,
+    archived_at          TIMESTAMP NOT NULL
+);
@@ -0,0 +1,27 @@
+-- Latest verified document per customer and type, maintained by the projection
+-- (DocumentCatalog) so downloads are a primary-key lookup.
+
+CREATE TABLE IF NOT EXISTS kyc_document_catalog (
+    national_code VARCHAR(255) NOT NULL,
+    type          VARCHAR(255) NOT NULL,
+    document_id   BIGINT,
+    storage_path  VARCHAR(255),
+    hash          VARCHAR(255),
+    encrypted     BOOLEAN      NOT NULL,
+    encryption_iv VARCHAR(255),
+    size          BIGINT,
+    updated_at    TIMESTAMP(6),
+    PRIMARY KEY (national_code, type)
+);
+
+-- Backfill from the documents stored so far; their sizes were never recorded.
+INSERT INTO kyc_document_catalog (national_code, type, document_id, storage_path, hash, encrypted,
+                                  encryption_iv, size, updated_at)
+SELECT DISTINCT ON (c.national_code, d.type)
+       c.national_code, d.type, d.id, d.storage_path, d.hash, d.encrypted, d.encryption_iv, NULL, now()
+FROM kyc_document d
+JOIN kyc_process_instance p ON p.id = d.process_id
+JOIN kyc_customer c ON c.id = p.customer_id
+WHERE d.verified AND d.type IS NOT NULL
+ORDER BY c.national_code, d.type, d.id DESC
+ON CONFLICT (national_code, type) DO NOTHING;
@@ -0,0 +1,18 @@
+-- First response per Idempotency-Key, replayed to retries of the same request (IdempotencyFilter). Keys are unique
+-- per scope, the process (or client) the request addresses, so two clients that pick the same key neither block nor
+-- receive each other's responses.
+
+CREATE TABLE IF NOT EXISTS kyc_idempotency_record (
+    scope            VARCHAR(255) NOT NULL,
+    idempotency_key  VARCHAR(255) NOT NULL,
+    request_hash     VARCHAR(64)  NOT NULL,
+    claim_token      VARCHAR(36)  NOT NULL,
+    response_status  INTEGER,
+    response_headers TEXT,
+    response_body    BYTEA,
+    created_at       TIMESTAMP(6) NOT NULL,
+    expires_at       TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (scope, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS ix_kyc_idempotency_record_expires_at ON kyc_idempotency_record (expires_at);
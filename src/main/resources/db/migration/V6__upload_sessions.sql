@@ -0,0 +1,19 @@
+-- Resumable uploads in progress (ResumableUploadService) and the MinIO multipart upload each one streams into.
+
+CREATE TABLE IF NOT EXISTS kyc_upload_session (
+    upload_id           VARCHAR(36)   NOT NULL PRIMARY KEY,
+    process_instance_id VARCHAR(255)  NOT NULL,
+    document_type       VARCHAR(32)   NOT NULL,
+    filename            VARCHAR(255)  NOT NULL,
+    content_type        VARCHAR(255),
+    total_size          BIGINT        NOT NULL,
+    chunk_size          BIGINT        NOT NULL,
+    upload_offset       BIGINT        NOT NULL,
+    object_name         VARCHAR(512)  NOT NULL,
+    multipart_upload_id VARCHAR(1024) NOT NULL,
+    assembled           BOOLEAN       NOT NULL DEFAULT FALSE,
+    created_at          TIMESTAMP(6)  NOT NULL,
+    expires_at          TIMESTAMP(6)  NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS ix_kyc_upload_session_expires_at ON kyc_upload_session (expires_at);
@@ -0,0 +1,8 @@
+-- Version of the projected KYC status of a customer, served as the ETag of POST /kyc/status. Every writer of the
+-- status moves it to a new value of the sequence, so values are never reused, not even for a row that a projection
+-- rebuild recreated.
+
+CREATE SEQUENCE IF NOT EXISTS kyc_status_version_seq;
+
+ALTER TABLE kyc_customer
+    ADD COLUMN IF NOT EXISTS status_version BIGINT NOT NULL DEFAULT nextval('kyc_status_version_seq');
@@ -0,0 +1,74 @@
+package ir.ipaam.kycservices.application.api.controller;
+
+import ir.ipaam.kycservices.domain.event.CardDocumentsUploadedEvent;
+import ir.ipaam.kycservices.domain.event.KycProcessStartedEvent;
+import ir.ipaam.kycservices.domain.model.value.DocumentPayloadDescriptor;
+import ir.ipaam.kycservices.infrastructure.eventstore.EventArchiveService;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.DomainEventStream;
+import org.axonframework.eventsourcing.eventstore.EventStore;
+import org.axonframework.serialization.Serializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class EventArchiveAdminControllerTest {
+
+    private static final String NATIONAL_CODE = "0012345679";
+
+    private EventStore eventStore;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(any(String.class), eq(Boolean.class), eq("p-1"))).thenReturn(false);
+        eventStore = mock(EventStore.class);
+        EventArchiveService eventArchiveService = new EventArchiveService(jdbcTemplate,
+                mock(PlatformTransactionManager.class), eventStore, mock(Serializer.class), 90, 100);
+        mockMvc = MockMvcBuilders.standaloneSetup(new EventArchiveAdminController(eventArchiveService)).build();
+    }
+
+    @Test
+    void returnsFileMetadataOfDocumentEventsWithoutTheirContent() throws Exception {
+        CardDocumentsUploadedEvent upload = new CardDocumentsUploadedEvent("p-1", NATIONAL_CODE,
+                new DocumentPayloadDescriptor(new byte[]{1, 2, 3}, "front.jpg"),
+                new DocumentPayloadDescriptor(new byte[]{4, 5}, "back.jpg"),
+                LocalDateTime.now());
+        when(eventStore.readEvents("p-1")).thenReturn(DomainEventStream.of(
+                new GenericDomainEventMessage<>("KycProcessAggregate", "p-1", 0,
+                        new KycProcessStartedEvent("p-1", NATIONAL_CODE, LocalDateTime.now())),
+                new GenericDomainEventMessage<>("KycProcessAggregate", "p-1", 1, upload)));
+
+        mockMvc.perform(get("/kyc/admin/archive/p-1/events"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].payloadType").value(KycProcessStartedEvent.class.getName()))
+                .andExpect(jsonPath("$[0].files", hasSize(0)))
+                .andExpect(jsonPath("$[1].sequenceNumber").value(1))
+                .andExpect(jsonPath("$[1].payloadType").value(CardDocumentsUploadedEvent.class.getName()))
+                .andExpect(jsonPath("$[1].files[0].name").value("front.jpg"))
+                .andExpect(jsonPath("$[1].files[0].size").value(3))
+                .andExpect(jsonPath("$[1].files[1].name").value("back.jpg"))
+                .andExpect(jsonPath("$[1].files[1].size").value(2))
+                .andExpect(content().string(not(containsString(NATIONAL_CODE))))
+                .andExpect(jsonPath("$[1].payload").doesNotExist());
+    }
+}
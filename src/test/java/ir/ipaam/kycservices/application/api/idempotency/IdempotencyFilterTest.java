@@ -0,0 +1,232 @@
+package ir.ipaam.kycservices.application.api.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ir.ipaam.kycservices.application.api.error.IdempotencyKeyReusedException;
+import ir.ipaam.kycservices.infrastructure.idempotency.IdempotencyStore;
+import ir.ipaam.kycservices.infrastructure.idempotency.IdempotencyStore.IdempotencyRecord;
+import jakarta.servlet.Servlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartHttpServletRequest;
+import org.springframework.mock.web.MockPart;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class IdempotencyFilterTest {
+
+    private static final String KEY = "7f1d3c1e-upload";
+    private static final String CONSENT_BODY =
+            "{\"processInstanceId\":\"p-1\",\"termsVersion\":\"v1\",\"accepted\":true}";
+    private static final String JSON_RESPONSE = "{\"status\":\"CONSENT_ACCEPTED\"}";
+
+    private IdempotencyStore idempotencyStore;
+    private HandlerExceptionResolver handlerExceptionResolver;
+    private IdempotencyFilter filter;
+    private AtomicInteger controllerCalls;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyStore = mock(IdempotencyStore.class);
+        handlerExceptionResolver = mock(HandlerExceptionResolver.class);
+        when(handlerExceptionResolver.resolveException(any(), any(), isNull(), any())).thenReturn(new ModelAndView());
+        filter = new IdempotencyFilter(idempotencyStore, new ObjectMapper(), handlerExceptionResolver,
+                new SimpleMeterRegistry(), DataSize.ofBytes(128), DataSize.ofBytes(64));
+        controllerCalls = new AtomicInteger();
+    }
+
+    @Test
+    void storesTheJsonResponseOfTheFirstRequestUnderTheProcess() throws Exception {
+        when(idempotencyStore.claim(eq("p-1"), eq(KEY), anyString())).thenReturn(Optional.of("claim"));
+
+        MockHttpServletResponse response = run(jsonRequest("/kyc/consent", CONSENT_BODY),
+                controller(MediaType.APPLICATION_JSON_VALUE, JSON_RESPONSE));
+
+        assertThat(response.getContentAsString()).isEqualTo(JSON_RESPONSE);
+        verify(idempotencyStore).complete(eq("p-1"), eq(KEY), eq("claim"), eq(200), anyString(),
+                eq(JSON_RESPONSE.getBytes(StandardCharsets.UTF_8)));
+        verify(idempotencyStore, never()).release(any(), any(), any());
+    }
+
+    @Test
+    void replaysTheStoredResponseWithoutRunningTheController() throws Exception {
+        AtomicReference<String> requestHash = new AtomicReference<>();
+        when(idempotencyStore.claim(eq("p-1"), eq(KEY), anyString())).thenAnswer(invocation -> {
+            requestHash.set(invocation.getArgument(2));
+            return Optional.empty();
+        });
+        when(idempotencyStore.find("p-1", KEY)).thenAnswer(invocation -> Optional.of(new IdempotencyRecord(
+                requestHash.get(), 201, "{\"Content-Type\":[\"application/json\"]}",
+                JSON_RESPONSE.getBytes(StandardCharsets.UTF_8))));
+
+        MockHttpServletResponse response = run(jsonRequest("/kyc/consent", CONSENT_BODY),
+                controller(MediaType.APPLICATION_JSON_VALUE, JSON_RESPONSE));
+
+        assertThat(controllerCalls).hasValue(0);
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(response.getHeader(IdempotencyFilter.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(response.getContentAsString()).isEqualTo(JSON_RESPONSE);
+    }
+
+    @Test
+    void rejectsTheKeyForADifferentRequest() throws Exception {
+        when(idempotencyStore.claim(eq("p-1"), eq(KEY), anyString())).thenReturn(Optional.empty());
+        when(idempotencyStore.find("p-1", KEY)).thenReturn(Optional.of(new IdempotencyRecord(
+                "other-hash", 200, null, null)));
+
+        run(jsonRequest("/kyc/consent", CONSENT_BODY), controller(MediaType.APPLICATION_JSON_VALUE, JSON_RESPONSE));
+
+        assertThat(controllerCalls).hasValue(0);
+        verify(handlerExceptionResolver).resolveException(any(), any(), isNull(),
+                any(IdempotencyKeyReusedException.class));
+    }
+
+    @Test
+    void scopesMultipartUploadsByTheirProcessInstanceIdPart() throws Exception {
+        when(idempotencyStore.claim(eq("p-2"), eq(KEY), anyString())).thenReturn(Optional.of("claim"));
+        MockMultipartHttpServletRequest request = new MockMultipartHttpServletRequest();
+        request.setRequestURI("/kyc/selfie");
+        request.setContentType("multipart/form-data; boundary=x");
+        request.addHeader(IdempotencyFilter.HEADER, KEY);
+        MockPart selfie = new MockPart("selfie", "selfie.jpg", new byte[]{1, 2, 3});
+        request.addPart(selfie);
+        request.addPart(new MockPart("processInstanceId", "p-2".getBytes(StandardCharsets.UTF_8)));
+
+        run(request, controller(MediaType.APPLICATION_JSON_VALUE, JSON_RESPONSE));
+
+        assertThat(controllerCalls).hasValue(1);
+        verify(idempotencyStore).complete(eq("p-2"), eq(KEY), eq("claim"), eq(200), anyString(), any());
+    }
+
+    @Test
+    void scopesRequestsWithoutProcessToTheClientAddress() throws Exception {
+        when(idempotencyStore.claim(eq("client 10.1.2.3"), eq(KEY), anyString())).thenReturn(Optional.of("claim"));
+        MockHttpServletRequest request = jsonRequest("/kyc/start", "{}");
+        request.setRemoteAddr("10.1.2.3");
+
+        run(request, controller(MediaType.APPLICATION_JSON_VALUE, JSON_RESPONSE));
+
+        verify(idempotencyStore).complete(eq("client 10.1.2.3"), eq(KEY), eq("claim"), eq(200), anyString(), any());
+    }
+
+    @Test
+    void skipsReadsEvenWithAKey() throws Exception {
+        run(jsonRequest("/kyc/status", "{\"nationalCode\":\"0012345679\"}"),
+                controller(MediaType.APPLICATION_JSON_VALUE, JSON_RESPONSE));
+        run(jsonRequest("/kyc/documents/latest", "{\"processInstanceId\":\"p-1\"}"),
+                controller(MediaType.IMAGE_JPEG_VALUE, "document"));
+
+        assertThat(controllerCalls).hasValue(2);
+        verifyNoInteractions(idempotencyStore);
+    }
+
+    @Test
+    void skipsRequestsWithoutKeyAndUploadChunks() throws Exception {
+        MockHttpServletRequest withoutKey = jsonRequest("/kyc/consent", CONSENT_BODY);
+        withoutKey.removeHeader(IdempotencyFilter.HEADER);
+        MockHttpServletRequest chunk = new MockHttpServletRequest("PATCH", "/kyc/uploads/u-1");
+        chunk.addHeader(IdempotencyFilter.HEADER, KEY);
+        chunk.setContentType("application/offset+octet-stream");
+        chunk.setContent(new byte[]{1, 2, 3});
+
+        run(withoutKey, controller(MediaType.APPLICATION_JSON_VALUE, JSON_RESPONSE));
+        run(chunk, controller(MediaType.APPLICATION_JSON_VALUE, JSON_RESPONSE));
+
+        assertThat(controllerCalls).hasValue(2);
+        verifyNoInteractions(idempotencyStore);
+    }
+
+    @Test
+    void releasesTheKeyInsteadOfStoringANonJsonBody() throws Exception {
+        when(idempotencyStore.claim(eq("p-1"), eq(KEY), anyString())).thenReturn(Optional.of("claim"));
+
+        MockHttpServletResponse response = run(jsonRequest("/kyc/consent", CONSENT_BODY),
+                controller(MediaType.IMAGE_JPEG_VALUE, "document"));
+
+        assertThat(response.getContentAsString()).isEqualTo("document");
+        verify(idempotencyStore).release("p-1", KEY, "claim");
+        verify(idempotencyStore, never()).complete(any(), any(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void streamsAndReleasesResponsesOverTheLimit() throws Exception {
+        when(idempotencyStore.claim(eq("p-1"), eq(KEY), anyString())).thenReturn(Optional.of("claim"));
+        String large = "{\"data\":\"" + "x".repeat(100) + "\"}";
+
+        MockHttpServletResponse response = run(jsonRequest("/kyc/consent", CONSENT_BODY),
+                controller(MediaType.APPLICATION_JSON_VALUE, large));
+
+        assertThat(response.getContentAsString()).isEqualTo(large);
+        verify(idempotencyStore).release("p-1", KEY, "claim");
+        verify(idempotencyStore, never()).complete(any(), any(), any(), anyInt(), any(), any());
+    }
+
+    @Test
+    void passesRequestBodiesOverTheLimitThroughUnguarded() throws Exception {
+        String large = "{\"processInstanceId\":\"p-1\",\"termsVersion\":\"" + "v".repeat(200) + "\"}";
+        AtomicReference<String> received = new AtomicReference<>();
+
+        run(jsonRequest("/kyc/consent", large), new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                received.set(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+            }
+        });
+
+        assertThat(received).hasValue(large);
+        verifyNoInteractions(idempotencyStore);
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request, Servlet servlet) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(servlet));
+        return response;
+    }
+
+    private Servlet controller(String contentType, String body) {
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                controllerCalls.incrementAndGet();
+                request.getInputStream().readAllBytes();
+                response.setContentType(contentType);
+                response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        };
+    }
+
+    private static MockHttpServletRequest jsonRequest(String path, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.addHeader(IdempotencyFilter.HEADER, KEY);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
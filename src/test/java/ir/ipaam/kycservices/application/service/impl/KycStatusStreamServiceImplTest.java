@@ -0,0 +1,110 @@
+package ir.ipaam.kycservices.application.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ir.ipaam.kycservices.application.api.dto.KycStatusResponse;
+import ir.ipaam.kycservices.application.api.error.StatusStreamLimitExceededException;
+import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
+import ir.ipaam.kycservices.domain.query.FindKycStatusQuery;
+import ir.ipaam.kycservices.domain.query.KycStatusUpdate;
+import org.axonframework.messaging.responsetypes.ResponseType;
+import org.axonframework.queryhandling.DefaultSubscriptionQueryResult;
+import org.axonframework.queryhandling.QueryGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class KycStatusStreamServiceImplTest {
+
+    private static final String NATIONAL_CODE = "0012345679";
+
+    private QueryGateway queryGateway;
+    private KycStatusStreamServiceImpl streamService;
+
+    @BeforeEach
+    void setUp() {
+        queryGateway = mock(QueryGateway.class);
+        streamService = new KycStatusStreamServiceImpl(queryGateway, new SimpleMeterRegistry(), 10, 1,
+                Duration.ofMinutes(1), Duration.ofMinutes(5));
+    }
+
+    @Test
+    void streamsTheInitialStatusThenStepsUntilATerminalStatus() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        subscribe(process("STARTED"), Flux.just(
+                update("CARD_DOCUMENTS_UPLOADED"),
+                update("completed"),
+                update("AFTER_COMPLETION")), cancelled);
+
+        List<ServerSentEvent<Object>> events = streamService.streamStatus(NATIONAL_CODE).collectList().block();
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("status", "step", "step");
+        assertThat(((KycStatusResponse) events.get(0).data()).status()).isEqualTo("STARTED");
+        assertThat(events.subList(1, events.size())).extracting(event -> ((KycStatusUpdate) event.data()).status())
+                .containsExactly("CARD_DOCUMENTS_UPLOADED", "completed");
+        assertThat(cancelled).isTrue();
+    }
+
+    @Test
+    void endsAfterTheInitialStatusOfAFinishedProcess() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        subscribe(process("Process_Cancelled"), Flux.never(), cancelled);
+
+        List<ServerSentEvent<Object>> events = streamService.streamStatus(NATIONAL_CODE).collectList().block();
+
+        assertThat(events).extracting(ServerSentEvent::event).containsExactly("status");
+        assertThat(cancelled).isTrue();
+    }
+
+    @Test
+    void limitsTheStreamsPerNationalCodeUntilOneEnds() {
+        Sinks.Many<KycStatusUpdate> updates = Sinks.many().multicast().onBackpressureBuffer();
+        subscribe(process("STARTED"), updates.asFlux(), new AtomicBoolean());
+
+        List<ServerSentEvent<Object>> received = new CopyOnWriteArrayList<>();
+        streamService.streamStatus(NATIONAL_CODE).subscribe(received::add);
+
+        assertThatThrownBy(() -> streamService.streamStatus(NATIONAL_CODE))
+                .isInstanceOf(StatusStreamLimitExceededException.class);
+
+        updates.tryEmitNext(update("COMPLETED"));
+        assertThat(received).extracting(ServerSentEvent::event).containsExactly("status", "step");
+
+        subscribe(process("COMPLETED"), Flux.never(), new AtomicBoolean());
+        assertThat(streamService.streamStatus(NATIONAL_CODE).collectList().block()).hasSize(1);
+    }
+
+    private void subscribe(ProcessInstance process, Flux<KycStatusUpdate> updates, AtomicBoolean cancelled) {
+        doReturn(new DefaultSubscriptionQueryResult<>(Mono.just(process), updates, () -> {
+            cancelled.set(true);
+            return true;
+        })).when(queryGateway).subscriptionQuery(eq(new FindKycStatusQuery(NATIONAL_CODE)),
+                any(ResponseType.class), any(ResponseType.class));
+    }
+
+    private static ProcessInstance process(String status) {
+        ProcessInstance process = new ProcessInstance();
+        process.setCamundaInstanceId("p-1");
+        process.setStatus(status);
+        return process;
+    }
+
+    private static KycStatusUpdate update(String status) {
+        return new KycStatusUpdate("p-1", status, status, "PASSED", LocalDateTime.now(), null);
+    }
+}
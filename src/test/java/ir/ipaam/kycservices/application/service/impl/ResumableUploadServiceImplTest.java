@@ -0,0 +1,162 @@
+package ir.ipaam.kycservices.application.service.impl;
+
+import ir.ipaam.kycservices.application.api.error.ResourceNotFoundException;
+import ir.ipaam.kycservices.application.api.error.UploadOffsetConflictException;
+import ir.ipaam.kycservices.application.service.VideoService;
+import ir.ipaam.kycservices.application.service.dto.UploadSessionResponse;
+import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
+import ir.ipaam.kycservices.infrastructure.upload.ResumableUploadStorage;
+import ir.ipaam.kycservices.infrastructure.upload.UploadSessionStore;
+import ir.ipaam.kycservices.infrastructure.upload.UploadSessionStore.UploadSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.UPLOAD_INCOMPLETE;
+import static ir.ipaam.kycservices.application.api.error.ErrorMessageKeys.UPLOAD_OFFSET_MISMATCH;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ResumableUploadServiceImplTest {
+
+    private static final String UPLOAD_ID = "u-1";
+    private static final long CHUNK_SIZE = DataSize.ofMegabytes(5).toBytes();
+    private static final long SIZE = 2 * CHUNK_SIZE + 1024;
+
+    private UploadSessionStore uploadSessionStore;
+    private ResumableUploadStorage resumableUploadStorage;
+    private VideoService videoService;
+    private ResumableUploadServiceImpl service;
+    private final InputStream chunk = new ByteArrayInputStream(new byte[0]);
+
+    @BeforeEach
+    void setUp() {
+        uploadSessionStore = mock(UploadSessionStore.class);
+        resumableUploadStorage = mock(ResumableUploadStorage.class);
+        videoService = mock(VideoService.class);
+        service = new ResumableUploadServiceImpl(mock(KycProcessInstanceRepository.class), uploadSessionStore,
+                resumableUploadStorage, videoService, mock(BookletValidationServiceImpl.class),
+                DataSize.ofBytes(CHUNK_SIZE));
+    }
+
+    @Test
+    void writesTheChunkAtTheCurrentOffsetAsTheNextPartAndAdvances() {
+        UploadSession session = session(CHUNK_SIZE, false);
+        when(uploadSessionStore.find(UPLOAD_ID)).thenReturn(Optional.of(session))
+                .thenReturn(Optional.of(session(2 * CHUNK_SIZE, false)));
+        when(uploadSessionStore.advance(UPLOAD_ID, CHUNK_SIZE, 2 * CHUNK_SIZE)).thenReturn(true);
+
+        UploadSessionResponse response = service.appendChunk(UPLOAD_ID, CHUNK_SIZE, chunk);
+
+        verify(resumableUploadStorage).writeChunk(session, 2, CHUNK_SIZE, chunk);
+        assertThat(response.offset()).isEqualTo(2 * CHUNK_SIZE);
+    }
+
+    @Test
+    void expectsTheRemainderAsTheLastChunk() {
+        UploadSession session = session(2 * CHUNK_SIZE, false);
+        when(uploadSessionStore.find(UPLOAD_ID)).thenReturn(Optional.of(session));
+        when(uploadSessionStore.advance(UPLOAD_ID, 2 * CHUNK_SIZE, SIZE)).thenReturn(true);
+
+        service.appendChunk(UPLOAD_ID, 2 * CHUNK_SIZE, chunk);
+
+        verify(resumableUploadStorage).writeChunk(session, 3, 1024, chunk);
+        verify(uploadSessionStore).advance(UPLOAD_ID, 2 * CHUNK_SIZE, SIZE);
+    }
+
+    @Test
+    void rejectsAChunkAtAnotherOffsetWithTheCurrentOne() {
+        when(uploadSessionStore.find(UPLOAD_ID)).thenReturn(Optional.of(session(CHUNK_SIZE, false)));
+
+        assertThatThrownBy(() -> service.appendChunk(UPLOAD_ID, 0, chunk))
+                .isInstanceOfSatisfying(UploadOffsetConflictException.class, ex -> {
+                    assertThat(ex.getMessage()).isEqualTo(UPLOAD_OFFSET_MISMATCH);
+                    assertThat(ex.getOffset()).isEqualTo(CHUNK_SIZE);
+                });
+        verifyNoInteractions(resumableUploadStorage);
+        verify(uploadSessionStore, never()).advance(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void rejectsChunksOnceTheUploadIsComplete() {
+        when(uploadSessionStore.find(UPLOAD_ID)).thenReturn(Optional.of(session(SIZE, false)));
+
+        assertThatThrownBy(() -> service.appendChunk(UPLOAD_ID, SIZE, chunk))
+                .isInstanceOf(UploadOffsetConflictException.class);
+        verifyNoInteractions(resumableUploadStorage);
+    }
+
+    @Test
+    void rejectsChunksOnceTheUploadIsAssembled() {
+        when(uploadSessionStore.find(UPLOAD_ID)).thenReturn(Optional.of(session(0, true)));
+
+        assertThatThrownBy(() -> service.appendChunk(UPLOAD_ID, 0, chunk))
+                .isInstanceOf(UploadOffsetConflictException.class);
+        verifyNoInteractions(resumableUploadStorage);
+    }
+
+    @Test
+    void reportsTheOffsetOfAConcurrentAppendOfTheSameChunk() {
+        when(uploadSessionStore.find(UPLOAD_ID)).thenReturn(Optional.of(session(0, false)))
+                .thenReturn(Optional.of(session(CHUNK_SIZE, false)));
+        when(uploadSessionStore.advance(UPLOAD_ID, 0, CHUNK_SIZE)).thenReturn(false);
+
+        assertThatThrownBy(() -> service.appendChunk(UPLOAD_ID, 0, chunk))
+                .isInstanceOfSatisfying(UploadOffsetConflictException.class,
+                        ex -> assertThat(ex.getOffset()).isEqualTo(CHUNK_SIZE));
+    }
+
+    @Test
+    void reportsAnUploadWhoseMultipartUploadIsGoneAsNotFound() {
+        when(uploadSessionStore.find(UPLOAD_ID)).thenReturn(Optional.of(session(0, false)));
+        when(resumableUploadStorage.writeChunk(any(), anyInt(), anyLong(), any()))
+                .thenThrow(new NoSuchElementException());
+
+        assertThatThrownBy(() -> service.appendChunk(UPLOAD_ID, 0, chunk))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(uploadSessionStore, never()).advance(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void refusesToCompleteAnIncompleteUpload() {
+        when(uploadSessionStore.find(UPLOAD_ID)).thenReturn(Optional.of(session(CHUNK_SIZE, false)));
+
+        assertThatThrownBy(() -> service.completeVideo(UPLOAD_ID,
+                new MockMultipartFile("image1", "image.jpg", "image/jpeg", new byte[]{1})))
+                .isInstanceOfSatisfying(UploadOffsetConflictException.class, ex -> {
+                    assertThat(ex.getMessage()).isEqualTo(UPLOAD_INCOMPLETE);
+                    assertThat(ex.getOffset()).isEqualTo(CHUNK_SIZE);
+                });
+        verify(resumableUploadStorage, never()).assemble(any(), eq("video"));
+        verifyNoInteractions(videoService);
+    }
+
+    @Test
+    void rejectsChunkSizesBelowTheSmallestMultipartPart() {
+        assertThatThrownBy(() -> new ResumableUploadServiceImpl(mock(KycProcessInstanceRepository.class),
+                uploadSessionStore, resumableUploadStorage, videoService, mock(BookletValidationServiceImpl.class),
+                DataSize.ofMegabytes(4)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static UploadSession session(long offset, boolean assembled) {
+        return new UploadSession(UPLOAD_ID, "p-1", "VIDEO", "video.mp4", "video/mp4", SIZE, CHUNK_SIZE, offset,
+                "uploads/p-1/u-1", "mpu-1", assembled, LocalDateTime.now().plusHours(1));
+    }
+}
@@ -0,0 +1,88 @@
+package ir.ipaam.kycservices.benchmark;
+
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Empty PostgreSQL database for one benchmark trial.
+ * <p>
+ * By default a throwaway container of the major version the load test runs against. With
+ * {@code -Dkyc.benchmark.jdbc-url=jdbc:postgresql://host:5432/postgres} (plus {@code kyc.benchmark.username} and
+ * {@code kyc.benchmark.password}) a database is created on that server instead and dropped afterwards, e.g. to
+ * measure on production-like hardware or where Docker is not available.
+ */
+final class BenchmarkPostgres implements AutoCloseable {
+
+    private static final DockerImageName IMAGE = DockerImageName.parse("postgres:16");
+
+    private final PostgreSQLContainer<?> container;
+    private final String serverUrl;
+    private final String database;
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+
+    private BenchmarkPostgres(PostgreSQLContainer<?> container, String serverUrl, String database, String jdbcUrl,
+                              String username, String password) {
+        this.container = container;
+        this.serverUrl = serverUrl;
+        this.database = database;
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+    }
+
+    static BenchmarkPostgres start() {
+        String serverUrl = System.getProperty("kyc.benchmark.jdbc-url");
+        if (serverUrl == null || serverUrl.isBlank()) {
+            PostgreSQLContainer<?> container = new PostgreSQLContainer<>(IMAGE)
+                    .withDatabaseName("kyc_benchmark")
+                    .withUrlParam("reWriteBatchedInserts", "true");
+            container.start();
+            return new BenchmarkPostgres(container, null, null, container.getJdbcUrl(), container.getUsername(),
+                    container.getPassword());
+        }
+        String username = System.getProperty("kyc.benchmark.username", "postgres");
+        String password = System.getProperty("kyc.benchmark.password", "");
+        String database = "kyc_benchmark_" + Long.toString(System.nanoTime(), 36);
+        execute(serverUrl, username, password, "CREATE DATABASE " + database);
+        String base = serverUrl.substring(0, serverUrl.lastIndexOf('/') + 1);
+        return new BenchmarkPostgres(null, serverUrl, database,
+                base + database + "?reWriteBatchedInserts=true", username, password);
+    }
+
+    String jdbcUrl() {
+        return jdbcUrl;
+    }
+
+    String username() {
+        return username;
+    }
+
+    String password() {
+        return password;
+    }
+
+    @Override
+    public void close() {
+        if (container != null) {
+            container.stop();
+        } else {
+            execute(serverUrl, username, password, "DROP DATABASE IF EXISTS " + database + " WITH (FORCE)");
+        }
+    }
+
+    private static void execute(String url, String username, String password, String sql) {
+        try (Connection connection = DriverManager.getConnection(url, username, password);
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to run '" + sql + "' on " + url, ex);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package ir.ipaam.kycservices.benchmark;
+
+import com.thoughtworks.xstream.XStream;
+import ir.ipaam.kycservices.config.JdbcEventStoreConfig;
+import ir.ipaam.kycservices.domain.event.KycProcessStartedEvent;
+import ir.ipaam.kycservices.domain.event.KycStatusUpdatedEvent;
+import ir.ipaam.kycservices.domain.model.aggregate.KycProcessAggregate;
+import jakarta.persistence.EntityManagerFactory;
+import org.axonframework.common.jdbc.UnitOfWorkAwareConnectionProviderWrapper;
+import org.axonframework.common.jpa.SimpleEntityManagerProvider;
+import org.axonframework.common.transaction.TransactionManager;
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.EventStorageEngine;
+import org.axonframework.eventsourcing.eventstore.jdbc.JdbcEventStorageEngine;
+import org.axonframework.eventsourcing.eventstore.jpa.JpaEventStorageEngine;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.xml.XStreamSerializer;
+import org.axonframework.spring.jdbc.SpringDataSourceConnectionProvider;
+import org.axonframework.spring.messaging.unitofwork.SpringTransactionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Events per second the event storage engine appends and loads, against PostgreSQL.
+ * <p>
+ * {@code engine=jpa} is Axon's JPA engine on the Flyway schema, with payloads in large objects; {@code engine=jdbc}
+ * is the engine of the {@code jdbc-event-store} profile on the same schema after
+ * {@code db/eventstore/migrate-jpa-to-jdbc.sql}, with {@code BYTEA} payloads. {@link #append()} appends the
+ * {@value #EVENTS_PER_AGGREGATE} events of a new aggregate in one transaction, like a command that starts a process
+ * and walks it through its steps; {@link #load()} sources one of {@value #LOADED_AGGREGATES} aggregates of that size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class EventStorageEngineBenchmark {
+
+    private static final int EVENTS_PER_AGGREGATE = 10;
+    private static final int LOADED_AGGREGATES = 1000;
+    private static final String AGGREGATE_TYPE = KycProcessAggregate.class.getSimpleName();
+
+    @Param({"jpa", "jdbc"})
+    public String engine;
+
+    private BenchmarkPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private TransactionManager transactionManager;
+    private EventStorageEngine storageEngine;
+    private long aggregate;
+
+    @Setup(Level.Trial)
+    public void startEngine() {
+        postgres = BenchmarkPostgres.start();
+        // Command-line arguments, so they take precedence over application.properties on the test classpath.
+        context = new SpringApplicationBuilder(EventStoreConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=" + postgres.jdbcUrl(),
+                        "--spring.datasource.username=" + postgres.username(),
+                        "--spring.datasource.password=" + postgres.password(),
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        DataSource dataSource = context.getBean(DataSource.class);
+        transactionManager = new SpringTransactionManager(context.getBean(PlatformTransactionManager.class));
+        Serializer serializer = serializer();
+        storageEngine = switch (engine) {
+            case "jpa" -> JpaEventStorageEngine.builder()
+                    .entityManagerProvider(new SimpleEntityManagerProvider(SharedEntityManagerCreator
+                            .createSharedEntityManager(context.getBean(EntityManagerFactory.class))))
+                    .transactionManager(transactionManager)
+                    .snapshotSerializer(serializer)
+                    .eventSerializer(serializer)
+                    .build();
+            case "jdbc" -> {
+                new ResourceDatabasePopulator(new ClassPathResource("db/eventstore/migrate-jpa-to-jdbc.sql"))
+                        .execute(dataSource);
+                yield JdbcEventStorageEngine.builder()
+                        .connectionProvider(new UnitOfWorkAwareConnectionProviderWrapper(
+                                new SpringDataSourceConnectionProvider(dataSource)))
+                        .transactionManager(transactionManager)
+                        .snapshotSerializer(serializer)
+                        .eventSerializer(serializer)
+                        .schema(new JdbcEventStoreConfig().eventSchema())
+                        .dataType(byte[].class)
+                        .build();
+            }
+            default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+        };
+        for (int i = 0; i < LOADED_AGGREGATES; i++) {
+            append();
+        }
+        if (load() != EVENTS_PER_AGGREGATE) {
+            throw new IllegalStateException("The " + engine + " engine did not load the appended events back");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopEngine() {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_AGGREGATE)
+    public void append() {
+        List<DomainEventMessage<?>> events = journey(++aggregate);
+        transactionManager.executeInTransaction(() -> storageEngine.appendEvents(events));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_AGGREGATE)
+    public long load() {
+        String aggregateIdentifier = "bench-" + ThreadLocalRandom.current().nextInt(1, LOADED_AGGREGATES + 1);
+        return storageEngine.readEvents(aggregateIdentifier).asStream().count();
+    }
+
+    private static List<DomainEventMessage<?>> journey(long aggregate) {
+        String processInstanceId = "bench-" + aggregate;
+        String nationalCode = String.format("%010d", aggregate);
+        LocalDateTime at = LocalDateTime.now();
+        List<Object> payloads = List.of(
+                new KycProcessStartedEvent(processInstanceId, nationalCode, at),
+                new KycStatusUpdatedEvent(processInstanceId, nationalCode, "STARTED", "START", "PASSED", at),
+                new KycStatusUpdatedEvent(processInstanceId, nationalCode, "CONSENT_ACCEPTED", "CONSENT",
+                        "PASSED", at),
+                new KycStatusUpdatedEvent(processInstanceId, nationalCode, "CARD_STATUS_RECORDED",
+                        "CARD_STATUS", "PASSED", at),
+                new KycStatusUpdatedEvent(processInstanceId, nationalCode, "CARD_DOCUMENTS_UPLOADED",
+                        "CARD_DOCUMENTS", "PASSED", at),
+                new KycStatusUpdatedEvent(processInstanceId, nationalCode, "ID_PAGES_UPLOADED", "ID_PAGES",
+                        "PASSED", at),
+                new KycStatusUpdatedEvent(processInstanceId, nationalCode, "SELFIE_RECEIVED", "SELFIE",
+                        "PASSED", at),
+                new KycStatusUpdatedEvent(processInstanceId, nationalCode, "VIDEO_RECEIVED", "VIDEO",
+                        "PASSED", at),
+                new KycStatusUpdatedEvent(processInstanceId, nationalCode, "SIGNATURE_RECEIVED", "SIGNATURE",
+                        "PASSED", at),
+                new KycStatusUpdatedEvent(processInstanceId, nationalCode, "ADDRESS_COLLECTED", "ADDRESS",
+                        "PASSED", at));
+        List<DomainEventMessage<?>> events = new ArrayList<>(payloads.size());
+        for (int sequence = 0; sequence < payloads.size(); sequence++) {
+            events.add(new GenericDomainEventMessage<>(AGGREGATE_TYPE, processInstanceId, sequence,
+                    payloads.get(sequence)));
+        }
+        return events;
+    }
+
+    /**
+     * The XStream serializer the application falls back to, allowed to read the KYC events and Axon's metadata.
+     */
+    private static Serializer serializer() {
+        XStream xStream = new XStream();
+        xStream.allowTypesByWildcard(new String[]{"ir.ipaam.kycservices.**", "org.axonframework.**"});
+        return XStreamSerializer.builder().xStream(xStream).build();
+    }
+
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({
+            DataSourceAutoConfiguration.class,
+            FlywayAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class})
+    @EntityScan(basePackages = "org.axonframework.eventsourcing.eventstore.jpa")
+    static class EventStoreConfiguration {
+    }
+}
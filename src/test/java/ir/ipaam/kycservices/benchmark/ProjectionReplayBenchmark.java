@@ -0,0 +1,186 @@
+package ir.ipaam.kycservices.benchmark;
+
+import ir.ipaam.kycservices.domain.event.AddressAndZipCodeCollectedEvent;
+import ir.ipaam.kycservices.domain.event.ConsentAcceptedEvent;
+import ir.ipaam.kycservices.domain.event.EnglishPersonalInfoProvidedEvent;
+import ir.ipaam.kycservices.domain.event.KycProcessStartedEvent;
+import ir.ipaam.kycservices.domain.event.KycStatusUpdatedEvent;
+import ir.ipaam.kycservices.domain.event.RecordTrackingNumberEvent;
+import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
+import ir.ipaam.kycservices.infrastructure.handler.KycProcessEventHandler;
+import ir.ipaam.kycservices.infrastructure.projection.DocumentCatalog;
+import ir.ipaam.kycservices.infrastructure.projection.KycStatusVersions;
+import ir.ipaam.kycservices.infrastructure.repository.KycProcessInstanceRepository;
+import ir.ipaam.kycservices.infrastructure.service.MinioStorageService;
+import org.axonframework.queryhandling.QueryUpdateEmitter;
+import org.axonframework.queryhandling.SimpleQueryUpdateEmitter;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Events per second the projection handler applies during a replay, against PostgreSQL.
+ * <p>
+ * Each invocation replays {@value #PROCESSES} journeys of {@value #EVENTS_PER_PROCESS} replayable events through
+ * {@link KycProcessEventHandler}, with the read-model schema of the Flyway migrations and the JPA settings of
+ * {@code application.properties}. {@code eventsPerTransaction} is the batch size of the tracking processor (one
+ * transaction per batch) and {@code jdbcBatchSize} is {@code hibernate.jdbc.batch_size}; {@code 1}/{@code 0} is the
+ * configuration before projection writes were batched. Handlers that write to object storage are not replayed, as in
+ * a real replay.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ProjectionReplayBenchmark {
+
+    private static final int PROCESSES = 50;
+    private static final int EVENTS_PER_PROCESS = 10;
+
+    @Param({"1", "50"})
+    public int eventsPerTransaction;
+
+    @Param({"0", "50"})
+    public int jdbcBatchSize;
+
+    private BenchmarkPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private KycProcessEventHandler handler;
+    private TransactionTemplate transactionTemplate;
+    private long journey;
+    private List<Object> events;
+
+    @Setup(Level.Trial)
+    public void startProjection() {
+        postgres = BenchmarkPostgres.start();
+        // Command-line arguments, so they take precedence over application.properties on the test classpath.
+        context = new SpringApplicationBuilder(ReplayConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=" + postgres.jdbcUrl(),
+                        "--spring.datasource.username=" + postgres.username(),
+                        "--spring.datasource.password=" + postgres.password(),
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        handler = context.getBean(KycProcessEventHandler.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void nextEvents() {
+        events = new ArrayList<>(PROCESSES * EVENTS_PER_PROCESS);
+        for (int i = 0; i < PROCESSES; i++) {
+            addJourney(events, ++journey);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopProjection() {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROCESSES * EVENTS_PER_PROCESS)
+    public void replay() {
+        for (int from = 0; from < events.size(); from += eventsPerTransaction) {
+            List<Object> batch = events.subList(from, Math.min(from + eventsPerTransaction, events.size()));
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(this::handle));
+        }
+    }
+
+    private void handle(Object event) {
+        switch (event) {
+            case KycProcessStartedEvent e -> handler.on(e);
+            case ConsentAcceptedEvent e -> handler.on(e);
+            case KycStatusUpdatedEvent e -> handler.on(e);
+            case AddressAndZipCodeCollectedEvent e -> handler.on(e);
+            case RecordTrackingNumberEvent e -> handler.on(e);
+            case EnglishPersonalInfoProvidedEvent e -> handler.on(e);
+            default -> throw new IllegalArgumentException("Not a replayed event: " + event.getClass());
+        }
+    }
+
+    private static void addJourney(List<Object> events, long journey) {
+        String processInstanceId = "bench-" + journey;
+        String nationalCode = String.format("%010d", journey);
+        LocalDateTime at = LocalDateTime.now();
+        events.add(new KycProcessStartedEvent(processInstanceId, nationalCode, at));
+        events.add(new KycStatusUpdatedEvent(processInstanceId, nationalCode, "STARTED", "START", "PASSED", at));
+        events.add(new ConsentAcceptedEvent(processInstanceId, nationalCode, "v1", true, at));
+        events.add(new KycStatusUpdatedEvent(processInstanceId, nationalCode, "CARD_STATUS_RECORDED",
+                "CARD_STATUS", "PASSED", at));
+        events.add(new RecordTrackingNumberEvent(processInstanceId, "TRK-" + journey, at));
+        events.add(new KycStatusUpdatedEvent(processInstanceId, nationalCode, "SELFIE_RECEIVED", "SELFIE",
+                "PASSED", at));
+        events.add(new KycStatusUpdatedEvent(processInstanceId, nationalCode, "VIDEO_RECEIVED", "VIDEO",
+                "PASSED", at));
+        events.add(new AddressAndZipCodeCollectedEvent(processInstanceId, nationalCode, "1234567890",
+                "Tehran, Azadi St.", at));
+        events.add(new KycStatusUpdatedEvent(processInstanceId, nationalCode, "SIGNATURE_RECEIVED", "SIGNATURE",
+                "PASSED", at));
+        events.add(new EnglishPersonalInfoProvidedEvent(processInstanceId, nationalCode, "Ali", "Rezaei",
+                "ali.rezaei@example.com", "09120000000", at));
+    }
+
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({
+            DataSourceAutoConfiguration.class,
+            FlywayAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class})
+    @EntityScan(basePackageClasses = ProcessInstance.class)
+    @EnableJpaRepositories(basePackageClasses = KycProcessInstanceRepository.class)
+    @Import({KycProcessEventHandler.class, KycStatusVersions.class, DocumentCatalog.class})
+    static class ReplayConfiguration {
+
+        @Bean
+        MinioStorageService storageService() {
+            return Mockito.mock(MinioStorageService.class);
+        }
+
+        @Bean
+        QueryUpdateEmitter queryUpdateEmitter() {
+            return SimpleQueryUpdateEmitter.builder().build();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ir.ipaam.kycservices.infrastructure.eventstore;
+
+import ir.ipaam.kycservices.application.api.error.ProcessArchivedException;
+import ir.ipaam.kycservices.domain.command.StartKycProcessCommand;
+import ir.ipaam.kycservices.domain.command.UpdateKycStatusCommand;
+import org.axonframework.commandhandling.CommandBus;
+import org.axonframework.commandhandling.CommandMessage;
+import org.axonframework.commandhandling.GenericCommandMessage;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.axonframework.modelling.command.AggregateNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ArchivedAggregateGuardTest {
+
+    private EventArchiveService eventArchiveService;
+    private ArchivedAggregateGuard guard;
+    private UnitOfWork<CommandMessage<?>> unitOfWork;
+
+    @BeforeEach
+    void setUp() {
+        eventArchiveService = mock(EventArchiveService.class);
+        guard = new ArchivedAggregateGuard(mock(CommandBus.class), eventArchiveService);
+        unitOfWork = mock();
+    }
+
+    @Test
+    void rejectsStartOfArchivedProcessAtDispatch() {
+        when(eventArchiveService.isArchived("p-1")).thenReturn(true);
+        CommandMessage<?> start = GenericCommandMessage.asCommandMessage(new StartKycProcessCommand("p-1", "0012345679"));
+
+        assertThatThrownBy(() -> guard.handle(List.of(start)).apply(0, start))
+                .isInstanceOf(ProcessArchivedException.class);
+    }
+
+    @Test
+    void dispatchesOtherCommandsWithoutLookingUpTombstones() {
+        CommandMessage<?> update = updateCommand("p-1");
+
+        assertThat(guard.handle(List.of(update)).apply(0, update)).isSameAs(update);
+        verifyNoInteractions(eventArchiveService);
+    }
+
+    @Test
+    void handlesLiveAggregatesWithoutLookingUpTombstones() throws Exception {
+        InterceptorChain chain = mock(InterceptorChain.class);
+        when(chain.proceed()).thenReturn("done");
+
+        assertThat(guard.handle(unitOfWork, chain)).isEqualTo("done");
+        verifyNoInteractions(eventArchiveService);
+    }
+
+    @Test
+    void translatesMissingAggregateOfArchivedProcess() throws Exception {
+        InterceptorChain chain = mock(InterceptorChain.class);
+        when(chain.proceed()).thenThrow(new AggregateNotFoundException("p-1", "not found"));
+        when(eventArchiveService.isArchived("p-1")).thenReturn(true);
+
+        assertThatThrownBy(() -> guard.handle(unitOfWork, chain))
+                .isInstanceOf(ProcessArchivedException.class);
+    }
+
+    @Test
+    void rethrowsMissingAggregateThatWasNeverArchived() throws Exception {
+        InterceptorChain chain = mock(InterceptorChain.class);
+        AggregateNotFoundException notFound = new AggregateNotFoundException("p-2", "not found");
+        when(chain.proceed()).thenThrow(notFound);
+
+        assertThatThrownBy(() -> guard.handle(unitOfWork, chain))
+                .isSameAs(notFound);
+        verify(eventArchiveService).isArchived("p-2");
+    }
+
+    private static CommandMessage<?> updateCommand(String processInstanceId) {
+        return GenericCommandMessage.asCommandMessage(
+                new UpdateKycStatusCommand(processInstanceId, "SELFIE_RECEIVED", "SELFIE", "PASSED"));
+    }
+}
@@ -0,0 +1,65 @@
+package ir.ipaam.kycservices.infrastructure.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ir.ipaam.kycservices.domain.query.FindKycStatusQuery;
+import ir.ipaam.kycservices.domain.query.KycStatusUpdate;
+import org.axonframework.queryhandling.QueryUpdateEmitter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class KycStatusUpdateRelayTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private QueryUpdateEmitter queryUpdateEmitter;
+    private KycStatusUpdateRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        queryUpdateEmitter = mock(QueryUpdateEmitter.class);
+        relay = new KycStatusUpdateRelay(mock(DataSource.class), jdbcTemplate,
+                new ObjectMapper().findAndRegisterModules(), queryUpdateEmitter);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void emitsNotifiedUpdatesToTheSubscribersOfTheirNationalCode() {
+        KycStatusUpdate update = new KycStatusUpdate("p-1", "SELFIE_UPLOADED", "SELFIE_UPLOADED", "PASSED",
+                LocalDateTime.of(2025, 1, 2, 3, 4, 5), null);
+
+        relay.publish("0012345679", update);
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(eq("SELECT pg_notify(?, ?)"), any(RowCallbackHandler.class),
+                eq(KycStatusUpdateRelay.CHANNEL), payload.capture());
+        verifyNoInteractions(queryUpdateEmitter);
+
+        relay.deliver(payload.getValue());
+
+        ArgumentCaptor<Predicate<FindKycStatusQuery>> filter = ArgumentCaptor.forClass(Predicate.class);
+        verify(queryUpdateEmitter).emit(eq(FindKycStatusQuery.class), filter.capture(), eq(update));
+        assertThat(filter.getValue().test(new FindKycStatusQuery("0012345679"))).isTrue();
+        assertThat(filter.getValue().test(new FindKycStatusQuery("0012345680"))).isFalse();
+    }
+
+    @Test
+    void ignoresUnreadableNotifications() {
+        relay.deliver("not json");
+
+        verifyNoInteractions(queryUpdateEmitter);
+    }
+}
@@ -0,0 +1,153 @@
+package ir.ipaam.kycservices.infrastructure.projection;
+
+import ir.ipaam.kycservices.infrastructure.repository.CustomerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KycStatusVersionsTest {
+
+    private static final String NATIONAL_CODE = "0012345679";
+    private static final String OTHER_NATIONAL_CODE = "0023456781";
+
+    private CustomerRepository customerRepository;
+    private KycStatusVersions versions;
+
+    @BeforeEach
+    void setUp() {
+        customerRepository = mock(CustomerRepository.class);
+        when(customerRepository.findStatusVersion(NATIONAL_CODE)).thenReturn(Optional.of(7L))
+                .thenReturn(Optional.of(8L));
+        versions = new KycStatusVersions(customerRepository, 100, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void servesTheVersionOfTheLastLoadFromTheCache() {
+        assertThat(versions.tagForLoad(NATIONAL_CODE)).isEqualTo("\"7\"");
+
+        assertThat(versions.currentTag(NATIONAL_CODE)).isEqualTo("\"7\"");
+        verify(customerRepository, times(1)).findStatusVersion(NATIONAL_CODE);
+    }
+
+    @Test
+    void readsTheVersionOfUncachedNationalCodes() {
+        assertThat(versions.currentTag(NATIONAL_CODE)).isEqualTo("\"7\"");
+        assertThat(versions.currentTag(NATIONAL_CODE)).isEqualTo("\"7\"");
+
+        verify(customerRepository, times(1)).findStatusVersion(NATIONAL_CODE);
+    }
+
+    @Test
+    void hasNoTagForUnknownCustomers() {
+        when(customerRepository.findStatusVersion(OTHER_NATIONAL_CODE)).thenReturn(Optional.empty());
+
+        assertThat(versions.currentTag(OTHER_NATIONAL_CODE)).isNull();
+    }
+
+    @Test
+    void rereadsVersionsOlderThanTheTtl() {
+        versions = new KycStatusVersions(customerRepository, 100, Duration.ZERO);
+
+        versions.tagForLoad(NATIONAL_CODE);
+
+        assertThat(versions.currentTag(NATIONAL_CODE)).isEqualTo("\"8\"");
+    }
+
+    @Test
+    void bumpsAndInvalidatesAtOnceWithoutTransaction() {
+        versions.tagForLoad(NATIONAL_CODE);
+
+        versions.markChanged(NATIONAL_CODE);
+
+        verify(customerRepository).bumpStatusVersions(List.of(NATIONAL_CODE));
+        assertThat(versions.currentTag(NATIONAL_CODE)).isEqualTo("\"8\"");
+    }
+
+    @Test
+    void bumpsEveryChangeOfATransactionWithOneUpdateBeforeCommit() {
+        versions.tagForLoad(NATIONAL_CODE);
+        TransactionSynchronizationManager.initSynchronization();
+
+        versions.markChanged(NATIONAL_CODE);
+        versions.markChanged(OTHER_NATIONAL_CODE);
+        versions.markChanged(NATIONAL_CODE);
+
+        verify(customerRepository, never()).bumpStatusVersions(any());
+        assertThat(versions.currentTag(NATIONAL_CODE)).isEqualTo("\"7\"");
+
+        commit();
+
+        verify(customerRepository).bumpStatusVersions(Set.of(NATIONAL_CODE, OTHER_NATIONAL_CODE));
+        assertThat(versions.currentTag(NATIONAL_CODE)).isEqualTo("\"8\"");
+    }
+
+    @Test
+    void leavesVersionsAloneWhenTheTransactionRollsBack() {
+        versions.tagForLoad(NATIONAL_CODE);
+        TransactionSynchronizationManager.initSynchronization();
+
+        versions.markChanged(NATIONAL_CODE);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verify(customerRepository, never()).bumpStatusVersions(any());
+        assertThat(versions.currentTag(NATIONAL_CODE)).isEqualTo("\"7\"");
+        assertThat(TransactionSynchronizationManager.hasResource(versions)).isFalse();
+    }
+
+    @Test
+    void doesNotCacheAVersionReadWhileALocalChangeCommitted() {
+        when(customerRepository.findStatusVersion(NATIONAL_CODE)).thenAnswer(invocation -> {
+            versions.markChanged(NATIONAL_CODE);
+            return Optional.of(7L);
+        });
+
+        assertThat(versions.tagForLoad(NATIONAL_CODE)).isEqualTo("\"7\"");
+
+        versions.currentTag(NATIONAL_CODE);
+        verify(customerRepository, times(2)).findStatusVersion(NATIONAL_CODE);
+    }
+
+    @Test
+    void invalidateAllDropsEveryCachedVersion() {
+        versions.tagForLoad(NATIONAL_CODE);
+
+        versions.invalidateAll();
+
+        assertThat(versions.currentTag(NATIONAL_CODE)).isEqualTo("\"8\"");
+    }
+
+    private static void commit() {
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+}
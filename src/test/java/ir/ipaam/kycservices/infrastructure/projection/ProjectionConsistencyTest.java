@@ -0,0 +1,91 @@
+package ir.ipaam.kycservices.infrastructure.projection;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ir.ipaam.kycservices.infrastructure.handler.KycProcessEventHandler;
+import org.axonframework.eventhandling.GapAwareTrackingToken;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.eventsourcing.eventstore.EventStore;
+import org.axonframework.serialization.Serializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProjectionConsistencyTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ProjectionConsistency consistency;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        consistency = new ProjectionConsistency(mock(EventStore.class), jdbcTemplate, mock(Serializer.class),
+                new SimpleMeterRegistry(), Duration.ZERO);
+    }
+
+    @Test
+    void isProcessedOnceEverySegmentStoredATokenPastTheIndex() {
+        givenStoredTokens(GapAwareTrackingToken.newInstance(12, List.of()),
+                GapAwareTrackingToken.newInstance(10, List.of()));
+
+        assertThat(consistency.awaitProcessed(10)).isTrue();
+        assertThat(consistency.processedIndex()).isEqualTo(OptionalLong.of(10));
+    }
+
+    @Test
+    void waitsForTheSlowestSegment() {
+        givenStoredTokens(GapAwareTrackingToken.newInstance(12, List.of()),
+                GapAwareTrackingToken.newInstance(9, List.of()));
+
+        assertThat(consistency.awaitProcessed(10)).isFalse();
+    }
+
+    @Test
+    void waitsWhileTheEventIsAGapOfAToken() {
+        givenStoredTokens(GapAwareTrackingToken.newInstance(12, List.of(10L)));
+
+        assertThat(consistency.awaitProcessed(10)).isFalse();
+        assertThat(consistency.awaitProcessed(11)).isTrue();
+    }
+
+    @Test
+    void waitsForSegmentsWithoutToken() {
+        givenStoredTokens(GapAwareTrackingToken.newInstance(12, List.of()), null);
+
+        assertThat(consistency.awaitProcessed(10)).isFalse();
+        assertThat(consistency.processedIndex()).isEmpty();
+    }
+
+    @Test
+    void waitsWhileTheProcessorHasNoTokens() {
+        givenStoredTokens();
+
+        assertThat(consistency.awaitProcessed(0)).isFalse();
+    }
+
+    @Test
+    void handsOutTheGlobalIndexOfTheCommandsEvent() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT global_index"), eq(Long.class), eq("p-1"), eq(3L)))
+                .thenReturn(List.of(42L));
+
+        assertThat(consistency.globalIndexOf("p-1", 3)).isEqualTo(OptionalLong.of(42));
+    }
+
+    private void givenStoredTokens(TrackingToken... tokens) {
+        when(jdbcTemplate.query(startsWith("SELECT token_type"), ArgumentMatchers.<RowMapper<TrackingToken>>any(),
+                eq(KycProcessEventHandler.PROCESSING_GROUP)))
+                .thenReturn(Arrays.asList(tokens));
+    }
+}
@@ -0,0 +1,144 @@
+package ir.ipaam.kycservices.infrastructure.projection;
+
+import ir.ipaam.kycservices.infrastructure.eventstore.EventArchiveService;
+import ir.ipaam.kycservices.infrastructure.handler.KycProcessEventHandler;
+import org.axonframework.config.Configuration;
+import org.axonframework.config.DefaultConfigurer;
+import org.axonframework.config.ProcessingGroup;
+import org.axonframework.eventhandling.DisallowReplay;
+import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.eventhandling.StreamingEventProcessor;
+import org.axonframework.eventhandling.TrackingEventProcessorConfiguration;
+import org.axonframework.eventhandling.tokenstore.inmemory.InMemoryTokenStore;
+import org.axonframework.eventsourcing.eventstore.EventStore;
+import org.axonframework.eventsourcing.eventstore.inmemory.InMemoryEventStorageEngine;
+import org.axonframework.messaging.StreamableMessageSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProjectionRebuildServiceTest {
+
+    private final StorageHandler storageHandler = new StorageHandler();
+    private EventArchiveService eventArchiveService;
+    private Configuration configuration;
+    private EventStore eventStore;
+    private ProjectionRebuildService rebuildService;
+
+    @BeforeEach
+    void setUp() {
+        configuration = DefaultConfigurer.defaultConfiguration(false)
+                .configureEmbeddedEventStore(c -> new InMemoryEventStorageEngine())
+                .eventProcessing(processing -> processing
+                        // Not the default replay-until-head token, which would hide events published before the
+                        // processor's first claim from the @DisallowReplay handler.
+                        .registerTrackingEventProcessor(KycProcessEventHandler.PROCESSING_GROUP,
+                                Configuration::eventStore, c -> TrackingEventProcessorConfiguration
+                                        .forSingleThreadedProcessing()
+                                        .andInitialTrackingToken(StreamableMessageSource::createTailToken))
+                        .registerTokenStore(KycProcessEventHandler.PROCESSING_GROUP, c -> new InMemoryTokenStore())
+                        .registerEventHandler(c -> storageHandler))
+                .start();
+        eventStore = configuration.eventStore();
+        eventArchiveService = mock(EventArchiveService.class);
+        ProjectionRebuildLock rebuildLock = mock(ProjectionRebuildLock.class);
+        when(rebuildLock.tryAcquire()).thenReturn(true);
+        rebuildService = new ProjectionRebuildService(eventStore, eventArchiveService, mock(KycStatusVersions.class),
+                mock(DocumentCatalog.class), configuration.eventProcessingConfiguration(),
+                configuration.eventProcessingConfiguration().tokenStore(KycProcessEventHandler.PROCESSING_GROUP),
+                rebuildLock, mock(JdbcTemplate.class), mock(PlatformTransactionManager.class), 500,
+                Duration.ofSeconds(5), Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        configuration.shutdown();
+    }
+
+    @Test
+    void storesDocumentsAppendedDuringTheRebuild() {
+        publish("card-front");
+        await(() -> storageHandler.stored.size() == 1);
+        doAnswer(invocation -> {
+            publish("selfie");
+            return null;
+        }).when(eventArchiveService).forEachArchivedPayload(any());
+
+        rebuild();
+
+        await(() -> storageHandler.stored.size() == 2);
+        assertThat(storageHandler.stored).containsExactly("card-front", "selfie");
+    }
+
+    @Test
+    void storesDocumentsAppendedWhileTheProcessorWasPaused() {
+        publish("card-front");
+        await(() -> storageHandler.stored.size() == 1);
+        processor().shutDown();
+        publish("signature");
+
+        rebuild();
+
+        await(() -> storageHandler.stored.size() == 2);
+        assertThat(storageHandler.stored).containsExactly("card-front", "signature");
+    }
+
+    private void rebuild() {
+        assertThat(rebuildService.start()).isTrue();
+        await(() -> rebuildService.status().state() != ProjectionRebuildStatus.State.RUNNING);
+        assertThat(rebuildService.status().state()).isEqualTo(ProjectionRebuildStatus.State.COMPLETED);
+        assertThat(rebuildService.status().eventsProcessed()).isEqualTo(1);
+    }
+
+    private StreamingEventProcessor processor() {
+        return configuration.eventProcessingConfiguration()
+                .eventProcessor(KycProcessEventHandler.PROCESSING_GROUP, StreamingEventProcessor.class)
+                .orElseThrow();
+    }
+
+    private void publish(String name) {
+        eventStore.publish(GenericEventMessage.asEventMessage(new DocumentStored(name)));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("condition not met within 10s").isNegative();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    record DocumentStored(String name) {
+    }
+
+    @ProcessingGroup(KycProcessEventHandler.PROCESSING_GROUP)
+    static class StorageHandler {
+
+        private final List<String> stored = new CopyOnWriteArrayList<>();
+
+        @EventHandler
+        @DisallowReplay
+        void on(DocumentStored event) {
+            stored.add(event.name());
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package ir.ipaam.kycservices.infrastructure.repository;
+
+import ir.ipaam.kycservices.domain.model.entity.DocumentCatalogEntry;
+import ir.ipaam.kycservices.domain.model.entity.ProcessInstance;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query-plan regression test for the repository lookups on the hot path, against a throwaway Postgres migrated by
+ * Flyway.
+ * <p>
+ * Each repository method is executed once so Hibernate generates its real SQL, which is then prepared and explained
+ * with a generic plan and sequential scans disabled. A plan that still contains a {@code Seq Scan} means no index
+ * serves the lookup.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ir.ipaam.kycservices.infrastructure.repository.RepositoryQueryPlanTest$CapturingStatementInspector")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RepositoryQueryPlanTest {
+
+    private static final String STATEMENT_NAME = "kyc_query_plan_check";
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private AddressVerificationRepository addressRepository;
+    @Autowired
+    private ConsentRepository consentRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private DocumentCatalogRepository documentCatalogRepository;
+    @Autowired
+    private DocumentRepository documentRepository;
+    @Autowired
+    private KycProcessInstanceRepository processInstanceRepository;
+    @Autowired
+    private KycStepStatusRepository stepStatusRepository;
+    @Autowired
+    private ProcessDeploymentRepository deploymentRepository;
+
+    @Test
+    void findTopByProcess_CamundaInstanceIdOrderByIdDescUsesAnIndex() {
+        assertIndexed(() -> addressRepository.findTopByProcess_CamundaInstanceIdOrderByIdDesc("plan-check"));
+    }
+
+    @Test
+    void findByProcessAndAcceptedUsesAnIndex() {
+        ProcessInstance process = new ProcessInstance();
+        process.setId(0L);
+        assertIndexed(() -> consentRepository.findByProcessAndAccepted(process, true));
+    }
+
+    @Test
+    void findByNationalCodeUsesAnIndex() {
+        assertIndexed(() -> customerRepository.findByNationalCode("0000000000"));
+    }
+
+    @Test
+    void documentCatalogFindByIdUsesAnIndex() {
+        assertIndexed(() -> documentCatalogRepository.findById(new DocumentCatalogEntry.Key("0000000000", "PHOTO")));
+    }
+
+    @Test
+    void latestDocumentLookupsUseAnIndex() {
+        assertIndexed(() -> documentRepository.findTopByTypeAndProcess_Customer_NationalCodeOrderByIdDesc(
+                "PHOTO", "0000000000"));
+        assertIndexed(() -> documentRepository
+                .findTopByTypeAndProcess_Customer_NationalCodeAndVerifiedTrueOrderByIdDesc("PHOTO", "0000000000"));
+    }
+
+    @Test
+    void findTopByCustomer_NationalCodeOrderByStartedAtDescUsesAnIndex() {
+        assertIndexed(() -> processInstanceRepository.findTopByCustomer_NationalCodeOrderByStartedAtDesc("0000000000"));
+    }
+
+    @Test
+    void findByCamundaInstanceIdUsesAnIndex() {
+        assertIndexed(() -> processInstanceRepository.findByCamundaInstanceId("plan-check"));
+    }
+
+    @Test
+    void existsByProcess_CamundaInstanceIdAndStepNameIgnoreCaseUsesAnIndex() {
+        assertIndexed(() -> stepStatusRepository.existsByProcess_CamundaInstanceIdAndStepNameIgnoreCase(
+                "plan-check", "STARTED"));
+    }
+
+    @Test
+    void findByFileHashUsesAnIndex() {
+        assertIndexed(() -> deploymentRepository.findByFileHash("plan-check"));
+    }
+
+    private void assertIndexed(Supplier<?> query) {
+        List<String> statements = CapturingStatementInspector.capture(query);
+        assertThat(statements).as("SQL generated by the repository").isNotEmpty();
+        for (String sql : statements) {
+            assertThat(explain(sql)).as("plan of %s", sql).doesNotContain("Seq Scan");
+        }
+    }
+
+    /**
+     * Explains the generic plan of {@code sql}, i.e. the plan chosen without looking at parameter values, so the
+     * result does not depend on the dummy arguments or on the (empty) table statistics. Runs in the test's
+     * transaction, which is rolled back afterwards.
+     */
+    private String explain(String sql) {
+        StringBuilder prepared = new StringBuilder();
+        int parameters = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                prepared.append('$').append(++parameters);
+            } else {
+                prepared.append(c);
+            }
+        }
+        String arguments = parameters == 0
+                ? ""
+                : "(" + String.join(", ", Collections.nCopies(parameters, "NULL")) + ")";
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+        jdbcTemplate.execute("PREPARE " + STATEMENT_NAME + " AS " + prepared);
+        try {
+            return String.join("\n", jdbcTemplate.queryForList(
+                    "EXPLAIN EXECUTE " + STATEMENT_NAME + arguments, String.class));
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE " + STATEMENT_NAME);
+        }
+    }
+
+    /**
+     * Records the SQL Hibernate sends while {@link #capture(Supplier)} runs on the current thread; other statements
+     * pass through untouched.
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = CAPTURED.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+
+        static List<String> capture(Supplier<?> query) {
+            List<String> statements = new ArrayList<>();
+            CAPTURED.set(statements);
+            try {
+                query.get();
+            } finally {
+                CAPTURED.remove();
+            }
+            return statements;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ir.ipaam.kycservices.infrastructure.upload;
+
+import ir.ipaam.kycservices.infrastructure.upload.UploadSessionStore.UploadSession;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UploadSessionStoreTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UploadSessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        store = new UploadSessionStore(jdbcTemplate, Duration.ofHours(24));
+    }
+
+    @Test
+    void advancesOnlyFromTheExpectedOffset() {
+        when(jdbcTemplate.update(startsWith("UPDATE kyc_upload_session SET upload_offset"), eq(200L),
+                any(Timestamp.class), eq("u-1"), eq(100L))).thenReturn(1);
+
+        assertThat(store.advance("u-1", 100, 200)).isTrue();
+        assertThat(store.advance("u-1", 0, 200)).isFalse();
+    }
+
+    @Test
+    void expectsFullChunksUntilTheRemainder() {
+        assertThat(session(0).nextChunkLength()).isEqualTo(100);
+        assertThat(session(200).nextChunkLength()).isEqualTo(50);
+        assertThat(session(200).isComplete()).isFalse();
+        assertThat(session(250).isComplete()).isTrue();
+        assertThat(session(250).nextChunkLength()).isZero();
+    }
+
+    private static UploadSession session(long offset) {
+        return new UploadSession("u-1", "p-1", "VIDEO", "video.mp4", "video/mp4", 250, 100, offset,
+                "uploads/p-1/u-1", "mpu-1", false, LocalDateTime.now());
+    }
+}